@@ -0,0 +1,42 @@
+package com.travelplanner.Configuration;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+
+/**
+ * Configuration class for the production connection pool.
+ */
+@Configuration
+@Profile("prod")
+public class DataSourceConfig {
+
+    /**
+     * Sizes the Hikari pool from the request executor when no size is configured explicitly.
+     * Only a few connections per core can be busy at once, so the pool gets two per core plus one,
+     * but never more than there are request threads that could use them. The pool is kept at a
+     * fixed size so no connection is opened on the request path.
+     *
+     * @param environment the environment holding the pool and executor settings.
+     * @return a post processor adjusting the Hikari data source.
+     */
+    @Bean
+    static BeanPostProcessor hikariPoolSizer(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource dataSource
+                        && !environment.containsProperty("spring.datasource.hikari.maximum-pool-size")) {
+                    int requestThreads = environment.getProperty("server.tomcat.threads.max", Integer.class, 200);
+                    int poolSize = Math.min(requestThreads, Runtime.getRuntime().availableProcessors() * 2 + 1);
+                    dataSource.setMaximumPoolSize(poolSize);
+                    dataSource.setMinimumIdle(poolSize);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,25 @@
+package com.travelplanner.Configuration;
+
+import com.travelplanner.dictionary.V5__dictionary_encode_day_values;
+import org.flywaydb.core.api.migration.JavaMigration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration class for the Flyway migrations written in Java. Flyway finds the SQL migrations
+ * as resources, but a native image cannot scan the classpath for classes, so the Java ones are
+ * declared as beans, which Spring Boot and the shard migrations hand to Flyway.
+ */
+@Configuration
+public class MigrationConfig {
+
+    /**
+     * Creates the migration moving hotel and activity names into the day_value dictionary.
+     *
+     * @return the migration.
+     */
+    @Bean
+    JavaMigration dictionaryEncodeDayValues() {
+        return new V5__dictionary_encode_day_values();
+    }
+}
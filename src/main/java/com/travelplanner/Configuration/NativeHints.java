@@ -0,0 +1,73 @@
+package com.travelplanner.Configuration;
+
+import com.travelplanner.analytics.DestinationStats;
+import com.travelplanner.analytics.ValueCount;
+import com.travelplanner.dictionary.DayValueConverter;
+import com.travelplanner.history.TripVersion;
+import com.travelplanner.model.AccountJob;
+import com.travelplanner.model.AnalyticsCursor;
+import com.travelplanner.model.ArchivedTrip;
+import com.travelplanner.model.ClusterInvalidation;
+import com.travelplanner.model.CustomUserDetails;
+import com.travelplanner.model.DayValue;
+import com.travelplanner.model.DestinationTotals;
+import com.travelplanner.model.DestinationTrip;
+import com.travelplanner.model.DestinationValue;
+import com.travelplanner.model.TriPlan;
+import com.travelplanner.model.TripRevision;
+import com.travelplanner.model.User;
+import com.travelplanner.snapshot.TripSnapshot;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+
+/**
+ * Reflection, serialization and resource hints needed to run the application as a GraalVM native image.
+ */
+public class NativeHints implements RuntimeHintsRegistrar {
+
+    /**
+     * Registers the hints. The entities are read reflectively by Hibernate and Thymeleaf,
+     * and together with the security principal they are serialized into the JDBC session store.
+     *
+     * @param hints       the hints to contribute to.
+     * @param classLoader the class loader of the application.
+     */
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        for (Class<?> type : new Class<?>[]{TriPlan.class, User.class, CustomUserDetails.class}) {
+            hints.reflection().registerType(type, MemberCategory.values());
+            hints.serialization().registerType(TypeReference.of(type));
+        }
+        hints.reflection().registerType(DayValue.class, MemberCategory.values());
+        hints.reflection().registerType(DayValueConverter.class, MemberCategory.values());
+        hints.reflection().registerType(ArchivedTrip.class, MemberCategory.values());
+        hints.reflection().registerType(ClusterInvalidation.class, MemberCategory.values());
+        hints.reflection().registerType(TripRevision.class, MemberCategory.values());
+        hints.reflection().registerType(TripVersion.class, MemberCategory.values());
+        hints.reflection().registerType(TripSnapshot.class, MemberCategory.values());
+        hints.reflection().registerType(TripSnapshot.Day.class, MemberCategory.values());
+        hints.reflection().registerType(AccountJob.class, MemberCategory.values());
+        hints.reflection().registerType(TypeReference.of("com.travelplanner.account.AccountExport$Account"),
+                MemberCategory.values());
+        hints.reflection().registerType(TypeReference.of("com.travelplanner.account.AccountExport$Trip"),
+                MemberCategory.values());
+        for (Class<?> type : new Class<?>[]{DestinationTotals.class, DestinationValue.class, DestinationTrip.class,
+                AnalyticsCursor.class, DestinationStats.class, ValueCount.class}) {
+            hints.reflection().registerType(type, MemberCategory.values());
+        }
+        hints.serialization().registerType(LocalDate.class);
+        hints.serialization().registerType(TypeReference.of("java.time.Ser"));
+        hints.serialization().registerType(HashMap.class);
+
+        hints.resources().registerPattern("templates/*.html");
+        hints.resources().registerPattern("templates/fragments/*.html");
+        hints.resources().registerPattern("static/**");
+        hints.resources().registerPattern("db/migration/*.sql");
+        hints.resources().registerPattern("gazetteer/*.tsv");
+    }
+}
@@ -0,0 +1,116 @@
+package com.travelplanner.Configuration;
+
+import com.travelplanner.profiling.PhaseInterceptor;
+import com.travelplanner.profiling.RequestIdPropagation;
+import com.travelplanner.profiling.ProfilingInterceptor;
+import com.travelplanner.profiling.RequestProfilingFilter;
+import com.travelplanner.service.TriPlanService;
+import com.travelplanner.service.UserService;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.StaticMethodMatcherPointcut;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+import org.springframework.data.repository.Repository;
+import org.springframework.session.SessionRepository;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+/**
+ * Configuration class for the flight recorder events of requests. Every request gets an ID, and
+ * its controller handler, view rendering, service calls, repository queries and session store
+ * operations are recorded as events carrying it. Password hashing is recorded by the encoder
+ * declared in {@link WebSecurityConfig}. The events cost almost nothing unless a recording is running.
+ */
+@Configuration
+@ConditionalOnProperty(name = "travelplanner.profiling.enabled", matchIfMissing = true)
+public class ProfilingConfig implements WebMvcConfigurer {
+
+    /**
+     * Registers the filter giving requests their ID, ahead of every other filter.
+     *
+     * @return the filter registration.
+     */
+    @Bean
+    FilterRegistrationBean<RequestProfilingFilter> requestProfilingFilter() {
+        FilterRegistrationBean<RequestProfilingFilter> registration = new FilterRegistrationBean<>(new RequestProfilingFilter());
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    /**
+     * Records the public methods of the trip and user services.
+     *
+     * @return the advisor, applied by the auto-proxy creator.
+     */
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    static Advisor serviceCallProfilingAdvisor() {
+        return advisor(List.of(TriPlanService.class, UserService.class), PhaseInterceptor.Kind.SERVICE);
+    }
+
+    /**
+     * Records the repository queries with their row counts.
+     *
+     * @return the advisor, applied by the auto-proxy creator.
+     */
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    static Advisor repositoryQueryProfilingAdvisor() {
+        return advisor(List.of(Repository.class), PhaseInterceptor.Kind.REPOSITORY);
+    }
+
+    /**
+     * Records the loads and saves of HTTP sessions in the session store.
+     *
+     * @return the advisor, applied by the auto-proxy creator.
+     */
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    static Advisor sessionProfilingAdvisor() {
+        return advisor(List.of(SessionRepository.class), PhaseInterceptor.Kind.SESSION);
+    }
+
+    /**
+     * Records the controller handlers and the rendering of their views.
+     *
+     * @param registry the registry of handler interceptors.
+     */
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new ProfilingInterceptor());
+    }
+
+    /**
+     * Carries the request ID to the threads running asynchronous handlers.
+     *
+     * @param configurer the configurer of asynchronous request processing.
+     */
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.registerCallableInterceptors(new RequestIdPropagation());
+    }
+
+    /**
+     * Creates an advisor for the methods declared by some types, on the beans of those types.
+     */
+    private static Advisor advisor(List<Class<?>> types, PhaseInterceptor.Kind kind) {
+        StaticMethodMatcherPointcut pointcut = new StaticMethodMatcherPointcut() {
+            @Override
+            public boolean matches(Method method, Class<?> targetClass) {
+                return types.stream().anyMatch(type -> type.isAssignableFrom(method.getDeclaringClass()));
+            }
+        };
+        pointcut.setClassFilter(targetClass -> types.stream().anyMatch(type -> type.isAssignableFrom(targetClass)));
+        return new DefaultPointcutAdvisor(pointcut, new PhaseInterceptor(kind));
+    }
+}
@@ -0,0 +1,30 @@
+package com.travelplanner.Configuration;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.filter.Filter;
+import ch.qos.logback.core.spi.FilterReply;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Logback filter that lets through one event out of every N, so a burst of slow queries
+ * cannot flood the log.
+ */
+public class SamplingFilter extends Filter<ILoggingEvent> {
+
+    private final AtomicLong counter = new AtomicLong();
+    private int every = 1;
+
+    @Override
+    public FilterReply decide(ILoggingEvent event) {
+        return counter.getAndIncrement() % every == 0 ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+    public int getEvery() {
+        return every;
+    }
+
+    public void setEvery(int every) {
+        this.every = Math.max(1, every);
+    }
+}
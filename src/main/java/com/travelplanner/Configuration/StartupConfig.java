@@ -0,0 +1,29 @@
+package com.travelplanner.Configuration;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.util.Set;
+
+/**
+ * Configuration class for application startup.
+ */
+@Configuration
+public class StartupConfig {
+
+    /**
+     * Keeps the beans listed in "travelplanner.startup.eager-beans" eager when lazy
+     * initialization is enabled, so their first use is not paid by a user request.
+     *
+     * @param environment the environment holding the list of bean names.
+     * @return a filter excluding the listed beans from lazy initialization.
+     */
+    @Bean
+    static LazyInitializationExcludeFilter eagerBeansFilter(Environment environment) {
+        Set<String> eagerBeans = Set.of(environment.getProperty(
+                "travelplanner.startup.eager-beans", String[].class, new String[0]));
+        return (beanName, beanDefinition, beanType) -> eagerBeans.contains(beanName);
+    }
+}
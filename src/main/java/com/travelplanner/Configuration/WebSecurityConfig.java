@@ -1,6 +1,15 @@
 package com.travelplanner.Configuration;
 
+import com.travelplanner.bulkhead.BulkheadFilter;
+import com.travelplanner.bulkhead.BulkheadProperties;
+import com.travelplanner.bulkhead.Bulkheads;
+import com.travelplanner.profiling.ProfiledPasswordEncoder;
+import com.travelplanner.ratelimit.RateLimitFilter;
+import com.travelplanner.ratelimit.RateLimitProperties;
+import com.travelplanner.ratelimit.RateLimiter;
 import com.travelplanner.service.CustomUserDetailsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
@@ -9,13 +18,24 @@ import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
 /**
  * Configuration class for setting up web security.
  */
 @Configuration
+@EnableConfigurationProperties({RateLimitProperties.class, BulkheadProperties.class})
 public class WebSecurityConfig {
 
+    @Autowired
+    private RateLimiter rateLimiter;
+
+    @Autowired
+    private RateLimitProperties rateLimitProperties;
+
+    @Autowired
+    private Bulkheads bulkheads;
+
     /**
      * Bean for the UserDetailsService, which provides user-specific data.
      *
@@ -28,12 +48,13 @@ public class WebSecurityConfig {
 
     /**
      * Bean for the PasswordEncoder, which encrypts passwords using BCrypt.
+     * The time spent hashing is recorded as flight recorder events.
      *
-     * @return a BCryptPasswordEncoder instance.
+     * @return a BCryptPasswordEncoder instance, wrapped for profiling.
      */
     @Bean
     PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        return new ProfiledPasswordEncoder(new BCryptPasswordEncoder());
     }
 
     /**
@@ -54,6 +75,8 @@ public class WebSecurityConfig {
     /**
      * Configures the HttpSecurity for the application, setting up custom login and logout pages,
      * authentication providers, and access rules for different endpoints.
+     * Login, registration and write requests are rate limited before they reach authentication,
+     * and the login and feed requests that are allowed then wait for a slot of their bulkhead.
      *
      * @param http the HttpSecurity to modify
      * @return a configured SecurityFilterChain instance
@@ -62,9 +85,13 @@ public class WebSecurityConfig {
     @Bean
     SecurityFilterChain configure(HttpSecurity http) throws Exception {
         http.authenticationProvider(authenticationProvider());
+        http.addFilterBefore(new RateLimitFilter(rateLimiter, rateLimitProperties),
+                UsernamePasswordAuthenticationFilter.class);
+        http.addFilterBefore(new BulkheadFilter(bulkheads), UsernamePasswordAuthenticationFilter.class);
 
         http.authorizeHttpRequests(auth ->
-                        auth.requestMatchers("/users","/trip/save", "/trip/afterLogin", "/trip/myTrips").authenticated()
+                        auth.requestMatchers("/users","/trip/save", "/trip/afterLogin", "/trip/myTrips", "/user/account/**",
+                                "/user/edit/**", "/user/collab/**", "/user/history/**").authenticated()
                                 .anyRequest().permitAll()
                 )
                 .formLogin(login ->
@@ -0,0 +1,30 @@
+package com.travelplanner.Configuration;
+
+import com.travelplanner.collab.TripEditHandler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+/**
+ * Configuration class for the WebSocket endpoints.
+ */
+@Configuration
+@EnableWebSocket
+public class WebSocketConfig implements WebSocketConfigurer {
+
+    @Autowired
+    private TripEditHandler tripEditHandler;
+
+    /**
+     * Registers the collaborative trip editing endpoint. Only pages of the same origin may connect,
+     * and the logged-in user is taken from the HTTP session of the handshake.
+     *
+     * @param registry the registry of WebSocket handlers.
+     */
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(tripEditHandler, "/user/collab/*");
+    }
+}
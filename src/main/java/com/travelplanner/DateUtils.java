@@ -28,4 +28,19 @@ public class DateUtils {
 
         return dates;
     }
+
+    /**
+     * Gives the dates between the given start and end dates, inclusive of both, computed
+     * one at a time while they are iterated instead of being collected into a list.
+     *
+     * @param startDate The start date of the range (inclusive), or null
+     * @param endDate   The end date of the range (inclusive), or null
+     * @return The dates of the range, or no dates if a bound is missing
+     */
+    public static Iterable<LocalDate> dates(LocalDate startDate, LocalDate endDate) {
+        if (startDate == null || endDate == null) {
+            return List.of();
+        }
+        return () -> startDate.datesUntil(endDate.plusDays(1)).iterator();
+    }
 }
@@ -1,9 +1,14 @@
 package com.travelplanner;
 
+import com.travelplanner.Configuration.NativeHints;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@ImportRuntimeHints(NativeHints.class)
+@EnableScheduling
 public class TravelPlanner {
 
     public static void main(String[] args) {
@@ -0,0 +1,120 @@
+package com.travelplanner.account;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.travelplanner.model.TriPlan;
+import com.travelplanner.snapshot.TripSnapshot;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An export file being written, in JSON lines: the account on the first line, then one trip per
+ * line. A chunk is written at the length recorded by the last checkpoint, overwriting whatever an
+ * interrupted run wrote after it, and is on disk before the new length is recorded.
+ */
+class AccountExport implements Closeable {
+
+    /**
+     * The first line of an export.
+     *
+     * @param username   the username.
+     * @param email      the email address, or null if the user is gone.
+     * @param exportedAt the time the export was written.
+     */
+    record Account(String username, String email, Instant exportedAt) {
+    }
+
+    /**
+     * A trip of an export.
+     *
+     * @param id        the ID of the trip.
+     * @param name      the destination.
+     * @param startDate the first day.
+     * @param endDate   the last day.
+     * @param published whether the trip is published.
+     * @param archived  whether the trip is archived.
+     * @param days      the days with a hotel or an activity.
+     */
+    record Trip(Long id, String name, LocalDate startDate, LocalDate endDate, boolean published, boolean archived,
+                List<TripSnapshot.Day> days) {
+    }
+
+    private final FileChannel channel;
+    private final ObjectMapper objectMapper;
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+    /**
+     * Opens an export file at the length of the last checkpoint.
+     *
+     * @param file         the file.
+     * @param offset       the length of the file at the last checkpoint.
+     * @param objectMapper the mapper writing the lines.
+     * @throws IOException if the file cannot be opened.
+     */
+    AccountExport(Path file, long offset, ObjectMapper objectMapper) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        this.objectMapper = objectMapper;
+        channel.truncate(offset);
+        channel.position(offset);
+    }
+
+    /**
+     * Adds the account line.
+     *
+     * @param username the username.
+     * @param email    the email address, or null if the user is gone.
+     * @throws IOException if the line cannot be written.
+     */
+    void writeAccount(String username, String email) throws IOException {
+        write(new Account(username, email, Instant.now()));
+    }
+
+    /**
+     * Adds the line of a trip.
+     *
+     * @param triPlan the trip.
+     * @throws IOException if the line cannot be written.
+     */
+    void writeTrip(TriPlan triPlan) throws IOException {
+        TripSnapshot snapshot = TripSnapshot.of(triPlan);
+        List<TripSnapshot.Day> days = new ArrayList<>();
+        snapshot.getDetailedDays().forEach(days::add);
+        write(new Trip(snapshot.getId(), snapshot.getName(), snapshot.getStartDate(), snapshot.getEndDate(),
+                snapshot.isPublished(), triPlan.isArchived(), days));
+    }
+
+    private void write(Object line) throws IOException {
+        buffer.write(objectMapper.writeValueAsBytes(line));
+        buffer.write('\n');
+    }
+
+    /**
+     * Writes the lines added so far and forces them to disk.
+     *
+     * @return the length of the file, to record as the checkpoint.
+     * @throws IOException if the lines cannot be written.
+     */
+    long flush() throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap(buffer.toByteArray());
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        channel.force(false);
+        buffer.reset();
+        return channel.position();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
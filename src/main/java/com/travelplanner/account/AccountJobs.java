@@ -0,0 +1,455 @@
+package com.travelplanner.account;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.travelplanner.bulkhead.Bulkheads;
+import com.travelplanner.model.AccountJob;
+import com.travelplanner.model.TriPlan;
+import com.travelplanner.model.User;
+import com.travelplanner.repository.AccountJobRepository;
+import com.travelplanner.repository.UserRepository;
+import com.travelplanner.service.TriPlanService;
+import com.travelplanner.sharding.ShardRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Deletes and exports user accounts in the background. A job goes through the active trips of the
+ * user and then the archived ones, a fixed-size chunk per transaction on the user's shard, and
+ * records how far it got in the same transaction: deleting a user with thousands of trips never
+ * holds one long transaction, and a job interrupted by a crash resumes from its last chunk once
+ * its lease expires, on any instance. Exports are written as JSON lines to a file whose length is
+ * part of the checkpoint, so a resumed export overwrites the lines written after it.
+ * <p>
+ * The jobs run one at a time on a single thread and are throttled: after each chunk the thread
+ * pauses so that it works at most its duty cycle, and keeps pausing while requests are waiting in
+ * any bulkhead, so foreground requests are never queued behind a job.
+ */
+@Service
+public class AccountJobs {
+
+    private static final Logger log = LoggerFactory.getLogger(AccountJobs.class);
+
+    private static final Set<AccountJob.Status> ACTIVE = EnumSet.of(AccountJob.Status.PENDING, AccountJob.Status.RUNNING);
+    private static final Set<AccountJob.Status> FINISHED = EnumSet.of(AccountJob.Status.DONE, AccountJob.Status.FAILED);
+    private static final long BUSY_CHECK_MS = 50;
+
+    @Autowired
+    private AccountJobRepository accountJobRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TriPlanService triPlanService;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private Bulkheads bulkheads;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${travelplanner.account.chunk-size:200}")
+    private int chunkSize;
+
+    @Value("${travelplanner.account.duty-cycle:0.5}")
+    private double dutyCycle;
+
+    @Value("${travelplanner.account.max-pause:5s}")
+    private Duration maxPause;
+
+    @Value("${travelplanner.account.lease:5m}")
+    private Duration lease;
+
+    @Value("${travelplanner.account.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${travelplanner.account.export-dir:${java.io.tmpdir}/travelplanner-exports}")
+    private Path exportDirectory;
+
+    @Value("${travelplanner.account.retention:7d}")
+    private Duration retention;
+
+    private final ExecutorService runner = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "account-jobs");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean polling = new AtomicBoolean();
+
+    private final Counter deletedTrips;
+    private final Counter exportedTrips;
+    private final Counter completed;
+    private final Counter failed;
+    private final Timer chunkTimer;
+    private final Timer throttleTimer;
+
+    /**
+     * Creates the jobs.
+     *
+     * @param meterRegistry the registry for the job metrics.
+     */
+    public AccountJobs(MeterRegistry meterRegistry) {
+        this.deletedTrips = meterRegistry.counter("travelplanner.account.trips", "type", "delete");
+        this.exportedTrips = meterRegistry.counter("travelplanner.account.trips", "type", "export");
+        this.completed = meterRegistry.counter("travelplanner.account.jobs", "result", "done");
+        this.failed = meterRegistry.counter("travelplanner.account.jobs", "result", "failed");
+        this.chunkTimer = meterRegistry.timer("travelplanner.account.chunk");
+        this.throttleTimer = meterRegistry.timer("travelplanner.account.throttle");
+    }
+
+    /**
+     * Queues the export of a user's account, unless one is already queued or running.
+     *
+     * @param username the username of the user.
+     * @return the export job.
+     */
+    public AccountJob requestExport(String username) {
+        return shardRouter.onShard(shardRouter.shardOfUser(username), () -> transactionTemplate.execute(status -> {
+            List<AccountJob> running = accountJobRepository.findByUsernameAndTypeAndStatusIn(username,
+                    AccountJob.Type.EXPORT, ACTIVE);
+            if (!running.isEmpty()) {
+                return running.get(0);
+            }
+            return accountJobRepository.save(new AccountJob(AccountJob.Type.EXPORT, username,
+                    "export-" + UUID.randomUUID() + ".jsonl"));
+        }));
+    }
+
+    /**
+     * Gets the jobs of a user.
+     *
+     * @param username the username of the user.
+     * @return the jobs, the latest first.
+     */
+    public List<AccountJob> getJobs(String username) {
+        return shardRouter.onShard(shardRouter.shardOfUser(username),
+                () -> accountJobRepository.findByUsernameOrderByIdDesc(username));
+    }
+
+    /**
+     * Gets the file of a completed export of a user.
+     *
+     * @param username the username of the user.
+     * @param jobId the ID of the export job.
+     * @return the file, or null if the user has no such completed export.
+     */
+    public Path getExportFile(String username, Long jobId) {
+        AccountJob job = shardRouter.onShard(shardRouter.shardOfUser(username),
+                () -> accountJobRepository.findByIdAndUsername(jobId, username));
+        if (job == null || job.getType() != AccountJob.Type.EXPORT || job.getStatus() != AccountJob.Status.DONE) {
+            return null;
+        }
+        Path file = exportDirectory.resolve(job.getFileName());
+        return Files.isRegularFile(file) ? file : null;
+    }
+
+    /**
+     * Starts running the queued jobs on the job thread, unless it is already busy with them.
+     */
+    @Scheduled(fixedDelayString = "${travelplanner.account.poll-interval-ms:5000}")
+    public void poll() {
+        if (!polling.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            runner.execute(() -> {
+                try {
+                    runPendingJobs();
+                } catch (RuntimeException e) {
+                    log.warn("Could not run the account jobs", e);
+                } finally {
+                    polling.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            polling.set(false);
+        }
+    }
+
+    /**
+     * Runs the queued jobs of every shard, and those whose runner stopped making progress, one
+     * after the other on the calling thread.
+     *
+     * @return the number of jobs run.
+     */
+    public synchronized int runPendingJobs() {
+        int jobs = 0;
+        for (int shard = 0; shard < shardRouter.getShardCount() && !Thread.currentThread().isInterrupted(); shard++) {
+            AccountJob job;
+            while (!Thread.currentThread().isInterrupted() && (job = claimNext(shard)) != null) {
+                run(shard, job);
+                jobs++;
+            }
+        }
+        return jobs;
+    }
+
+    /**
+     * Takes the first runnable job of a shard, locking its row so only one runner takes it.
+     */
+    private AccountJob claimNext(int shard) {
+        return shardRouter.onShard(shard, () -> {
+            Instant staleBefore = Instant.now().minus(lease);
+            for (AccountJob candidate : accountJobRepository.findRunnable(AccountJob.Status.PENDING,
+                    AccountJob.Status.RUNNING, staleBefore, Pageable.ofSize(10))) {
+                AccountJob claimed = transactionTemplate.execute(status -> {
+                    AccountJob job = accountJobRepository.lockById(candidate.getId());
+                    if (job == null || !job.isRunnable(staleBefore)) {
+                        return null;
+                    }
+                    job.claim();
+                    return job;
+                });
+                if (claimed != null) {
+                    return claimed;
+                }
+            }
+            return null;
+        });
+    }
+
+    private void run(int shard, AccountJob claimed) {
+        if (claimed.getProcessed() > 0 || claimed.getPhase() != AccountJob.Phase.ACTIVE_TRIPS) {
+            log.info("Resuming the {} of account {} after {} trips", claimed.getType(), claimed.getUsername(),
+                    claimed.getProcessed());
+        }
+        AccountJob job = claimed;
+        try {
+            while (job.getStatus() == AccountJob.Status.RUNNING) {
+                AccountJob checkpoint = job;
+                long start = System.nanoTime();
+                job = shardRouter.onShard(shard, () -> chunkTimer.record(() -> transactionTemplate.execute(status -> {
+                    AccountJob stored = lock(checkpoint);
+                    if (stored == null) {
+                        return null;
+                    }
+                    if (stored.getType() == AccountJob.Type.DELETE) {
+                        deleteChunk(stored);
+                    } else {
+                        exportChunk(stored);
+                    }
+                    return stored;
+                })));
+                if (job == null) {
+                    log.info("The {} of account {} was taken over by another runner", checkpoint.getType(),
+                            checkpoint.getUsername());
+                    return;
+                }
+                if (job.getStatus() == AccountJob.Status.RUNNING && !throttle(System.nanoTime() - start)) {
+                    release(shard, job, null);
+                    return;
+                }
+            }
+            if (job.getType() == AccountJob.Type.DELETE) {
+                deleteExports(shard, job.getUsername());
+            }
+            completed.increment();
+            log.info("Completed the {} of account {}: {} trips", job.getType(), job.getUsername(), job.getProcessed());
+        } catch (RuntimeException e) {
+            log.warn("The {} of account {} failed on attempt {}", job.getType(), job.getUsername(), job.getAttempt(), e);
+            release(shard, job, e);
+        }
+    }
+
+    /**
+     * Reads the job of a runner again, locking its row, unless another runner took it meanwhile.
+     */
+    private AccountJob lock(AccountJob job) {
+        AccountJob stored = accountJobRepository.lockById(job.getId());
+        if (stored == null || stored.getAttempt() != job.getAttempt() || stored.getStatus() != AccountJob.Status.RUNNING) {
+            return null;
+        }
+        return stored;
+    }
+
+    /**
+     * Deletes the next chunk of trips in the current transaction, which records the checkpoint.
+     */
+    private void deleteChunk(AccountJob job) {
+        List<Long> ids = job.getPhase() == AccountJob.Phase.ACTIVE_TRIPS
+                ? triPlanService.deleteTripsOfUser(job.getUsername(), job.getLastTripId(), chunkSize)
+                : triPlanService.deleteArchivedTripsOfUser(job.getUsername(), job.getLastTripId(), chunkSize);
+        if (!ids.isEmpty()) {
+            job.advance(ids.get(ids.size() - 1), ids.size(), 0);
+            deletedTrips.increment(ids.size());
+        }
+        if (ids.size() < chunkSize) {
+            job.finishPhase();
+        }
+    }
+
+    /**
+     * Writes the next chunk of trips to the export file and forces it to disk; the current
+     * transaction then records the new length of the file as the checkpoint.
+     */
+    private void exportChunk(AccountJob job) {
+        Path file = exportDirectory.resolve(job.getFileName());
+        try {
+            Files.createDirectories(exportDirectory);
+            if (job.getFileOffset() > 0 && (!Files.exists(file) || Files.size(file) < job.getFileOffset())) {
+                log.warn("The export file of account {} is gone, starting the export over", job.getUsername());
+                job.restart();
+            }
+            List<TriPlan> trips = job.getPhase() == AccountJob.Phase.ACTIVE_TRIPS
+                    ? triPlanService.findTripsOfUser(job.getUsername(), job.getLastTripId(), chunkSize)
+                    : triPlanService.findArchivedTripsOfUser(job.getUsername(), job.getLastTripId(), chunkSize);
+            try (AccountExport export = new AccountExport(file, job.getFileOffset(), objectMapper)) {
+                if (job.getFileOffset() == 0) {
+                    User user = userRepository.findUserByUsername(job.getUsername());
+                    export.writeAccount(job.getUsername(), user != null ? user.getEmail() : null);
+                }
+                for (TriPlan trip : trips) {
+                    export.writeTrip(trip);
+                }
+                long length = export.flush();
+                job.advance(trips.isEmpty() ? job.getLastTripId() : trips.get(trips.size() - 1).getId(), trips.size(), length);
+            }
+            exportedTrips.increment(trips.size());
+            if (trips.size() < chunkSize) {
+                job.finishPhase();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Pauses after a chunk so the job thread works at most its duty cycle, then for as long as
+     * requests wait in a bulkhead, up to the maximum pause in all.
+     *
+     * @param chunkNanos the time the chunk took.
+     * @return false if the thread was interrupted.
+     */
+    private boolean throttle(long chunkNanos) {
+        long start = System.nanoTime();
+        long deadline = start + maxPause.toNanos();
+        try {
+            long pause = (long) (chunkNanos * (1 - dutyCycle) / dutyCycle);
+            Thread.sleep(TimeUnit.NANOSECONDS.toMillis(Math.min(pause, maxPause.toNanos())));
+            while (bulkheads.isBusy() && System.nanoTime() < deadline) {
+                Thread.sleep(BUSY_CHECK_MS);
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            throttleTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Hands a job back to be taken again from its last checkpoint, or gives it up after a failure
+     * on its last attempt.
+     */
+    private void release(int shard, AccountJob job, RuntimeException failure) {
+        try {
+            shardRouter.runOnShard(shard, () -> transactionTemplate.executeWithoutResult(status -> {
+                AccountJob stored = lock(job);
+                if (stored == null) {
+                    return;
+                }
+                if (failure != null && stored.getAttempt() >= maxAttempts) {
+                    stored.fail(failure.toString());
+                    failed.increment();
+                } else {
+                    stored.release();
+                }
+            }));
+        } catch (RuntimeException e) {
+            log.warn("Could not release the {} of account {}; it resumes once its lease expires", job.getType(),
+                    job.getUsername(), e);
+        }
+    }
+
+    /**
+     * Deletes the exports of a deleted account, with their files.
+     */
+    private void deleteExports(int shard, String username) {
+        List<AccountJob> exports = shardRouter.onShard(shard, () -> transactionTemplate.execute(status -> {
+            List<AccountJob> jobs = accountJobRepository.findByUsernameAndTypeAndStatusIn(username,
+                    AccountJob.Type.EXPORT, EnumSet.allOf(AccountJob.Status.class));
+            accountJobRepository.deleteAllInBatch(jobs);
+            return jobs;
+        }));
+        exports.forEach(this::deleteFile);
+    }
+
+    /**
+     * Deletes the jobs that finished longer ago than the retention, and the export files not
+     * modified for that long, whether or not their job is still there.
+     */
+    @Scheduled(fixedDelayString = "${travelplanner.account.cleanup-interval-ms:3600000}")
+    public void deleteExpiredJobs() {
+        Instant before = Instant.now().minus(retention);
+        for (int shard = 0; shard < shardRouter.getShardCount(); shard++) {
+            shardRouter.runOnShard(shard, () -> transactionTemplate.executeWithoutResult(status -> {
+                List<AccountJob> expired = accountJobRepository.findByStatusInAndUpdatedAtBefore(FINISHED, before);
+                accountJobRepository.deleteAllInBatch(expired);
+            }));
+        }
+        if (!Files.isDirectory(exportDirectory)) {
+            return;
+        }
+        FileTime oldest = FileTime.from(before);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(exportDirectory, "export-*.jsonl")) {
+            for (Path file : files) {
+                if (Files.getLastModifiedTime(file).compareTo(oldest) < 0) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Could not clean up the account exports", e);
+        }
+    }
+
+    private void deleteFile(AccountJob job) {
+        try {
+            Files.deleteIfExists(exportDirectory.resolve(job.getFileName()));
+        } catch (IOException e) {
+            log.warn("Could not delete the export file of account {}", job.getUsername(), e);
+        }
+    }
+
+    /**
+     * Stops the job thread. The running job resumes from its last checkpoint, here or on another instance.
+     */
+    @PreDestroy
+    public void shutdown() {
+        runner.shutdownNow();
+    }
+}
@@ -0,0 +1,79 @@
+package com.travelplanner.analytics;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Converts the contribution of a trip plan to and from its stored payload. The destination is
+ * stored in its own column; the hotels and activities are stored as text.
+ */
+class ContributionCodec {
+
+    private static final int FORMAT = 1;
+
+    /**
+     * Writes a contribution.
+     *
+     * @param contribution the contribution.
+     * @return the payload.
+     */
+    byte[] encode(TripContribution contribution) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(
+                16 + (contribution.hotels().size() + contribution.activities().size()) * 24);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT);
+            out.writeBoolean(contribution.published());
+            out.writeBoolean(contribution.copy());
+            out.writeInt((int) contribution.days());
+            writeValues(out, contribution.hotels());
+            writeValues(out, contribution.activities());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Reads a contribution.
+     *
+     * @param destination the destination stored with the payload.
+     * @param payload     the payload.
+     * @return the contribution.
+     */
+    TripContribution decode(String destination, byte[] payload) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            int format = in.readUnsignedByte();
+            if (format != FORMAT) {
+                throw new IllegalStateException("Unknown contribution format " + format);
+            }
+            boolean published = in.readBoolean();
+            boolean copy = in.readBoolean();
+            long days = in.readInt();
+            return new TripContribution(destination, published, copy, days, readValues(in), readValues(in));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeValues(DataOutputStream out, Set<String> values) throws IOException {
+        out.writeInt(values.size());
+        for (String value : values) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static Set<String> readValues(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        Set<String> values = new HashSet<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            values.add(in.readUTF());
+        }
+        return Set.copyOf(values);
+    }
+}
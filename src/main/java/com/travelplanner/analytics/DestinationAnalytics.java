@@ -0,0 +1,306 @@
+package com.travelplanner.analytics;
+
+import com.travelplanner.analytics.DestinationStore.RankedValue;
+import com.travelplanner.analytics.DestinationStore.Totals;
+import com.travelplanner.cluster.ChangeCursor;
+import com.travelplanner.history.TripField;
+import com.travelplanner.model.OutboxEvent;
+import com.travelplanner.repository.OutboxEventRepository;
+import com.travelplanner.sharding.ShardRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Per-destination statistics of the trip plans: published trips, average length, most common
+ * hotels and activities and saves. They are maintained incrementally: the outbox of every shard is
+ * tailed, and each changed trip has its previous contribution replaced by its current one in the
+ * summary tables of its shard, in the transaction that moves the shard's cursor. The statistics
+ * merged from all shards are kept in memory, refreshed for the destinations that changed and
+ * periodically for the changes applied by other instances, so reading them runs no query.
+ * A nightly job recounts every trip and recomputes the totals from the stored contributions, and
+ * corrects and reports any difference.
+ */
+@Service
+public class DestinationAnalytics {
+
+    private static final Logger log = LoggerFactory.getLogger(DestinationAnalytics.class);
+
+    private static final Comparator<DestinationStats> RANKING = Comparator
+            .comparingLong(DestinationStats::publishedTrips).reversed()
+            .thenComparing(Comparator.comparingLong(DestinationStats::saves).reversed())
+            .thenComparing(DestinationStats::destination);
+
+    private static final String[][] TRIP_ID_COLUMNS = {
+            {"destination_trip", "trip_id"}, {"tri_plan", "id"}, {"archived_trip", "id"}};
+
+    @Autowired
+    private DestinationStore destinationStore;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${travelplanner.analytics.batch-size:500}")
+    private int batchSize;
+
+    @Value("${travelplanner.analytics.gap-timeout:5s}")
+    private Duration gapTimeout;
+
+    @Value("${travelplanner.analytics.top-values:5}")
+    private int topValues;
+
+    private ChangeCursor[] positions;
+    private volatile Map<String, DestinationStats> rollups = Map.of();
+    private volatile List<DestinationStats> ranking = List.of();
+
+    private final Counter events;
+    private final Counter recounted;
+    private final Counter driftedTrips;
+    private final Counter driftedRows;
+    private final Timer verifyTimer;
+
+    /**
+     * Creates the analytics.
+     *
+     * @param meterRegistry the registry for the pipeline metrics.
+     */
+    public DestinationAnalytics(MeterRegistry meterRegistry) {
+        this.events = meterRegistry.counter("travelplanner.analytics.events");
+        this.recounted = meterRegistry.counter("travelplanner.analytics.recounted");
+        this.driftedTrips = meterRegistry.counter("travelplanner.analytics.drift", "table", "destination_trip");
+        this.driftedRows = meterRegistry.counter("travelplanner.analytics.drift", "table", "destination_stats");
+        this.verifyTimer = meterRegistry.timer("travelplanner.analytics.verify");
+        meterRegistry.gauge("travelplanner.analytics.destinations", this, analytics -> analytics.ranking.size());
+    }
+
+    /**
+     * Gets the destinations with the most published trips, then the most saves.
+     *
+     * @param limit the maximum number of destinations.
+     * @return the statistics of the destinations, from memory.
+     */
+    public List<DestinationStats> getTopDestinations(int limit) {
+        List<DestinationStats> all = ranking;
+        return all.subList(0, Math.min(limit, all.size()));
+    }
+
+    /**
+     * Gets the statistics of a destination.
+     *
+     * @param destination the name of the destination.
+     * @return the statistics, from memory, or null if no counted trip goes there.
+     */
+    public DestinationStats getStats(String destination) {
+        return destination == null ? null : rollups.get(TripContribution.key(destination));
+    }
+
+    /**
+     * Applies the trip changes recorded since the last poll on every shard, then refreshes the
+     * statistics of the destinations they changed. A shard that was never counted is built first.
+     */
+    @Scheduled(fixedDelayString = "${travelplanner.analytics.poll-interval-ms:1000}")
+    public synchronized void poll() {
+        if (positions == null) {
+            positions = new ChangeCursor[shardRouter.getShardCount()];
+        }
+        Set<String> touched = new HashSet<>();
+        for (int shard = 0; shard < positions.length; shard++) {
+            int current = shard;
+            try {
+                boolean built = shardRouter.onShard(shard, () -> consume(current, touched));
+                if (!built) {
+                    log.info("Building the destination statistics of shard {}", shard);
+                    verifyShard(shard, touched);
+                }
+            } catch (RuntimeException e) {
+                positions[shard] = null;
+                log.warn("Could not apply the trip changes of shard {} to the destination statistics", shard, e);
+            }
+        }
+        if (!touched.isEmpty()) {
+            refresh(touched);
+        }
+    }
+
+    /**
+     * Applies one batch of outbox events of the current shard in one transaction, holding the cursor row.
+     *
+     * @return false if the statistics of the shard were never built.
+     */
+    private boolean consume(int shard, Set<String> touched) {
+        return transactionTemplate.execute(status -> {
+            Long stored = destinationStore.lockCursor();
+            if (stored == null) {
+                return false;
+            }
+            ChangeCursor position = positions[shard];
+            if (position == null || position.getCursor() < stored) {
+                // Started, or another instance applied events meanwhile
+                position = new ChangeCursor(stored);
+                positions[shard] = position;
+            }
+            List<OutboxEvent> batch = outboxEventRepository.findByIdGreaterThanOrderByIdAsc(position.getCursor(),
+                    Pageable.ofSize(batchSize));
+            Set<Long> tripIds = new LinkedHashSet<>();
+            for (OutboxEvent event : batch) {
+                if (position.markDelivered(event.getId())) {
+                    tripIds.add(event.getTripId());
+                }
+            }
+            position.advance(gapTimeout);
+            if (!tripIds.isEmpty()) {
+                events.increment(batch.size());
+                recounted.increment(destinationStore.recount(tripIds, touched));
+            }
+            if (position.getCursor() > stored) {
+                destinationStore.moveCursor(position.getCursor());
+            }
+            return true;
+        });
+    }
+
+    /**
+     * Recounts every trip and recomputes the totals of every shard at night.
+     */
+    @Scheduled(cron = "${travelplanner.analytics.verify-cron:0 0 2 * * *}")
+    public void verifyNightly() {
+        verify();
+    }
+
+    /**
+     * Checks the statistics of every shard against the trip plans and corrects them. Every trip is
+     * counted again, which also picks up changes whose events were missed, and the totals are then
+     * recomputed from the stored contributions. Trips changed since the last poll show up as differences.
+     *
+     * @return the number of trip contributions and summary rows that were wrong.
+     */
+    public synchronized int verify() {
+        Set<String> touched = new HashSet<>();
+        int wrong = 0;
+        for (int shard = 0; shard < shardRouter.getShardCount(); shard++) {
+            wrong += verifyShard(shard, touched);
+        }
+        reloadRollups();
+        return wrong;
+    }
+
+    private int verifyShard(int shard, Set<String> touched) {
+        return shardRouter.onShard(shard, () -> verifyTimer.record(() -> {
+            long start = outboxEventRepository.findMaxId();
+            transactionTemplate.executeWithoutResult(status -> {
+                if (destinationStore.lockCursor() == null) {
+                    destinationStore.createCursor(start);
+                }
+            });
+            int trips = 0;
+            for (String[] idColumn : TRIP_ID_COLUMNS) {
+                long after = 0;
+                List<Long> ids;
+                do {
+                    ids = destinationStore.findTripIds(idColumn[0], idColumn[1], after, batchSize);
+                    if (ids.isEmpty()) {
+                        break;
+                    }
+                    List<Long> page = ids;
+                    trips += transactionTemplate.execute(status -> {
+                        destinationStore.lockCursor();
+                        return destinationStore.recount(page, touched);
+                    });
+                    after = ids.get(ids.size() - 1);
+                } while (ids.size() == batchSize);
+            }
+            int rows = transactionTemplate.execute(status -> {
+                destinationStore.lockCursor();
+                return destinationStore.reconcile();
+            });
+            driftedTrips.increment(trips);
+            driftedRows.increment(rows);
+            if (trips > 0 || rows > 0) {
+                log.warn("Corrected the destination statistics of shard {}: {} trip contributions and {} summary rows",
+                        shard, trips, rows);
+            }
+            return trips + rows;
+        }));
+    }
+
+    /**
+     * Reloads the statistics of every destination, including the changes applied by other instances.
+     */
+    @Scheduled(fixedDelayString = "${travelplanner.analytics.refresh-interval-ms:60000}")
+    public void reloadRollups() {
+        refresh(null);
+    }
+
+    /**
+     * Reads the totals and most common values of some destinations from every shard and replaces
+     * them in memory. Each shard gives its own most common values, which are merged.
+     *
+     * @param destinations the destinations to refresh, or null for all of them.
+     */
+    private synchronized void refresh(Collection<String> destinations) {
+        List<List<Totals>> totals = shardRouter.onAllShards(() -> destinationStore.readTotals(destinations));
+        List<List<RankedValue>> values = shardRouter.onAllShards(() -> destinationStore.readTopValues(destinations, topValues));
+        Map<String, Totals> merged = new HashMap<>();
+        for (List<Totals> shardTotals : totals) {
+            for (Totals row : shardTotals) {
+                merged.merge(TripContribution.key(row.destination()), row, (a, b) -> new Totals(a.destination(),
+                        a.publishedTrips() + b.publishedTrips(), a.totalDays() + b.totalDays(), a.saves() + b.saves()));
+            }
+        }
+        Map<String, Map<String, Long>> hotels = new HashMap<>();
+        Map<String, Map<String, Long>> activities = new HashMap<>();
+        for (List<RankedValue> shardValues : values) {
+            for (RankedValue value : shardValues) {
+                (value.kind() == TripField.HOTEL ? hotels : activities)
+                        .computeIfAbsent(TripContribution.key(value.destination()), key -> new HashMap<>())
+                        .merge(value.name(), value.trips(), Long::sum);
+            }
+        }
+        Map<String, DestinationStats> updated = destinations == null ? new HashMap<>() : new HashMap<>(rollups);
+        if (destinations != null) {
+            destinations.forEach(destination -> updated.remove(TripContribution.key(destination)));
+        }
+        merged.forEach((key, row) -> updated.put(key, new DestinationStats(row.destination(), row.publishedTrips(),
+                row.totalDays(), row.saves(), top(hotels.get(key)), top(activities.get(key)))));
+        List<DestinationStats> sorted = new ArrayList<>(updated.values());
+        sorted.sort(RANKING);
+        rollups = Map.copyOf(updated);
+        ranking = List.copyOf(sorted);
+    }
+
+    private List<ValueCount> top(Map<String, Long> counts) {
+        if (counts == null) {
+            return List.of();
+        }
+        return counts.entrySet().stream()
+                .map(entry -> new ValueCount(entry.getKey(), entry.getValue()))
+                .sorted(Comparator.comparingLong(ValueCount::trips).reversed().thenComparing(ValueCount::name))
+                .limit(topValues)
+                .toList();
+    }
+}
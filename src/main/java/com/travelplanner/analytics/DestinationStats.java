@@ -0,0 +1,26 @@
+package com.travelplanner.analytics;
+
+import java.util.List;
+
+/**
+ * The statistics of one destination, merged from every shard.
+ *
+ * @param destination    the name of the destination.
+ * @param publishedTrips the number of published trips to the destination.
+ * @param totalDays      the sum of the lengths of the published trips.
+ * @param saves          the number of trips to the destination saved from another user's trip.
+ * @param topHotels      the most common hotels of the published trips, the most common first.
+ * @param topActivities  the most common activities of the published trips, the most common first.
+ */
+public record DestinationStats(String destination, long publishedTrips, long totalDays, long saves,
+                               List<ValueCount> topHotels, List<ValueCount> topActivities) {
+
+    /**
+     * Gets the average length of the published trips.
+     *
+     * @return the average length in days, or 0 if there is no published trip.
+     */
+    public double getAverageTripLength() {
+        return publishedTrips == 0 ? 0 : (double) totalDays / publishedTrips;
+    }
+}
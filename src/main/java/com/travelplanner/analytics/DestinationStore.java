@@ -0,0 +1,368 @@
+package com.travelplanner.analytics;
+
+import com.travelplanner.archive.TripArchive;
+import com.travelplanner.geo.Gazetteer;
+import com.travelplanner.geo.Place;
+import com.travelplanner.history.TripField;
+import com.travelplanner.model.TriPlan;
+import com.travelplanner.repository.TriPlanRepository;
+import com.travelplanner.repository.TripRevisionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Reads and writes the destination statistics tables of the shard of the current thread. The
+ * writes are made in the caller's transaction, after {@link #lockCursor()}: the lock on the cursor
+ * row makes the writers of a shard, on any instance, take turns. Destinations and values are
+ * grouped ignoring case and accents, as the database compares them.
+ */
+@Component
+class DestinationStore {
+
+    private static final int CURSOR_ID = 1;
+    private static final int MAX_NAME_LENGTH = 255;
+
+    /**
+     * The totals of a destination on one shard.
+     *
+     * @param destination    the name of the destination.
+     * @param publishedTrips the number of published trips.
+     * @param totalDays      the sum of their lengths.
+     * @param saves          the number of saved copies.
+     */
+    record Totals(String destination, long publishedTrips, long totalDays, long saves) {
+    }
+
+    /**
+     * A hotel or activity of a destination with its number of trips on one shard.
+     *
+     * @param destination the name of the destination.
+     * @param kind        the field the value comes from.
+     * @param name        the hotel or activity.
+     * @param trips       the number of published trips using it.
+     */
+    record RankedValue(String destination, TripField kind, String name, long trips) {
+    }
+
+    private final ContributionCodec codec = new ContributionCodec();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TriPlanRepository triPlanRepository;
+
+    @Autowired
+    private TripRevisionRepository tripRevisionRepository;
+
+    @Autowired
+    private TripArchive tripArchive;
+
+    @Autowired
+    private Gazetteer gazetteer;
+
+    /**
+     * Locks the cursor row until the end of the transaction.
+     *
+     * @return the ID of the last applied outbox event, or null if the statistics were never built.
+     */
+    Long lockCursor() {
+        List<Long> ids = jdbcTemplate.queryForList("select last_event_id from analytics_cursor where id = ? for update",
+                Long.class, CURSOR_ID);
+        return ids.isEmpty() ? null : ids.get(0);
+    }
+
+    /**
+     * Creates the cursor row, unless another instance just did.
+     *
+     * @param lastEventId the ID of the last outbox event already counted.
+     */
+    void createCursor(long lastEventId) {
+        try {
+            jdbcTemplate.update("insert into analytics_cursor (id, last_event_id) values (?, ?)", CURSOR_ID, lastEventId);
+        } catch (DuplicateKeyException e) {
+            // Built by another instance at the same time
+        }
+    }
+
+    /**
+     * Moves the cursor row forward.
+     *
+     * @param lastEventId the ID of the last applied outbox event.
+     */
+    void moveCursor(long lastEventId) {
+        jdbcTemplate.update("update analytics_cursor set last_event_id = ? where id = ? and last_event_id < ?",
+                lastEventId, CURSOR_ID, lastEventId);
+    }
+
+    /**
+     * Finds the next IDs of trip plans in one of the tables that hold them.
+     *
+     * @param table  the table.
+     * @param column the column of the trip ID.
+     * @param after  the ID after which to start.
+     * @param limit  the maximum number of IDs.
+     * @return the IDs, in order.
+     */
+    List<Long> findTripIds(String table, String column, long after, int limit) {
+        return jdbcTemplate.queryForList("select " + column + " from " + table + " where " + column + " > ? order by "
+                + column + " limit ?", Long.class, after, limit);
+    }
+
+    /**
+     * Brings the statistics up to date with the current content of some trip plans. The stored
+     * contribution of each trip is compared with the one computed from the trip as it is now, and
+     * only the difference is applied, so counting a trip again changes nothing.
+     *
+     * @param tripIds the IDs of the trip plans, deleted ones included.
+     * @param touched receives the destinations whose statistics changed.
+     * @return the number of trip plans whose contribution changed.
+     */
+    int recount(Collection<Long> tripIds, Set<String> touched) {
+        Map<Long, TripContribution> before = new HashMap<>();
+        jdbcTemplate.query("select trip_id, destination, payload from destination_trip where trip_id in ("
+                        + placeholders(tripIds.size()) + ")",
+                rs -> {
+                    before.put(rs.getLong(1), codec.decode(rs.getString(2), rs.getBytes(3)));
+                }, tripIds.toArray());
+        Map<Long, TriPlan> triPlans = new HashMap<>();
+        triPlanRepository.findAllById(tripIds).forEach(triPlan -> triPlans.put(triPlan.getId(), triPlan));
+        for (Long id : tripIds) {
+            if (!triPlans.containsKey(id)) {
+                TriPlan archived = tripArchive.find(id);
+                if (archived != null) {
+                    triPlans.put(id, archived);
+                }
+            }
+        }
+        Set<Long> copies = new HashSet<>(tripRevisionRepository.findCopiedTripIds(tripIds));
+        Delta delta = new Delta();
+        int changed = 0;
+        for (Long id : tripIds) {
+            TriPlan triPlan = triPlans.get(id);
+            TripContribution after = triPlan == null ? null
+                    : TripContribution.of(triPlan, destinationOf(triPlan), copies.contains(id));
+            TripContribution old = before.get(id);
+            if (Objects.equals(old, after)) {
+                continue;
+            }
+            changed++;
+            if (old != null) {
+                delta.add(old, -1);
+            }
+            if (after != null) {
+                delta.add(after, 1);
+            }
+            if (after == null) {
+                jdbcTemplate.update("delete from destination_trip where trip_id = ?", id);
+            } else if (old == null) {
+                jdbcTemplate.update("insert into destination_trip (trip_id, destination, payload) values (?, ?, ?)",
+                        id, after.destination(), codec.encode(after));
+            } else {
+                jdbcTemplate.update("update destination_trip set destination = ?, payload = ? where trip_id = ?",
+                        after.destination(), codec.encode(after), id);
+            }
+        }
+        touched.addAll(delta.apply());
+        return changed;
+    }
+
+    /**
+     * Recomputes the totals and value counts from the stored contributions and corrects the rows
+     * that differ.
+     *
+     * @return the number of rows that were wrong.
+     */
+    int reconcile() {
+        Delta expected = new Delta();
+        jdbcTemplate.query("select destination, payload from destination_trip",
+                rs -> {
+                    expected.add(codec.decode(rs.getString(1), rs.getBytes(2)), 1);
+                });
+        for (Totals totals : readTotals(null)) {
+            expected.addTotals(totals.destination(), -totals.publishedTrips(), -totals.totalDays(), -totals.saves());
+        }
+        jdbcTemplate.query("select destination, kind, name, trips from destination_value",
+                rs -> {
+                    expected.addValue(rs.getString(1), TripField.valueOf(rs.getString(2)), rs.getString(3), -rs.getLong(4));
+                });
+        int wrong = expected.size();
+        expected.apply();
+        return wrong;
+    }
+
+    /**
+     * Reads the totals of some destinations.
+     *
+     * @param destinations the destinations, or null for all of them.
+     * @return the totals of the destinations that have some.
+     */
+    List<Totals> readTotals(Collection<String> destinations) {
+        String sql = "select destination, published_trips, total_days, saves from destination_stats";
+        Object[] args = new Object[0];
+        if (destinations != null) {
+            sql += " where destination in (" + placeholders(destinations.size()) + ")";
+            args = destinations.toArray();
+        }
+        return jdbcTemplate.query(sql, (rs, row) -> new Totals(rs.getString(1), rs.getLong(2), rs.getLong(3), rs.getLong(4)),
+                args);
+    }
+
+    /**
+     * Reads the most common hotels and activities of some destinations.
+     *
+     * @param destinations the destinations, or null for all of them.
+     * @param limit        the number of hotels, and of activities, to read per destination.
+     * @return the values, with their number of trips.
+     */
+    List<RankedValue> readTopValues(Collection<String> destinations, int limit) {
+        String where = "";
+        List<Object> args = new ArrayList<>();
+        if (destinations != null) {
+            where = " where destination in (" + placeholders(destinations.size()) + ")";
+            args.addAll(destinations);
+        }
+        args.add(limit);
+        return jdbcTemplate.query("select destination, kind, name, trips from (select destination, kind, name, trips,"
+                        + " row_number() over (partition by destination, kind order by trips desc, name) as ranking"
+                        + " from destination_value" + where + ") ranked where ranking <= ?",
+                (rs, row) -> new RankedValue(rs.getString(1), TripField.valueOf(rs.getString(2)), rs.getString(3),
+                        rs.getLong(4)),
+                args.toArray());
+    }
+
+    /**
+     * Gets the destination a trip plan is counted in: the place it resolves to, or else its name as entered.
+     */
+    private String destinationOf(TriPlan triPlan) {
+        Place place = gazetteer.resolve(triPlan.getName());
+        String destination = place != null ? place.name() : triPlan.getName();
+        if (destination == null || destination.isBlank()) {
+            return null;
+        }
+        destination = destination.strip();
+        return destination.length() > MAX_NAME_LENGTH ? destination.substring(0, MAX_NAME_LENGTH) : destination;
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private record ValueKey(String destination, TripField kind, String name) {
+    }
+
+    private static class Sums {
+        final String destination;
+        long publishedTrips;
+        long totalDays;
+        long saves;
+
+        Sums(String destination) {
+            this.destination = destination;
+        }
+
+        boolean isZero() {
+            return publishedTrips == 0 && totalDays == 0 && saves == 0;
+        }
+    }
+
+    private static class Count {
+        final String destination;
+        final String name;
+        long trips;
+
+        Count(String destination, String name) {
+            this.destination = destination;
+            this.name = name;
+        }
+    }
+
+    /**
+     * Changes to apply to the totals and value counts, summed so each row is written once.
+     */
+    private class Delta {
+
+        private final Map<String, Sums> totals = new HashMap<>();
+        private final Map<ValueKey, Count> values = new HashMap<>();
+
+        void add(TripContribution contribution, int sign) {
+            String destination = contribution.destination();
+            addTotals(destination, contribution.published() ? sign : 0, contribution.days() * sign,
+                    contribution.copy() ? sign : 0);
+            for (String hotel : contribution.hotels()) {
+                addValue(destination, TripField.HOTEL, hotel, sign);
+            }
+            for (String activity : contribution.activities()) {
+                addValue(destination, TripField.ACTIVITY, activity, sign);
+            }
+        }
+
+        void addTotals(String destination, long publishedTrips, long totalDays, long saves) {
+            Sums sums = totals.computeIfAbsent(TripContribution.key(destination), key -> new Sums(destination));
+            sums.publishedTrips += publishedTrips;
+            sums.totalDays += totalDays;
+            sums.saves += saves;
+        }
+
+        void addValue(String destination, TripField kind, String name, long trips) {
+            ValueKey key = new ValueKey(TripContribution.key(destination), kind, TripContribution.key(name));
+            values.computeIfAbsent(key, k -> new Count(destination, name)).trips += trips;
+        }
+
+        int size() {
+            totals.values().removeIf(Sums::isZero);
+            values.values().removeIf(count -> count.trips == 0);
+            return totals.size() + values.size();
+        }
+
+        /**
+         * Writes the changes, removing the rows that drop to zero.
+         *
+         * @return the destinations whose rows changed.
+         */
+        Set<String> apply() {
+            size();
+            Set<String> destinations = new HashSet<>();
+            for (Sums sums : totals.values()) {
+                destinations.add(sums.destination);
+                int updated = jdbcTemplate.update("update destination_stats set published_trips = published_trips + ?,"
+                                + " total_days = total_days + ?, saves = saves + ? where destination = ?",
+                        sums.publishedTrips, sums.totalDays, sums.saves, sums.destination);
+                if (updated == 0) {
+                    jdbcTemplate.update("insert into destination_stats (destination, published_trips, total_days, saves)"
+                            + " values (?, ?, ?, ?)", sums.destination, sums.publishedTrips, sums.totalDays, sums.saves);
+                }
+            }
+            values.forEach((key, count) -> {
+                destinations.add(count.destination);
+                int updated = jdbcTemplate.update("update destination_value set trips = trips + ?"
+                                + " where destination = ? and kind = ? and name = ?",
+                        count.trips, count.destination, key.kind().name(), count.name);
+                if (updated == 0) {
+                    jdbcTemplate.update("insert into destination_value (destination, kind, name, trips) values (?, ?, ?, ?)",
+                            count.destination, key.kind().name(), count.name, count.trips);
+                }
+            });
+            if (!destinations.isEmpty()) {
+                String in = placeholders(destinations.size());
+                Object[] args = destinations.toArray();
+                jdbcTemplate.update("delete from destination_stats where published_trips <= 0 and saves <= 0"
+                        + " and destination in (" + in + ")", args);
+                jdbcTemplate.update("delete from destination_value where trips <= 0 and destination in (" + in + ")", args);
+            }
+            return destinations;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.travelplanner.analytics;
+
+import com.travelplanner.model.TriPlan;
+
+import java.text.Normalizer;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * What one trip plan adds to the statistics of its destination. A published trip counts as a
+ * published trip, with its length and each distinct hotel and activity once; a trip saved from
+ * another user's trip counts as a save, whether it is published or not. Names that differ only by
+ * case, accents or spaces are the same hotel or activity.
+ *
+ * @param destination the destination the trip is counted in.
+ * @param published   whether the trip is published.
+ * @param copy        whether the trip was saved from another user's trip.
+ * @param days        the length of the trip in days, 0 if it is not published.
+ * @param hotels      the distinct hotels of the trip, empty if it is not published.
+ * @param activities  the distinct activities of the trip, empty if it is not published.
+ */
+record TripContribution(String destination, boolean published, boolean copy, long days,
+                        Set<String> hotels, Set<String> activities) {
+
+    /**
+     * Computes the contribution of a trip plan.
+     *
+     * @param triPlan     the trip plan.
+     * @param destination the destination the trip is counted in.
+     * @param copy        whether the trip was saved from another user's trip.
+     * @return the contribution, or null if the trip adds nothing to the statistics.
+     */
+    static TripContribution of(TriPlan triPlan, String destination, boolean copy) {
+        if (destination == null || !triPlan.isPublished() && !copy) {
+            return null;
+        }
+        if (!triPlan.isPublished()) {
+            return new TripContribution(destination, false, true, 0, Set.of(), Set.of());
+        }
+        Long length = triPlan.getTripLength();
+        return new TripContribution(destination, true, copy, length != null ? length : 0,
+                distinct(triPlan.getHotels().values()), distinct(triPlan.getActivities().values()));
+    }
+
+    /**
+     * Gets the key a destination or value is grouped by, ignoring case, accents and extra spaces.
+     *
+     * @param name the name.
+     * @return the key.
+     */
+    static String key(String name) {
+        String withoutAccents = Normalizer.normalize(name, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        return withoutAccents.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private static Set<String> distinct(Collection<String> values) {
+        Map<String, String> byKey = new HashMap<>();
+        for (String value : values) {
+            if (value != null && !value.isBlank()) {
+                byKey.merge(key(value), value.strip(), (first, second) -> first.compareTo(second) <= 0 ? first : second);
+            }
+        }
+        return Set.copyOf(byKey.values());
+    }
+}
@@ -0,0 +1,10 @@
+package com.travelplanner.analytics;
+
+/**
+ * A hotel or activity with the number of published trips using it.
+ *
+ * @param name  the name of the hotel or activity.
+ * @param trips the number of published trips using it on at least one day.
+ */
+public record ValueCount(String name, long trips) {
+}
@@ -0,0 +1,242 @@
+package com.travelplanner.archive;
+
+import com.travelplanner.model.ArchivedTrip;
+import com.travelplanner.model.OutboxEvent;
+import com.travelplanner.model.TriPlan;
+import com.travelplanner.model.TripEventType;
+import com.travelplanner.model.User;
+import com.travelplanner.repository.ArchivedTripRepository;
+import com.travelplanner.repository.OutboxEventRepository;
+import com.travelplanner.repository.TriPlanRepository;
+import com.travelplanner.repository.UserRepository;
+import com.travelplanner.service.TripChangedEvent;
+import com.travelplanner.sharding.ShardRouter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Archive tier of trip plans. Trips that ended long ago are moved out of the tri_plan table and its
+ * day tables into one compressed archived_trip row each, so the tables scanned by the feed and the
+ * trip lists only hold the active trips. Archived trips keep their id and can still be read by id;
+ * they are moved back to the active tables when they are edited. All methods except the job work
+ * on the shard of the current thread.
+ */
+@Service
+public class TripArchive {
+
+    private static final Logger log = LoggerFactory.getLogger(TripArchive.class);
+
+    private final TripArchiveCodec codec = new TripArchiveCodec();
+
+    @Autowired
+    private ArchivedTripRepository archivedTripRepository;
+
+    @Autowired
+    private TriPlanRepository triPlanRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${travelplanner.archive.after:365d}")
+    private Duration archiveAfter;
+
+    @Value("${travelplanner.archive.batch-size:200}")
+    private int batchSize;
+
+    /**
+     * Finds an archived trip plan.
+     *
+     * @param id the ID of the trip plan.
+     * @return the trip plan, marked as archived, or null if it is not archived.
+     */
+    public TriPlan find(Long id) {
+        ArchivedTrip archivedTrip = archivedTripRepository.findById(id).orElse(null);
+        if (archivedTrip == null) {
+            return null;
+        }
+        TriPlan triPlan = codec.decode(archivedTrip);
+        if (archivedTrip.getUserId() != null) {
+            userRepository.findById(archivedTrip.getUserId()).ifPresent(triPlan::setUser);
+        }
+        return triPlan;
+    }
+
+    /**
+     * Finds the archived trip plans of a user.
+     *
+     * @param username the username of the user.
+     * @return the trip plans, marked as archived.
+     */
+    public List<TriPlan> findByUser(String username) {
+        return decode(username, archivedTripRepository.findByUsername(username));
+    }
+
+    /**
+     * Finds a chunk of the archived trip plans of a user, in ID order.
+     *
+     * @param username the username of the user.
+     * @param afterId the ID of the last trip plan already read, or 0 to start from the first.
+     * @param limit the maximum number of trip plans.
+     * @return the trip plans, marked as archived.
+     */
+    public List<TriPlan> findByUser(String username, long afterId, int limit) {
+        return decode(username, archivedTripRepository.findByUsernameAndIdGreaterThanOrderByIdAsc(username, afterId,
+                Pageable.ofSize(limit)));
+    }
+
+    /**
+     * Finds the IDs of a chunk of the archived trip plans of a user, in ID order.
+     *
+     * @param username the username of the user.
+     * @param afterId the ID of the last trip plan already read, or 0 to start from the first.
+     * @param limit the maximum number of IDs.
+     * @return the IDs of the trip plans.
+     */
+    public List<Long> findIdsByUser(String username, long afterId, int limit) {
+        return archivedTripRepository.findIdsByUsernameAfter(username, afterId, Pageable.ofSize(limit));
+    }
+
+    private List<TriPlan> decode(String username, List<ArchivedTrip> archivedTrips) {
+        if (archivedTrips.isEmpty()) {
+            return List.of();
+        }
+        User user = userRepository.findUserByUsername(username);
+        List<TriPlan> triPlans = new ArrayList<>(archivedTrips.size());
+        for (ArchivedTrip archivedTrip : archivedTrips) {
+            TriPlan triPlan = codec.decode(archivedTrip);
+            if (user != null) {
+                triPlan.setUser(user);
+            }
+            triPlans.add(triPlan);
+        }
+        return triPlans;
+    }
+
+    /**
+     * Moves an archived trip plan back to the active tables, as it was archived. Only the trip row
+     * is written: the days are then stored by saving the trip plan in the same transaction.
+     *
+     * @param id the ID of the trip plan.
+     * @return true if the trip plan was archived and has been restored.
+     */
+    public boolean restore(Long id) {
+        ArchivedTrip archivedTrip = archivedTripRepository.findById(id).orElse(null);
+        if (archivedTrip == null) {
+            return false;
+        }
+        TriPlan triPlan = codec.decode(archivedTrip);
+        jdbcTemplate.update("insert into tri_plan (id, name, start_date, end_date, username, published, version,"
+                        + " latitude, longitude, user_user_id) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                triPlan.getId(), triPlan.getName(), triPlan.getStartDate(), triPlan.getEndDate(), triPlan.getUsername(),
+                triPlan.isPublished(), triPlan.getVersion(), triPlan.getLatitude(), triPlan.getLongitude(),
+                archivedTrip.getUserId());
+        archivedTripRepository.delete(archivedTrip);
+        return true;
+    }
+
+    /**
+     * Deletes an archived trip plan. Archived trips are a single row, so they are deleted at once
+     * rather than marked for the purger.
+     *
+     * @param id the ID of the trip plan.
+     * @param username the owner the trip plan must belong to, or null for any owner.
+     * @return true if the trip plan was archived and has been deleted.
+     */
+    public boolean delete(Long id, String username) {
+        return archivedTripRepository.findById(id)
+                .filter(archivedTrip -> username == null || username.equals(archivedTrip.getUsername()))
+                .map(archivedTrip -> {
+                    archivedTripRepository.delete(archivedTrip);
+                    return true;
+                }).orElse(false);
+    }
+
+    /**
+     * Deletes archived trip plans in one statement.
+     *
+     * @param ids the IDs of the trip plans.
+     */
+    public void delete(Collection<Long> ids) {
+        if (!ids.isEmpty()) {
+            archivedTripRepository.deleteAllByIdInBatch(ids);
+        }
+    }
+
+    /**
+     * Archives the trips of every shard that ended longer ago than the configured delay.
+     */
+    @Scheduled(cron = "${travelplanner.archive.cron:0 30 3 * * *}")
+    public void archiveCompletedTrips() {
+        int archived = archiveTripsEndedBefore(LocalDate.now().minusDays(archiveAfter.toDays()));
+        log.info("Archived {} completed trips", archived);
+    }
+
+    /**
+     * Archives the trips of every shard that ended before a date. Each batch is moved in its own
+     * transaction, with an outbox event per trip, so the job can stop at any point and resume later.
+     *
+     * @param date the date before which the trips ended.
+     * @return the number of trips archived.
+     */
+    public int archiveTripsEndedBefore(LocalDate date) {
+        int archived = 0;
+        for (int shard = 0; shard < shardRouter.getShardCount(); shard++) {
+            archived += shardRouter.onShard(shard, () -> {
+                int total = 0;
+                int moved;
+                do {
+                    moved = transactionTemplate.execute(status -> archiveBatch(date));
+                    total += moved;
+                } while (moved == batchSize);
+                return total;
+            });
+        }
+        return archived;
+    }
+
+    private int archiveBatch(LocalDate date) {
+        List<TriPlan> batch = triPlanRepository.findByEndDateBeforeOrderByIdAsc(date, Pageable.ofSize(batchSize));
+        List<ArchivedTrip> archivedTrips = new ArrayList<>(batch.size());
+        List<OutboxEvent> events = new ArrayList<>(batch.size());
+        for (TriPlan triPlan : batch) {
+            archivedTrips.add(codec.encode(triPlan));
+            events.add(new OutboxEvent(TripEventType.ARCHIVED, triPlan.getId(), triPlan.isPublished()));
+        }
+        archivedTripRepository.saveAll(archivedTrips);
+        triPlanRepository.deleteAll(batch);
+        outboxEventRepository.saveAll(events);
+        for (TriPlan triPlan : batch) {
+            eventPublisher.publishEvent(new TripChangedEvent(TripEventType.ARCHIVED, triPlan.getId(), null));
+        }
+        return batch.size();
+    }
+}
@@ -0,0 +1,117 @@
+package com.travelplanner.archive;
+
+import com.travelplanner.model.ArchivedTrip;
+import com.travelplanner.model.TriPlan;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Converts trip plans to and from their archived form. The name, the coordinates and the days
+ * are written as one gzip-compressed payload: the names are stored as text, so an archived trip
+ * does not depend on the day value dictionary.
+ */
+class TripArchiveCodec {
+
+    private static final int FORMAT = 1;
+
+    /**
+     * Creates the archived copy of a trip plan.
+     *
+     * @param triPlan the trip plan.
+     * @return the archived copy.
+     */
+    ArchivedTrip encode(TriPlan triPlan) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(bytes))) {
+            out.writeByte(FORMAT);
+            writeString(out, triPlan.getName());
+            writeDouble(out, triPlan.getLatitude());
+            writeDouble(out, triPlan.getLongitude());
+            writeDays(out, triPlan.getHotels());
+            writeDays(out, triPlan.getActivities());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new ArchivedTrip(triPlan, bytes.toByteArray());
+    }
+
+    /**
+     * Restores a trip plan from its archived copy. The owner is not set.
+     *
+     * @param archivedTrip the archived copy.
+     * @return the trip plan, marked as archived.
+     */
+    TriPlan decode(ArchivedTrip archivedTrip) {
+        TriPlan triPlan = new TriPlan();
+        triPlan.setId(archivedTrip.getId());
+        triPlan.setUsername(archivedTrip.getUsername());
+        triPlan.setPublished(archivedTrip.isPublished());
+        triPlan.setStartDate(archivedTrip.getStartDate());
+        triPlan.setEndDate(archivedTrip.getEndDate());
+        triPlan.setVersion(archivedTrip.getVersion());
+        triPlan.setArchived(true);
+        try (DataInputStream in = new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(archivedTrip.getPayload())))) {
+            int format = in.readUnsignedByte();
+            if (format != FORMAT) {
+                throw new IllegalStateException("Unknown archive format " + format + " of trip " + archivedTrip.getId());
+            }
+            triPlan.setName(readString(in));
+            triPlan.setLatitude(readDouble(in));
+            triPlan.setLongitude(readDouble(in));
+            triPlan.setHotels(readDays(in));
+            triPlan.setActivities(readDays(in));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return triPlan;
+    }
+
+    private static void writeDays(DataOutputStream out, Map<LocalDate, String> days) throws IOException {
+        out.writeInt(days.size());
+        for (Map.Entry<LocalDate, String> day : days.entrySet()) {
+            out.writeLong(day.getKey().toEpochDay());
+            writeString(out, day.getValue());
+        }
+    }
+
+    private static Map<LocalDate, String> readDays(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        Map<LocalDate, String> days = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            days.put(LocalDate.ofEpochDay(in.readLong()), readString(in));
+        }
+        return days;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeDouble(DataOutputStream out, Double value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeDouble(value);
+        }
+    }
+
+    private static Double readDouble(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readDouble() : null;
+    }
+}
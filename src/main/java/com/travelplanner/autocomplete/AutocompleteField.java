@@ -0,0 +1,10 @@
+package com.travelplanner.autocomplete;
+
+/**
+ * The trip fields that can be autocompleted.
+ */
+public enum AutocompleteField {
+    DESTINATION,
+    HOTEL,
+    ACTIVITY
+}
@@ -0,0 +1,152 @@
+package com.travelplanner.autocomplete;
+
+import com.travelplanner.geo.Gazetteer;
+import com.travelplanner.geo.Place;
+import com.travelplanner.model.TriPlan;
+import com.travelplanner.service.PublishedTripLoader;
+import com.travelplanner.service.TriPlanService;
+import com.travelplanner.service.TripChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Autocompletes destinations, hotels and activities from the values used in published trips,
+ * ranked by the number of published trips using them. Destinations also complete to the places
+ * of the gazetteer. Only published trips are used, so nothing private is ever suggested.
+ * The tries are loaded at startup and then updated on every committed trip change.
+ */
+@Service
+public class AutocompleteService {
+
+    private static final Logger log = LoggerFactory.getLogger(AutocompleteService.class);
+
+    private final Map<AutocompleteField, CompletionTrie> tries = new EnumMap<>(AutocompleteField.class);
+    private final Map<Long, Map<AutocompleteField, Set<String>>> termsByTrip = new HashMap<>();
+    private final PublishedTripLoader loader = new PublishedTripLoader("autocomplete tries", this);
+
+    @Autowired
+    private TriPlanService triPlanService;
+
+    @Autowired
+    private Gazetteer gazetteer;
+
+    /**
+     * Creates the service.
+     *
+     * @param maxCompletions the maximum number of completions returned for a prefix.
+     */
+    public AutocompleteService(@Value("${travelplanner.autocomplete.max-completions:8}") int maxCompletions) {
+        for (AutocompleteField field : AutocompleteField.values()) {
+            tries.put(field, new CompletionTrie(maxCompletions));
+        }
+    }
+
+    /**
+     * Loads the places of the gazetteer into the tries, then all published trips in the background.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadTerms() {
+        synchronized (this) {
+            for (Place place : gazetteer.getPlaces()) {
+                tries.get(AutocompleteField.DESTINATION).add(place.name(), 1);
+            }
+        }
+        loader.start(triPlanService, triPlan -> update(triPlan.getId(), triPlan, true),
+                () -> log.info("Loaded {} destinations, {} hotels and {} activities for autocompletion",
+                        tries.get(AutocompleteField.DESTINATION).size(), tries.get(AutocompleteField.HOTEL).size(),
+                        tries.get(AutocompleteField.ACTIVITY).size()));
+    }
+
+    /**
+     * Updates the tries after a trip change is committed.
+     *
+     * @param event the trip change.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTripChanged(TripChangedEvent event) {
+        update(event.tripId(), event.triPlan(), false);
+    }
+
+    /**
+     * Completes a prefix with the most used values of a field.
+     *
+     * @param field the field to complete.
+     * @param prefix the prefix typed so far.
+     * @param limit the maximum number of completions.
+     * @return the completions, most used first.
+     */
+    public List<String> complete(AutocompleteField field, String prefix, int limit) {
+        return tries.get(field).complete(prefix, limit);
+    }
+
+    /**
+     * Replaces the terms a trip contributes with those of its new state.
+     * The terms of each trip are remembered, so an edit only changes the counts of the values that changed.
+     *
+     * @param tripId the ID of the trip.
+     * @param triPlan the trip after the change, or null if it was deleted.
+     * @param onlyIfAbsent whether the trip was loaded, and should be left unchanged if it is already known
+     *                     or changed since the load started.
+     */
+    private synchronized void update(Long tripId, TriPlan triPlan, boolean onlyIfAbsent) {
+        if (onlyIfAbsent) {
+            if (termsByTrip.containsKey(tripId) || loader.isChangedSinceStart(tripId)) {
+                return;
+            }
+        } else {
+            loader.recordChange(tripId);
+        }
+        Map<AutocompleteField, Set<String>> newTerms = triPlan != null && triPlan.isPublished() ? termsOf(triPlan) : null;
+        Map<AutocompleteField, Set<String>> oldTerms = newTerms != null ? termsByTrip.put(tripId, newTerms) : termsByTrip.remove(tripId);
+        for (AutocompleteField field : AutocompleteField.values()) {
+            CompletionTrie trie = tries.get(field);
+            Set<String> removed = oldTerms != null ? oldTerms.get(field) : Set.of();
+            Set<String> added = newTerms != null ? newTerms.get(field) : Set.of();
+            for (String term : removed) {
+                if (!added.contains(term)) {
+                    trie.add(term, -1);
+                }
+            }
+            for (String term : added) {
+                if (!removed.contains(term)) {
+                    trie.add(term, 1);
+                }
+            }
+        }
+    }
+
+    private static Map<AutocompleteField, Set<String>> termsOf(TriPlan triPlan) {
+        Map<AutocompleteField, Set<String>> terms = new EnumMap<>(AutocompleteField.class);
+        terms.put(AutocompleteField.DESTINATION, distinct(triPlan.getName() != null ? List.of(triPlan.getName()) : List.of()));
+        terms.put(AutocompleteField.HOTEL, distinct(triPlan.getHotels().values()));
+        terms.put(AutocompleteField.ACTIVITY, distinct(triPlan.getActivities().values()));
+        return terms;
+    }
+
+    /**
+     * Collects the distinct values, comparing them the way the trie matches them.
+     */
+    private static Set<String> distinct(Collection<String> values) {
+        Set<String> distinct = new TreeSet<>((a, b) -> CompletionTrie.normalize(a).compareTo(CompletionTrie.normalize(b)));
+        for (String value : values) {
+            if (value != null && !value.isBlank()) {
+                distinct.add(value.trim());
+            }
+        }
+        return distinct;
+    }
+}
@@ -0,0 +1,299 @@
+package com.travelplanner.autocomplete;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Compressed prefix trie of terms with counts. Every node keeps the most frequent terms below it,
+ * so a completion only walks the prefix and never visits the subtree. Matching ignores case and
+ * accents; completions are returned as first spelled.
+ * Nodes with a single child and no term are merged into their child, and terms whose count
+ * drops to zero are removed, so the trie only grows with the vocabulary.
+ */
+public class CompletionTrie {
+
+    private static final Node[] NO_NODES = new Node[0];
+
+    private static final Comparator<Node> BY_FREQUENCY = (a, b) -> a.count != b.count
+            ? Integer.compare(b.count, a.count)
+            : a.term.compareTo(b.term);
+
+    private final int topK;
+    private final Node root = new Node("");
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private int size;
+
+    /**
+     * Creates an empty trie.
+     *
+     * @param topK the number of completions kept per node, which bounds the completions of a query.
+     */
+    public CompletionTrie(int topK) {
+        this.topK = topK;
+    }
+
+    /**
+     * Changes the count of a term, adding the term if needed and removing it when its count drops to zero.
+     *
+     * @param term  the term.
+     * @param delta the change of the count.
+     */
+    public void add(String term, int delta) {
+        String key = normalize(term);
+        if (key.isEmpty() || delta == 0) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            List<Node> path = delta > 0 ? insertPath(key) : findPath(key);
+            if (path == null) {
+                return;
+            }
+            Node node = path.get(path.size() - 1);
+            if (node.term == null) {
+                if (delta < 0) {
+                    return;
+                }
+                node.term = term.trim();
+                size++;
+            }
+            node.count += delta;
+            if (node.count <= 0) {
+                node.count = 0;
+                node.term = null;
+                size--;
+            }
+            for (int i = path.size() - 1; i >= 0; i--) {
+                Node current = path.get(i);
+                if (i > 0) {
+                    compact(path.get(i - 1), current);
+                }
+                updateTop(current);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Completes a prefix with the most frequent terms starting with it.
+     *
+     * @param prefix the prefix.
+     * @param limit  the maximum number of completions, at most the top K of the trie.
+     * @return the completions, most frequent first.
+     */
+    public List<String> complete(String prefix, int limit) {
+        String key = normalize(prefix);
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            int i = 0;
+            while (i < key.length()) {
+                Node child = child(node, key.charAt(i));
+                if (child == null) {
+                    return List.of();
+                }
+                int common = commonPrefix(child.label, key, i);
+                if (i + common < key.length() && common < child.label.length()) {
+                    return List.of();
+                }
+                node = child;
+                i += common;
+            }
+            List<String> completions = new ArrayList<>(Math.min(limit, node.top.length));
+            for (int j = 0; j < node.top.length && j < limit; j++) {
+                completions.add(node.top[j].term);
+            }
+            return completions;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the number of distinct terms.
+     *
+     * @return the number of terms.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Normalizes a term for matching: accents removed, spaces collapsed and lower case.
+     *
+     * @param term the term.
+     * @return the normalized term.
+     */
+    static String normalize(String term) {
+        String withoutAccents = Normalizer.normalize(term, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        return withoutAccents.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private List<Node> insertPath(String key) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int i = 0;
+        while (i < key.length()) {
+            int index = childIndex(node, key.charAt(i));
+            if (index < 0) {
+                Node leaf = new Node(key.substring(i));
+                insertChild(node, -index - 1, leaf);
+                path.add(leaf);
+                return path;
+            }
+            Node child = node.children[index];
+            int common = commonPrefix(child.label, key, i);
+            if (common < child.label.length()) {
+                Node middle = new Node(child.label.substring(0, common));
+                child.label = child.label.substring(common);
+                middle.children = new Node[]{child};
+                middle.top = child.top;
+                node.children[index] = middle;
+                child = middle;
+            }
+            node = child;
+            path.add(node);
+            i += common;
+        }
+        return path;
+    }
+
+    private List<Node> findPath(String key) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int i = 0;
+        while (i < key.length()) {
+            Node child = child(node, key.charAt(i));
+            if (child == null || commonPrefix(child.label, key, i) < child.label.length()) {
+                return null;
+            }
+            node = child;
+            path.add(node);
+            i += child.label.length();
+        }
+        return path;
+    }
+
+    /**
+     * Drops a node that holds nothing, and merges a node without a term into its only child.
+     */
+    private void compact(Node parent, Node node) {
+        if (node.term != null || node.children.length > 1) {
+            return;
+        }
+        int index = childIndex(parent, node.label.charAt(0));
+        if (node.children.length == 0) {
+            Node[] children = new Node[parent.children.length - 1];
+            System.arraycopy(parent.children, 0, children, 0, index);
+            System.arraycopy(parent.children, index + 1, children, index, children.length - index);
+            parent.children = children.length == 0 ? NO_NODES : children;
+        } else {
+            Node child = node.children[0];
+            child.label = node.label + child.label;
+            parent.children[index] = child;
+        }
+    }
+
+    private void updateTop(Node node) {
+        if (node.term == null && node.children.length == 1) {
+            node.top = node.children[0].top;
+            return;
+        }
+        // The top terms of every child are already sorted, so merge them.
+        Node[] top = new Node[topK];
+        int[] positions = new int[node.children.length];
+        Node own = node.term != null ? node : null;
+        int n = 0;
+        while (n < topK) {
+            Node best = own;
+            int bestChild = -1;
+            for (int i = 0; i < node.children.length; i++) {
+                Node[] childTop = node.children[i].top;
+                if (positions[i] < childTop.length && (best == null || BY_FREQUENCY.compare(childTop[positions[i]], best) < 0)) {
+                    best = childTop[positions[i]];
+                    bestChild = i;
+                }
+            }
+            if (best == null) {
+                break;
+            }
+            top[n++] = best;
+            if (bestChild < 0) {
+                own = null;
+            } else {
+                positions[bestChild]++;
+            }
+        }
+        node.top = n == topK ? top : Arrays.copyOf(top, n);
+    }
+
+    private static Node child(Node node, char first) {
+        int index = childIndex(node, first);
+        return index >= 0 ? node.children[index] : null;
+    }
+
+    /**
+     * Finds the child starting with a character by binary search.
+     *
+     * @return the index of the child, or -(insertion point) - 1 if there is none.
+     */
+    private static int childIndex(Node node, char first) {
+        int low = 0;
+        int high = node.children.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            char c = node.children[middle].label.charAt(0);
+            if (c < first) {
+                low = middle + 1;
+            } else if (c > first) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -low - 1;
+    }
+
+    private static void insertChild(Node node, int index, Node child) {
+        Node[] children = new Node[node.children.length + 1];
+        System.arraycopy(node.children, 0, children, 0, index);
+        children[index] = child;
+        System.arraycopy(node.children, index, children, index + 1, node.children.length - index);
+        node.children = children;
+    }
+
+    private static int commonPrefix(String label, String key, int offset) {
+        int n = Math.min(label.length(), key.length() - offset);
+        int i = 0;
+        while (i < n && label.charAt(i) == key.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static final class Node {
+        String label;
+        Node[] children = NO_NODES;
+        Node[] top = NO_NODES;
+        String term;
+        int count;
+
+        Node(String label) {
+            this.label = label;
+        }
+    }
+}
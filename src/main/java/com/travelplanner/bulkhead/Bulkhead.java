@@ -0,0 +1,168 @@
+package com.travelplanner.bulkhead;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.web.context.request.async.AsyncRequestTimeoutException;
+import org.springframework.web.context.request.async.WebAsyncTask;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The bounded resources of one route group, so a spike in one group cannot take the container
+ * threads the others need. Handlers are dispatched to the group's own threads with a bounded
+ * queue, and the request fails once it waited or ran longer than the timeout. Work that must stay
+ * on the container thread instead holds one of as many slots as there are threads, with as many
+ * callers waiting for one as the queue holds, for at most the timeout. A full bulkhead rejects
+ * requests at once rather than letting them pile up. Dispatched handlers take a slot too once on a
+ * thread of the bulkhead, so both kinds of work share one capacity.
+ */
+public class Bulkhead {
+
+    /**
+     * A slot held by the current thread, released when closed.
+     */
+    public interface Permit extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+
+    private final String name;
+    private final int threads;
+    private final long timeoutMillis;
+    private final ThreadPoolExecutor executor;
+    private final AsyncTaskExecutor taskExecutor;
+    private final Semaphore admitted;
+    private final Semaphore running;
+    private final Counter rejections;
+    private final Counter timeouts;
+    private final Timer waitTimer;
+
+    /**
+     * Creates a bulkhead and starts its threads.
+     *
+     * @param group         the route group of the bulkhead.
+     * @param pool          the sizes of the bulkhead.
+     * @param meterRegistry the registry for the saturation metrics.
+     */
+    public Bulkhead(BulkheadGroup group, BulkheadProperties.Pool pool, MeterRegistry meterRegistry) {
+        this.name = group.name().toLowerCase();
+        this.threads = pool.getThreads();
+        this.timeoutMillis = pool.getTimeout().toMillis();
+        AtomicInteger count = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(pool.getQueueCapacity()), runnable -> {
+                    Thread thread = new Thread(runnable, "bulkhead-" + name + "-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, (runnable, rejectedBy) -> {
+                    reject();
+                });
+        this.taskExecutor = new TaskExecutorAdapter(executor);
+        this.admitted = new Semaphore(threads + pool.getQueueCapacity());
+        this.running = new Semaphore(threads, true);
+
+        Tags tags = Tags.of("group", name);
+        this.rejections = meterRegistry.counter("travelplanner.bulkhead.rejected", tags);
+        this.timeouts = meterRegistry.counter("travelplanner.bulkhead.timeouts", tags);
+        this.waitTimer = meterRegistry.timer("travelplanner.bulkhead.wait", tags);
+        meterRegistry.gauge("travelplanner.bulkhead.threads", tags, this, bulkhead -> bulkhead.threads);
+        meterRegistry.gauge("travelplanner.bulkhead.active", tags, this, Bulkhead::getActive);
+        meterRegistry.gauge("travelplanner.bulkhead.queued", tags, this, Bulkhead::getQueued);
+    }
+
+    /**
+     * Dispatches the work of an asynchronous handler to the threads of the bulkhead. The task
+     * fails with a {@link RejectedExecutionException} when the queue is full, and with an
+     * {@link AsyncRequestTimeoutException} when it did not complete within the timeout.
+     *
+     * @param task the work of the handler.
+     * @param <T>  the result type of the handler.
+     * @return the task to return from the handler.
+     */
+    public <T> WebAsyncTask<T> dispatch(Callable<T> task) {
+        long submitted = System.nanoTime();
+        WebAsyncTask<T> asyncTask = new WebAsyncTask<>(timeoutMillis, taskExecutor, () -> {
+            try (Permit permit = acquire(submitted)) {
+                return task.call();
+            }
+        });
+        asyncTask.onTimeout(() -> {
+            timeouts.increment();
+            throw new AsyncRequestTimeoutException();
+        });
+        return asyncTask;
+    }
+
+    /**
+     * Takes a slot for work done on the current thread, waiting for one for at most the timeout.
+     *
+     * @return the slot, to close once the work is done.
+     * @throws RejectedExecutionException if too many callers wait already, or none was free in time.
+     */
+    public Permit enter() {
+        return acquire(System.nanoTime());
+    }
+
+    /**
+     * Gets the number of requests running in the bulkhead, on its threads or on container threads.
+     *
+     * @return the number of running requests.
+     */
+    public int getActive() {
+        return threads - running.availablePermits();
+    }
+
+    /**
+     * Gets the number of requests waiting for a thread or a slot of the bulkhead.
+     *
+     * @return the number of waiting requests.
+     */
+    public int getQueued() {
+        return executor.getQueue().size() + running.getQueueLength();
+    }
+
+    /**
+     * Stops the threads of the bulkhead.
+     */
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private Permit acquire(long start) {
+        if (!admitted.tryAcquire()) {
+            reject();
+        }
+        boolean acquired = false;
+        try {
+            acquired = running.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!acquired) {
+            admitted.release();
+            timeouts.increment();
+            throw new RejectedExecutionException("No slot of the " + name + " bulkhead was free in time");
+        }
+        waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return () -> {
+            running.release();
+            admitted.release();
+        };
+    }
+
+    private void reject() {
+        rejections.increment();
+        throw new RejectedExecutionException("The " + name + " bulkhead is full");
+    }
+}
@@ -0,0 +1,49 @@
+package com.travelplanner.bulkhead;
+
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+
+import java.io.IOException;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Answers with 503 Service Unavailable when the bulkhead of a handler is full.
+ */
+@ControllerAdvice
+public class BulkheadExceptionHandler {
+
+    private static final String RETRY_AFTER = "1";
+    private static final String MESSAGE = "The server is busy, please try again in a moment.";
+
+    /**
+     * Handles a handler rejected by its bulkhead.
+     *
+     * @param e the rejection.
+     * @return the 503 response.
+     */
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<String> handleRejected(RejectedExecutionException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER)
+                .contentType(MediaType.TEXT_PLAIN)
+                .body(MESSAGE);
+    }
+
+    /**
+     * Writes the 503 response of a request rejected before it reached a handler.
+     *
+     * @param response the response to write.
+     * @throws IOException if the response cannot be written.
+     */
+    static void writeUnavailable(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, RETRY_AFTER);
+        response.setContentType("text/plain;charset=UTF-8");
+        response.getWriter().write(MESSAGE);
+    }
+}
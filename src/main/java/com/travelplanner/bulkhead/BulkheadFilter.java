@@ -0,0 +1,49 @@
+package com.travelplanner.bulkhead;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Servlet filter that processes the requests of the endpoints matched by a {@link BulkheadGroup}
+ * while holding a slot of the group's bulkhead, and rejects them with 503 Service Unavailable
+ * when the bulkhead is full.
+ */
+public class BulkheadFilter extends OncePerRequestFilter {
+
+    private final Bulkheads bulkheads;
+
+    /**
+     * Creates the filter.
+     *
+     * @param bulkheads the bulkheads of the route groups.
+     */
+    public BulkheadFilter(Bulkheads bulkheads) {
+        this.bulkheads = bulkheads;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        BulkheadGroup group = BulkheadGroup.resolve(request);
+        if (group == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        Bulkhead.Permit permit;
+        try {
+            permit = bulkheads.get(group).enter();
+        } catch (RejectedExecutionException e) {
+            BulkheadExceptionHandler.writeUnavailable(response);
+            return;
+        }
+        try (permit) {
+            chain.doFilter(request, response);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.travelplanner.bulkhead;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+
+import static org.springframework.security.web.util.matcher.AntPathRequestMatcher.antMatcher;
+
+/**
+ * Groups of endpoints isolated from each other by their own bulkhead. Endpoints whose work is done
+ * by the handler are dispatched to the threads of their group by the controllers. The endpoints
+ * matched here do their work outside of the handler, on the container thread, and hold a slot of
+ * their group for the whole request instead.
+ */
+public enum BulkheadGroup {
+
+    /**
+     * Public reads: the feed, trip details and destination statistics. Their pages are rendered
+     * while the trips are read.
+     */
+    FEED(new OrRequestMatcher(
+            antMatcher(HttpMethod.GET, "/trip/list"),
+            antMatcher(HttpMethod.GET, "/trip/stats"),
+            antMatcher(HttpMethod.GET, "/user/presentDetails/*"))),
+
+    /**
+     * Endpoints that modify trips.
+     */
+    WRITE(null),
+
+    /**
+     * Login and registration, which hash the password with BCrypt. The form login is processed by
+     * the security filter chain.
+     */
+    AUTH(antMatcher(HttpMethod.POST, "/login"));
+
+    private final RequestMatcher matcher;
+
+    BulkheadGroup(RequestMatcher matcher) {
+        this.matcher = matcher;
+    }
+
+    /**
+     * Finds the group a request holds a slot of while it is processed.
+     *
+     * @param request the incoming request.
+     * @return the matching group, or null if the request is not processed on a slot.
+     */
+    public static BulkheadGroup resolve(HttpServletRequest request) {
+        for (BulkheadGroup group : values()) {
+            if (group.matcher != null && group.matcher.matches(request)) {
+                return group;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,97 @@
+package com.travelplanner.bulkhead;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Sizes of the bulkhead of each route group, bound from the "travelplanner.bulkhead" properties.
+ */
+@ConfigurationProperties(prefix = "travelplanner.bulkhead")
+public class BulkheadProperties {
+
+    private Pool feed = new Pool(64, 64, Duration.ofSeconds(10));
+    private Pool write = new Pool(16, 64, Duration.ofSeconds(10));
+    private Pool auth = new Pool(4, 32, Duration.ofSeconds(5));
+
+    /**
+     * Gets the bulkhead configured for a route group.
+     *
+     * @param group the route group.
+     * @return the sizes of the bulkhead of the group.
+     */
+    public Pool getPool(BulkheadGroup group) {
+        return switch (group) {
+            case FEED -> feed;
+            case WRITE -> write;
+            case AUTH -> auth;
+        };
+    }
+
+    public Pool getFeed() {
+        return feed;
+    }
+
+    public void setFeed(Pool feed) {
+        this.feed = feed;
+    }
+
+    public Pool getWrite() {
+        return write;
+    }
+
+    public void setWrite(Pool write) {
+        this.write = write;
+    }
+
+    public Pool getAuth() {
+        return auth;
+    }
+
+    public void setAuth(Pool auth) {
+        this.auth = auth;
+    }
+
+    /**
+     * Number of requests a bulkhead runs at once, number that may wait for them, and how long they may take.
+     */
+    public static class Pool {
+
+        private int threads;
+        private int queueCapacity;
+        private Duration timeout;
+
+        public Pool() {
+        }
+
+        public Pool(int threads, int queueCapacity, Duration timeout) {
+            this.threads = threads;
+            this.queueCapacity = queueCapacity;
+            this.timeout = timeout;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
+    }
+}
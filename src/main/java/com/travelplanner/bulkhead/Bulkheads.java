@@ -0,0 +1,67 @@
+package com.travelplanner.bulkhead;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.WebAsyncTask;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * The bulkheads of all route groups.
+ */
+@Component
+public class Bulkheads {
+
+    private final Map<BulkheadGroup, Bulkhead> bulkheads = new EnumMap<>(BulkheadGroup.class);
+
+    /**
+     * Creates the bulkhead of every route group.
+     *
+     * @param properties    the configured sizes.
+     * @param meterRegistry the registry for the saturation metrics.
+     */
+    public Bulkheads(BulkheadProperties properties, MeterRegistry meterRegistry) {
+        for (BulkheadGroup group : BulkheadGroup.values()) {
+            bulkheads.put(group, new Bulkhead(group, properties.getPool(group), meterRegistry));
+        }
+    }
+
+    /**
+     * Gets the bulkhead of a route group.
+     *
+     * @param group the route group.
+     * @return the bulkhead of the group.
+     */
+    public Bulkhead get(BulkheadGroup group) {
+        return bulkheads.get(group);
+    }
+
+    /**
+     * Checks whether requests are waiting in any bulkhead, meaning the application is saturated.
+     *
+     * @return true if some request waits for a thread or a slot.
+     */
+    public boolean isBusy() {
+        return bulkheads.values().stream().anyMatch(bulkhead -> bulkhead.getQueued() > 0);
+    }
+
+    /**
+     * Dispatches the work of an asynchronous handler to the bulkhead of its route group.
+     *
+     * @param group the route group of the handler.
+     * @param task  the work of the handler.
+     * @param <T>   the result type of the handler.
+     * @return the task to return from the handler.
+     */
+    public <T> WebAsyncTask<T> dispatch(BulkheadGroup group, Callable<T> task) {
+        return get(group).dispatch(task);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        bulkheads.values().forEach(Bulkhead::shutdown);
+    }
+}
@@ -0,0 +1,66 @@
+package com.travelplanner.cluster;
+
+import java.time.Duration;
+import java.util.TreeSet;
+
+/**
+ * Read position in a change table written by several transactions, such as the outbox of a shard
+ * or the cluster invalidation table. Identity values are assigned at insert but become visible at
+ * commit, so a lower id can appear after a higher one. Rows above the cursor are remembered until
+ * the ids below them have shown up, or until the gap is older than the timeout. Not thread-safe.
+ */
+public class ChangeCursor {
+
+    private long cursor;
+    private final TreeSet<Long> delivered = new TreeSet<>();
+    private long gapSince;
+
+    /**
+     * Creates a cursor.
+     *
+     * @param cursor the id of the last row already read.
+     */
+    public ChangeCursor(long cursor) {
+        this.cursor = cursor;
+    }
+
+    /**
+     * Gets the position to read from.
+     *
+     * @return the id after which rows may not have been read yet.
+     */
+    public long getCursor() {
+        return cursor;
+    }
+
+    /**
+     * Records a row as read.
+     *
+     * @param id the id of the row.
+     * @return true if the row was not read before.
+     */
+    public boolean markDelivered(long id) {
+        return id > cursor && delivered.add(id);
+    }
+
+    /**
+     * Moves the cursor past the rows read without a gap below them, or past a gap that is too old.
+     *
+     * @param gapTimeout the time after which a missing id is considered rolled back.
+     */
+    public void advance(Duration gapTimeout) {
+        delivered.headSet(cursor, true).clear();
+        while (!delivered.isEmpty() && delivered.first() == cursor + 1) {
+            cursor = delivered.pollFirst();
+        }
+        if (delivered.isEmpty()) {
+            gapSince = 0;
+        } else if (gapSince == 0) {
+            gapSince = System.nanoTime();
+        } else if (System.nanoTime() - gapSince > gapTimeout.toNanos()) {
+            cursor = delivered.first() - 1;
+            gapSince = 0;
+            advance(gapTimeout);
+        }
+    }
+}
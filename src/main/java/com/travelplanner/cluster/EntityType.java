@@ -0,0 +1,9 @@
+package com.travelplanner.cluster;
+
+/**
+ * Kinds of entities that instances may hold in memory and invalidate across the cluster.
+ */
+public enum EntityType {
+    TRIP,
+    USER
+}
@@ -0,0 +1,17 @@
+package com.travelplanner.cluster;
+
+/**
+ * Message telling the other instances that an entity changed. It only identifies the entity:
+ * receivers read the new state themselves if they need it.
+ *
+ * @param type    the kind of entity.
+ * @param id      the ID of the entity.
+ * @param version the version of the entity after the change, or {@link #DELETED} if it is gone.
+ */
+public record Invalidation(EntityType type, long id, long version) {
+
+    /**
+     * Version of an entity that was deleted, or that no longer has a version.
+     */
+    public static final long DELETED = -1;
+}
@@ -0,0 +1,171 @@
+package com.travelplanner.cluster;
+
+import com.travelplanner.model.TriPlan;
+import com.travelplanner.model.TripEventType;
+import com.travelplanner.service.TriPlanService;
+import com.travelplanner.service.TripChangedEvent;
+import com.travelplanner.service.UserChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Keeps the in-memory state of several application instances coherent. Committed trip and user
+ * changes are sent to the other instances as compact invalidations (entity type, id and version)
+ * through the configured {@link InvalidationTransport}. Received invalidations are published again
+ * as local {@link TripChangedEvent}s and {@link UserChangedEvent}s marked as remote, so the
+ * components that cache trips or users update themselves the same way for local and remote changes.
+ * Without a transport, the bus does nothing.
+ */
+@Component
+public class InvalidationBus {
+
+    private static final int MAX_TRACKED_VERSIONS = 10_000;
+
+    private final String instanceId = UUID.randomUUID().toString();
+
+    /**
+     * Latest version received per entity, to drop repeated and outdated messages.
+     */
+    private final Map<String, Long> receivedVersions = new LinkedHashMap<>(1024, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > MAX_TRACKED_VERSIONS;
+        }
+    };
+
+    @Autowired(required = false)
+    private InvalidationTransport transport;
+
+    @Autowired
+    private TriPlanService triPlanService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private final Counter sent;
+    private final Counter received;
+    private final Counter dropped;
+
+    /**
+     * Creates the bus.
+     *
+     * @param meterRegistry the registry for the message counters.
+     */
+    public InvalidationBus(MeterRegistry meterRegistry) {
+        this.sent = meterRegistry.counter("travelplanner.cluster.invalidations", "direction", "sent");
+        this.received = meterRegistry.counter("travelplanner.cluster.invalidations", "direction", "received");
+        this.dropped = meterRegistry.counter("travelplanner.cluster.invalidations", "direction", "dropped");
+    }
+
+    /**
+     * Starts receiving the invalidations of the other instances once the application is ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (transport != null) {
+            transport.start(instanceId, this::receive);
+        }
+    }
+
+    /**
+     * Stops receiving invalidations.
+     */
+    @PreDestroy
+    public void stop() {
+        if (transport != null) {
+            transport.stop();
+        }
+    }
+
+    /**
+     * Gets the ID of this instance in the cluster.
+     *
+     * @return the instance ID.
+     */
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    /**
+     * Sends a committed trip change made by this instance to the others.
+     *
+     * @param event the trip change.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTripChanged(TripChangedEvent event) {
+        if (!event.remote()) {
+            TriPlan triPlan = event.triPlan();
+            long version = triPlan != null && triPlan.getVersion() != null ? triPlan.getVersion() : Invalidation.DELETED;
+            send(new Invalidation(EntityType.TRIP, event.tripId(), version));
+        }
+    }
+
+    /**
+     * Sends a committed user change made by this instance to the others.
+     *
+     * @param event the user change.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        if (!event.remote()) {
+            send(new Invalidation(EntityType.USER, event.userId(), Invalidation.DELETED));
+        }
+    }
+
+    private void send(Invalidation invalidation) {
+        if (transport != null) {
+            transport.publish(invalidation);
+            sent.increment();
+        }
+    }
+
+    /**
+     * Applies an invalidation of another instance. A trip is read again, unless it was deleted,
+     * and the change is published locally.
+     *
+     * @param invalidation the invalidation.
+     */
+    void receive(Invalidation invalidation) {
+        if (!isNewer(invalidation)) {
+            dropped.increment();
+            return;
+        }
+        received.increment();
+        switch (invalidation.type()) {
+            case TRIP -> {
+                TriPlan triPlan = invalidation.version() == Invalidation.DELETED
+                        ? null : triPlanService.getTriPlanById(invalidation.id());
+                TripEventType type = triPlan != null ? TripEventType.UPDATED : TripEventType.DELETED;
+                eventPublisher.publishEvent(new TripChangedEvent(type, invalidation.id(), triPlan, true));
+            }
+            case USER -> eventPublisher.publishEvent(new UserChangedEvent(invalidation.id(), null, true));
+        }
+    }
+
+    /**
+     * Tells whether an invalidation is newer than the last one received for its entity.
+     * Deletions always are, as they carry no version.
+     */
+    private boolean isNewer(Invalidation invalidation) {
+        String key = invalidation.type() + ":" + invalidation.id();
+        synchronized (receivedVersions) {
+            Long last = receivedVersions.get(key);
+            if (invalidation.version() != Invalidation.DELETED && last != null && last >= invalidation.version()) {
+                return false;
+            }
+            receivedVersions.put(key, invalidation.version());
+            return true;
+        }
+    }
+}
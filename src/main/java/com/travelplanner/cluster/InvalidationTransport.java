@@ -0,0 +1,30 @@
+package com.travelplanner.cluster;
+
+import java.util.function.Consumer;
+
+/**
+ * Carries invalidation messages between the instances of the application.
+ * A transport never hands an instance its own messages.
+ */
+public interface InvalidationTransport {
+
+    /**
+     * Starts receiving the messages of the other instances.
+     *
+     * @param instanceId the ID of this instance.
+     * @param receiver   called with every message of another instance, on a transport thread.
+     */
+    void start(String instanceId, Consumer<Invalidation> receiver);
+
+    /**
+     * Sends a message to the other instances.
+     *
+     * @param invalidation the message.
+     */
+    void publish(Invalidation invalidation);
+
+    /**
+     * Stops receiving messages.
+     */
+    void stop();
+}
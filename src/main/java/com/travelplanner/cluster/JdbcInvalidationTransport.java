@@ -0,0 +1,136 @@
+package com.travelplanner.cluster;
+
+import com.travelplanner.model.ClusterInvalidation;
+import com.travelplanner.repository.ClusterInvalidationRepository;
+import com.travelplanner.sharding.ShardRouter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Transport through the cluster_invalidation table of shard 0. Every instance inserts its messages
+ * and polls the rows added by the others, so a change is seen everywhere within about one poll
+ * interval. Staleness is bounded as long as polling succeeds: the time since the last successful
+ * poll is published as the travelplanner.cluster.staleness gauge, and old rows are deleted.
+ */
+@Component
+@ConditionalOnProperty(prefix = "travelplanner.cluster", name = "transport", havingValue = "jdbc")
+public class JdbcInvalidationTransport implements InvalidationTransport {
+
+    private static final Logger log = LoggerFactory.getLogger(JdbcInvalidationTransport.class);
+
+    private static final int BATCH_SIZE = 500;
+
+    @Autowired
+    private ClusterInvalidationRepository clusterInvalidationRepository;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Value("${travelplanner.cluster.gap-timeout:5s}")
+    private Duration gapTimeout;
+
+    @Value("${travelplanner.cluster.retention:10m}")
+    private Duration retention;
+
+    private final TransactionTemplate newTransaction;
+    private final Timer lag;
+    private volatile String instanceId;
+    private volatile Consumer<Invalidation> receiver;
+    private volatile long lastPollNanos = System.nanoTime();
+    private ChangeCursor cursor;
+
+    /**
+     * Creates the transport.
+     *
+     * @param transactionManager the transaction manager, used to send messages in their own transaction.
+     * @param meterRegistry      the registry for the lag and staleness metrics.
+     */
+    public JdbcInvalidationTransport(PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.lag = meterRegistry.timer("travelplanner.cluster.lag");
+        meterRegistry.gauge("travelplanner.cluster.staleness", this,
+                transport -> (System.nanoTime() - transport.lastPollNanos) / 1e9);
+    }
+
+    /**
+     * Starts receiving the messages sent from now on.
+     *
+     * @param instanceId the ID of this instance.
+     * @param receiver   called with every message of another instance, on the polling thread.
+     */
+    @Override
+    public void start(String instanceId, Consumer<Invalidation> receiver) {
+        this.instanceId = instanceId;
+        this.cursor = new ChangeCursor(shardRouter.onShard(0, clusterInvalidationRepository::findMaxId));
+        this.receiver = receiver;
+    }
+
+    /**
+     * Sends a message in its own transaction, so it can be called after the changing transaction committed.
+     *
+     * @param invalidation the message.
+     */
+    @Override
+    public void publish(Invalidation invalidation) {
+        ClusterInvalidation message = new ClusterInvalidation(invalidation, instanceId);
+        shardRouter.runOnShard(0, () -> newTransaction.executeWithoutResult(status ->
+                clusterInvalidationRepository.save(message)));
+    }
+
+    /**
+     * Reads the messages sent by the other instances since the last poll and hands them to the receiver.
+     */
+    @Scheduled(fixedDelayString = "${travelplanner.cluster.poll-interval-ms:500}")
+    public void poll() {
+        Consumer<Invalidation> receiver = this.receiver;
+        if (receiver == null) {
+            return;
+        }
+        List<ClusterInvalidation> messages = shardRouter.onShard(0, () -> clusterInvalidationRepository
+                .findByIdGreaterThanOrderByIdAsc(cursor.getCursor(), Pageable.ofSize(BATCH_SIZE)));
+        Instant now = Instant.now();
+        for (ClusterInvalidation message : messages) {
+            if (cursor.markDelivered(message.getId()) && !instanceId.equals(message.getOrigin())) {
+                lag.record(Duration.between(message.getCreatedAt(), now));
+                try {
+                    receiver.accept(message.toInvalidation());
+                } catch (RuntimeException e) {
+                    log.warn("Could not apply {}", message.toInvalidation(), e);
+                }
+            }
+        }
+        cursor.advance(gapTimeout);
+        lastPollNanos = System.nanoTime();
+    }
+
+    /**
+     * Deletes messages that every instance has long read.
+     */
+    @Scheduled(fixedDelayString = "${travelplanner.cluster.cleanup-interval-ms:600000}")
+    public void deleteOldMessages() {
+        Instant before = Instant.now().minus(retention);
+        shardRouter.runOnShard(0, () -> clusterInvalidationRepository.deleteOlderThan(before));
+    }
+
+    @Override
+    public void stop() {
+        this.receiver = null;
+    }
+}
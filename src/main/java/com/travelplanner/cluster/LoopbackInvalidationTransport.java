@@ -0,0 +1,71 @@
+package com.travelplanner.cluster;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Transport between instances running in the same JVM, such as several application contexts
+ * started by a test. Instances in the same group receive each other's messages, in order,
+ * on a thread of their own.
+ */
+@Component
+@ConditionalOnProperty(prefix = "travelplanner.cluster", name = "transport", havingValue = "loopback")
+public class LoopbackInvalidationTransport implements InvalidationTransport {
+
+    private static final Map<String, Set<LoopbackInvalidationTransport>> GROUPS = new ConcurrentHashMap<>();
+
+    private final String group;
+    private String instanceId;
+    private Consumer<Invalidation> receiver;
+    private ExecutorService deliveryThread;
+
+    /**
+     * Creates the transport.
+     *
+     * @param group the group of instances that exchange messages.
+     */
+    public LoopbackInvalidationTransport(@Value("${travelplanner.cluster.loopback.group:default}") String group) {
+        this.group = group;
+    }
+
+    @Override
+    public void start(String instanceId, Consumer<Invalidation> receiver) {
+        this.instanceId = instanceId;
+        this.receiver = receiver;
+        this.deliveryThread = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "invalidation-loopback");
+            thread.setDaemon(true);
+            return thread;
+        });
+        GROUPS.computeIfAbsent(group, key -> new CopyOnWriteArraySet<>()).add(this);
+    }
+
+    @Override
+    public void publish(Invalidation invalidation) {
+        for (LoopbackInvalidationTransport member : GROUPS.getOrDefault(group, Set.of())) {
+            if (!member.instanceId.equals(instanceId)) {
+                member.deliveryThread.execute(() -> member.receiver.accept(invalidation));
+            }
+        }
+    }
+
+    @Override
+    public void stop() {
+        Set<LoopbackInvalidationTransport> members = GROUPS.get(group);
+        if (members != null) {
+            members.remove(this);
+        }
+        if (deliveryThread != null) {
+            deliveryThread.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.travelplanner.collab;
+
+import com.travelplanner.history.TripField;
+
+import java.time.LocalDate;
+
+/**
+ * An edit of one day of a trip plan sent by an editor: the new hotel or activity of the day.
+ *
+ * @param date  the day.
+ * @param field the edited field, {@link TripField#HOTEL} or {@link TripField#ACTIVITY}.
+ * @param value the new value, empty to clear it.
+ * @param seq   the number the editor gave to the operation, increasing with every operation it sends.
+ */
+public record DayOperation(LocalDate date, TripField field, String value, long seq) {
+}
@@ -0,0 +1,123 @@
+package com.travelplanner.collab;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.travelplanner.collab.TripEditSession.Editor;
+import com.travelplanner.history.TripField;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.io.IOException;
+import java.net.URI;
+import java.security.Principal;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+
+/**
+ * WebSocket endpoint of the collaborative editing of a trip plan, at /user/collab/{tripId}.
+ * Editors send one JSON operation per message: {"date": "2030-06-01", "field": "HOTEL", "value": "...", "seq": 1}.
+ * They receive the state of the trip when they join, then the batches of applied operations with
+ * the sequence number of the last applied operation of every editor.
+ */
+@Component
+public class TripEditHandler extends TextWebSocketHandler {
+
+    private static final String TRIP_ID = "tripId";
+    private static final String EDITOR = "editor";
+    private static final int MAX_VALUE_LENGTH = 255;
+
+    @Autowired
+    private TripEditHub tripEditHub;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Joins the editing session of the trip in the URL. Only the logged-in owner of the trip can edit it.
+     *
+     * @param session the new WebSocket session.
+     * @throws IOException if the session cannot be closed.
+     */
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws IOException {
+        Principal principal = session.getPrincipal();
+        Long tripId = tripIdOf(session.getUri());
+        if (principal == null || tripId == null) {
+            session.close(CloseStatus.POLICY_VIOLATION);
+            return;
+        }
+        Editor editor = tripEditHub.join(tripId, session, principal.getName());
+        if (editor == null) {
+            session.close(CloseStatus.POLICY_VIOLATION.withReason("No such trip of yours"));
+            return;
+        }
+        session.getAttributes().put(TRIP_ID, tripId);
+        session.getAttributes().put(EDITOR, editor);
+    }
+
+    /**
+     * Queues an operation of the editor. A malformed operation closes the session.
+     *
+     * @param session the WebSocket session of the editor.
+     * @param message the operation.
+     * @throws IOException if the session cannot be closed.
+     */
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) throws IOException {
+        Editor editor = (Editor) session.getAttributes().get(EDITOR);
+        if (editor == null) {
+            return;
+        }
+        DayOperation operation = parse(message.getPayload());
+        if (operation == null) {
+            session.close(CloseStatus.BAD_DATA);
+            return;
+        }
+        tripEditHub.receive((Long) session.getAttributes().get(TRIP_ID), editor, operation);
+    }
+
+    /**
+     * Leaves the editing session.
+     *
+     * @param session the WebSocket session of the editor.
+     * @param status  the reason the session was closed.
+     */
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        Editor editor = (Editor) session.getAttributes().get(EDITOR);
+        if (editor != null) {
+            tripEditHub.leave((Long) session.getAttributes().get(TRIP_ID), editor);
+        }
+    }
+
+    private DayOperation parse(String payload) {
+        try {
+            JsonNode node = objectMapper.readTree(payload);
+            TripField field = TripField.valueOf(node.path("field").asText());
+            JsonNode value = node.path("value");
+            if (!field.isDaily() || !value.isTextual() || value.asText().length() > MAX_VALUE_LENGTH) {
+                return null;
+            }
+            return new DayOperation(LocalDate.parse(node.path("date").asText()), field, value.asText(), node.path("seq").asLong());
+        } catch (JsonProcessingException | DateTimeParseException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static Long tripIdOf(URI uri) {
+        if (uri == null) {
+            return null;
+        }
+        String path = uri.getPath();
+        try {
+            return Long.valueOf(path.substring(path.lastIndexOf('/') + 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,349 @@
+package com.travelplanner.collab;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.travelplanner.collab.TripEditSession.Batch;
+import com.travelplanner.collab.TripEditSession.DayField;
+import com.travelplanner.collab.TripEditSession.Editor;
+import com.travelplanner.history.TripField;
+import com.travelplanner.model.TriPlan;
+import com.travelplanner.model.TripEventType;
+import com.travelplanner.service.TriPlanService;
+import com.travelplanner.service.TripChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs the collaborative editing sessions of trip plans. Every trip being edited has one session
+ * shared by its editors. The operations they send are applied in batches every few milliseconds:
+ * each batch keeps the last value of every day field and is sent to all editors as one message,
+ * serialized once. The applied values are saved by a group commit every few seconds, and when the
+ * last editor leaves, so a burst of keystrokes costs one transaction instead of one per operation.
+ * A session stays open until that final commit is done, and an editor joining meanwhile resumes it.
+ * Changes saved outside the session, on this or another instance, reload the session state.
+ */
+@Component
+public class TripEditHub {
+
+    private static final Logger log = LoggerFactory.getLogger(TripEditHub.class);
+
+    private static final ThreadLocal<Boolean> COMMITTING = ThreadLocal.withInitial(() -> false);
+
+    @Autowired
+    private TriPlanService triPlanService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final Map<Long, TripEditSession> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong closedSessions = new AtomicLong();
+    private final ScheduledExecutorService scheduler;
+    private final Duration batchInterval;
+    private final Duration commitInterval;
+    private final int sendTimeLimit;
+    private final int sendBufferSize;
+    private final Counter operations;
+    private final Counter coalesced;
+    private final DistributionSummary fanOut;
+    private final Timer commitTimer;
+
+    /**
+     * Creates the hub.
+     *
+     * @param threads        the number of threads applying batches, sending them and committing.
+     * @param batchInterval  the time between two batches of a session.
+     * @param commitInterval the time between two group commits of a session.
+     * @param sendTimeLimit  the time a send to a slow editor may take before the editor is disconnected.
+     * @param sendBufferSize the number of bytes buffered for a slow editor before it is disconnected.
+     * @param meterRegistry  the registry for the editing metrics.
+     */
+    public TripEditHub(@Value("${travelplanner.collab.threads:2}") int threads,
+                       @Value("${travelplanner.collab.batch-interval:50ms}") Duration batchInterval,
+                       @Value("${travelplanner.collab.commit-interval:2s}") Duration commitInterval,
+                       @Value("${travelplanner.collab.send-time-limit:5s}") Duration sendTimeLimit,
+                       @Value("${travelplanner.collab.send-buffer-size:262144}") int sendBufferSize,
+                       MeterRegistry meterRegistry) {
+        this.scheduler = Executors.newScheduledThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "trip-edit");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.batchInterval = batchInterval;
+        this.commitInterval = commitInterval;
+        this.sendTimeLimit = (int) sendTimeLimit.toMillis();
+        this.sendBufferSize = sendBufferSize;
+        this.operations = meterRegistry.counter("travelplanner.collab.operations");
+        this.coalesced = meterRegistry.counter("travelplanner.collab.coalesced");
+        this.fanOut = meterRegistry.summary("travelplanner.collab.fanout");
+        this.commitTimer = meterRegistry.timer("travelplanner.collab.commit");
+        meterRegistry.gaugeMapSize("travelplanner.collab.sessions", Tags.empty(), sessions);
+        meterRegistry.gauge("travelplanner.collab.editors", sessions,
+                all -> all.values().stream().mapToInt(TripEditSession::getEditorCount).sum());
+    }
+
+    /**
+     * Adds an editor to the session of a trip plan, starting the session if needed, and sends it the current state.
+     * Only the owner of the trip plan can edit it.
+     *
+     * @param tripId    the ID of the trip plan.
+     * @param session   the WebSocket session of the editor.
+     * @param username  the name of the user editing.
+     * @return the editor, or null if there is no such trip plan owned by the user.
+     */
+    Editor join(Long tripId, WebSocketSession session, String username) {
+        Editor editor = new Editor(session.getId(), new ConcurrentWebSocketSessionDecorator(session, sendTimeLimit,
+                sendBufferSize, ConcurrentWebSocketSessionDecorator.OverflowStrategy.TERMINATE), username);
+        while (true) {
+            long closed = closedSessions.get();
+            // Read before taking the session's bin lock in the map
+            TriPlan triPlan = triPlanService.getTriPlanById(tripId);
+            if (triPlan == null || !username.equals(triPlan.getUsername())) {
+                return null;
+            }
+            TripEditSession editSession = sessions.compute(tripId, (id, existing) -> {
+                if (existing == null) {
+                    if (closedSessions.get() != closed) {
+                        // A session closed since the read, which may miss its final commit
+                        return null;
+                    }
+                    existing = start(new TripEditSession(triPlan));
+                } else if (!existing.hasEditors()) {
+                    // Resume a session whose last editor left, before its final commit closes it
+                    start(existing);
+                }
+                existing.addEditor(editor);
+                return existing;
+            });
+            if (editSession != null) {
+                send(editSession, editor, stateMessage(editSession, editor.id()));
+                return editor;
+            }
+        }
+    }
+
+    /**
+     * Queues an operation of an editor, to be applied with the next batch.
+     *
+     * @param tripId    the ID of the trip plan.
+     * @param editor    the editor.
+     * @param operation the operation.
+     */
+    void receive(Long tripId, Editor editor, DayOperation operation) {
+        TripEditSession session = sessions.get(tripId);
+        if (session != null) {
+            operations.increment();
+            session.enqueue(editor, operation);
+        }
+    }
+
+    /**
+     * Removes an editor from the session of a trip plan. The session is closed when its last editor
+     * leaves, after its pending operations are applied and saved.
+     *
+     * @param tripId the ID of the trip plan.
+     * @param editor the editor.
+     */
+    void leave(Long tripId, Editor editor) {
+        sessions.computeIfPresent(tripId, (id, session) -> {
+            session.removeEditor(editor.id());
+            if (session.hasEditors()) {
+                return session;
+            }
+            session.ticker.cancel(false);
+            session.committer.cancel(false);
+            int closing = ++session.closings;
+            scheduler.execute(() -> {
+                tick(session);
+                commit(session);
+                sessions.computeIfPresent(tripId, (key, current) -> {
+                    if (current != session || current.hasEditors() || current.closings != closing) {
+                        return current;
+                    }
+                    closedSessions.incrementAndGet();
+                    return null;
+                });
+            });
+            return session;
+        });
+    }
+
+    /**
+     * Reloads the session of a trip plan changed outside it, or closes it if the trip plan was deleted.
+     * Changes saved by the session's own commits are skipped.
+     *
+     * @param event the change.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTripChanged(TripChangedEvent event) {
+        TripEditSession session = sessions.get(event.tripId());
+        if (session == null || COMMITTING.get()) {
+            return;
+        }
+        if (event.type() == TripEventType.DELETED) {
+            for (Editor editor : session.getEditors()) {
+                close(editor, CloseStatus.GOING_AWAY);
+            }
+        } else if (event.triPlan() != null) {
+            session.reload(event.triPlan());
+            TextMessage message = stateMessage(session, null);
+            for (Editor editor : session.getEditors()) {
+                send(session, editor, message);
+            }
+        }
+    }
+
+    private TripEditSession start(TripEditSession session) {
+        session.ticker = scheduler.scheduleWithFixedDelay(() -> tick(session),
+                batchInterval.toMillis(), batchInterval.toMillis(), TimeUnit.MILLISECONDS);
+        session.committer = scheduler.scheduleWithFixedDelay(() -> commit(session),
+                commitInterval.toMillis(), commitInterval.toMillis(), TimeUnit.MILLISECONDS);
+        return session;
+    }
+
+    /**
+     * Applies the queued operations of a session and sends the batch to all its editors.
+     */
+    private void tick(TripEditSession session) {
+        try {
+            Batch batch = session.applyQueued();
+            if (batch == null) {
+                return;
+            }
+            coalesced.increment(batch.operations() - batch.values().size());
+            TextMessage message = batchMessage(batch);
+            int editors = 0;
+            for (Editor editor : session.getEditors()) {
+                send(session, editor, message);
+                editors++;
+            }
+            fanOut.record(editors);
+        } catch (RuntimeException e) {
+            log.warn("Could not apply the edits of trip {}", session.getTripId(), e);
+        }
+    }
+
+    /**
+     * Saves the applied values of a session that are not saved yet, in one transaction.
+     * Commits of one session do not overlap, so the last one to end holds the latest values.
+     */
+    private void commit(TripEditSession session) {
+        synchronized (session.commitLock) {
+            commitUnsaved(session);
+        }
+    }
+
+    private void commitUnsaved(TripEditSession session) {
+        Map<DayField, String> unsaved = session.takeUnsaved();
+        if (unsaved.isEmpty()) {
+            return;
+        }
+        Map<LocalDate, String> hotels = new HashMap<>();
+        Map<LocalDate, String> activities = new HashMap<>();
+        unsaved.forEach((key, value) -> (key.field() == TripField.HOTEL ? hotels : activities).put(key.date(), value));
+        COMMITTING.set(true);
+        try {
+            TriPlan saved = commitTimer.record(() -> triPlanService.saveDayEdits(session.getTripId(), hotels, activities));
+            session.saved();
+            if (saved == null) {
+                for (Editor editor : session.getEditors()) {
+                    close(editor, CloseStatus.GOING_AWAY);
+                }
+            }
+        } catch (RuntimeException e) {
+            session.notSaved();
+            log.warn("Could not save the edits of trip {}, retrying with the next commit", session.getTripId(), e);
+        } finally {
+            COMMITTING.remove();
+        }
+    }
+
+    private TextMessage stateMessage(TripEditSession session, String editorId) {
+        ObjectNode message = objectMapper.createObjectNode();
+        message.put("type", "state");
+        if (editorId != null) {
+            message.put("editor", editorId);
+        }
+        message.put("startDate", String.valueOf(session.getStartDate()));
+        message.put("endDate", String.valueOf(session.getEndDate()));
+        message.put("editors", session.getEditorCount());
+        putValues(message, session.snapshot());
+        return new TextMessage(message.toString());
+    }
+
+    private TextMessage batchMessage(Batch batch) {
+        ObjectNode message = objectMapper.createObjectNode();
+        message.put("type", "ops");
+        putValues(message, batch.values());
+        ObjectNode acks = message.putObject("acks");
+        batch.acks().forEach(acks::put);
+        return new TextMessage(message.toString());
+    }
+
+    private static void putValues(ObjectNode message, Map<DayField, String> values) {
+        ArrayNode array = message.putArray("values");
+        values.forEach((key, value) -> array.addObject()
+                .put("date", key.date().toString())
+                .put("field", key.field().name())
+                .put("value", value));
+    }
+
+    /**
+     * Sends a message to an editor. An editor that cannot keep up is disconnected by its session decorator.
+     */
+    private void send(TripEditSession session, Editor editor, TextMessage message) {
+        try {
+            editor.session().sendMessage(message);
+        } catch (IOException | RuntimeException e) {
+            log.debug("Dropping editor {} of trip {}", editor.id(), session.getTripId(), e);
+            close(editor, CloseStatus.SESSION_NOT_RELIABLE);
+        }
+    }
+
+    private static void close(Editor editor, CloseStatus status) {
+        try {
+            editor.session().close(status);
+        } catch (IOException e) {
+            log.debug("Could not close editor {}", editor.id(), e);
+        }
+    }
+
+    /**
+     * Saves the pending edits of every session and stops the threads.
+     */
+    @PreDestroy
+    public void shutdown() {
+        for (TripEditSession session : sessions.values()) {
+            session.ticker.cancel(false);
+            session.committer.cancel(false);
+            tick(session);
+            commit(session);
+        }
+        scheduler.shutdown();
+    }
+}
@@ -0,0 +1,214 @@
+package com.travelplanner.collab;
+
+import com.travelplanner.history.TripField;
+import com.travelplanner.model.TriPlan;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * The shared editing state of one trip plan. Operations from the editors are queued as they arrive
+ * and applied in arrival order by {@link #applyQueued()}, which keeps only the last value of each
+ * day field. The applied values that are not saved yet are kept until {@link #takeUnsaved()} hands
+ * them to a group commit.
+ */
+class TripEditSession {
+
+    /**
+     * A connected editor.
+     *
+     * @param id       the ID of the WebSocket session.
+     * @param session  the session, safe for concurrent sends.
+     * @param username the name of the user editing.
+     */
+    record Editor(String id, WebSocketSession session, String username) {
+    }
+
+    /**
+     * One field of one day.
+     *
+     * @param date  the day.
+     * @param field the field.
+     */
+    record DayField(LocalDate date, TripField field) {
+    }
+
+    /**
+     * The operations applied by one {@link #applyQueued()} call.
+     *
+     * @param values     the new value of every changed day field, in the order they were last changed.
+     * @param acks       the sequence number of the last applied operation of every editor that sent one.
+     * @param operations the number of operations applied, before coalescing.
+     */
+    record Batch(Map<DayField, String> values, Map<String, Long> acks, int operations) {
+    }
+
+    private record Queued(Editor editor, DayOperation operation) {
+    }
+
+    private final Long tripId;
+    private final Map<String, Editor> editors = new ConcurrentHashMap<>();
+    private final Queue<Queued> queue = new ConcurrentLinkedQueue<>();
+
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private final Map<DayField, String> values = new HashMap<>();
+    private final Map<DayField, String> unsaved = new LinkedHashMap<>();
+    private final Map<DayField, String> saving = new LinkedHashMap<>();
+
+    final Object commitLock = new Object();
+    ScheduledFuture<?> ticker;
+    ScheduledFuture<?> committer;
+    // Counts the times the last editor left, so only the latest final commit closes the session.
+    int closings;
+
+    /**
+     * Starts editing a trip plan from its saved content.
+     *
+     * @param triPlan the trip plan.
+     */
+    TripEditSession(TriPlan triPlan) {
+        this.tripId = triPlan.getId();
+        load(triPlan);
+    }
+
+    Long getTripId() {
+        return tripId;
+    }
+
+    void addEditor(Editor editor) {
+        editors.put(editor.id(), editor);
+    }
+
+    void removeEditor(String id) {
+        editors.remove(id);
+    }
+
+    boolean hasEditors() {
+        return !editors.isEmpty();
+    }
+
+    Iterable<Editor> getEditors() {
+        return editors.values();
+    }
+
+    int getEditorCount() {
+        return editors.size();
+    }
+
+    /**
+     * Queues an operation of an editor. Operations on days outside the trip are dropped when applied.
+     *
+     * @param editor    the editor.
+     * @param operation the operation.
+     */
+    void enqueue(Editor editor, DayOperation operation) {
+        queue.add(new Queued(editor, operation));
+    }
+
+    /**
+     * Applies the queued operations in arrival order, keeping the last value of every day field.
+     *
+     * @return the applied batch, or null if no operation was queued.
+     */
+    synchronized Batch applyQueued() {
+        Map<DayField, String> changed = new LinkedHashMap<>();
+        Map<String, Long> acks = new HashMap<>();
+        int operations = 0;
+        Queued queued;
+        while ((queued = queue.poll()) != null) {
+            DayOperation operation = queued.operation();
+            acks.put(queued.editor().id(), operation.seq());
+            operations++;
+            if (startDate == null || operation.date().isBefore(startDate) || operation.date().isAfter(endDate)) {
+                continue;
+            }
+            DayField key = new DayField(operation.date(), operation.field());
+            changed.remove(key);
+            changed.put(key, operation.value());
+        }
+        if (operations == 0) {
+            return null;
+        }
+        values.putAll(changed);
+        unsaved.putAll(changed);
+        return new Batch(changed, acks, operations);
+    }
+
+    /**
+     * Takes the applied values that are not saved yet, for a commit. They are kept aside until
+     * the commit ends with {@link #saved()} or {@link #notSaved()}.
+     *
+     * @return the unsaved values, empty if there are none.
+     */
+    synchronized Map<DayField, String> takeUnsaved() {
+        saving.putAll(unsaved);
+        unsaved.clear();
+        return new LinkedHashMap<>(saving);
+    }
+
+    /**
+     * Ends a successful commit.
+     */
+    synchronized void saved() {
+        saving.clear();
+    }
+
+    /**
+     * Ends a failed commit: its values are saved by the next one, unless they were changed again meanwhile.
+     */
+    synchronized void notSaved() {
+        saving.forEach(unsaved::putIfAbsent);
+        saving.clear();
+    }
+
+    /**
+     * Replaces the state with a saved content of the trip plan, such as a change made outside the
+     * session. The values not saved yet, or being saved, are kept on top of it.
+     *
+     * @param triPlan the saved trip plan.
+     */
+    synchronized void reload(TriPlan triPlan) {
+        load(triPlan);
+        values.putAll(saving);
+        values.putAll(unsaved);
+    }
+
+    /**
+     * Gives the current state, sent to editors when they join or when the trip plan is reloaded.
+     *
+     * @return the value of every day field that has one.
+     */
+    synchronized Map<DayField, String> snapshot() {
+        return new HashMap<>(values);
+    }
+
+    synchronized LocalDate getStartDate() {
+        return startDate;
+    }
+
+    synchronized LocalDate getEndDate() {
+        return endDate;
+    }
+
+    private void load(TriPlan triPlan) {
+        startDate = triPlan.getStartDate();
+        endDate = triPlan.getEndDate();
+        values.clear();
+        triPlan.getHotels().forEach((date, value) -> put(date, TripField.HOTEL, value));
+        triPlan.getActivities().forEach((date, value) -> put(date, TripField.ACTIVITY, value));
+    }
+
+    private void put(LocalDate date, TripField field, String value) {
+        if (value != null) {
+            values.put(new DayField(date, field), value);
+        }
+    }
+}
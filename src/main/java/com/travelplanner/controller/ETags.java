@@ -0,0 +1,42 @@
+package com.travelplanner.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.context.request.WebRequest;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Helper for answering repeated page views with 304 Not Modified.
+ */
+final class ETags {
+
+    private ETags() {
+    }
+
+    /**
+     * Checks a weak ETag, derived from the data version and the caller's session, against the
+     * If-None-Match header of the request. The session is part of the tag because rendered
+     * pages contain the session's CSRF token and depend on the logged-in user.
+     *
+     * @param webRequest  the current request.
+     * @param request     the current servlet request.
+     * @param response    the current servlet response.
+     * @param dataVersion a value that changes whenever the data shown on the page changes.
+     * @return true if the client copy is up to date and a 304 response was prepared.
+     */
+    static boolean checkNotModified(WebRequest webRequest, HttpServletRequest request,
+                                    HttpServletResponse response, String dataVersion) {
+        HttpSession session = request.getSession(false);
+        String principal = request.getRemoteUser();
+        String source = dataVersion + "|" + (session != null ? session.getId() : "") + "|"
+                + (principal != null ? principal : "");
+        String etag = "W/\"" + DigestUtils.md5DigestAsHex(source.getBytes(StandardCharsets.UTF_8)) + "\"";
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        return webRequest.checkNotModified(etag);
+    }
+}
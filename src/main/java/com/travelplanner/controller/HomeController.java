@@ -1,5 +1,7 @@
 package com.travelplanner.controller;
 
+import com.travelplanner.bulkhead.BulkheadGroup;
+import com.travelplanner.bulkhead.Bulkheads;
 import com.travelplanner.model.User;
 import com.travelplanner.service.UserService;
 import jakarta.validation.Valid;
@@ -11,6 +13,7 @@ import org.springframework.validation.FieldError;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
 /**
  * Controller for handling home, registration, and login related requests.
@@ -31,6 +34,9 @@ public class HomeController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private Bulkheads bulkheads;
+
     /**
      * Handles requests to show the registration form.
      *
@@ -44,7 +50,8 @@ public class HomeController {
     }
 
     /**
-     * Handles the form submission for user registration.
+     * Handles the form submission for user registration, on the threads of the authentication
+     * bulkhead since hashing the password is slow.
      *
      * @param user the user object to be registered.
      * @param bindingResult the result of validation.
@@ -52,17 +59,20 @@ public class HomeController {
      * @return a redirect to the login page on success, or the registration view on failure.
      */
     @PostMapping("/register")
-    public String registerUser(@Valid @ModelAttribute("user") User user, BindingResult bindingResult, Model model) {
-        if (bindingResult.hasErrors()) {
-            return "register";
-        }
-        try {
-            userService.save(user);
-            return "redirect:/login";
-        } catch (Exception e) {
-            bindingResult.addError(new FieldError("user", "username", e.getMessage()));
-            return "register";
-        }
+    public WebAsyncTask<String> registerUser(@Valid @ModelAttribute("user") User user, BindingResult bindingResult,
+                                             Model model) {
+        return bulkheads.dispatch(BulkheadGroup.AUTH, () -> {
+            if (bindingResult.hasErrors()) {
+                return "register";
+            }
+            try {
+                userService.save(user);
+                return "redirect:/login";
+            } catch (Exception e) {
+                bindingResult.addError(new FieldError("user", "username", e.getMessage()));
+                return "register";
+            }
+        });
     }
 
     /**
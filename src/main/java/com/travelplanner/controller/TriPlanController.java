@@ -1,16 +1,39 @@
 package com.travelplanner.controller;
 
+import com.travelplanner.analytics.DestinationAnalytics;
+import com.travelplanner.analytics.DestinationStats;
+import com.travelplanner.autocomplete.AutocompleteField;
+import com.travelplanner.autocomplete.AutocompleteService;
+import com.travelplanner.bulkhead.BulkheadGroup;
+import com.travelplanner.bulkhead.Bulkheads;
+import com.travelplanner.feed.FeedBroadcaster;
+import com.travelplanner.geo.Gazetteer;
+import com.travelplanner.geo.Place;
+import com.travelplanner.geo.TripLocationService;
 import com.travelplanner.model.TriPlan;
 import com.travelplanner.model.User;
 import com.travelplanner.service.TriPlanService;
 import com.travelplanner.service.UserService;
+import com.travelplanner.similarity.SimilarTripService;
+import com.travelplanner.snapshot.TripSnapshots;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.security.core.Authentication;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
 /**
  * Controller for handling trip-related requests.
  */
@@ -24,42 +47,182 @@ public class TriPlanController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private FeedBroadcaster feedBroadcaster;
+
+    @Autowired
+    private SimilarTripService similarTripService;
+
+    @Autowired
+    private TripLocationService tripLocationService;
+
+    @Autowired
+    private Gazetteer gazetteer;
+
+    @Value("${travelplanner.geo.max-results:100}")
+    private int maxLocationResults;
+
+    @Value("${travelplanner.feed.render-page-size:50}")
+    private int renderPageSize;
+
+    @Autowired
+    private AutocompleteService autocompleteService;
+
+    @Value("${travelplanner.autocomplete.max-completions:8}")
+    private int maxCompletions;
+
+    @Autowired
+    private DestinationAnalytics destinationAnalytics;
+
+    @Value("${travelplanner.analytics.page-size:50}")
+    private int statsPageSize;
+
+    @Autowired
+    private Bulkheads bulkheads;
+
+    @Autowired
+    private TripSnapshots tripSnapshots;
+
     /**
-     * Displays a list of all published trip plans.
+     * Displays a list of all published trip plans, or of those near a destination or inside a bounding box.
+     * Answers with 304 Not Modified when the client already has the current feed; location searches
+     * are answered from the in-memory index and always rendered. The trips are rendered from their snapshots.
      *
+     * @param near the destination to search around, if any.
+     * @param radiusKm the search radius around the destination, in kilometres.
+     * @param south the southern latitude of the bounding box, if any.
+     * @param west the western longitude of the bounding box, if any.
+     * @param north the northern latitude of the bounding box, if any.
+     * @param east the eastern longitude of the bounding box, if any.
      * @param model the model to pass data to the view.
      * @param session the HTTP session to check for any errors.
-     * @return the name of the view to display the list of trips (listTrips.html).
+     * @param webRequest the current request, used to check the ETag.
+     * @param request the current servlet request.
+     * @param response the current servlet response.
+     * @return the name of the view to display the list of trips (listTrips.html), or null if not modified.
      */
     @GetMapping("/list")
-    public String listTripPlans(Model model, HttpSession session) {
-        model.addAttribute("tripPlans", triPlanService.getAllPublishedTriPlans());
+    public String listTripPlans(@RequestParam(required = false) String near,
+                                @RequestParam(defaultValue = "100") double radiusKm,
+                                @RequestParam(required = false) Double south, @RequestParam(required = false) Double west,
+                                @RequestParam(required = false) Double north, @RequestParam(required = false) Double east,
+                                Model model, HttpSession session, WebRequest webRequest,
+                                HttpServletRequest request, HttpServletResponse response) {
+        boolean nearSearch = near != null && !near.isBlank();
+        boolean boxSearch = south != null && west != null && north != null && east != null;
         if (session.getAttribute("error") != null) {
             model.addAttribute("error", session.getAttribute("error"));
             session.removeAttribute("error");
+        } else if (!nearSearch && !boxSearch
+                && ETags.checkNotModified(webRequest, request, response, triPlanService.getPublishedFeedVersion())) {
+            return null;
+        }
+        if (nearSearch) {
+            Place place = gazetteer.resolve(near);
+            model.addAttribute("near", near);
+            model.addAttribute("radiusKm", radiusKm);
+            if (place == null) {
+                model.addAttribute("error", "Unknown destination: " + near);
+                model.addAttribute("tripPlans", List.of());
+            } else {
+                model.addAttribute("tripPlans", tripSnapshots.of(
+                        tripLocationService.findPublishedNear(place, radiusKm, maxLocationResults)));
+            }
+        } else if (boxSearch) {
+            model.addAttribute("tripPlans", tripSnapshots.of(
+                    tripLocationService.findPublishedInBox(south, west, north, east, maxLocationResults)));
+        } else {
+            // The feed is read page by page while the view renders it, and each rendered page is sent at once.
+            model.addAttribute("tripPlans", tripSnapshots.of(
+                    triPlanService.getPublishedTriPlans(renderPageSize).onPage(() -> flush(response))));
         }
         return "listTrips";
     }
 
     /**
-     * Saves a trip plan to the user's saved trips.
+     * Sends the part of the page rendered so far to the client.
+     *
+     * @param response the current servlet response.
+     */
+    private static void flush(HttpServletResponse response) {
+        try {
+            response.flushBuffer();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Streams changes of the published feed to an open feed page as Server-Sent Events.
+     *
+     * @return the emitter sending the events.
+     */
+    @GetMapping(path = "/feed/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @ResponseBody
+    public SseEmitter streamFeed() {
+        return feedBroadcaster.subscribe();
+    }
+
+    /**
+     * Displays the statistics of the most popular destinations, or of one destination. Only the
+     * precomputed statistics are read: the page runs no query.
+     *
+     * @param destination the destination to show, if any.
+     * @param model the model to pass data to the view.
+     * @return the name of the view to display the statistics (destinationStats.html).
+     */
+    @GetMapping("/stats")
+    public String showDestinationStats(@RequestParam(required = false) String destination, Model model) {
+        if (destination != null && !destination.isBlank()) {
+            Place place = gazetteer.resolve(destination);
+            DestinationStats stats = destinationAnalytics.getStats(place != null ? place.name() : destination);
+            model.addAttribute("destination", destination);
+            model.addAttribute("destinations", stats != null ? List.of(stats) : List.of());
+        } else {
+            model.addAttribute("destinations", destinationAnalytics.getTopDestinations(statsPageSize));
+        }
+        return "destinationStats";
+    }
+
+    /**
+     * Suggests completions for a destination, hotel or activity being typed.
+     *
+     * @param field the field being typed.
+     * @param prefix the text typed so far.
+     * @return the completions as a JSON array, most used first.
+     */
+    @GetMapping("/autocomplete")
+    @ResponseBody
+    public List<String> autocomplete(@RequestParam AutocompleteField field, @RequestParam String prefix) {
+        if (prefix.isBlank()) {
+            return List.of();
+        }
+        return autocompleteService.complete(field, prefix, maxCompletions);
+    }
+
+    /**
+     * Saves a trip plan to the user's saved trips, and suggests published trips similar to it,
+     * on the threads of the write bulkhead.
      *
      * @param tripId the ID of the trip to save.
      * @param authentication the authentication object containing the user's details.
-     * @param session the HTTP session to store any errors.
+     * @param session the HTTP session to store any errors and the suggested trips.
      * @return a redirect to the list of trips on failure or to the user's saved trips on success.
      */
     @PostMapping("/save")
-    public String saveTrip(@RequestParam Long tripId, Authentication authentication, HttpSession session) {
-        TriPlan trip = triPlanService.getTriPlanById(tripId);
-        if (trip.getUsername().equals(authentication.getName())) {
-            session.setAttribute("error", "You cannot save your own trip.");
-            return "redirect:/trip/list";
-        } else {
-            User user = userService.findByUsername(authentication.getName());
-            triPlanService.saveTrip(trip, user);
-            return "redirect:/user/myTrips";
-        }
+    public WebAsyncTask<String> saveTrip(@RequestParam Long tripId, Authentication authentication, HttpSession session) {
+        return bulkheads.dispatch(BulkheadGroup.WRITE, () -> {
+            TriPlan trip = triPlanService.getTriPlanById(tripId);
+            if (trip.getUsername().equals(authentication.getName())) {
+                session.setAttribute("error", "You cannot save your own trip.");
+                return "redirect:/trip/list";
+            } else {
+                User user = userService.findByUsername(authentication.getName());
+                triPlanService.saveTrip(trip, user);
+                session.setAttribute("similarTrips", similarTripService.findSimilarTrips(trip, user.getUsername(), 3));
+                return "redirect:/user/myTrips";
+            }
+        });
     }
 
     /**
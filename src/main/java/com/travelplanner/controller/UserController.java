@@ -1,23 +1,54 @@
 package com.travelplanner.controller;
 
+import com.travelplanner.account.AccountJobs;
+import com.travelplanner.bulkhead.BulkheadGroup;
+import com.travelplanner.bulkhead.Bulkheads;
+import com.travelplanner.history.TripChange;
+import com.travelplanner.history.TripVersion;
+import com.travelplanner.itinerary.ItineraryService;
 import com.travelplanner.model.TriPlan;
 import com.travelplanner.model.User;
 import com.travelplanner.service.TriPlanService;
 import com.travelplanner.service.UserService;
+import com.travelplanner.snapshot.TripSnapshots;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
- * Controller for handling user-related requests such as trip creation, modification, and deletion.
+ * Controller for handling user-related requests such as trip creation, modification, and deletion,
+ * and the export and deletion of accounts.
+ * Modifications are processed on the threads of the write bulkhead.
  */
 @Controller
 @RequestMapping("/user")
@@ -29,6 +60,18 @@ public class UserController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private ItineraryService itineraryService;
+
+    @Autowired
+    private Bulkheads bulkheads;
+
+    @Autowired
+    private TripSnapshots tripSnapshots;
+
+    @Autowired
+    private AccountJobs accountJobs;
+
     /**
      * Displays the form for creating a new trip.
      *
@@ -50,36 +93,45 @@ public class UserController {
      * @return a redirect to the trip list on success or the create trip view on failure.
      */
     @PostMapping("/createTrip")
-    public String createTripPlan(@Valid @ModelAttribute("tripPlan") TriPlan triPlan, BindingResult bindingResult,
-                                 Authentication authentication) {
-        if (bindingResult.hasErrors()) {
-            return "createTrip";
-        }
+    public WebAsyncTask<String> createTripPlan(@Valid @ModelAttribute("tripPlan") TriPlan triPlan,
+                                               BindingResult bindingResult, Authentication authentication) {
+        return bulkheads.dispatch(BulkheadGroup.WRITE, () -> {
+            if (bindingResult.hasErrors()) {
+                return "createTrip";
+            }
 
-        String username = authentication.getName(); // Get username of logged-in user
-        User user = userService.findByUsername(username);
-        if (user != null) {
-            triPlan.setUser(user);
-            triPlanService.save(triPlan);
-            return "redirect:/trip/list";
-        } else {
-            bindingResult.reject("user", "User not found.");
-            return "createTrip";
-        }
+            String username = authentication.getName(); // Get username of logged-in user
+            User user = userService.findByUsername(username);
+            if (user != null) {
+                triPlan.setUser(user);
+                triPlanService.save(triPlan);
+                return "redirect:/trip/list";
+            } else {
+                bindingResult.reject("user", "User not found.");
+                return "createTrip";
+            }
+        });
     }
 
     /**
      * Displays the trips created by the logged-in user.
      *
+     * Shows the trips suggested after saving a trip once.
+     *
      * @param model the model to pass data to the view.
      * @param authentication the authentication object containing the user's details.
+     * @param session the HTTP session holding the suggested trips, if any.
      * @return the name of the view to display the user's trips (myTrips.html).
      */
     @GetMapping("/myTrips")
-    public String showMyTrips(Model model, Authentication authentication) {
+    public String showMyTrips(Model model, Authentication authentication, HttpSession session) {
         String username = authentication.getName();
         List<TriPlan> trips = triPlanService.findTripsByUser(username);
-        model.addAttribute("trips", trips);
+        model.addAttribute("trips", tripSnapshots.of(trips));
+        if (session.getAttribute("similarTrips") != null) {
+            model.addAttribute("similarTrips", session.getAttribute("similarTrips"));
+            session.removeAttribute("similarTrips");
+        }
         return "myTrips";
     }
 
@@ -91,15 +143,11 @@ public class UserController {
      * @return a redirect to the user's trips.
      */
     @GetMapping("/deleteTrip/{tripId}")
-    public String deleteTrip(@PathVariable Long tripId, Authentication authentication) {
-        String username = authentication.getName();
-        TriPlan tripPlan = triPlanService.getTriPlanById(tripId);
-
-        if (tripPlan != null && tripPlan.getUser().getUsername().equals(username)) {
-            triPlanService.deleteTripById(tripId);
-        }
-
-        return "redirect:/user/myTrips";
+    public WebAsyncTask<String> deleteTrip(@PathVariable Long tripId, Authentication authentication) {
+        return bulkheads.dispatch(BulkheadGroup.WRITE, () -> {
+            triPlanService.deleteTripOfUser(tripId, authentication.getName());
+            return "redirect:/user/myTrips";
+        });
     }
 
     /**
@@ -157,6 +205,24 @@ public class UserController {
         return "addDetailsDate";
     }
 
+    /**
+     * Displays the page to edit all days of a trip of the logged-in user together with other editors, over a WebSocket.
+     *
+     * @param tripId the ID of the trip to edit.
+     * @param model the model to pass data to the view.
+     * @param authentication the authentication object containing the user's details.
+     * @return the name of the view to edit the trip (editTrip.html), or a redirect to the user's trips.
+     */
+    @GetMapping("/edit/{tripId}")
+    public String showEditor(@PathVariable Long tripId, Model model, Authentication authentication) {
+        TriPlan tripPlan = triPlanService.getTriPlanById(tripId);
+        if (tripPlan == null || !authentication.getName().equals(tripPlan.getUsername())) {
+            return "redirect:/user/myTrips";
+        }
+        model.addAttribute("tripPlan", tripPlan);
+        return "editTrip";
+    }
+
     /**
      * Publishes a trip to make it publicly available.
      *
@@ -164,13 +230,11 @@ public class UserController {
      * @return a redirect to the user's trips.
      */
     @GetMapping("/publishTrip/{tripId}")
-    public String publishTrip(@PathVariable Long tripId) {
-        TriPlan tripPlan = triPlanService.getTriPlanById(tripId);
-        if (tripPlan != null) {
-            tripPlan.setPublished(true);
-            triPlanService.save(tripPlan);
-        }
-        return "redirect:/user/myTrips";
+    public WebAsyncTask<String> publishTrip(@PathVariable Long tripId) {
+        return bulkheads.dispatch(BulkheadGroup.WRITE, () -> {
+            triPlanService.publishTrip(tripId);
+            return "redirect:/user/myTrips";
+        });
     }
 
     /**
@@ -180,13 +244,11 @@ public class UserController {
      * @return a redirect to the user's trips.
      */
     @GetMapping("/unpublishTrip/{tripId}")
-    public String unpublishTrip(@PathVariable Long tripId) {
-        TriPlan tripPlan = triPlanService.getTriPlanById(tripId);
-        if (tripPlan != null) {
-            tripPlan.setPublished(false);
-            triPlanService.save(tripPlan);
-        }
-        return "redirect:/user/myTrips";
+    public WebAsyncTask<String> unpublishTrip(@PathVariable Long tripId) {
+        return bulkheads.dispatch(BulkheadGroup.WRITE, () -> {
+            triPlanService.unpublishTrip(tripId);
+            return "redirect:/user/myTrips";
+        });
     }
 
     /**
@@ -199,42 +261,211 @@ public class UserController {
      * @return a redirect to the user's trips.
      */
     @PostMapping("/addDetails/{tripId}/{date}")
-    public String saveDetailsForDate(@PathVariable Long tripId,
-                                     @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
-                                     @RequestParam String hotel,
-                                     @RequestParam String activity) {
-        TriPlan existingTrip = triPlanService.getTriPlanById(tripId);
+    public WebAsyncTask<String> saveDetailsForDate(@PathVariable Long tripId,
+                                                   @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+                                                   @RequestParam String hotel,
+                                                   @RequestParam String activity) {
+        return bulkheads.dispatch(BulkheadGroup.WRITE, () -> {
+            // Update hotels and activities for the selected date and save the updated trip plan
+            triPlanService.saveDayDetails(tripId, date, hotel, activity);
 
-        // Update hotels and activities for the selected date
-        existingTrip.getHotels().put(date, hotel);
-        existingTrip.getActivities().put(date, activity);
+            return "redirect:/user/myTrips";
+        });
+    }
 
-        // Save the updated trip plan
-        triPlanService.save(existingTrip);
+    /**
+     * Displays the version history of a trip of the logged-in user, with the changes between two versions.
+     * By default the latest version is compared to the one before it.
+     *
+     * @param tripId the ID of the trip.
+     * @param from the older revision to compare, if any.
+     * @param to the newer revision to compare, if any.
+     * @param model the model to pass data to the view.
+     * @param authentication the authentication object containing the user's details.
+     * @return the name of the view to display the history (tripHistory.html), or a redirect to the user's trips.
+     */
+    @GetMapping("/history/{tripId}")
+    public String showTripHistory(@PathVariable Long tripId,
+                                  @RequestParam(required = false) Integer from,
+                                  @RequestParam(required = false) Integer to,
+                                  Model model, Authentication authentication) {
+        TriPlan tripPlan = triPlanService.getTriPlanById(tripId);
+        if (tripPlan == null || !authentication.getName().equals(tripPlan.getUsername())) {
+            return "redirect:/user/myTrips";
+        }
+        List<TripVersion> versions = triPlanService.getTripVersions(tripId);
+        model.addAttribute("tripPlan", tripPlan);
+        model.addAttribute("versions", versions);
+        if (!versions.isEmpty()) {
+            int newer = to != null ? to : versions.get(0).revision();
+            int older = from != null ? from : Math.max(1, newer - 1);
+            List<TripChange> changes = triPlanService.diffTripVersions(tripId, older, newer);
+            model.addAttribute("from", older);
+            model.addAttribute("to", newer);
+            model.addAttribute("changes", changes != null ? changes : List.of());
+        }
+        return "tripHistory";
+    }
 
-        return "redirect:/user/myTrips";
+    /**
+     * Restores an older version of a trip of the logged-in user, as a new version.
+     *
+     * @param tripId the ID of the trip.
+     * @param revision the revision to restore.
+     * @param authentication the authentication object containing the user's details.
+     * @return a redirect to the history of the trip.
+     */
+    @PostMapping("/history/{tripId}/restore/{revision}")
+    public WebAsyncTask<String> restoreTripVersion(@PathVariable Long tripId, @PathVariable int revision,
+                                                   Authentication authentication) {
+        return bulkheads.dispatch(BulkheadGroup.WRITE, () -> {
+            triPlanService.restoreTripVersion(tripId, revision, authentication.getName());
+            return "redirect:/user/history/" + tripId;
+        });
     }
 
     /**
-     * Displays the details of a specific trip.
+     * Displays the details of a specific trip, rendered from the snapshot of its version.
+     * Answers with 304 Not Modified when the client already has the current version of the trip.
      *
      * @param tripId the ID of the trip to display details for.
      * @param model the model to pass data to the view.
-     * @return the name of the view to display the trip details (presentDetails.html).
+     * @param webRequest the current request, used to check the ETag.
+     * @param request the current servlet request.
+     * @param response the current servlet response.
+     * @return the name of the view to display the trip details (presentDetails.html), or null if not modified.
      */
     @GetMapping("/presentDetails/{tripId}")
-    public String showTripDetails(@PathVariable Long tripId, Model model) {
+    public String showTripDetails(@PathVariable Long tripId, Model model, WebRequest webRequest,
+                                  HttpServletRequest request, HttpServletResponse response) {
         TriPlan tripPlan = triPlanService.getTriPlanById(tripId);
-        List<LocalDate> dateRange = tripPlan.getDateRange();
-        long tripLength = tripPlan.getTripLengthInDays();
-
-        model.addAttribute("tripPlan", tripPlan);
-        model.addAttribute("dateRange", dateRange);
-        model.addAttribute("tripLength", tripLength);
+        if (ETags.checkNotModified(webRequest, request, response, tripPlan.getId() + ":" + tripPlan.getVersion())) {
+            return null;
+        }
+        model.addAttribute("tripPlan", tripSnapshots.of(tripPlan));
 
         return "presentDetails";
     }
 
+    /**
+     * Downloads the printable itinerary of a trip. The document is rendered in the background
+     * unless the current version is already cached, and is then streamed from disk.
+     *
+     * @param tripId the ID of the trip.
+     * @return the future PDF document, 404 if there is no such trip, or 503 when too many documents are being rendered.
+     */
+    @GetMapping("/presentDetails/{tripId}/itinerary.pdf")
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> downloadItinerary(@PathVariable Long tripId) {
+        TriPlan tripPlan = triPlanService.getTriPlanById(tripId);
+        if (tripPlan == null) {
+            return CompletableFuture.completedFuture(ResponseEntity.notFound().build());
+        }
+        return itineraryService.getItinerary(tripPlan)
+                .thenApply(file -> sendFile(file, MediaType.APPLICATION_PDF,
+                        ContentDisposition.inline().filename("itinerary-" + tripId + ".pdf").build()))
+                .exceptionally(e -> {
+                    Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+                    if (cause instanceof RejectedExecutionException) {
+                        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                                .header(HttpHeaders.RETRY_AFTER, "5").build();
+                    }
+                    throw e instanceof CompletionException completion ? completion : new CompletionException(cause);
+                });
+    }
+
+    /**
+     * Streams a file with a channel transfer. The file is opened before answering, so it can
+     * still be sent if the cache deletes it meanwhile.
+     */
+    private ResponseEntity<StreamingResponseBody> sendFile(Path file, MediaType contentType, ContentDisposition disposition) {
+        FileChannel channel;
+        long size;
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            size = channel.size();
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+        StreamingResponseBody body = out -> {
+            try (channel) {
+                WritableByteChannel target = Channels.newChannel(out);
+                long position = 0;
+                while (position < size) {
+                    position += channel.transferTo(position, size - position, target);
+                }
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .contentLength(size)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .header(HttpHeaders.CONTENT_DISPOSITION, disposition.toString())
+                .body(body);
+    }
+
+    /**
+     * Displays the account of the logged-in user, with their exports and deletion.
+     *
+     * @param model the model to pass data to the view.
+     * @param authentication the authentication object containing the user's details.
+     * @return the name of the view of the account (account.html).
+     */
+    @GetMapping("/account")
+    public String showAccount(Model model, Authentication authentication) {
+        model.addAttribute("jobs", accountJobs.getJobs(authentication.getName()));
+        return "account";
+    }
+
+    /**
+     * Queues the export of the account of the logged-in user, written in the background.
+     *
+     * @param authentication the authentication object containing the user's details.
+     * @return a redirect to the account, where the export can be downloaded once written.
+     */
+    @PostMapping("/account/export")
+    public WebAsyncTask<String> exportAccount(Authentication authentication) {
+        return bulkheads.dispatch(BulkheadGroup.WRITE, () -> {
+            accountJobs.requestExport(authentication.getName());
+            return "redirect:/user/account";
+        });
+    }
+
+    /**
+     * Downloads a completed export of the account of the logged-in user.
+     *
+     * @param jobId the ID of the export job.
+     * @param authentication the authentication object containing the user's details.
+     * @return the export, in JSON lines, or 404 if the user has no such completed export.
+     */
+    @GetMapping("/account/export/{jobId}")
+    public ResponseEntity<StreamingResponseBody> downloadExport(@PathVariable Long jobId, Authentication authentication) {
+        Path file = accountJobs.getExportFile(authentication.getName(), jobId);
+        if (file == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return sendFile(file, MediaType.APPLICATION_NDJSON,
+                ContentDisposition.attachment().filename("travelplanner-export-" + jobId + ".jsonl").build());
+    }
+
+    /**
+     * Deletes the account of the logged-in user and logs them out. The account is closed at once;
+     * its trips are deleted in the background.
+     *
+     * @param authentication the authentication object containing the user's details.
+     * @param request the current servlet request, used to log out.
+     * @return a redirect to the home page.
+     * @throws ServletException if the user cannot be logged out.
+     */
+    @PostMapping("/account/delete")
+    public String deleteAccount(Authentication authentication, HttpServletRequest request) throws ServletException {
+        User user = userService.findByUsername(authentication.getName());
+        if (user != null) {
+            userService.deleteUser(user.getId());
+        }
+        request.logout();
+        return "redirect:/";
+    }
+
     /**
      * Returns the error.html page in case of an exception.
      *
@@ -0,0 +1,30 @@
+package com.travelplanner.dictionary;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+
+/**
+ * Stores hotel and activity names as ids of the {@link DayValueDictionary}, and loads them
+ * back as the shared canonical instances. Hibernate creates the converters through Spring while
+ * the entity manager factory is being built, before the dictionary and its repository can exist,
+ * so the dictionary is injected as a lazy proxy resolved on first use.
+ */
+@Converter
+public class DayValueConverter implements AttributeConverter<String, Long> {
+
+    @Autowired
+    @Lazy
+    private DayValueDictionary dayValueDictionary;
+
+    @Override
+    public Long convertToDatabaseColumn(String name) {
+        return name != null ? dayValueDictionary.idOf(name) : null;
+    }
+
+    @Override
+    public String convertToEntityAttribute(Long id) {
+        return id != null ? dayValueDictionary.nameOf(id) : null;
+    }
+}
@@ -0,0 +1,144 @@
+package com.travelplanner.dictionary;
+
+import com.travelplanner.model.DayValue;
+import com.travelplanner.repository.DayValueRepository;
+import com.travelplanner.sharding.ShardContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory copy of the hotel and activity name dictionary of every shard.
+ * Names are canonicalized: all loaded trips share one String instance per distinct name.
+ * Ids are only known on the shard they were created on, so all methods work on the shard
+ * of the current thread.
+ */
+@Service
+public class DayValueDictionary {
+
+    private final Map<String, String> canonicalNames = new ConcurrentHashMap<>();
+    private final Map<Integer, ShardDictionary> shards = new ConcurrentHashMap<>();
+
+    @Autowired
+    private DayValueRepository dayValueRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate newTransaction;
+
+    /**
+     * Creates the dictionary.
+     *
+     * @param transactionManager the transaction manager, used to store new names in their own transaction.
+     */
+    public DayValueDictionary(PlatformTransactionManager transactionManager) {
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Makes sure names have an id on the current shard, storing the missing ones.
+     * New names are committed in their own transaction, so an id in memory always exists
+     * in the database, even if the caller's transaction rolls back.
+     *
+     * @param names the names, which may contain nulls.
+     */
+    public void register(Collection<String> names) {
+        ShardDictionary dictionary = currentShard();
+        for (String name : names) {
+            if (name != null && !dictionary.ids.containsKey(name)) {
+                synchronized (dictionary) {
+                    if (!dictionary.ids.containsKey(name)) {
+                        Long id = newTransaction.execute(status -> dayValueRepository.findByName(name).stream()
+                                .filter(value -> value.getName().equals(name))
+                                .findFirst()
+                                .orElseGet(() -> dayValueRepository.save(new DayValue(name)))
+                                .getId());
+                        dictionary.put(id, canonicalize(name));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the id of a registered name on the current shard.
+     *
+     * @param name the name.
+     * @return the id of the name.
+     * @throws IllegalStateException if the name was not registered first.
+     */
+    public Long idOf(String name) {
+        Long id = currentShard().ids.get(name);
+        if (id == null) {
+            throw new IllegalStateException("Day value not registered before saving: " + name);
+        }
+        return id;
+    }
+
+    /**
+     * Gets the name of an id on the current shard, reading it from the database if it was
+     * added by another instance.
+     *
+     * @param id the id.
+     * @return the canonical instance of the name, or null if there is no such id.
+     */
+    public String nameOf(Long id) {
+        ShardDictionary dictionary = currentShard();
+        String name = dictionary.names.get(id);
+        if (name == null) {
+            List<String> found = jdbcTemplate.queryForList("select name from day_value where id = ?", String.class, id);
+            if (found.isEmpty()) {
+                return null;
+            }
+            name = canonicalize(found.get(0));
+            dictionary.put(id, name);
+        }
+        return name;
+    }
+
+    /**
+     * Gets the number of distinct names known in memory, over all shards.
+     *
+     * @return the number of names.
+     */
+    public int size() {
+        return canonicalNames.size();
+    }
+
+    private String canonicalize(String name) {
+        return canonicalNames.computeIfAbsent(name, key -> key);
+    }
+
+    /**
+     * Gets the dictionary of the current shard, loading all of its names on first use.
+     */
+    private ShardDictionary currentShard() {
+        Integer shard = ShardContext.current();
+        return shards.computeIfAbsent(shard != null ? shard : 0, key -> {
+            ShardDictionary dictionary = new ShardDictionary();
+            jdbcTemplate.query("select id, name from day_value",
+                    row -> { dictionary.put(row.getLong(1), canonicalize(row.getString(2))); });
+            return dictionary;
+        });
+    }
+
+    private static final class ShardDictionary {
+        final Map<String, Long> ids = new ConcurrentHashMap<>();
+        final Map<Long, String> names = new ConcurrentHashMap<>();
+
+        void put(Long id, String name) {
+            ids.putIfAbsent(name, id);
+            names.put(id, name);
+        }
+    }
+}
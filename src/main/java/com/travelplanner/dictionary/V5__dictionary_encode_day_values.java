@@ -0,0 +1,84 @@
+package com.travelplanner.dictionary;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Moves the hotel and activity names of trip days into the day_value dictionary, and replaces
+ * them by the ids of their entries. Written in Java rather than SQL because names must be matched
+ * exactly, while the default MySQL collation would merge names differing only in case or accents.
+ * Registered as a bean by {@link com.travelplanner.Configuration.MigrationConfig}, since a native
+ * image cannot scan the classpath for Java migrations.
+ */
+public class V5__dictionary_encode_day_values extends BaseJavaMigration {
+
+    private static final int BATCH_SIZE = 500;
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create table day_value ("
+                    + " id bigint not null auto_increment,"
+                    + " name varchar(255) not null,"
+                    + " primary key (id))");
+            statement.execute("create index ix_day_value_name on day_value (name)");
+        }
+        Map<String, Long> ids = new HashMap<>();
+        encode(connection, ids, "tri_plan_hotels", "hotels", "hotel_id");
+        encode(connection, ids, "tri_plan_activities", "activities", "activity_id");
+    }
+
+    private void encode(Connection connection, Map<String, Long> ids, String table, String column, String idColumn)
+            throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("alter table " + table + " add column " + idColumn + " bigint");
+        }
+        try (Statement select = connection.createStatement();
+             ResultSet rows = select.executeQuery("select tri_plan_id, " + column + "_key, " + column
+                     + " from " + table + " where " + column + " is not null");
+             PreparedStatement insert = connection.prepareStatement("insert into day_value (name) values (?)",
+                     Statement.RETURN_GENERATED_KEYS);
+             PreparedStatement update = connection.prepareStatement("update " + table + " set " + idColumn
+                     + " = ? where tri_plan_id = ? and " + column + "_key = ?")) {
+            int pending = 0;
+            while (rows.next()) {
+                String name = rows.getString(3);
+                Long id = ids.get(name);
+                if (id == null) {
+                    insert.setString(1, name);
+                    insert.executeUpdate();
+                    try (ResultSet keys = insert.getGeneratedKeys()) {
+                        keys.next();
+                        id = keys.getLong(1);
+                    }
+                    ids.put(name, id);
+                }
+                update.setLong(1, id);
+                update.setLong(2, rows.getLong(1));
+                update.setDate(3, rows.getDate(2));
+                update.addBatch();
+                if (++pending == BATCH_SIZE) {
+                    update.executeBatch();
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                update.executeBatch();
+            }
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("alter table " + table + " drop column " + column);
+            statement.execute("alter table " + table + " add constraint fk_" + table + "_day_value"
+                    + " foreign key (" + idColumn + ") references day_value (id)");
+        }
+    }
+}
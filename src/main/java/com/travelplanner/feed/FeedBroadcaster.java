@@ -0,0 +1,121 @@
+package com.travelplanner.feed;
+
+import com.travelplanner.model.OutboxEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Fans trip changes out to every connected feed page over Server-Sent Events.
+ * A client whose buffer fills up is disconnected; the page reconnects and reloads.
+ */
+@Component
+public class FeedBroadcaster {
+
+    private static final Object HEARTBEAT = new Object();
+
+    private final Set<FeedSubscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService sender;
+    private final int bufferSize;
+    private final Duration timeout;
+    private final Counter evictions;
+
+    /**
+     * Creates the broadcaster.
+     *
+     * @param bufferSize    the number of events buffered per client.
+     * @param senderThreads the number of threads writing to clients.
+     * @param timeout       the time after which a stream is closed and the client reconnects.
+     * @param meterRegistry the registry for the subscriber metrics.
+     */
+    @Autowired
+    public FeedBroadcaster(@Value("${travelplanner.feed.client-buffer-size:64}") int bufferSize,
+                           @Value("${travelplanner.feed.sender-threads:4}") int senderThreads,
+                           @Value("${travelplanner.feed.stream-timeout:30m}") Duration timeout,
+                           MeterRegistry meterRegistry) {
+        this.bufferSize = bufferSize;
+        this.timeout = timeout;
+        this.sender = Executors.newFixedThreadPool(senderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "feed-sender");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.evictions = meterRegistry.counter("travelplanner.feed.evicted");
+        meterRegistry.gaugeCollectionSize("travelplanner.feed.subscribers", Tags.empty(), subscribers);
+    }
+
+    /**
+     * Connects a new feed page.
+     *
+     * @return the emitter streaming events to the page.
+     */
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        FeedSubscriber subscriber = new FeedSubscriber(emitter, bufferSize, sender);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        return emitter;
+    }
+
+    /**
+     * Sends an event to every connected page, disconnecting the ones that do not keep up.
+     *
+     * @param event the event.
+     */
+    public void broadcast(OutboxEvent event) {
+        offerToAll(event);
+    }
+
+    /**
+     * Checks whether any page is connected.
+     *
+     * @return true if there are subscribers.
+     */
+    public boolean hasSubscribers() {
+        return !subscribers.isEmpty();
+    }
+
+    /**
+     * Sends a comment to every page, so connections closed by the client are noticed.
+     */
+    @Scheduled(fixedDelayString = "${travelplanner.feed.heartbeat-interval-ms:25000}")
+    public void heartbeat() {
+        offerToAll(HEARTBEAT);
+    }
+
+    private void offerToAll(Object event) {
+        for (FeedSubscriber subscriber : subscribers) {
+            if (!subscriber.offer(event)) {
+                subscribers.remove(subscriber);
+                if (!subscriber.isClosed()) {
+                    evictions.increment();
+                    subscriber.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Closes every stream and stops the sender threads.
+     */
+    @PreDestroy
+    public void shutdown() {
+        subscribers.forEach(FeedSubscriber::close);
+        subscribers.clear();
+        sender.shutdown();
+    }
+}
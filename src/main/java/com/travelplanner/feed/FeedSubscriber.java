@@ -0,0 +1,89 @@
+package com.travelplanner.feed;
+
+import com.travelplanner.model.OutboxEvent;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One connected feed page. Events are buffered in a bounded queue and written to the client
+ * by a sender thread, so the relay never waits for a slow client. Trip ids are sent as strings,
+ * as the ids of shards other than 0 exceed the integers a JavaScript number holds exactly.
+ */
+class FeedSubscriber {
+
+    private final SseEmitter emitter;
+    private final BlockingQueue<Object> buffer;
+    private final Executor sender;
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private volatile boolean closed;
+
+    FeedSubscriber(SseEmitter emitter, int bufferSize, Executor sender) {
+        this.emitter = emitter;
+        this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        this.sender = sender;
+    }
+
+    SseEmitter getEmitter() {
+        return emitter;
+    }
+
+    /**
+     * Queues an event for the client.
+     *
+     * @param event the event, or a heartbeat marker.
+     * @return false if the buffer is full, meaning the client does not keep up.
+     */
+    boolean offer(Object event) {
+        if (closed || !buffer.offer(event)) {
+            return false;
+        }
+        if (draining.compareAndSet(false, true)) {
+            sender.execute(this::drain);
+        }
+        return true;
+    }
+
+    /**
+     * Ends the stream of the client.
+     */
+    void close() {
+        closed = true;
+        buffer.clear();
+        emitter.complete();
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    private void drain() {
+        try {
+            Object next;
+            while (!closed && (next = buffer.poll()) != null) {
+                if (next instanceof OutboxEvent event) {
+                    emitter.send(SseEmitter.event()
+                            .id(String.valueOf(event.getId()))
+                            .name(event.getType().name())
+                            .data(Map.of("tripId", String.valueOf(event.getTripId()), "type", event.getType()), MediaType.APPLICATION_JSON));
+                } else {
+                    emitter.send(SseEmitter.event().comment("heartbeat"));
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            closed = true;
+            emitter.completeWithError(e);
+        } finally {
+            draining.set(false);
+        }
+        if (!closed && !buffer.isEmpty() && draining.compareAndSet(false, true)) {
+            sender.execute(this::drain);
+        }
+    }
+}
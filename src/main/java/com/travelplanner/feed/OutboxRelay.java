@@ -0,0 +1,80 @@
+package com.travelplanner.feed;
+
+import com.travelplanner.cluster.ChangeCursor;
+import com.travelplanner.model.OutboxEvent;
+import com.travelplanner.repository.OutboxEventRepository;
+import com.travelplanner.sharding.ShardContext;
+import com.travelplanner.sharding.ShardRouter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Tails the outbox of every shard and hands new events to the {@link FeedBroadcaster}.
+ * One poller per application instance replaces the refresh queries of all connected feed pages.
+ */
+@Component
+public class OutboxRelay {
+
+    private static final int BATCH_SIZE = 500;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private FeedBroadcaster feedBroadcaster;
+
+    @Value("${travelplanner.feed.gap-timeout:5s}")
+    private Duration gapTimeout;
+
+    @Value("${travelplanner.feed.outbox-retention:1h}")
+    private Duration retention;
+
+    private ChangeCursor[] positions;
+
+    /**
+     * Reads the events recorded since the last poll and broadcasts the ones visible in the feed.
+     */
+    @Scheduled(fixedDelayString = "${travelplanner.feed.poll-interval-ms:500}")
+    public void poll() {
+        if (positions == null) {
+            List<Long> maxIds = shardRouter.onAllShards(outboxEventRepository::findMaxId);
+            positions = new ChangeCursor[maxIds.size()];
+            for (int shard = 0; shard < positions.length; shard++) {
+                positions[shard] = new ChangeCursor(maxIds.get(shard));
+            }
+        }
+        List<List<OutboxEvent>> batches = shardRouter.onAllShards(() -> outboxEventRepository
+                .findByIdGreaterThanOrderByIdAsc(positions[ShardContext.current()].getCursor(), Pageable.ofSize(BATCH_SIZE)));
+        for (int shard = 0; shard < batches.size(); shard++) {
+            ChangeCursor position = positions[shard];
+            for (OutboxEvent event : batches.get(shard)) {
+                if (position.markDelivered(event.getId()) && event.isFeedVisible()) {
+                    feedBroadcaster.broadcast(event);
+                }
+            }
+            position.advance(gapTimeout);
+        }
+    }
+
+    /**
+     * Deletes outbox events that every relay has long read, once the destination analytics have
+     * applied them too: the analytics may lag behind, for instance while an instance is down.
+     * The latest event is kept, as its id is part of the version of the feed.
+     */
+    @Scheduled(fixedDelayString = "${travelplanner.feed.cleanup-interval-ms:600000}")
+    public void deleteOldEvents() {
+        Instant before = Instant.now().minus(retention);
+        shardRouter.onAllShards(() -> outboxEventRepository.deleteAppliedOlderThan(before,
+                outboxEventRepository.findMaxId()));
+    }
+}
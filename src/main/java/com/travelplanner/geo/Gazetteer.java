@@ -0,0 +1,96 @@
+package com.travelplanner.geo;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Resolves destination names to places using a gazetteer file bundled with the application,
+ * so no geocoding service is needed. Lines of the file hold the name, alternate names, country
+ * code, latitude, longitude and population of a place, separated by tabs.
+ * When several places share a name, the most populated one is chosen.
+ */
+@Component
+public class Gazetteer {
+
+    private final Map<String, Place> places = new HashMap<>();
+    private final List<Place> allPlaces = new ArrayList<>();
+
+    /**
+     * Loads the gazetteer.
+     *
+     * @param file the gazetteer file.
+     */
+    public Gazetteer(@Value("${travelplanner.geo.gazetteer:classpath:gazetteer/places.tsv}") Resource file) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split("\t", -1);
+                Place place = new Place(fields[0], fields[2], Double.parseDouble(fields[3]),
+                        Double.parseDouble(fields[4]), Long.parseLong(fields[5]));
+                allPlaces.add(place);
+                add(fields[0], place);
+                if (!fields[1].isEmpty()) {
+                    for (String alternateName : fields[1].split(",")) {
+                        add(alternateName, place);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read the gazetteer " + file, e);
+        }
+    }
+
+    /**
+     * Resolves a destination to a place. Accents, case and anything after a comma
+     * (such as "Paris, France") are ignored.
+     *
+     * @param destination the destination, as entered by the user.
+     * @return the place, or null if the destination is not in the gazetteer.
+     */
+    public Place resolve(String destination) {
+        if (destination == null) {
+            return null;
+        }
+        Place place = places.get(normalize(destination));
+        int comma = destination.indexOf(',');
+        if (place == null && comma > 0) {
+            place = places.get(normalize(destination.substring(0, comma)));
+        }
+        return place;
+    }
+
+    /**
+     * Gets all places of the gazetteer.
+     *
+     * @return the places, in the order of the file.
+     */
+    public List<Place> getPlaces() {
+        return Collections.unmodifiableList(allPlaces);
+    }
+
+    private void add(String name, Place place) {
+        places.merge(normalize(name), place, (existing, added) -> added.population() > existing.population() ? added : existing);
+    }
+
+    private static String normalize(String name) {
+        String withoutAccents = Normalizer.normalize(name, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        return withoutAccents.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,221 @@
+package com.travelplanner.geo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Spatial index of points on a fixed latitude/longitude grid, in the manner of a geohash of
+ * fixed precision. A query only visits the cells overlapping its bounding box, so its cost
+ * depends on the area searched and the matches, not on the number of indexed points.
+ * Cells are immutable arrays replaced on write; writes are serialized and queries run
+ * concurrently without locking.
+ */
+public class GeoGridIndex {
+
+    private static final double EARTH_RADIUS_KM = 6371.0088;
+    private static final double KM_PER_DEGREE = Math.PI * EARTH_RADIUS_KM / 180;
+
+    private final double cellDegrees;
+    private final int latitudeCells;
+    private final int longitudeCells;
+    private final Map<Long, double[]> points = new ConcurrentHashMap<>();
+    private final Map<Long, long[]> cells = new ConcurrentHashMap<>();
+
+    /**
+     * Creates an empty index.
+     *
+     * @param cellDegrees the size of a grid cell, in degrees.
+     */
+    public GeoGridIndex(double cellDegrees) {
+        this.cellDegrees = cellDegrees;
+        this.latitudeCells = (int) Math.ceil(180 / cellDegrees);
+        this.longitudeCells = (int) Math.ceil(360 / cellDegrees);
+    }
+
+    /**
+     * Adds a point or moves it.
+     *
+     * @param id        the point.
+     * @param latitude  the latitude in degrees.
+     * @param longitude the longitude in degrees.
+     */
+    public synchronized void put(long id, double latitude, double longitude) {
+        remove(id);
+        points.put(id, new double[]{latitude, longitude});
+        cells.merge(cellOf(latitude, longitude), new long[]{id}, GeoGridIndex::append);
+    }
+
+    /**
+     * Adds a point unless it is already indexed.
+     *
+     * @param id        the point.
+     * @param latitude  the latitude in degrees.
+     * @param longitude the longitude in degrees.
+     */
+    public synchronized void putIfAbsent(long id, double latitude, double longitude) {
+        if (!points.containsKey(id)) {
+            put(id, latitude, longitude);
+        }
+    }
+
+    /**
+     * Removes a point.
+     *
+     * @param id the point.
+     */
+    public synchronized void remove(long id) {
+        double[] point = points.remove(id);
+        if (point != null) {
+            cells.computeIfPresent(cellOf(point[0], point[1]), (cell, ids) -> without(ids, id));
+        }
+    }
+
+    /**
+     * Finds the points inside a bounding box. A box whose west edge is east of its east edge
+     * crosses the antimeridian. Longitudes are between -180 and 180.
+     *
+     * @param south the southern latitude.
+     * @param west  the western longitude.
+     * @param north the northern latitude.
+     * @param east  the eastern longitude.
+     * @param limit the maximum number of points to return.
+     * @return the points inside the box, in no particular order.
+     */
+    public List<Long> withinBox(double south, double west, double north, double east, int limit) {
+        List<Long> found = new ArrayList<>();
+        int fromRow = row(Math.max(south, -90));
+        int toRow = row(Math.min(north, 90));
+        int fromColumn = column(west);
+        int columns = west <= east
+                ? column(east) - fromColumn + 1
+                : longitudeCells - fromColumn + column(east) + 1;
+        for (int row = fromRow; row <= toRow; row++) {
+            for (int i = 0; i < columns; i++) {
+                long[] ids = cells.get((long) row * longitudeCells + (fromColumn + i) % longitudeCells);
+                if (ids == null) {
+                    continue;
+                }
+                for (long id : ids) {
+                    double[] point = points.get(id);
+                    if (point != null && point[0] >= south && point[0] <= north && inLongitudeRange(point[1], west, east)) {
+                        found.add(id);
+                        if (found.size() == limit) {
+                            return found;
+                        }
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Finds the points within a distance of a location, nearest first.
+     *
+     * @param latitude  the latitude of the location.
+     * @param longitude the longitude of the location.
+     * @param radiusKm  the distance in kilometres.
+     * @param limit     the maximum number of points to return.
+     * @return the points within the distance, nearest first.
+     */
+    public List<Long> withinRadius(double latitude, double longitude, double radiusKm, int limit) {
+        double latitudeDelta = radiusKm / KM_PER_DEGREE;
+        double cosLatitude = Math.cos(Math.toRadians(Math.min(89.9, Math.abs(latitude) + latitudeDelta)));
+        double longitudeDelta = Math.min(180, latitudeDelta / cosLatitude);
+        double west = longitudeDelta >= 180 ? -180 : wrap(longitude - longitudeDelta);
+        double east = longitudeDelta >= 180 ? 180 : wrap(longitude + longitudeDelta);
+
+        List<Long> inBox = withinBox(latitude - latitudeDelta, west, latitude + latitudeDelta, east, Integer.MAX_VALUE);
+        List<double[]> withDistance = new ArrayList<>();
+        for (Long id : inBox) {
+            double[] point = points.get(id);
+            if (point != null) {
+                double distance = distanceKm(latitude, longitude, point[0], point[1]);
+                if (distance <= radiusKm) {
+                    withDistance.add(new double[]{distance, id});
+                }
+            }
+        }
+        withDistance.sort(Comparator.comparingDouble(entry -> entry[0]));
+        List<Long> nearest = new ArrayList<>(Math.min(limit, withDistance.size()));
+        for (int i = 0; i < withDistance.size() && i < limit; i++) {
+            nearest.add((long) withDistance.get(i)[1]);
+        }
+        return nearest;
+    }
+
+    /**
+     * Gets the number of indexed points.
+     *
+     * @return the number of points.
+     */
+    public int size() {
+        return points.size();
+    }
+
+    /**
+     * Computes the great-circle distance between two locations.
+     *
+     * @param latitude1  the latitude of the first location.
+     * @param longitude1 the longitude of the first location.
+     * @param latitude2  the latitude of the second location.
+     * @param longitude2 the longitude of the second location.
+     * @return the distance in kilometres.
+     */
+    public static double distanceKm(double latitude1, double longitude1, double latitude2, double longitude2) {
+        double dLatitude = Math.toRadians(latitude2 - latitude1);
+        double dLongitude = Math.toRadians(longitude2 - longitude1);
+        double a = Math.sin(dLatitude / 2) * Math.sin(dLatitude / 2)
+                + Math.cos(Math.toRadians(latitude1)) * Math.cos(Math.toRadians(latitude2))
+                * Math.sin(dLongitude / 2) * Math.sin(dLongitude / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    private long cellOf(double latitude, double longitude) {
+        return (long) row(latitude) * longitudeCells + column(longitude);
+    }
+
+    private int row(double latitude) {
+        return Math.min(latitudeCells - 1, (int) Math.floor((latitude + 90) / cellDegrees));
+    }
+
+    private int column(double longitude) {
+        return Math.max(0, Math.min(longitudeCells - 1, (int) Math.floor((longitude + 180) / cellDegrees)));
+    }
+
+    private static boolean inLongitudeRange(double longitude, double west, double east) {
+        return west <= east ? longitude >= west && longitude <= east : longitude >= west || longitude <= east;
+    }
+
+    private static double wrap(double longitude) {
+        return longitude > 180 ? longitude - 360 : longitude < -180 ? longitude + 360 : longitude;
+    }
+
+    private static long[] append(long[] ids, long[] added) {
+        long[] appended = Arrays.copyOf(ids, ids.length + 1);
+        appended[ids.length] = added[0];
+        return appended;
+    }
+
+    /**
+     * Returns the ids without the id, or null to drop the cell when it becomes empty.
+     */
+    private static long[] without(long[] ids, long id) {
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] == id) {
+                if (ids.length == 1) {
+                    return null;
+                }
+                long[] remaining = new long[ids.length - 1];
+                System.arraycopy(ids, 0, remaining, 0, i);
+                System.arraycopy(ids, i + 1, remaining, i, remaining.length - i);
+                return remaining;
+            }
+        }
+        return ids;
+    }
+}
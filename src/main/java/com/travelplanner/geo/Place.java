@@ -0,0 +1,13 @@
+package com.travelplanner.geo;
+
+/**
+ * A place of the gazetteer.
+ *
+ * @param name       the name of the place.
+ * @param country    the ISO 3166 country code.
+ * @param latitude   the latitude in degrees.
+ * @param longitude  the longitude in degrees.
+ * @param population the population, used to choose between places with the same name.
+ */
+public record Place(String name, String country, double latitude, double longitude, long population) {
+}
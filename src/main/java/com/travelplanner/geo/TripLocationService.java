@@ -0,0 +1,128 @@
+package com.travelplanner.geo;
+
+import com.travelplanner.model.TriPlan;
+import com.travelplanner.service.PublishedTripLoader;
+import com.travelplanner.service.TriPlanService;
+import com.travelplanner.service.TripChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+
+/**
+ * Answers location queries over the published trips from an in-memory grid index.
+ * The index is loaded at startup and then updated on every committed trip change.
+ * Trips saved before coordinates were stored are placed by resolving their destination.
+ */
+@Service
+public class TripLocationService {
+
+    private static final Logger log = LoggerFactory.getLogger(TripLocationService.class);
+
+    private final GeoGridIndex index;
+    private final PublishedTripLoader loader = new PublishedTripLoader("location index", this);
+
+    @Autowired
+    private TriPlanService triPlanService;
+
+    @Autowired
+    private Gazetteer gazetteer;
+
+    /**
+     * Creates the service.
+     *
+     * @param cellDegrees the size of a cell of the grid index, in degrees.
+     */
+    public TripLocationService(@Value("${travelplanner.geo.cell-degrees:1.0}") double cellDegrees) {
+        this.index = new GeoGridIndex(cellDegrees);
+    }
+
+    /**
+     * Loads all published trips into the index in the background.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadPublishedTrips() {
+        loader.start(triPlanService, triPlan -> {
+            double[] location = locationOf(triPlan);
+            if (location != null) {
+                putLoaded(triPlan.getId(), location);
+            }
+        }, () -> log.info("Loaded {} published trips into the location index", index.size()));
+    }
+
+    /**
+     * Updates the index after a trip change is committed.
+     *
+     * @param event the trip change.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTripChanged(TripChangedEvent event) {
+        TriPlan triPlan = event.triPlan();
+        double[] location = triPlan != null && triPlan.isPublished() ? locationOf(triPlan) : null;
+        synchronized (this) {
+            loader.recordChange(event.tripId());
+            if (location == null) {
+                index.remove(event.tripId());
+            } else {
+                index.put(event.tripId(), location[0], location[1]);
+            }
+        }
+    }
+
+    /**
+     * Adds a loaded trip, unless it was changed since the load started.
+     */
+    private synchronized void putLoaded(Long tripId, double[] location) {
+        if (!loader.isChangedSinceStart(tripId)) {
+            index.putIfAbsent(tripId, location[0], location[1]);
+        }
+    }
+
+    /**
+     * Finds the published trips within a distance of a place, nearest first.
+     *
+     * @param place the place.
+     * @param radiusKm the distance in kilometres.
+     * @param limit the maximum number of trips to return.
+     * @return the trips, nearest first.
+     */
+    public List<TriPlan> findPublishedNear(Place place, double radiusKm, int limit) {
+        return published(index.withinRadius(place.latitude(), place.longitude(), radiusKm, limit));
+    }
+
+    /**
+     * Finds the published trips inside a bounding box.
+     *
+     * @param south the southern latitude.
+     * @param west the western longitude.
+     * @param north the northern latitude.
+     * @param east the eastern longitude; west of the western longitude if the box crosses the antimeridian.
+     * @param limit the maximum number of trips to return.
+     * @return the trips, in feed order.
+     */
+    public List<TriPlan> findPublishedInBox(double south, double west, double north, double east, int limit) {
+        List<TriPlan> triPlans = published(index.withinBox(south, west, north, east, limit));
+        triPlans.sort(TriPlanService.FEED_ORDER);
+        return triPlans;
+    }
+
+    private List<TriPlan> published(List<Long> ids) {
+        List<TriPlan> triPlans = triPlanService.getTriPlansByIds(ids);
+        triPlans.removeIf(triPlan -> !triPlan.isPublished());
+        return triPlans;
+    }
+
+    private double[] locationOf(TriPlan triPlan) {
+        if (triPlan.getLatitude() != null && triPlan.getLongitude() != null) {
+            return new double[]{triPlan.getLatitude(), triPlan.getLongitude()};
+        }
+        Place place = gazetteer.resolve(triPlan.getName());
+        return place != null ? new double[]{place.latitude(), place.longitude()} : null;
+    }
+}
@@ -0,0 +1,15 @@
+package com.travelplanner.history;
+
+import java.time.LocalDate;
+
+/**
+ * One changed field of a trip plan between two versions. Dates are written in ISO format,
+ * and a missing value is null.
+ *
+ * @param field  the changed field.
+ * @param date   the day of a hotel or activity change, or null for a field of the whole trip.
+ * @param before the value in the older version.
+ * @param after  the value in the newer version.
+ */
+public record TripChange(TripField field, LocalDate date, String before, String after) {
+}
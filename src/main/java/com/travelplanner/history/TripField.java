@@ -0,0 +1,22 @@
+package com.travelplanner.history;
+
+/**
+ * Parts of a trip plan whose changes are kept in its version history.
+ * The hotel and activity are kept per day; the other fields belong to the whole trip.
+ */
+public enum TripField {
+    NAME,
+    START_DATE,
+    END_DATE,
+    HOTEL,
+    ACTIVITY;
+
+    /**
+     * Tells whether the field is kept per day.
+     *
+     * @return true for the hotel and the activity.
+     */
+    public boolean isDaily() {
+        return this == HOTEL || this == ACTIVITY;
+    }
+}
@@ -0,0 +1,163 @@
+package com.travelplanner.history;
+
+import com.travelplanner.model.TriPlan;
+import com.travelplanner.model.TripRevision;
+import com.travelplanner.repository.TripRevisionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Version history of trip plans. Every save that changes the name, the dates or the days of a trip
+ * records a revision holding only the changed fields, so the history grows with the edits rather
+ * than with the size of the trip. Every few revisions the whole trip is stored instead, so a version
+ * is rebuilt from at most that many rows. The first revision of a trip, or of a copy, is always a snapshot.
+ * The revisions are stored on the shard of their trip; the methods run on the current shard.
+ */
+@Service
+public class TripHistory {
+
+    @Autowired
+    private TripRevisionRepository tripRevisionRepository;
+
+    @Value("${travelplanner.history.snapshot-every:20}")
+    private int snapshotEvery;
+
+    private final TripRevisionCodec codec = new TripRevisionCodec();
+
+    /**
+     * Records the new version of a saved trip plan, in the current transaction. Nothing is recorded
+     * if its content did not change. A trip saved before the history existed gets its previous
+     * content as first revision when it is known.
+     *
+     * @param triPlan the saved trip plan.
+     * @param before  the content of the trip plan before the change, or null for a new trip plan or
+     *                when unknown, in which case it is rebuilt from the history.
+     * @param source  the trip plan a new copy was made from, or null.
+     */
+    public void record(TriPlan triPlan, TripState before, TripSource source) {
+        Long tripId = triPlan.getId();
+        TripState after = TripState.of(triPlan);
+        Integer latest = tripRevisionRepository.findLatestRevision(tripId);
+        if (latest == null) {
+            before = before != null ? before : after;
+            TripRevision first = new TripRevision(tripId, 1, true, 0, codec.encode(TripState.EMPTY.changesTo(before)));
+            if (source != null) {
+                first.setSource(source.tripId(), source.revision());
+            }
+            tripRevisionRepository.save(first);
+            latest = 1;
+        } else if (before == null) {
+            before = getVersion(tripId, latest);
+        }
+        // Without a known previous content the changes cannot be applied as a delta, so a snapshot is written.
+        boolean complete = before != null;
+        List<TripChange> changes = (complete ? before : TripState.EMPTY).changesTo(after);
+        if (changes.isEmpty()) {
+            return;
+        }
+        int revision = latest + 1;
+        Integer snapshotRevision = tripRevisionRepository.findSnapshotRevision(tripId, latest);
+        boolean snapshot = !complete || snapshotRevision == null || revision - snapshotRevision >= snapshotEvery;
+        byte[] payload = codec.encode(snapshot ? TripState.EMPTY.changesTo(after) : changes);
+        tripRevisionRepository.save(new TripRevision(tripId, revision, snapshot, changes.size(), payload));
+    }
+
+    /**
+     * Gets the latest revision number of a trip plan.
+     *
+     * @param tripId the ID of the trip plan.
+     * @return the latest revision, or null if the trip plan has no history.
+     */
+    public Integer getLatestRevision(Long tripId) {
+        return tripRevisionRepository.findLatestRevision(tripId);
+    }
+
+    /**
+     * Lists the versions of a trip plan.
+     *
+     * @param tripId the ID of the trip plan.
+     * @return the versions, the latest first.
+     */
+    public List<TripVersion> getVersions(Long tripId) {
+        return tripRevisionRepository.findVersions(tripId);
+    }
+
+    /**
+     * Rebuilds a version of a trip plan from the last snapshot at or before it and the deltas after that snapshot.
+     *
+     * @param tripId   the ID of the trip plan.
+     * @param revision the revision to rebuild.
+     * @return the content of the trip plan at that revision, or null if there is no such revision.
+     */
+    public TripState getVersion(Long tripId, int revision) {
+        Integer snapshotRevision = tripRevisionRepository.findSnapshotRevision(tripId, revision);
+        if (snapshotRevision == null) {
+            return null;
+        }
+        List<TripRevision> chain = tripRevisionRepository
+                .findByTripIdAndRevisionBetweenOrderByRevisionAsc(tripId, snapshotRevision, revision);
+        if (chain.isEmpty() || chain.get(chain.size() - 1).getRevision() != revision) {
+            return null;
+        }
+        TripState state = TripState.EMPTY;
+        for (TripRevision tripRevision : chain) {
+            state = state.apply(codec.decode(tripRevision.getPayload()));
+        }
+        return state;
+    }
+
+    /**
+     * Compares two versions of a trip plan.
+     *
+     * @param tripId the ID of the trip plan.
+     * @param from   the older revision.
+     * @param to     the newer revision.
+     * @return the changes leading from the older version to the newer one, or null if either does not exist.
+     */
+    public List<TripChange> diff(Long tripId, int from, int to) {
+        TripState older = getVersion(tripId, from);
+        TripState newer = getVersion(tripId, to);
+        if (older == null || newer == null) {
+            return null;
+        }
+        return older.changesTo(newer);
+    }
+
+    /**
+     * Reads every revision of a trip plan, to copy its history elsewhere.
+     *
+     * @param tripId the ID of the trip plan.
+     * @return the revisions in order.
+     */
+    public List<TripRevision> getRevisions(Long tripId) {
+        return tripRevisionRepository.findByTripIdOrderByRevisionAsc(tripId);
+    }
+
+    /**
+     * Stores copies of revisions as the history of a trip plan.
+     *
+     * @param tripId    the ID of the trip plan the revisions are copied to.
+     * @param revisions the revisions to copy.
+     */
+    public void copy(Long tripId, List<TripRevision> revisions) {
+        List<TripRevision> copies = new ArrayList<>(revisions.size());
+        revisions.forEach(revision -> copies.add(new TripRevision(tripId, revision)));
+        tripRevisionRepository.saveAll(copies);
+    }
+
+    /**
+     * Deletes the history of trip plans, in the current transaction.
+     *
+     * @param tripIds the IDs of the trip plans.
+     */
+    public void delete(Collection<Long> tripIds) {
+        if (!tripIds.isEmpty()) {
+            tripRevisionRepository.deleteByTripIds(tripIds);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.travelplanner.history;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Converts the changes of a revision to and from its stored payload. Only the new value of each
+ * change is written, with the day as an epoch day, so a one-day edit takes a few dozen bytes.
+ * The names are stored as text: a revision does not depend on the day value dictionary.
+ */
+class TripRevisionCodec {
+
+    private static final int FORMAT = 1;
+
+    /**
+     * Writes the changes of a revision.
+     *
+     * @param changes the changes.
+     * @return the payload.
+     */
+    byte[] encode(List<TripChange> changes) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(16 + changes.size() * 32);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT);
+            out.writeInt(changes.size());
+            for (TripChange change : changes) {
+                out.writeByte(change.field().ordinal());
+                if (change.field().isDaily()) {
+                    out.writeInt((int) change.date().toEpochDay());
+                }
+                out.writeBoolean(change.after() != null);
+                if (change.after() != null) {
+                    out.writeUTF(change.after());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Reads the changes of a revision. Their old values are not stored, and are null.
+     *
+     * @param payload the payload.
+     * @return the changes.
+     */
+    List<TripChange> decode(byte[] payload) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            int format = in.readUnsignedByte();
+            if (format != FORMAT) {
+                throw new IllegalStateException("Unknown revision format " + format);
+            }
+            int size = in.readInt();
+            List<TripChange> changes = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                TripField field = TripField.values()[in.readUnsignedByte()];
+                LocalDate date = field.isDaily() ? LocalDate.ofEpochDay(in.readInt()) : null;
+                String after = in.readBoolean() ? in.readUTF() : null;
+                changes.add(new TripChange(field, date, null, after));
+            }
+            return changes;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.travelplanner.history;
+
+/**
+ * The version of another trip plan that a copy was made from.
+ *
+ * @param tripId   the ID of the original trip plan.
+ * @param revision the revision of the original trip plan when it was copied, or null if it had no history.
+ */
+public record TripSource(Long tripId, Integer revision) {
+}
@@ -0,0 +1,134 @@
+package com.travelplanner.history;
+
+import com.travelplanner.model.TriPlan;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+
+/**
+ * The content of a trip plan kept in its version history: the name, the dates and the hotel and
+ * activity of every day. Days without a value are left out of the maps.
+ *
+ * @param name       the name of the trip plan.
+ * @param startDate  the start date of the trip.
+ * @param endDate    the end date of the trip.
+ * @param hotels     the hotel of every day that has one.
+ * @param activities the activity of every day that has one.
+ */
+public record TripState(String name, LocalDate startDate, LocalDate endDate,
+                        Map<LocalDate, String> hotels, Map<LocalDate, String> activities) {
+
+    /**
+     * The state before the first version, which a snapshot is applied to.
+     */
+    public static final TripState EMPTY = new TripState(null, null, null, Map.of(), Map.of());
+
+    /**
+     * Copies the content of a trip plan.
+     *
+     * @param triPlan the trip plan.
+     * @return its content.
+     */
+    public static TripState of(TriPlan triPlan) {
+        return new TripState(triPlan.getName(), triPlan.getStartDate(), triPlan.getEndDate(),
+                withoutEmptyDays(triPlan.getHotels()), withoutEmptyDays(triPlan.getActivities()));
+    }
+
+    /**
+     * Lists the fields that differ from another state, the trip fields first and then the days in date order.
+     *
+     * @param newer the newer state.
+     * @return the changes leading from this state to the newer one.
+     */
+    public List<TripChange> changesTo(TripState newer) {
+        List<TripChange> changes = new ArrayList<>();
+        addChange(changes, TripField.NAME, null, name, newer.name);
+        addChange(changes, TripField.START_DATE, null, format(startDate), format(newer.startDate));
+        addChange(changes, TripField.END_DATE, null, format(endDate), format(newer.endDate));
+        TreeSet<LocalDate> days = new TreeSet<>(hotels.keySet());
+        days.addAll(activities.keySet());
+        days.addAll(newer.hotels.keySet());
+        days.addAll(newer.activities.keySet());
+        for (LocalDate day : days) {
+            addChange(changes, TripField.HOTEL, day, hotels.get(day), newer.hotels.get(day));
+            addChange(changes, TripField.ACTIVITY, day, activities.get(day), newer.activities.get(day));
+        }
+        return changes;
+    }
+
+    /**
+     * Applies changes to this state. Only the new values of the changes are read.
+     *
+     * @param changes the changes to apply.
+     * @return the changed state.
+     */
+    public TripState apply(List<TripChange> changes) {
+        String newName = name;
+        LocalDate newStartDate = startDate;
+        LocalDate newEndDate = endDate;
+        Map<LocalDate, String> newHotels = new HashMap<>(hotels);
+        Map<LocalDate, String> newActivities = new HashMap<>(activities);
+        for (TripChange change : changes) {
+            switch (change.field()) {
+                case NAME -> newName = change.after();
+                case START_DATE -> newStartDate = parse(change.after());
+                case END_DATE -> newEndDate = parse(change.after());
+                case HOTEL -> put(newHotels, change.date(), change.after());
+                case ACTIVITY -> put(newActivities, change.date(), change.after());
+            }
+        }
+        return new TripState(newName, newStartDate, newEndDate,
+                Collections.unmodifiableMap(newHotels), Collections.unmodifiableMap(newActivities));
+    }
+
+    /**
+     * Sets this content on a trip plan. Its owner, publication status and coordinates are left unchanged.
+     *
+     * @param triPlan the trip plan to change.
+     */
+    public void applyTo(TriPlan triPlan) {
+        triPlan.setName(name);
+        triPlan.setStartDate(startDate);
+        triPlan.setEndDate(endDate);
+        triPlan.setHotels(new HashMap<>(hotels));
+        triPlan.setActivities(new HashMap<>(activities));
+    }
+
+    private static void addChange(List<TripChange> changes, TripField field, LocalDate date, String before, String after) {
+        if (!Objects.equals(before, after)) {
+            changes.add(new TripChange(field, date, before, after));
+        }
+    }
+
+    private static void put(Map<LocalDate, String> days, LocalDate day, String value) {
+        if (value == null) {
+            days.remove(day);
+        } else {
+            days.put(day, value);
+        }
+    }
+
+    private static Map<LocalDate, String> withoutEmptyDays(Map<LocalDate, String> days) {
+        Map<LocalDate, String> copy = new HashMap<>(days.size() * 2);
+        days.forEach((day, value) -> {
+            if (value != null) {
+                copy.put(day, value);
+            }
+        });
+        return Collections.unmodifiableMap(copy);
+    }
+
+    private static String format(LocalDate date) {
+        return date != null ? date.toString() : null;
+    }
+
+    private static LocalDate parse(String date) {
+        return date != null ? LocalDate.parse(date) : null;
+    }
+}
@@ -0,0 +1,17 @@
+package com.travelplanner.history;
+
+import java.time.Instant;
+
+/**
+ * One entry of the version history of a trip plan, without its content.
+ *
+ * @param revision       the number of the version, starting at 1.
+ * @param createdAt      the time the version was saved.
+ * @param changeCount    the number of fields changed from the previous version.
+ * @param snapshot       whether the full trip plan is stored for this version.
+ * @param sourceTripId   the ID of the trip plan this one was copied from, for the first version of a copy.
+ * @param sourceRevision the revision of the trip plan this one was copied from, if known.
+ */
+public record TripVersion(int revision, Instant createdAt, int changeCount, boolean snapshot,
+                          Long sourceTripId, Integer sourceRevision) {
+}
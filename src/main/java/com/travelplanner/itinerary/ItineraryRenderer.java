@@ -0,0 +1,70 @@
+package com.travelplanner.itinerary;
+
+import com.lowagie.text.Document;
+import com.lowagie.text.DocumentException;
+import com.lowagie.text.Font;
+import com.lowagie.text.FontFactory;
+import com.lowagie.text.PageSize;
+import com.lowagie.text.Paragraph;
+import com.lowagie.text.Phrase;
+import com.lowagie.text.pdf.PdfPCell;
+import com.lowagie.text.pdf.PdfPTable;
+import com.lowagie.text.pdf.PdfWriter;
+import com.travelplanner.snapshot.TripSnapshot;
+
+import java.io.OutputStream;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+/**
+ * Renders the printable itinerary of a trip: a title, the dates and one row per day with its hotel and activities.
+ */
+class ItineraryRenderer {
+
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.ofPattern("EEE d MMM yyyy", Locale.ENGLISH);
+
+    private static final Font TITLE_FONT = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 20);
+    private static final Font HEADER_FONT = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 11);
+    private static final Font TEXT_FONT = FontFactory.getFont(FontFactory.HELVETICA, 11);
+
+    /**
+     * Writes the itinerary of a trip as a PDF document.
+     *
+     * @param tripPlan the snapshot of the trip.
+     * @param out the stream to write the document to; it is closed when done.
+     * @throws DocumentException if the document cannot be built.
+     */
+    void render(TripSnapshot tripPlan, OutputStream out) throws DocumentException {
+        Document document = new Document(PageSize.A4, 50, 50, 50, 50);
+        PdfWriter.getInstance(document, out);
+        document.addTitle("Itinerary: " + tripPlan.getName());
+        document.open();
+
+        document.add(new Paragraph("Destination: " + tripPlan.getName(), TITLE_FONT));
+        if (tripPlan.getStartDate() != null && tripPlan.getEndDate() != null) {
+            document.add(new Paragraph(DAY_FORMAT.format(tripPlan.getStartDate()) + " to "
+                    + DAY_FORMAT.format(tripPlan.getEndDate()) + " (" + tripPlan.getTripLength() + " days)", TEXT_FONT));
+
+            PdfPTable table = new PdfPTable(new float[]{3, 4, 7});
+            table.setWidthPercentage(100);
+            table.setSpacingBefore(16);
+            table.setHeaderRows(1);
+            table.addCell(cell("Date", HEADER_FONT));
+            table.addCell(cell("Hotel", HEADER_FONT));
+            table.addCell(cell("Activities", HEADER_FONT));
+            for (TripSnapshot.Day day : tripPlan.getDays()) {
+                table.addCell(cell(DAY_FORMAT.format(day.date()), TEXT_FONT));
+                table.addCell(cell(day.hotel(), TEXT_FONT));
+                table.addCell(cell(day.activity(), TEXT_FONT));
+            }
+            document.add(table);
+        }
+        document.close();
+    }
+
+    private static PdfPCell cell(String text, Font font) {
+        PdfPCell cell = new PdfPCell(new Phrase(text != null ? text : "", font));
+        cell.setPadding(5);
+        return cell;
+    }
+}
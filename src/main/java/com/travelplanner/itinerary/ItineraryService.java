@@ -0,0 +1,185 @@
+package com.travelplanner.itinerary;
+
+import com.travelplanner.model.TriPlan;
+import com.travelplanner.service.TripChangedEvent;
+import com.travelplanner.snapshot.TripSnapshot;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Produces printable itineraries of trips. Documents are rendered on a small bounded pool, never
+ * on request threads, and cached on local disk under the trip id and version, so a cached file is
+ * never stale and an edit simply leads to a new file. Concurrent requests for the same version
+ * share one render. When the pool and its queue are full, requests fail fast instead of piling up.
+ */
+@Service
+public class ItineraryService {
+
+    private static final Logger log = LoggerFactory.getLogger(ItineraryService.class);
+
+    private final ItineraryRenderer renderer = new ItineraryRenderer();
+    private final Map<Path, CompletableFuture<Path>> inFlight = new ConcurrentHashMap<>();
+    private final Path cacheDirectory;
+    private final Duration maxAge;
+    private final ThreadPoolExecutor renderPool;
+    private final Timer renderTimer;
+    private final Counter rejections;
+
+    /**
+     * Creates the service.
+     *
+     * @param cacheDirectory the directory of the cached documents.
+     * @param maxAge the time after which an unused cached document is deleted.
+     * @param renderThreads the number of threads rendering documents.
+     * @param queueCapacity the number of renders that may wait for a thread.
+     * @param meterRegistry the registry for the render metrics.
+     * @throws IOException if the cache directory cannot be created.
+     */
+    public ItineraryService(@Value("${travelplanner.itinerary.cache-dir:${java.io.tmpdir}/travelplanner-itineraries}") Path cacheDirectory,
+                            @Value("${travelplanner.itinerary.max-age:7d}") Duration maxAge,
+                            @Value("${travelplanner.itinerary.render-threads:2}") int renderThreads,
+                            @Value("${travelplanner.itinerary.queue-capacity:32}") int queueCapacity,
+                            MeterRegistry meterRegistry) throws IOException {
+        this.cacheDirectory = Files.createDirectories(cacheDirectory);
+        this.maxAge = maxAge;
+        this.renderPool = new ThreadPoolExecutor(renderThreads, renderThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "itinerary-render");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.renderTimer = meterRegistry.timer("travelplanner.itinerary.render");
+        this.rejections = meterRegistry.counter("travelplanner.itinerary.rejected");
+        meterRegistry.gauge("travelplanner.itinerary.queued", Tags.empty(), renderPool, pool -> pool.getQueue().size());
+    }
+
+    /**
+     * Gets the itinerary of a trip, rendering it unless the current version is cached.
+     *
+     * @param tripPlan the trip.
+     * @return the future file of the document; it fails with a {@link RejectedExecutionException}
+     *         when too many documents are being rendered.
+     */
+    public CompletableFuture<Path> getItinerary(TriPlan tripPlan) {
+        Path file = cacheDirectory.resolve(fileName(tripPlan.getId(), tripPlan.getVersion()));
+        if (Files.exists(file)) {
+            return CompletableFuture.completedFuture(file);
+        }
+        CompletableFuture<Path> render = inFlight.computeIfAbsent(file, key -> {
+            CompletableFuture<Path> future = new CompletableFuture<>();
+            // The render thread works on an immutable copy, not on the entity of the request
+            TripSnapshot snapshot = TripSnapshot.of(tripPlan);
+            try {
+                renderPool.execute(() -> {
+                    try {
+                        future.complete(renderTimer.recordCallable(() -> renderTo(snapshot, file)));
+                    } catch (Throwable e) {
+                        future.completeExceptionally(e);
+                    } finally {
+                        inFlight.remove(file, future);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                rejections.increment();
+                future.completeExceptionally(e);
+            }
+            return future;
+        });
+        if (render.isCompletedExceptionally()) {
+            inFlight.remove(file, render);
+        }
+        return render;
+    }
+
+    /**
+     * Deletes the cached itineraries of a trip that are no longer current once a change is committed.
+     *
+     * @param event the trip change.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTripChanged(TripChangedEvent event) {
+        String current = event.triPlan() != null ? fileName(event.tripId(), event.triPlan().getVersion()) : null;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(cacheDirectory, "trip-" + event.tripId() + "-v*.pdf")) {
+            for (Path file : files) {
+                if (!file.getFileName().toString().equals(current)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Could not remove stale itineraries of trip {}", event.tripId(), e);
+        }
+    }
+
+    /**
+     * Deletes cached itineraries that were not modified for longer than the maximum age.
+     * Stale renders that finished after their trip changed are removed this way as well.
+     */
+    @Scheduled(fixedDelayString = "${travelplanner.itinerary.cleanup-interval-ms:3600000}")
+    public void deleteOldItineraries() {
+        FileTime oldest = FileTime.from(Instant.now().minus(maxAge));
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(cacheDirectory, "trip-*.pdf")) {
+            for (Path file : files) {
+                if (Files.getLastModifiedTime(file).compareTo(oldest) < 0) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Could not clean up the itinerary cache", e);
+        }
+    }
+
+    /**
+     * Stops the render pool.
+     */
+    @PreDestroy
+    public void shutdown() {
+        renderPool.shutdownNow();
+    }
+
+    /**
+     * Renders into a temporary file first and then moves it into place, so a partly written
+     * document is never served.
+     */
+    private Path renderTo(TripSnapshot tripPlan, Path file) throws Exception {
+        Path temporary = Files.createTempFile(cacheDirectory, "render-", ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(temporary)) {
+                renderer.render(tripPlan, out);
+            }
+            return Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (Exception e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+    }
+
+    private static String fileName(Long tripId, Long version) {
+        return "trip-" + tripId + "-v" + version + ".pdf";
+    }
+}
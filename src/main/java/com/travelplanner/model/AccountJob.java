@@ -0,0 +1,268 @@
+package com.travelplanner.model;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * Entity class representing the deletion or export of a user's account, processed in the
+ * background a chunk of trips at a time. The job row lives on the shard of the user and records
+ * the progress of the job in the same transaction as each chunk, so it resumes where it stopped.
+ */
+@Entity
+@Table(name = "account_job", indexes = {
+        @Index(name = "ix_account_job_status", columnList = "status"),
+        @Index(name = "ix_account_job_username", columnList = "username")})
+public class AccountJob {
+
+    /**
+     * What the job does.
+     */
+    public enum Type {
+        DELETE, EXPORT
+    }
+
+    /**
+     * Where the job stands.
+     */
+    public enum Status {
+        PENDING, RUNNING, DONE, FAILED
+    }
+
+    /**
+     * The trips the job is going through: the active ones first, then the archived ones.
+     */
+    public enum Phase {
+        ACTIVE_TRIPS, ARCHIVED_TRIPS
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Type type;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Status status;
+
+    @Column(nullable = false)
+    private String username;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Phase phase;
+
+    private long lastTripId;
+    private int processed;
+    private String fileName;
+    private long fileOffset;
+    private int attempt;
+    private Instant createdAt;
+    private Instant updatedAt;
+
+    @Column(length = 1000)
+    private String error;
+
+    /**
+     * Creates an empty job, for JPA.
+     */
+    protected AccountJob() {
+    }
+
+    /**
+     * Creates a pending job.
+     * @param type what the job does.
+     * @param username the username of the user whose account is processed.
+     * @param fileName the name of the file the job writes, or null if it writes none.
+     */
+    public AccountJob(Type type, String username, String fileName) {
+        this.type = type;
+        this.status = Status.PENDING;
+        this.username = username;
+        this.phase = Phase.ACTIVE_TRIPS;
+        this.fileName = fileName;
+        this.createdAt = Instant.now();
+        this.updatedAt = createdAt;
+    }
+
+    /**
+     * Checks whether the job can be taken by a runner: it is pending, or its runner stopped
+     * reporting progress, most likely because its instance went down.
+     * @param staleBefore the time before which the last progress of a running job must be.
+     * @return true if the job can be taken.
+     */
+    public boolean isRunnable(Instant staleBefore) {
+        return status == Status.PENDING || (status == Status.RUNNING && updatedAt.isBefore(staleBefore));
+    }
+
+    /**
+     * Takes the job for a new attempt. The runner of a previous attempt notices it at its next checkpoint.
+     */
+    public void claim() {
+        status = Status.RUNNING;
+        attempt++;
+        updatedAt = Instant.now();
+    }
+
+    /**
+     * Records a processed chunk of trips.
+     * @param lastTripId the ID of the last trip of the chunk.
+     * @param count the number of trips in the chunk.
+     * @param fileOffset the length of the file once the chunk was written.
+     */
+    public void advance(long lastTripId, int count, long fileOffset) {
+        this.lastTripId = lastTripId;
+        this.processed += count;
+        this.fileOffset = fileOffset;
+        this.updatedAt = Instant.now();
+    }
+
+    /**
+     * Moves on to the archived trips, or completes the job if they were already processed.
+     */
+    public void finishPhase() {
+        if (phase == Phase.ACTIVE_TRIPS) {
+            phase = Phase.ARCHIVED_TRIPS;
+            lastTripId = 0;
+        } else {
+            status = Status.DONE;
+        }
+        updatedAt = Instant.now();
+    }
+
+    /**
+     * Starts the job over, when the file it was writing is gone.
+     */
+    public void restart() {
+        phase = Phase.ACTIVE_TRIPS;
+        lastTripId = 0;
+        processed = 0;
+        fileOffset = 0;
+        updatedAt = Instant.now();
+    }
+
+    /**
+     * Hands the job back, so a runner takes it again from its last checkpoint.
+     */
+    public void release() {
+        status = Status.PENDING;
+        updatedAt = Instant.now();
+    }
+
+    /**
+     * Gives up the job.
+     * @param error the reason, shortened to fit.
+     */
+    public void fail(String error) {
+        this.status = Status.FAILED;
+        this.error = error != null && error.length() > 1000 ? error.substring(0, 1000) : error;
+        this.updatedAt = Instant.now();
+    }
+
+    /**
+     * Gets the ID of the job, unique within the shard of the user.
+     * @return the ID of the job.
+     */
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * Gets what the job does.
+     * @return the type of the job.
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Gets where the job stands.
+     * @return the status of the job.
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Gets the username of the user whose account is processed.
+     * @return the username.
+     */
+    public String getUsername() {
+        return username;
+    }
+
+    /**
+     * Gets the trips the job is going through.
+     * @return the phase of the job.
+     */
+    public Phase getPhase() {
+        return phase;
+    }
+
+    /**
+     * Gets the ID of the last trip processed in the current phase.
+     * @return the ID of the trip, or 0 if the phase has not started.
+     */
+    public long getLastTripId() {
+        return lastTripId;
+    }
+
+    /**
+     * Gets the number of trips processed so far.
+     * @return the number of trips.
+     */
+    public int getProcessed() {
+        return processed;
+    }
+
+    /**
+     * Gets the name of the file the job writes, in the export directory.
+     * @return the name of the file, or null if the job writes none.
+     */
+    public String getFileName() {
+        return fileName;
+    }
+
+    /**
+     * Gets the length of the file at the last checkpoint. Anything written after it is overwritten on resume.
+     * @return the length of the file in bytes.
+     */
+    public long getFileOffset() {
+        return fileOffset;
+    }
+
+    /**
+     * Gets the number of times the job was taken by a runner.
+     * @return the number of the current attempt.
+     */
+    public int getAttempt() {
+        return attempt;
+    }
+
+    /**
+     * Gets the time the job was requested.
+     * @return the time the job was requested.
+     */
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * Gets the time of the last progress of the job.
+     * @return the time of the last progress.
+     */
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    /**
+     * Gets the reason the job failed.
+     * @return the reason, or null if the job did not fail.
+     */
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,39 @@
+package com.travelplanner.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Entity class representing how far the destination analytics have read the outbox of a shard.
+ * The single row is locked while a batch of events is applied, so only one instance applies it.
+ */
+@Entity
+@Table(name = "analytics_cursor")
+public class AnalyticsCursor {
+
+    @Id
+    private Integer id;
+
+    private long lastEventId;
+
+    /**
+     * Creates an empty cursor, for JPA.
+     */
+    protected AnalyticsCursor() {
+    }
+
+    /**
+     * Gets the ID of the row.
+     * @return the ID of the row.
+     */
+    public Integer getId() {
+        return id;
+    }
+
+    /**
+     * Gets the ID of the outbox event after which events may not have been applied yet.
+     * @return the ID of the last applied event.
+     */
+    public long getLastEventId() {
+        return lastEventId;
+    }
+}
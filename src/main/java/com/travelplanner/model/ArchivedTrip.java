@@ -0,0 +1,146 @@
+package com.travelplanner.model;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Entity class representing a trip plan moved to the archive tier once it is long over.
+ * The columns needed to find it are kept as they were; the name, the coordinates and the
+ * day data are stored together as one compressed payload. The trip keeps its id.
+ */
+@Entity
+@Table(name = "archived_trip", indexes = @Index(name = "ix_archived_trip_username", columnList = "username"))
+public class ArchivedTrip implements Persistable<Long> {
+
+    @Id
+    private Long id;
+    private String username;
+    private Long userId;
+    private boolean published;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private Long version;
+    private Instant archivedAt;
+
+    @Lob
+    @Column(nullable = false, length = 16777215)
+    private byte[] payload;
+
+    @Transient
+    private boolean isNew = true;
+
+    /**
+     * Constructor for JPA.
+     */
+    protected ArchivedTrip() {
+    }
+
+    /**
+     * Creates the archived copy of a trip plan.
+     * @param triPlan the trip plan to archive.
+     * @param payload the compressed name, coordinates and day data of the trip plan.
+     */
+    public ArchivedTrip(TriPlan triPlan, byte[] payload) {
+        this.id = triPlan.getId();
+        this.username = triPlan.getUsername();
+        this.userId = triPlan.getUser() != null ? triPlan.getUser().getId() : null;
+        this.published = triPlan.isPublished();
+        this.startDate = triPlan.getStartDate();
+        this.endDate = triPlan.getEndDate();
+        this.version = triPlan.getVersion();
+        this.archivedAt = Instant.now();
+        this.payload = payload;
+    }
+
+    /**
+     * Gets the ID of the trip plan.
+     * @return the ID of the trip plan.
+     */
+    @Override
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * Tells whether the entity was not stored yet. The id is assigned from the trip plan,
+     * so it cannot tell by itself; new copies are inserted without being looked up first.
+     * @return true if the entity was not stored or loaded.
+     */
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+
+    /**
+     * Gets the username of the trip plan owner.
+     * @return the username of the trip plan owner.
+     */
+    public String getUsername() {
+        return username;
+    }
+
+    /**
+     * Gets the ID of the trip plan owner.
+     * @return the ID of the owner.
+     */
+    public Long getUserId() {
+        return userId;
+    }
+
+    /**
+     * Gets the published status of the trip plan.
+     * @return true if the trip plan was published.
+     */
+    public boolean isPublished() {
+        return published;
+    }
+
+    /**
+     * Gets the start date of the trip plan.
+     * @return the start date.
+     */
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    /**
+     * Gets the end date of the trip plan.
+     * @return the end date.
+     */
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    /**
+     * Gets the version of the trip plan when it was archived.
+     * @return the version of the trip plan.
+     */
+    public Long getVersion() {
+        return version;
+    }
+
+    /**
+     * Gets the time the trip plan was archived.
+     * @return the archiving time.
+     */
+    public Instant getArchivedAt() {
+        return archivedAt;
+    }
+
+    /**
+     * Gets the compressed name, coordinates and day data of the trip plan.
+     * @return the payload.
+     */
+    public byte[] getPayload() {
+        return payload;
+    }
+}
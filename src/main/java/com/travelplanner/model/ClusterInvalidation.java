@@ -0,0 +1,82 @@
+package com.travelplanner.model;
+
+import com.travelplanner.cluster.EntityType;
+import com.travelplanner.cluster.Invalidation;
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * Entity class representing an invalidation message in the change table polled by the instances.
+ */
+@Entity
+@Table(name = "cluster_invalidation", indexes = @Index(name = "ix_cluster_invalidation_created_at", columnList = "createdAt"))
+public class ClusterInvalidation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private EntityType entityType;
+
+    private long entityId;
+    private long entityVersion;
+
+    @Column(length = 36)
+    private String origin;
+
+    private Instant createdAt;
+
+    /**
+     * Creates an empty message, for JPA.
+     */
+    protected ClusterInvalidation() {
+    }
+
+    /**
+     * Creates a message.
+     * @param invalidation the invalidation to send.
+     * @param origin the ID of the sending instance.
+     */
+    public ClusterInvalidation(Invalidation invalidation, String origin) {
+        this.entityType = invalidation.type();
+        this.entityId = invalidation.id();
+        this.entityVersion = invalidation.version();
+        this.origin = origin;
+        this.createdAt = Instant.now();
+    }
+
+    /**
+     * Gets the ID of the message, increasing in commit order.
+     * @return the ID of the message.
+     */
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * Gets the ID of the sending instance.
+     * @return the ID of the sending instance.
+     */
+    public String getOrigin() {
+        return origin;
+    }
+
+    /**
+     * Gets the time the message was sent.
+     * @return the time the message was sent.
+     */
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * Gets the invalidation carried by the message.
+     * @return the invalidation.
+     */
+    public Invalidation toInvalidation() {
+        return new Invalidation(entityType, entityId, entityVersion);
+    }
+}
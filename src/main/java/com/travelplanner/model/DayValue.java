@@ -0,0 +1,50 @@
+package com.travelplanner.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Entity class representing one distinct hotel or activity name. Trip days refer to their
+ * hotel and activity by the id of their entry, so a name is stored once however many days use it.
+ * Names are not unique in the table: a name stored twice by concurrent instances is harmless.
+ */
+@Entity
+@Table(name = "day_value", indexes = @Index(name = "ix_day_value_name", columnList = "name"))
+public class DayValue {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String name;
+
+    /**
+     * Constructor for JPA.
+     */
+    protected DayValue() {
+    }
+
+    /**
+     * Creates an entry for a name.
+     * @param name the hotel or activity name.
+     */
+    public DayValue(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Gets the ID of the entry.
+     * @return the ID of the entry.
+     */
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * Gets the name.
+     * @return the hotel or activity name.
+     */
+    public String getName() {
+        return name;
+    }
+}
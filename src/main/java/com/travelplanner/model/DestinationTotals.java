@@ -0,0 +1,57 @@
+package com.travelplanner.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Entity class representing the running totals of one destination on a shard. Rows are
+ * maintained incrementally by the destination analytics from the trip changes, with JDBC.
+ */
+@Entity
+@Table(name = "destination_stats")
+public class DestinationTotals {
+
+    @Id
+    private String destination;
+
+    private long publishedTrips;
+    private long totalDays;
+    private long saves;
+
+    /**
+     * Creates empty totals, for JPA.
+     */
+    protected DestinationTotals() {
+    }
+
+    /**
+     * Gets the destination.
+     * @return the name of the destination.
+     */
+    public String getDestination() {
+        return destination;
+    }
+
+    /**
+     * Gets the number of published trips to the destination.
+     * @return the number of published trips.
+     */
+    public long getPublishedTrips() {
+        return publishedTrips;
+    }
+
+    /**
+     * Gets the sum of the lengths of the published trips to the destination.
+     * @return the total number of days.
+     */
+    public long getTotalDays() {
+        return totalDays;
+    }
+
+    /**
+     * Gets the number of trips to the destination saved from another user's trip.
+     * @return the number of saved copies.
+     */
+    public long getSaves() {
+        return saves;
+    }
+}
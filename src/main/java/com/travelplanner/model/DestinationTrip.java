@@ -0,0 +1,54 @@
+package com.travelplanner.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Entity class representing what one trip plan currently adds to the statistics of its destination.
+ * It lets a change of the trip subtract its previous contribution before adding the new one, so
+ * the totals are updated without reading the other trips. Rows are written by the destination
+ * analytics, with JDBC.
+ */
+@Entity
+@Table(name = "destination_trip")
+public class DestinationTrip {
+
+    @Id
+    private Long tripId;
+
+    @Column(nullable = false)
+    private String destination;
+
+    @Lob
+    @Column(nullable = false, length = 16777215)
+    private byte[] payload;
+
+    /**
+     * Creates an empty contribution, for JPA.
+     */
+    protected DestinationTrip() {
+    }
+
+    /**
+     * Gets the ID of the trip plan.
+     * @return the ID of the trip plan.
+     */
+    public Long getTripId() {
+        return tripId;
+    }
+
+    /**
+     * Gets the destination the trip plan is counted in.
+     * @return the name of the destination.
+     */
+    public String getDestination() {
+        return destination;
+    }
+
+    /**
+     * Gets the encoded contribution.
+     * @return the payload.
+     */
+    public byte[] getPayload() {
+        return payload;
+    }
+}
@@ -0,0 +1,68 @@
+package com.travelplanner.model;
+
+import com.travelplanner.history.TripField;
+import jakarta.persistence.*;
+
+/**
+ * Entity class representing how many published trips to a destination use a hotel or an activity,
+ * on a shard. Rows are maintained incrementally by the destination analytics, with JDBC.
+ */
+@Entity
+@Table(name = "destination_value", uniqueConstraints = @UniqueConstraint(
+        name = "ux_destination_value_destination_kind_name", columnNames = {"destination", "kind", "name"}))
+public class DestinationValue {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String destination;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16, nullable = false)
+    private TripField kind;
+
+    @Column(nullable = false)
+    private String name;
+
+    private long trips;
+
+    /**
+     * Creates an empty count, for JPA.
+     */
+    protected DestinationValue() {
+    }
+
+    /**
+     * Gets the destination.
+     * @return the name of the destination.
+     */
+    public String getDestination() {
+        return destination;
+    }
+
+    /**
+     * Gets the kind of value, a hotel or an activity.
+     * @return the field the value comes from.
+     */
+    public TripField getKind() {
+        return kind;
+    }
+
+    /**
+     * Gets the hotel or activity.
+     * @return the name of the hotel or activity.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the number of published trips using the value on at least one day.
+     * @return the number of trips.
+     */
+    public long getTrips() {
+        return trips;
+    }
+}
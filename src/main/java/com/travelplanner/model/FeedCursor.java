@@ -0,0 +1,23 @@
+package com.travelplanner.model;
+
+import java.time.LocalDate;
+
+/**
+ * Position in the published feed, which is ordered by start date and then id.
+ * A page of the feed starts right after the trip the cursor points to.
+ *
+ * @param startDate the start date of the last trip already shown.
+ * @param id        the id of the last trip already shown.
+ */
+public record FeedCursor(LocalDate startDate, Long id) {
+
+    /**
+     * Creates a cursor pointing to a trip.
+     *
+     * @param triPlan the last trip already shown.
+     * @return the cursor after the trip.
+     */
+    public static FeedCursor after(TriPlan triPlan) {
+        return new FeedCursor(triPlan.getStartDate(), triPlan.getId());
+    }
+}
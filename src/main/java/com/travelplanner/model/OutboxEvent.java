@@ -0,0 +1,100 @@
+package com.travelplanner.model;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * Entity class representing a change to a trip plan, written in the same transaction as the change.
+ */
+@Entity
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    private TripEventType type;
+
+    private Long tripId;
+    private Long sourceTripId;
+    private boolean feedVisible;
+    private Instant createdAt;
+
+    /**
+     * Creates an empty event, for JPA.
+     */
+    protected OutboxEvent() {
+    }
+
+    /**
+     * Creates an event.
+     * @param type the kind of change.
+     * @param tripId the ID of the changed trip plan.
+     * @param feedVisible whether the change is visible in the published feed.
+     */
+    public OutboxEvent(TripEventType type, Long tripId, boolean feedVisible) {
+        this.type = type;
+        this.tripId = tripId;
+        this.feedVisible = feedVisible;
+        this.createdAt = Instant.now();
+    }
+
+    /**
+     * Gets the ID of the event, increasing in commit order within a shard.
+     * @return the ID of the event.
+     */
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * Gets the kind of change.
+     * @return the kind of change.
+     */
+    public TripEventType getType() {
+        return type;
+    }
+
+    /**
+     * Gets the ID of the changed trip plan.
+     * @return the ID of the changed trip plan.
+     */
+    public Long getTripId() {
+        return tripId;
+    }
+
+    /**
+     * Gets the ID of the trip plan a copy was made from.
+     * @return the ID of the original trip plan, or null if the event is not a copy.
+     */
+    public Long getSourceTripId() {
+        return sourceTripId;
+    }
+
+    /**
+     * Sets the ID of the trip plan a copy was made from.
+     * @param sourceTripId the ID of the original trip plan.
+     */
+    public void setSourceTripId(Long sourceTripId) {
+        this.sourceTripId = sourceTripId;
+    }
+
+    /**
+     * Checks whether the change is visible in the published feed, meaning the trip is published,
+     * or was published before being unpublished or deleted.
+     * @return true if feed clients should be told about the change.
+     */
+    public boolean isFeedVisible() {
+        return feedVisible;
+    }
+
+    /**
+     * Gets the time the change was made.
+     * @return the time the change was made.
+     */
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -2,11 +2,14 @@ package com.travelplanner.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.travelplanner.DateUtils;
+import com.travelplanner.dictionary.DayValueConverter;
 import jakarta.persistence.*;
 import org.hibernate.annotations.OnDelete;
 import org.hibernate.annotations.OnDeleteAction;
+import org.hibernate.annotations.SQLRestriction;
 
 import java.io.Serializable;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
 import java.util.HashMap;
@@ -15,8 +18,11 @@ import java.util.Map;
 
 /**
  * Entity class representing a travel plan.
+ * Deleted trip plans are only marked with a deletion time and are left out of every query
+ * until the purger removes them.
  */
 @Entity
+@SQLRestriction("deleted_at is null")
 public class TriPlan implements Serializable {
 
     @Id
@@ -28,13 +34,28 @@ public class TriPlan implements Serializable {
     private String username;
     private boolean published = false;
 
+    @Version
+    private Long version;
+
+    private Double latitude;
+    private Double longitude;
+
+    private Instant deletedAt;
+
+    @Transient
+    private boolean archived;
+
     @ManyToOne
     private User user;
 
     @ElementCollection(fetch = FetchType.EAGER)
+    @Convert(converter = DayValueConverter.class, attributeName = "value")
+    @Column(name = "hotel_id")
     private Map<LocalDate, String> hotels = new HashMap<>();
 
     @ElementCollection(fetch = FetchType.EAGER)
+    @Convert(converter = DayValueConverter.class, attributeName = "value")
+    @Column(name = "activity_id")
     private Map<LocalDate, String> activities = new HashMap<>();
 
     /**
@@ -53,6 +74,70 @@ public class TriPlan implements Serializable {
         this.published = published;
     }
 
+    /**
+     * Gets the version of the trip plan, incremented by JPA on every update.
+     * @return the version of the trip plan.
+     */
+    public Long getVersion() {
+        return version;
+    }
+
+    /**
+     * Sets the version of the trip plan.
+     * @param version the version of the trip plan.
+     */
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    /**
+     * Tells whether the trip plan was read from the archive tier.
+     * @return true if the trip plan is archived.
+     */
+    public boolean isArchived() {
+        return archived;
+    }
+
+    /**
+     * Sets whether the trip plan was read from the archive tier.
+     * @param archived true if the trip plan is archived.
+     */
+    public void setArchived(boolean archived) {
+        this.archived = archived;
+    }
+
+    /**
+     * Gets the latitude of the destination, resolved from the gazetteer.
+     * @return the latitude in degrees, or null if the destination is unknown.
+     */
+    public Double getLatitude() {
+        return latitude;
+    }
+
+    /**
+     * Sets the latitude of the destination.
+     * @param latitude the latitude in degrees.
+     */
+    public void setLatitude(Double latitude) {
+        this.latitude = latitude;
+    }
+
+    /**
+     * Gets the longitude of the destination, resolved from the gazetteer.
+     * @return the longitude in degrees, or null if the destination is unknown.
+     */
+    public Double getLongitude() {
+        return longitude;
+    }
+
+    /**
+     * Sets the longitude of the destination.
+     * @param longitude the longitude in degrees.
+     */
+    public void setLongitude(Double longitude) {
+        this.longitude = longitude;
+    }
+
     /**
      * Gets the length of the trip in days.
      * @return the length of the trip in days.
@@ -238,6 +323,14 @@ public class TriPlan implements Serializable {
         return this.getStartDate().until(this.getEndDate()).getDays() + 1;
     }
 
+    /**
+     * Gets the days of the trip, computed one at a time while they are iterated.
+     * @return the days of the trip, from the start date to the end date.
+     */
+    public Iterable<LocalDate> getDays() {
+        return DateUtils.dates(startDate, endDate);
+    }
+
     /**
      * Gets the date range of the trip.
      * @return a list of dates representing the range of the trip.
@@ -0,0 +1,16 @@
+package com.travelplanner.model;
+
+/**
+ * Kinds of changes made to a trip plan, as recorded in the outbox.
+ */
+public enum TripEventType {
+    CREATED,
+    COPIED,
+    UPDATED,
+    PUBLISHED,
+    UNPUBLISHED,
+    DAYS_EDITED,
+    DELETED,
+    ARCHIVED,
+    RESTORED
+}
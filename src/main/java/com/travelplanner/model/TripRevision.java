@@ -0,0 +1,145 @@
+package com.travelplanner.model;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * Entity class representing one version in the history of a trip plan. Most revisions only hold
+ * the fields changed since the previous one; every few revisions a snapshot holds the whole
+ * trip plan, so a version is rebuilt from the nearest snapshot and the deltas after it.
+ */
+@Entity
+@Table(name = "trip_revision", uniqueConstraints = @UniqueConstraint(name = "ux_trip_revision_trip_id_revision",
+        columnNames = {"trip_id", "revision"}))
+public class TripRevision {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "trip_id", nullable = false)
+    private Long tripId;
+
+    @Column(nullable = false)
+    private int revision;
+
+    private boolean snapshot;
+    private int changeCount;
+    private Long sourceTripId;
+    private Integer sourceRevision;
+    private Instant createdAt;
+
+    @Lob
+    @Column(nullable = false, length = 16777215)
+    private byte[] payload;
+
+    /**
+     * Constructor for JPA.
+     */
+    protected TripRevision() {
+    }
+
+    /**
+     * Creates a revision.
+     * @param tripId the ID of the trip plan.
+     * @param revision the number of the revision, one more than the previous one.
+     * @param snapshot true if the payload holds the whole trip plan rather than the changes.
+     * @param changeCount the number of fields changed from the previous revision.
+     * @param payload the encoded changes, from the previous revision or from an empty trip plan for a snapshot.
+     */
+    public TripRevision(Long tripId, int revision, boolean snapshot, int changeCount, byte[] payload) {
+        this.tripId = tripId;
+        this.revision = revision;
+        this.snapshot = snapshot;
+        this.changeCount = changeCount;
+        this.payload = payload;
+        this.createdAt = Instant.now();
+    }
+
+    /**
+     * Creates a copy of a revision for another trip plan, used when trips move to another shard.
+     * @param tripId the ID of the trip plan the copy belongs to.
+     * @param other the revision to copy.
+     */
+    public TripRevision(Long tripId, TripRevision other) {
+        this(tripId, other.revision, other.snapshot, other.changeCount, other.payload);
+        this.sourceTripId = other.sourceTripId;
+        this.sourceRevision = other.sourceRevision;
+        this.createdAt = other.createdAt;
+    }
+
+    /**
+     * Gets the ID of the trip plan.
+     * @return the ID of the trip plan.
+     */
+    public Long getTripId() {
+        return tripId;
+    }
+
+    /**
+     * Gets the number of the revision.
+     * @return the revision, starting at 1.
+     */
+    public int getRevision() {
+        return revision;
+    }
+
+    /**
+     * Tells whether the payload holds the whole trip plan.
+     * @return true for a snapshot, false for a delta.
+     */
+    public boolean isSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Gets the number of fields changed from the previous revision.
+     * @return the number of changes.
+     */
+    public int getChangeCount() {
+        return changeCount;
+    }
+
+    /**
+     * Gets the ID of the trip plan this one was copied from.
+     * @return the ID of the original trip plan, or null if the revision does not start a copy.
+     */
+    public Long getSourceTripId() {
+        return sourceTripId;
+    }
+
+    /**
+     * Gets the revision of the trip plan this one was copied from.
+     * @return the revision of the original trip plan, or null if unknown.
+     */
+    public Integer getSourceRevision() {
+        return sourceRevision;
+    }
+
+    /**
+     * Sets the version of the trip plan this one was copied from.
+     * @param sourceTripId the ID of the original trip plan.
+     * @param sourceRevision the revision of the original trip plan, or null if unknown.
+     */
+    public void setSource(Long sourceTripId, Integer sourceRevision) {
+        this.sourceTripId = sourceTripId;
+        this.sourceRevision = sourceRevision;
+    }
+
+    /**
+     * Gets the time the revision was saved.
+     * @return the creation time.
+     */
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * Gets the encoded changes of the revision.
+     * @return the payload.
+     */
+    public byte[] getPayload() {
+        return payload;
+    }
+}
@@ -2,12 +2,18 @@ package com.travelplanner.model;
 
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
+import org.hibernate.annotations.SQLRestriction;
+
 import java.io.Serializable;
+import java.time.Instant;
 
 /**
  * Entity class representing a user in the system.
+ * Deleted users are only marked with a deletion time and are left out of every query
+ * until the purger removes them.
  */
 @Entity
+@SQLRestriction("deleted_at is null")
 public class User implements Serializable {
 
     @Id
@@ -26,6 +32,8 @@ public class User implements Serializable {
     @Email(message = "Email should be valid")
     private String email;
 
+    private Instant deletedAt;
+
     /**
      * Gets the user's ID.
      * @return the user's ID.
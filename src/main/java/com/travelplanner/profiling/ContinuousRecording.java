@@ -0,0 +1,127 @@
+package com.travelplanner.profiling;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * A flight recording kept running for the life of the application, so the last minutes before a
+ * slow request can be dumped after the fact. It uses the JDK's "default" settings, made for
+ * continuous use with about 1% overhead, plus the application's request events without stack
+ * traces. The recording is kept on disk, bounded by age and size.
+ */
+@Component
+public class ContinuousRecording {
+
+    private static final Logger log = LoggerFactory.getLogger(ContinuousRecording.class);
+
+    private static final List<Class<? extends PhaseEvent>> EVENTS = List.of(RequestEvent.class, HandlerEvent.class,
+            ServiceCallEvent.class, QueryEvent.class, RenderEvent.class, PasswordHashEvent.class, SessionEvent.class);
+
+    @Value("${travelplanner.profiling.recording.enabled:false}")
+    private boolean enabled;
+
+    @Value("${travelplanner.profiling.recording.settings:default}")
+    private String settings;
+
+    @Value("${travelplanner.profiling.recording.max-age:30m}")
+    private Duration maxAge;
+
+    @Value("${travelplanner.profiling.recording.max-size:268435456}")
+    private long maxSize;
+
+    @Value("${travelplanner.profiling.recording.threshold:0ms}")
+    private Duration threshold;
+
+    @Value("${travelplanner.profiling.recording.dump-dir:${java.io.tmpdir}/travelplanner-recordings}")
+    private Path dumpDir;
+
+    private Recording recording;
+    private Path lastDump;
+
+    /**
+     * Starts the recording if it is enabled.
+     *
+     * @throws IOException    if the settings cannot be read.
+     * @throws ParseException if the settings are not valid.
+     */
+    @PostConstruct
+    public void start() throws IOException, ParseException {
+        if (!enabled) {
+            return;
+        }
+        recording = new Recording(Configuration.getConfiguration(settings));
+        recording.setName("travelplanner");
+        recording.setToDisk(true);
+        recording.setMaxAge(maxAge);
+        recording.setMaxSize(maxSize);
+        for (Class<? extends PhaseEvent> event : EVENTS) {
+            recording.enable(event).withThreshold(event == RequestEvent.class ? Duration.ZERO : threshold);
+        }
+        recording.start();
+        log.info("Started the continuous flight recording, keeping {} or {} bytes", maxAge, maxSize);
+    }
+
+    /**
+     * Checks whether the recording is running.
+     *
+     * @return true if it was enabled and started.
+     */
+    public boolean isRunning() {
+        return recording != null;
+    }
+
+    /**
+     * Writes the last minutes of the recording to a file. The previous dump is deleted.
+     *
+     * @param last the length of time to dump, up to the maximum age of the recording.
+     * @return the file, or null if the recording is not running.
+     * @throws IOException if the file cannot be written.
+     */
+    public synchronized Path dump(Duration last) throws IOException {
+        if (recording == null) {
+            return null;
+        }
+        Files.createDirectories(dumpDir);
+        if (lastDump != null) {
+            Files.deleteIfExists(lastDump);
+        }
+        Path file = dumpDir.resolve("travelplanner-" + System.currentTimeMillis() + ".jfr");
+        try {
+            // JFR.dump can cut the recording to its last minutes, which the Recording API cannot
+            ManagementFactory.getPlatformMBeanServer().invoke(new ObjectName("com.sun.management:type=DiagnosticCommand"),
+                    "jfrDump", new Object[]{new String[]{"name=" + recording.getId(),
+                            "maxage=" + Math.max(1, last.toSeconds()) + "s", "filename=" + file.toAbsolutePath()}},
+                    new String[]{String[].class.getName()});
+        } catch (JMException e) {
+            throw new IOException("Could not dump the flight recording", e);
+        }
+        lastDump = file;
+        return file;
+    }
+
+    /**
+     * Stops the recording.
+     */
+    @PreDestroy
+    public void stop() {
+        if (recording != null) {
+            recording.close();
+        }
+    }
+}
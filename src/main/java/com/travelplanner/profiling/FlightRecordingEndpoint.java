@@ -0,0 +1,43 @@
+package com.travelplanner.profiling;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Actuator endpoint that downloads the last minutes of the continuous flight recording, to be
+ * read with JDK Mission Control or the {@link FlightReport}. It is not exposed by default: expose
+ * it only on a management port that is not reachable from outside.
+ */
+@Component
+@WebEndpoint(id = "flightrecording")
+public class FlightRecordingEndpoint {
+
+    @Autowired
+    private ContinuousRecording continuousRecording;
+
+    /**
+     * Dumps the recording.
+     *
+     * @param minutes the number of minutes to dump, 5 by default.
+     * @return the recording file, or 404 Not Found if the continuous recording is not enabled.
+     * @throws IOException if the recording cannot be dumped.
+     */
+    @ReadOperation(produces = "application/octet-stream")
+    public WebEndpointResponse<Resource> dump(@Nullable Integer minutes) throws IOException {
+        Path file = continuousRecording.dump(Duration.ofMinutes(minutes != null ? minutes : 5));
+        if (file == null) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        return new WebEndpointResponse<>(new FileSystemResource(file));
+    }
+}
@@ -0,0 +1,162 @@
+package com.travelplanner.profiling;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Summarizes a flight recording of the application: the slowest requests, with the time each
+ * spent in every phase. Phases nest, so their times overlap: a service call includes its queries.
+ * Run it on a dump of the flight recording endpoint, with the application jar on the class path:
+ * <pre>
+ * java -cp travel-planner.jar -Dloader.main=com.travelplanner.profiling.FlightReport \
+ *     org.springframework.boot.loader.launch.PropertiesLauncher recording.jfr [count]
+ * </pre>
+ */
+public class FlightReport {
+
+    /**
+     * The parts of a request recorded by the application.
+     */
+    public enum Phase {
+        HANDLER("com.travelplanner.Handler"),
+        SERVICE("com.travelplanner.ServiceCall"),
+        QUERY("com.travelplanner.RepositoryQuery"),
+        RENDER("com.travelplanner.Render"),
+        PASSWORD("com.travelplanner.PasswordHash"),
+        SESSION("com.travelplanner.Session");
+
+        private final String eventName;
+
+        Phase(String eventName) {
+            this.eventName = eventName;
+        }
+    }
+
+    /**
+     * One request of the recording.
+     *
+     * @param requestId the ID of the request.
+     * @param method    the HTTP method.
+     * @param route     the path pattern of the handler, or the path if there was no handler.
+     * @param status    the response status.
+     * @param duration  the time the whole request took.
+     * @param phases    the time spent in each phase.
+     * @param queries   the number of repository queries.
+     * @param rows      the number of rows returned or modified by the queries.
+     */
+    public record RequestProfile(String requestId, String method, String route, int status, Duration duration,
+                                 Map<Phase, Duration> phases, int queries, long rows) {
+    }
+
+    private static final Map<String, Phase> PHASES = new HashMap<>();
+
+    static {
+        for (Phase phase : Phase.values()) {
+            PHASES.put(phase.eventName, phase);
+        }
+    }
+
+    /**
+     * Prints the slowest requests of a recording.
+     *
+     * @param args the recording file, and optionally the number of requests to print.
+     * @throws IOException if the recording cannot be read.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: FlightReport <recording.jfr> [count]");
+            System.exit(2);
+        }
+        int count = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        print(slowestRequests(Path.of(args[0]), count), System.out);
+    }
+
+    /**
+     * Reads the slowest requests of a recording, with their phases.
+     *
+     * @param recording the recording file.
+     * @param limit     the maximum number of requests.
+     * @return the requests, the slowest first.
+     * @throws IOException if the recording cannot be read.
+     */
+    public static List<RequestProfile> slowestRequests(Path recording, int limit) throws IOException {
+        Map<String, RecordedEvent> requests = new HashMap<>();
+        Map<String, Map<Phase, Duration>> phases = new HashMap<>();
+        Map<String, long[]> queries = new HashMap<>();
+        try (RecordingFile file = new RecordingFile(recording)) {
+            while (file.hasMoreEvents()) {
+                RecordedEvent event = file.readEvent();
+                String name = event.getEventType().getName();
+                if (!name.startsWith("com.travelplanner.") || !event.hasField("requestId")) {
+                    continue;
+                }
+                String requestId = event.getString("requestId");
+                if (requestId == null) {
+                    continue;
+                }
+                if (name.equals("com.travelplanner.Request")) {
+                    requests.put(requestId, event);
+                    continue;
+                }
+                Phase phase = PHASES.get(name);
+                if (phase == null) {
+                    continue;
+                }
+                phases.computeIfAbsent(requestId, id -> new EnumMap<>(Phase.class))
+                        .merge(phase, event.getDuration(), Duration::plus);
+                if (phase == Phase.QUERY) {
+                    long[] counts = queries.computeIfAbsent(requestId, id -> new long[2]);
+                    counts[0]++;
+                    counts[1] += Math.max(0, event.getLong("rows"));
+                }
+            }
+        }
+        List<RequestProfile> profiles = new ArrayList<>(requests.size());
+        requests.forEach((requestId, event) -> {
+            String route = event.getString("route");
+            long[] counts = queries.getOrDefault(requestId, new long[2]);
+            profiles.add(new RequestProfile(requestId, event.getString("method"),
+                    route != null ? route : event.getString("path"), event.getInt("status"), event.getDuration(),
+                    phases.getOrDefault(requestId, Map.of()), (int) counts[0], counts[1]));
+        });
+        profiles.sort(Comparator.comparing(RequestProfile::duration).reversed());
+        return profiles.subList(0, Math.min(limit, profiles.size()));
+    }
+
+    /**
+     * Prints requests as a table, one line per request and one column per phase, in milliseconds.
+     *
+     * @param profiles the requests.
+     * @param out      the stream to print to.
+     */
+    public static void print(List<RequestProfile> profiles, PrintStream out) {
+        out.printf("%10s %6s %-7s %-40s", "total ms", "status", "method", "route");
+        for (Phase phase : Phase.values()) {
+            out.printf(" %9s", phase.name().toLowerCase());
+        }
+        out.printf(" %8s %8s  %s%n", "queries", "rows", "request id");
+        for (RequestProfile profile : profiles) {
+            out.printf("%10.1f %6d %-7s %-40s", millis(profile.duration()), profile.status(), profile.method(),
+                    profile.route());
+            for (Phase phase : Phase.values()) {
+                out.printf(" %9.1f", millis(profile.phases().getOrDefault(phase, Duration.ZERO)));
+            }
+            out.printf(" %8d %8d  %s%n", profile.queries(), profile.rows(), profile.requestId());
+        }
+    }
+
+    private static double millis(Duration duration) {
+        return duration.toNanos() / 1_000_000.0;
+    }
+}
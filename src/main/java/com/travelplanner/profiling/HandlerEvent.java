@@ -0,0 +1,15 @@
+package com.travelplanner.profiling;
+
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A controller handler method running, up to the view being chosen.
+ */
+@Name("com.travelplanner.Handler")
+@Label("Controller Handler")
+public class HandlerEvent extends PhaseEvent {
+
+    @Label("Handler")
+    String handler;
+}
@@ -0,0 +1,15 @@
+package com.travelplanner.profiling;
+
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A password being hashed or checked with BCrypt.
+ */
+@Name("com.travelplanner.PasswordHash")
+@Label("Password Hashing")
+public class PasswordHashEvent extends PhaseEvent {
+
+    @Label("Operation")
+    String operation;
+}
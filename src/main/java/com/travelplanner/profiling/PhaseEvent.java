@@ -0,0 +1,19 @@
+package com.travelplanner.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+/**
+ * A flight recorder event timing part of a request. It carries the ID of the request handled by
+ * the thread that created it, so the phases of a slow request can be found together. Stack traces
+ * are not recorded, which keeps the events cheap enough for a continuous recording.
+ */
+@Category("Travel Planner")
+@StackTrace(false)
+public abstract class PhaseEvent extends Event {
+
+    @Label("Request ID")
+    String requestId = RequestIds.current();
+}
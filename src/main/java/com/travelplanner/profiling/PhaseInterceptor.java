@@ -0,0 +1,114 @@
+package com.travelplanner.profiling;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.repository.Repository;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.BaseStream;
+
+/**
+ * Records the calls to a kind of bean as flight recorder events: service calls, repository
+ * queries with their row counts, or session store operations. When the event is not enabled in
+ * any recording, the call goes through with only the enabled check.
+ */
+public class PhaseInterceptor implements MethodInterceptor {
+
+    /**
+     * The kinds of beans that can be intercepted.
+     */
+    public enum Kind {
+        SERVICE, REPOSITORY, SESSION
+    }
+
+    private static final ClassValue<String> REPOSITORY_NAMES = new ClassValue<>() {
+        @Override
+        protected String computeValue(Class<?> type) {
+            for (Class<?> candidate : type.getInterfaces()) {
+                if (Repository.class.isAssignableFrom(candidate) && candidate != Repository.class) {
+                    return candidate.getSimpleName();
+                }
+            }
+            return type.getSimpleName();
+        }
+    };
+
+    private final Kind kind;
+
+    /**
+     * Creates an interceptor.
+     *
+     * @param kind the kind of beans it is applied to.
+     */
+    public PhaseInterceptor(Kind kind) {
+        this.kind = kind;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        PhaseEvent event = switch (kind) {
+            case SERVICE -> new ServiceCallEvent();
+            case REPOSITORY -> new QueryEvent();
+            case SESSION -> new SessionEvent();
+        };
+        if (!event.isEnabled()) {
+            return invocation.proceed();
+        }
+        Object result = null;
+        event.begin();
+        try {
+            result = invocation.proceed();
+            return result;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                describe(event, invocation, result);
+                event.commit();
+            }
+        }
+    }
+
+    private static void describe(PhaseEvent event, MethodInvocation invocation, Object result) {
+        String method = invocation.getMethod().getName();
+        if (event instanceof ServiceCallEvent serviceCall) {
+            serviceCall.service = invocation.getMethod().getDeclaringClass().getSimpleName();
+            serviceCall.method = method;
+        } else if (event instanceof QueryEvent query) {
+            query.repository = invocation.getThis() != null
+                    ? REPOSITORY_NAMES.get(invocation.getThis().getClass())
+                    : invocation.getMethod().getDeclaringClass().getSimpleName();
+            query.method = method;
+            query.rows = rows(result);
+        } else if (event instanceof SessionEvent session) {
+            session.operation = method;
+        }
+    }
+
+    /**
+     * Counts the rows behind the result of a repository method.
+     *
+     * @param result the result.
+     * @return the number of entities returned, the rows modified or the count, or -1 if unknown.
+     */
+    static long rows(Object result) {
+        if (result == null) {
+            return 0;
+        } else if (result instanceof Collection<?> collection) {
+            return collection.size();
+        } else if (result instanceof Map<?, ?> map) {
+            return map.size();
+        } else if (result instanceof Slice<?> slice) {
+            return slice.getNumberOfElements();
+        } else if (result instanceof Optional<?> optional) {
+            return optional.isPresent() ? 1 : 0;
+        } else if (result instanceof Number number) {
+            return number.longValue();
+        } else if (result instanceof Iterable<?> || result instanceof BaseStream<?, ?>) {
+            return -1;
+        }
+        return 1;
+    }
+}
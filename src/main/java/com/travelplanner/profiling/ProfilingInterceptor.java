@@ -0,0 +1,65 @@
+package com.travelplanner.profiling;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+
+/**
+ * Records the controller handler and the rendering of its view as flight recorder events.
+ * The handler event ends when the handler returns; the rendering event covers the time between
+ * then and the completion of the request, which is when Thymeleaf writes the page. The handler
+ * event of an asynchronous handler lasts until its result is dispatched back.
+ */
+public class ProfilingInterceptor implements HandlerInterceptor {
+
+    private static final String HANDLER_EVENT = ProfilingInterceptor.class.getName() + ".handler";
+    private static final String RENDER_EVENT = ProfilingInterceptor.class.getName() + ".render";
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        commit(request, HANDLER_EVENT);
+        HandlerEvent event = new HandlerEvent();
+        if (event.isEnabled()) {
+            event.handler = describe(handler);
+            event.begin();
+            request.setAttribute(HANDLER_EVENT, event);
+        }
+        return true;
+    }
+
+    @Override
+    public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
+                           ModelAndView modelAndView) {
+        commit(request, HANDLER_EVENT);
+        if (modelAndView != null && modelAndView.getViewName() != null) {
+            RenderEvent event = new RenderEvent();
+            if (event.isEnabled()) {
+                event.view = modelAndView.getViewName();
+                event.begin();
+                request.setAttribute(RENDER_EVENT, event);
+            }
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        commit(request, HANDLER_EVENT);
+        commit(request, RENDER_EVENT);
+    }
+
+    private static void commit(HttpServletRequest request, String attribute) {
+        if (request.getAttribute(attribute) instanceof PhaseEvent event) {
+            request.removeAttribute(attribute);
+            event.commit();
+        }
+    }
+
+    private static String describe(Object handler) {
+        if (handler instanceof HandlerMethod handlerMethod) {
+            return handlerMethod.getBeanType().getSimpleName() + "." + handlerMethod.getMethod().getName();
+        }
+        return handler.getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,23 @@
+package com.travelplanner.profiling;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A call to a repository method, with the number of rows it returned or modified.
+ */
+@Name("com.travelplanner.RepositoryQuery")
+@Label("Repository Query")
+public class QueryEvent extends PhaseEvent {
+
+    @Label("Repository")
+    String repository;
+
+    @Label("Method")
+    String method;
+
+    @Label("Rows")
+    @Description("The entities returned, the rows modified, or the value of a count; -1 if unknown")
+    long rows;
+}
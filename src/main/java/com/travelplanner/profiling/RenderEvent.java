@@ -0,0 +1,15 @@
+package com.travelplanner.profiling;
+
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A view being rendered by Thymeleaf, including the reads of lazily loaded model attributes.
+ */
+@Name("com.travelplanner.Render")
+@Label("View Rendering")
+public class RenderEvent extends PhaseEvent {
+
+    @Label("View")
+    String view;
+}
@@ -0,0 +1,27 @@
+package com.travelplanner.profiling;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A whole HTTP request, from the first filter to the response being complete.
+ */
+@Name("com.travelplanner.Request")
+@Label("Request")
+@Description("An HTTP request, with the route that handled it")
+public class RequestEvent extends PhaseEvent {
+
+    @Label("Method")
+    String method;
+
+    @Label("Path")
+    String path;
+
+    @Label("Route")
+    @Description("The path pattern of the handler, such as /user/presentDetails/{id}")
+    String route;
+
+    @Label("Status")
+    int status;
+}
@@ -0,0 +1,25 @@
+package com.travelplanner.profiling;
+
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Gives the thread running the callable of an asynchronous handler the ID of its request, so the
+ * service calls and queries it makes are recorded as part of the request.
+ */
+public class RequestIdPropagation implements CallableProcessingInterceptor {
+
+    @Override
+    public <T> void preProcess(NativeWebRequest request, Callable<T> task) {
+        RequestProfilingFilter.bind((String) request.getAttribute(RequestProfilingFilter.ATTRIBUTE,
+                RequestAttributes.SCOPE_REQUEST));
+    }
+
+    @Override
+    public <T> void postProcess(NativeWebRequest request, Callable<T> task, Object concurrentResult) {
+        RequestProfilingFilter.unbind();
+    }
+}
@@ -0,0 +1,30 @@
+package com.travelplanner.profiling;
+
+/**
+ * Holds the ID of the request handled by the current thread, so every flight recorder event
+ * of the request can carry it.
+ */
+public final class RequestIds {
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private RequestIds() {
+    }
+
+    /**
+     * Gets the ID of the request handled by the current thread.
+     *
+     * @return the request ID, or null outside a request.
+     */
+    public static String current() {
+        return CURRENT.get();
+    }
+
+    static void set(String requestId) {
+        CURRENT.set(requestId);
+    }
+
+    static void clear() {
+        CURRENT.remove();
+    }
+}
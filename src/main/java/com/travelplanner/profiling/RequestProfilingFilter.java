@@ -0,0 +1,109 @@
+package com.travelplanner.profiling;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.MDC;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+
+/**
+ * Gives every request an ID and records it as a flight recorder event. The ID comes from the
+ * X-Request-Id header when a proxy sets one, is sent back in the response, and is put in the
+ * logging context, so the events and the log lines of a request can be matched. Runs before the
+ * session and security filters, so their work is part of the request. A request processed
+ * asynchronously keeps its ID in the dispatches that follow, and its event ends when it completes.
+ */
+public class RequestProfilingFilter extends OncePerRequestFilter {
+
+    static final String HEADER = "X-Request-Id";
+
+    static final String ATTRIBUTE = RequestProfilingFilter.class.getName() + ".requestId";
+
+    private static final Pattern VALID_ID = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (isAsyncDispatch(request)) {
+            bind((String) request.getAttribute(ATTRIBUTE));
+            try {
+                chain.doFilter(request, response);
+            } finally {
+                unbind();
+            }
+            return;
+        }
+        String requestId = request.getHeader(HEADER);
+        if (requestId == null || !VALID_ID.matcher(requestId).matches()) {
+            requestId = Long.toHexString(ThreadLocalRandom.current().nextLong());
+        }
+        response.setHeader(HEADER, requestId);
+        request.setAttribute(ATTRIBUTE, requestId);
+        bind(requestId);
+        RequestEvent event = new RequestEvent();
+        event.begin();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent asyncEvent) {
+                        commit(event, request, response);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent asyncEvent) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent asyncEvent) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent asyncEvent) {
+                    }
+                });
+            } else {
+                commit(event, request, response);
+            }
+            unbind();
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    private static void commit(RequestEvent event, HttpServletRequest request, HttpServletResponse response) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.method = request.getMethod();
+            event.path = request.getRequestURI();
+            event.route = (String) request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            event.status = response.getStatus();
+            event.commit();
+        }
+    }
+
+    static void bind(String requestId) {
+        if (requestId != null) {
+            RequestIds.set(requestId);
+            MDC.put("requestId", requestId);
+        }
+    }
+
+    static void unbind() {
+        MDC.remove("requestId");
+        RequestIds.clear();
+    }
+}
@@ -0,0 +1,18 @@
+package com.travelplanner.profiling;
+
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A call to a public method of a service.
+ */
+@Name("com.travelplanner.ServiceCall")
+@Label("Service Call")
+public class ServiceCallEvent extends PhaseEvent {
+
+    @Label("Service")
+    String service;
+
+    @Label("Method")
+    String method;
+}
@@ -0,0 +1,15 @@
+package com.travelplanner.profiling;
+
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The HTTP session being loaded, saved or deleted in the session store.
+ */
+@Name("com.travelplanner.Session")
+@Label("Session Store")
+public class SessionEvent extends PhaseEvent {
+
+    @Label("Operation")
+    String operation;
+}
@@ -0,0 +1,187 @@
+package com.travelplanner.purge;
+
+import com.travelplanner.sharding.ShardRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Removes the rows of deleted trips and users. Deletes only mark rows with a deletion time, so
+ * they take the same time whatever the size of the trip; this job then removes the marked trips,
+ * their day rows and history, and the deleted users whose trips are gone, a batch of ids at a time with one
+ * statement per table. It runs in an off-peak window and stops starting batches when the window ends.
+ * Progress is published as metrics: the rows purged so far and the rows still waiting.
+ */
+@Component
+public class TombstonePurger {
+
+    private static final Logger log = LoggerFactory.getLogger(TombstonePurger.class);
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${travelplanner.purge.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${travelplanner.purge.grace:1h}")
+    private Duration grace;
+
+    @Value("${travelplanner.purge.window:2h}")
+    private Duration window;
+
+    @Value("${travelplanner.purge.batch-pause:100ms}")
+    private Duration batchPause;
+
+    private final Counter purgedTrips;
+    private final Counter purgedUsers;
+    private final Timer batchTimer;
+    private final AtomicLong pendingTrips = new AtomicLong();
+    private final AtomicLong pendingUsers = new AtomicLong();
+
+    /**
+     * Creates the purger.
+     *
+     * @param meterRegistry the registry for the progress metrics.
+     */
+    public TombstonePurger(MeterRegistry meterRegistry) {
+        this.purgedTrips = meterRegistry.counter("travelplanner.purge.purged", "table", "tri_plan");
+        this.purgedUsers = meterRegistry.counter("travelplanner.purge.purged", "table", "user");
+        this.batchTimer = meterRegistry.timer("travelplanner.purge.batch");
+        meterRegistry.gauge("travelplanner.purge.pending", Tags.of("table", "tri_plan"), pendingTrips);
+        meterRegistry.gauge("travelplanner.purge.pending", Tags.of("table", "user"), pendingUsers);
+    }
+
+    /**
+     * Purges the rows deleted before the grace period, within the off-peak window.
+     */
+    @Scheduled(cron = "${travelplanner.purge.cron:0 0 4 * * *}")
+    public void purgeInWindow() {
+        purge(Instant.now().minus(grace), Instant.now().plus(window));
+    }
+
+    /**
+     * Purges the trips and users deleted before a time, on every shard.
+     *
+     * @param deletedBefore the time before which the rows were deleted.
+     * @param deadline the time after which no new batch is started.
+     * @return the number of trips purged.
+     */
+    public int purge(Instant deletedBefore, Instant deadline) {
+        Timestamp before = Timestamp.from(deletedBefore);
+        pendingTrips.set(sum(shardRouter.onAllShards(() -> count("tri_plan", before))));
+        pendingUsers.set(sum(shardRouter.onAllShards(() -> count("user", before))));
+        int trips = 0;
+        int users = 0;
+        for (int shard = 0; shard < shardRouter.getShardCount(); shard++) {
+            trips += shardRouter.onShard(shard, () -> purgeBatches(before, deadline, this::purgeTrips));
+            users += shardRouter.onShard(shard, () -> purgeBatches(before, deadline, this::purgeUsers));
+        }
+        log.info("Purged {} deleted trips and {} deleted users; {} trips and {} users left",
+                trips, users, pendingTrips.get(), pendingUsers.get());
+        return trips;
+    }
+
+    private int purgeBatches(Timestamp before, Instant deadline, BatchPurge batchPurge) {
+        int total = 0;
+        int purged;
+        do {
+            if (Instant.now().isAfter(deadline)) {
+                return total;
+            }
+            purged = batchTimer.record(() -> transactionTemplate.execute(status -> batchPurge.purge(before)));
+            total += purged;
+            if (purged == batchSize && !pause()) {
+                return total;
+            }
+        } while (purged == batchSize);
+        return total;
+    }
+
+    private int purgeTrips(Timestamp before) {
+        List<Long> ids = jdbcTemplate.queryForList("select id from tri_plan where deleted_at < ? order by id limit ?",
+                Long.class, before, batchSize);
+        if (!ids.isEmpty()) {
+            String in = placeholders(ids.size());
+            Object[] args = ids.toArray();
+            jdbcTemplate.update("delete from tri_plan_hotels where tri_plan_id in (" + in + ")", args);
+            jdbcTemplate.update("delete from tri_plan_activities where tri_plan_id in (" + in + ")", args);
+            jdbcTemplate.update("delete from trip_revision where trip_id in (" + in + ")", args);
+            jdbcTemplate.update("delete from tri_plan where id in (" + in + ")", args);
+            purgedTrips.increment(ids.size());
+            pendingTrips.addAndGet(-ids.size());
+        }
+        return ids.size();
+    }
+
+    /**
+     * Purges deleted users that have no trip rows left, so no trip ever points to a missing user.
+     */
+    private int purgeUsers(Timestamp before) {
+        List<Long> ids = jdbcTemplate.queryForList("select u.user_id from user u where u.deleted_at < ?"
+                        + " and not exists (select 1 from tri_plan t where t.user_user_id = u.user_id)"
+                        + " order by u.user_id limit ?",
+                Long.class, before, batchSize);
+        if (!ids.isEmpty()) {
+            jdbcTemplate.update("delete from user where user_id in (" + placeholders(ids.size()) + ")", ids.toArray());
+            purgedUsers.increment(ids.size());
+            pendingUsers.addAndGet(-ids.size());
+        }
+        return ids.size();
+    }
+
+    private long count(String table, Timestamp before) {
+        return jdbcTemplate.queryForObject("select count(*) from " + table + " where deleted_at < ?", Long.class, before);
+    }
+
+    /**
+     * Leaves some room to the application between two batches.
+     *
+     * @return false if the thread was interrupted.
+     */
+    private boolean pause() {
+        try {
+            Thread.sleep(batchPause.toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private static long sum(List<Long> counts) {
+        return counts.stream().mapToLong(Long::longValue).sum();
+    }
+
+    /**
+     * Purges one batch of rows in the current transaction.
+     */
+    private interface BatchPurge {
+        int purge(Timestamp before);
+    }
+}
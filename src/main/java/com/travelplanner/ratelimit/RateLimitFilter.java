@@ -0,0 +1,82 @@
+package com.travelplanner.ratelimit;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Servlet filter that rejects requests with 429 Too Many Requests once a client exceeds
+ * the limit of its route group, either by IP address or by username. Behind the load balancer
+ * the IP address is the client's, taken by the container from the forwarded headers of trusted proxies.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final RateLimiter rateLimiter;
+    private final RateLimitProperties properties;
+
+    /**
+     * Creates the filter.
+     *
+     * @param rateLimiter the limiter holding the token buckets.
+     * @param properties  the configured limits.
+     */
+    public RateLimitFilter(RateLimiter rateLimiter, RateLimitProperties properties) {
+        this.rateLimiter = rateLimiter;
+        this.properties = properties;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RouteGroup group = properties.isEnabled() ? RouteGroup.resolve(request) : null;
+        if (group == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        RateLimitProperties.Limit limit = properties.getLimit(group);
+        long period = limit.getPeriod().toNanos();
+        long waitNanos = rateLimiter.tryAcquire(group, "ip", request.getRemoteAddr(), limit.getPerIp(), period);
+
+        String username = resolveUsername(request, group);
+        if (waitNanos == 0 && username != null) {
+            waitNanos = rateLimiter.tryAcquire(group, "user", username, limit.getPerUser(), period);
+        }
+
+        if (waitNanos > 0) {
+            long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+            response.setContentType("text/plain;charset=UTF-8");
+            response.getWriter().write("Too many requests, please try again in " + retryAfter + " seconds.");
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+
+    /**
+     * Finds the username a request acts on behalf of. Login and registration carry it as a form
+     * parameter, while writes use the already authenticated user.
+     *
+     * @param request the incoming request.
+     * @param group   the route group of the request.
+     * @return the username, or null if there is none.
+     */
+    private String resolveUsername(HttpServletRequest request, RouteGroup group) {
+        if (group == RouteGroup.WRITE) {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            return authentication != null && authentication.isAuthenticated() ? authentication.getName() : null;
+        }
+        String username = request.getParameter("username");
+        return username == null || username.isBlank() ? null : username.trim();
+    }
+}
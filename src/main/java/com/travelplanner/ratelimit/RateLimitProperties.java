@@ -0,0 +1,115 @@
+package com.travelplanner.ratelimit;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Rate limits per route group, bound from the "travelplanner.rate-limit" properties.
+ */
+@ConfigurationProperties(prefix = "travelplanner.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+    private int maxTrackedKeys = 100_000;
+    private Limit login = new Limit(20, 5, Duration.ofMinutes(1));
+    private Limit register = new Limit(5, 3, Duration.ofMinutes(1));
+    private Limit write = new Limit(120, 60, Duration.ofMinutes(1));
+
+    /**
+     * Gets the limit configured for a route group.
+     *
+     * @param group the route group.
+     * @return the limit of the group.
+     */
+    public Limit getLimit(RouteGroup group) {
+        return switch (group) {
+            case LOGIN -> login;
+            case REGISTER -> register;
+            case WRITE -> write;
+        };
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getMaxTrackedKeys() {
+        return maxTrackedKeys;
+    }
+
+    public void setMaxTrackedKeys(int maxTrackedKeys) {
+        this.maxTrackedKeys = maxTrackedKeys;
+    }
+
+    public Limit getLogin() {
+        return login;
+    }
+
+    public void setLogin(Limit login) {
+        this.login = login;
+    }
+
+    public Limit getRegister() {
+        return register;
+    }
+
+    public void setRegister(Limit register) {
+        this.register = register;
+    }
+
+    public Limit getWrite() {
+        return write;
+    }
+
+    public void setWrite(Limit write) {
+        this.write = write;
+    }
+
+    /**
+     * Number of requests allowed per client IP and per username within a period.
+     */
+    public static class Limit {
+
+        private int perIp;
+        private int perUser;
+        private Duration period;
+
+        public Limit() {
+        }
+
+        public Limit(int perIp, int perUser, Duration period) {
+            this.perIp = perIp;
+            this.perUser = perUser;
+            this.period = period;
+        }
+
+        public int getPerIp() {
+            return perIp;
+        }
+
+        public void setPerIp(int perIp) {
+            this.perIp = perIp;
+        }
+
+        public int getPerUser() {
+            return perUser;
+        }
+
+        public void setPerUser(int perUser) {
+            this.perUser = perUser;
+        }
+
+        public Duration getPeriod() {
+            return period;
+        }
+
+        public void setPeriod(Duration period) {
+            this.period = period;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.travelplanner.ratelimit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Keeps one token bucket per route group and client key, and counts rejected requests.
+ * Idle buckets are dropped on a timer. Once the configured number of keys is tracked, new keys
+ * share one bucket per route group and kind of key until the next eviction makes room, so a flood
+ * of distinct keys is throttled as a whole instead of growing the map.
+ */
+@Component
+public class RateLimiter {
+
+    private final ConcurrentMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    @Autowired
+    private RateLimitProperties properties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * Takes a token for the given client key.
+     *
+     * @param group    the route group of the request.
+     * @param keyType  the kind of key, such as "ip" or "user".
+     * @param key      the client key.
+     * @param capacity the number of requests allowed per period.
+     * @param period   the refill period, in nanoseconds.
+     * @return 0 if the request is allowed, otherwise the number of nanoseconds to wait before retrying.
+     */
+    public long tryAcquire(RouteGroup group, String keyType, String key, int capacity, long period) {
+        long now = System.nanoTime();
+        String bucketKey = group + ":" + keyType + ":" + key;
+        TokenBucket bucket = buckets.get(bucketKey);
+        if (bucket == null) {
+            if (buckets.size() >= properties.getMaxTrackedKeys()) {
+                bucketKey = group + ":" + keyType + ":*";
+                meterRegistry.counter("travelplanner.ratelimit.overflow",
+                        "group", group.name().toLowerCase(), "key", keyType).increment();
+            }
+            bucket = buckets.computeIfAbsent(bucketKey, k -> new TokenBucket(capacity, period, now));
+        }
+        long waitNanos = bucket.tryAcquire(now);
+        if (waitNanos > 0) {
+            meterRegistry.counter("travelplanner.ratelimit.rejected",
+                    "group", group.name().toLowerCase(), "key", keyType).increment();
+        }
+        return waitNanos;
+    }
+
+    /**
+     * Drops buckets that have fully refilled, since a new bucket would behave the same way.
+     */
+    @Scheduled(fixedDelayString = "${travelplanner.rate-limit.eviction-interval-ms:10000}")
+    public void evictIdle() {
+        long now = System.nanoTime();
+        buckets.values().removeIf(bucket -> bucket.isIdle(now));
+    }
+}
@@ -0,0 +1,56 @@
+package com.travelplanner.ratelimit;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+
+import static org.springframework.security.web.util.matcher.AntPathRequestMatcher.antMatcher;
+
+/**
+ * Groups of endpoints that share a rate limit.
+ */
+public enum RouteGroup {
+
+    /**
+     * The Spring Security form login.
+     */
+    LOGIN(antMatcher(HttpMethod.POST, "/login")),
+
+    /**
+     * New user registration, which hashes the password with BCrypt.
+     */
+    REGISTER(antMatcher(HttpMethod.POST, "/register")),
+
+    /**
+     * Endpoints that modify trips, including the handshake of the collaborative editing WebSocket.
+     */
+    WRITE(new OrRequestMatcher(
+            antMatcher(HttpMethod.POST, "/user/**"),
+            antMatcher(HttpMethod.GET, "/user/collab/**"),
+            antMatcher(HttpMethod.POST, "/trip/**"),
+            antMatcher(HttpMethod.GET, "/user/deleteTrip/**"),
+            antMatcher(HttpMethod.GET, "/user/publishTrip/**"),
+            antMatcher(HttpMethod.GET, "/user/unpublishTrip/**")));
+
+    private final RequestMatcher matcher;
+
+    RouteGroup(RequestMatcher matcher) {
+        this.matcher = matcher;
+    }
+
+    /**
+     * Finds the group a request belongs to.
+     *
+     * @param request the incoming request.
+     * @return the matching group, or null if the request is not rate limited.
+     */
+    public static RouteGroup resolve(HttpServletRequest request) {
+        for (RouteGroup group : values()) {
+            if (group.matcher.matches(request)) {
+                return group;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,61 @@
+package com.travelplanner.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket, implemented as a generic cell rate algorithm (GCRA).
+ * Instead of storing a token count and a refill timestamp, the bucket keeps a single
+ * "theoretical arrival time" that is advanced with a compare-and-set on every granted request.
+ */
+public class TokenBucket {
+
+    private final long emissionIntervalNanos;
+    private final long capacityNanos;
+    private final AtomicLong theoreticalArrival;
+
+    /**
+     * Creates a full bucket.
+     *
+     * @param capacity      the maximum number of requests allowed in a burst.
+     * @param periodNanos   the time it takes to refill the whole bucket, in nanoseconds.
+     * @param nowNanos      the current time, in nanoseconds.
+     */
+    public TokenBucket(int capacity, long periodNanos, long nowNanos) {
+        if (capacity <= 0 || periodNanos <= 0) {
+            throw new IllegalArgumentException("Capacity and period must be positive");
+        }
+        this.emissionIntervalNanos = Math.max(1, periodNanos / capacity);
+        this.capacityNanos = emissionIntervalNanos * capacity;
+        this.theoreticalArrival = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * Tries to take one token from the bucket.
+     *
+     * @param nowNanos the current time, in nanoseconds.
+     * @return 0 if the token was granted, otherwise the number of nanoseconds until one will be available.
+     */
+    public long tryAcquire(long nowNanos) {
+        while (true) {
+            long current = theoreticalArrival.get();
+            long next = Math.max(current, nowNanos) + emissionIntervalNanos;
+            long allowedAt = next - capacityNanos;
+            if (allowedAt > nowNanos) {
+                return allowedAt - nowNanos;
+            }
+            if (theoreticalArrival.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Checks whether the bucket has fully refilled, meaning it carries no state worth keeping.
+     *
+     * @param nowNanos the current time, in nanoseconds.
+     * @return true if the bucket is full.
+     */
+    public boolean isIdle(long nowNanos) {
+        return theoreticalArrival.get() <= nowNanos;
+    }
+}
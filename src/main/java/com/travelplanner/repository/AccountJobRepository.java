@@ -0,0 +1,79 @@
+package com.travelplanner.repository;
+
+import com.travelplanner.model.AccountJob;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository interface for accessing the account deletion and export jobs.
+ */
+public interface AccountJobRepository extends JpaRepository<AccountJob, Long> {
+
+    /**
+     * Finds the jobs of a user.
+     *
+     * @param username the username of the user.
+     * @return a list of the jobs of the user, the latest first.
+     */
+    List<AccountJob> findByUsernameOrderByIdDesc(String username);
+
+    /**
+     * Finds a job of a user.
+     *
+     * @param id the ID of the job.
+     * @param username the username of the user.
+     * @return the job, or null if the user has no such job.
+     */
+    AccountJob findByIdAndUsername(Long id, String username);
+
+    /**
+     * Finds the jobs of a user of a given type and status.
+     *
+     * @param username the username of the user.
+     * @param type the type of the jobs.
+     * @param statuses the statuses of the jobs.
+     * @return a list of the jobs.
+     */
+    List<AccountJob> findByUsernameAndTypeAndStatusIn(String username, AccountJob.Type type,
+                                                      Collection<AccountJob.Status> statuses);
+
+    /**
+     * Finds the jobs a runner can take: the pending ones, and the running ones without recent progress.
+     *
+     * @param pending the pending status.
+     * @param running the running status.
+     * @param staleBefore the time before which the last progress of a running job must be.
+     * @param pageable the maximum number of jobs to return.
+     * @return a list of jobs ordered by ID.
+     */
+    @Query("select j from AccountJob j where j.status = :pending or (j.status = :running and j.updatedAt < :staleBefore) " +
+            "order by j.id")
+    List<AccountJob> findRunnable(AccountJob.Status pending, AccountJob.Status running, Instant staleBefore,
+                                  Pageable pageable);
+
+    /**
+     * Finds the finished jobs whose last progress was before a time.
+     *
+     * @param statuses the finished statuses.
+     * @param before the time before which the jobs finished.
+     * @return a list of the jobs.
+     */
+    List<AccountJob> findByStatusInAndUpdatedAtBefore(Collection<AccountJob.Status> statuses, Instant before);
+
+    /**
+     * Reads a job and locks its row until the end of the transaction, so its runners take turns.
+     *
+     * @param id the ID of the job.
+     * @return the job, or null if there is no such job.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select j from AccountJob j where j.id = :id")
+    AccountJob lockById(Long id);
+}
@@ -0,0 +1,43 @@
+package com.travelplanner.repository;
+
+import com.travelplanner.model.ArchivedTrip;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+/**
+ * Repository interface for accessing archived trip plans.
+ */
+public interface ArchivedTripRepository extends JpaRepository<ArchivedTrip, Long> {
+
+    /**
+     * Finds the archived trip plans of a user.
+     *
+     * @param username the username to search for.
+     * @return a list of the archived trip plans of the user.
+     */
+    List<ArchivedTrip> findByUsername(String username);
+
+    /**
+     * Finds the archived trip plans of a user that come after an ID, in ID order.
+     *
+     * @param username the username to search for.
+     * @param id the ID of the last archived trip plan already read, or 0 to start from the first.
+     * @param pageable the maximum number of archived trip plans to return.
+     * @return a list of the archived trip plans ordered by ID.
+     */
+    List<ArchivedTrip> findByUsernameAndIdGreaterThanOrderByIdAsc(String username, Long id, Pageable pageable);
+
+    /**
+     * Finds the IDs of the archived trip plans of a user that come after an ID, in ID order.
+     *
+     * @param username the username of the user.
+     * @param id the ID of the last archived trip plan already read, or 0 to start from the first.
+     * @param pageable the maximum number of IDs to return.
+     * @return the IDs of the archived trip plans.
+     */
+    @Query("select a.id from ArchivedTrip a where a.username = :username and a.id > :id order by a.id")
+    List<Long> findIdsByUsernameAfter(String username, Long id, Pageable pageable);
+}
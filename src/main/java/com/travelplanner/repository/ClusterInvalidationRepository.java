@@ -0,0 +1,45 @@
+package com.travelplanner.repository;
+
+import com.travelplanner.model.ClusterInvalidation;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Repository interface for accessing the cluster invalidation messages.
+ */
+public interface ClusterInvalidationRepository extends JpaRepository<ClusterInvalidation, Long> {
+
+    /**
+     * Finds the messages sent after a given message.
+     *
+     * @param id the ID of the last message already read.
+     * @param pageable the maximum number of messages to return.
+     * @return a list of messages ordered by ID.
+     */
+    List<ClusterInvalidation> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    /**
+     * Finds the ID of the latest message.
+     *
+     * @return the highest message ID, or 0 if there are no messages.
+     */
+    @Query("select coalesce(max(m.id), 0) from ClusterInvalidation m")
+    Long findMaxId();
+
+    /**
+     * Deletes the messages sent before a given time.
+     *
+     * @param before the time before which messages are deleted.
+     * @return the number of deleted messages.
+     */
+    @Modifying
+    @Transactional
+    @Query("delete from ClusterInvalidation m where m.createdAt < :before")
+    int deleteOlderThan(Instant before);
+}
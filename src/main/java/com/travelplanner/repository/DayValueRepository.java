@@ -0,0 +1,21 @@
+package com.travelplanner.repository;
+
+import com.travelplanner.model.DayValue;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+/**
+ * Repository interface for accessing the hotel and activity name dictionary.
+ */
+public interface DayValueRepository extends JpaRepository<DayValue, Long> {
+
+    /**
+     * Finds the entries of a name. Depending on the collation of the database, entries that
+     * only differ in case or accents may be returned as well.
+     *
+     * @param name the name to look up.
+     * @return the matching entries.
+     */
+    List<DayValue> findByName(String name);
+}
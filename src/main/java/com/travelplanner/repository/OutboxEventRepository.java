@@ -0,0 +1,56 @@
+package com.travelplanner.repository;
+
+import com.travelplanner.model.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Repository interface for accessing the trip change outbox.
+ */
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Finds the events recorded after a given event.
+     *
+     * @param id the ID of the last event already read.
+     * @param pageable the maximum number of events to return.
+     * @return a list of events ordered by ID.
+     */
+    List<OutboxEvent> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    /**
+     * Finds the ID of the latest event.
+     *
+     * @return the highest event ID, or 0 if there are no events.
+     */
+    @Query("select coalesce(max(e.id), 0) from OutboxEvent e")
+    Long findMaxId();
+
+    /**
+     * Finds the ID of the latest event together with the number of events, as "maxId-count".
+     *
+     * @return the version of the outbox.
+     */
+    @Query("select cast(coalesce(max(e.id), 0) as String) || '-' || cast(count(e) as String) from OutboxEvent e")
+    String findVersion();
+
+    /**
+     * Deletes the events recorded before a given time that the destination analytics have applied.
+     * No event is deleted while the statistics of the shard were never built.
+     *
+     * @param before the time before which events are deleted.
+     * @param latestId the ID of the latest event, which is kept for the version of the feed.
+     * @return the number of deleted events.
+     */
+    @Modifying
+    @Transactional
+    @Query("delete from OutboxEvent e where e.createdAt < :before and e.id < :latestId"
+            + " and e.id <= (select coalesce(min(c.lastEventId), 0) from AnalyticsCursor c)")
+    int deleteAppliedOlderThan(Instant before, long latestId);
+}
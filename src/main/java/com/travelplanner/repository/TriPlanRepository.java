@@ -1,8 +1,14 @@
 package com.travelplanner.repository;
 
 import com.travelplanner.model.TriPlan;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -17,6 +23,27 @@ public interface TriPlanRepository extends JpaRepository<TriPlan, Long> {
      */
     List<TriPlan> findByPublishedTrue();
 
+    /**
+     * Finds the first published TriPlans in feed order, by start date and then id.
+     *
+     * @param pageable the maximum number of TriPlans to return.
+     * @return a list of published TriPlans in feed order.
+     */
+    List<TriPlan> findByPublishedTrueOrderByStartDateAscIdAsc(Pageable pageable);
+
+    /**
+     * Finds the published TriPlans that come after a position in feed order.
+     *
+     * @param startDate the start date of the last TriPlan already read.
+     * @param id the id of the last TriPlan already read.
+     * @param pageable the maximum number of TriPlans to return.
+     * @return a list of published TriPlans in feed order.
+     */
+    @Query("select t from TriPlan t where t.published = true " +
+            "and (t.startDate > :startDate or (t.startDate = :startDate and t.id > :id)) " +
+            "order by t.startDate, t.id")
+    List<TriPlan> findPublishedAfter(LocalDate startDate, Long id, Pageable pageable);
+
     /**
      * Finds all TriPlans associated with a specific username.
      *
@@ -24,4 +51,84 @@ public interface TriPlanRepository extends JpaRepository<TriPlan, Long> {
      * @return a list of TriPlans associated with the given username.
      */
     List<TriPlan> findByUsername(String userName);
+
+    /**
+     * Finds the TriPlans that ended before a date, in id order.
+     *
+     * @param date the date before which the TriPlans ended.
+     * @param pageable the maximum number of TriPlans to return.
+     * @return a list of TriPlans that ended before the date.
+     */
+    List<TriPlan> findByEndDateBeforeOrderByIdAsc(LocalDate date, Pageable pageable);
+
+    /**
+     * Reads the published status of a TriPlan without loading it.
+     *
+     * @param id the id of the TriPlan.
+     * @return the published status, or null if there is no such TriPlan.
+     */
+    @Query("select t.published from TriPlan t where t.id = :id")
+    Boolean findPublishedById(Long id);
+
+    /**
+     * Reads the published status of a TriPlan of a given owner without loading it.
+     *
+     * @param id the id of the TriPlan.
+     * @param username the username of the owner.
+     * @return the published status, or null if there is no such TriPlan owned by the user.
+     */
+    @Query("select t.published from TriPlan t where t.id = :id and t.username = :username")
+    Boolean findPublishedByIdAndUsername(Long id, String username);
+
+    /**
+     * Finds the TriPlans of a user that come after an id, in id order.
+     *
+     * @param username the username of the owner.
+     * @param id the id of the last TriPlan already read, or 0 to start from the first.
+     * @param pageable the maximum number of TriPlans to return.
+     * @return a list of TriPlans ordered by id.
+     */
+    List<TriPlan> findByUsernameAndIdGreaterThanOrderByIdAsc(String username, Long id, Pageable pageable);
+
+    /**
+     * Finds the ids of the TriPlans of a user that come after an id, in id order.
+     *
+     * @param username the username of the owner.
+     * @param id the id of the last TriPlan already read, or 0 to start from the first.
+     * @param pageable the maximum number of ids to return.
+     * @return the ids of the TriPlans.
+     */
+    @Query("select t.id from TriPlan t where t.username = :username and t.id > :id order by t.id")
+    List<Long> findIdsByUsernameAfter(String username, Long id, Pageable pageable);
+
+    /**
+     * Finds which of some TriPlans are published.
+     *
+     * @param ids the ids of the TriPlans.
+     * @return the ids of the published ones.
+     */
+    @Query("select t.id from TriPlan t where t.id in :ids and t.published = true")
+    List<Long> findPublishedIds(Collection<Long> ids);
+
+    /**
+     * Marks a TriPlan as deleted. Its rows are removed later by the purger.
+     *
+     * @param id the id of the TriPlan.
+     * @param deletedAt the time of the deletion.
+     * @return the number of TriPlans marked.
+     */
+    @Modifying
+    @Query("update TriPlan t set t.deletedAt = :deletedAt where t.id = :id and t.deletedAt is null")
+    int markDeleted(Long id, Instant deletedAt);
+
+    /**
+     * Marks TriPlans as deleted. Their rows are removed later by the purger.
+     *
+     * @param ids the ids of the TriPlans.
+     * @param deletedAt the time of the deletion.
+     * @return the number of TriPlans marked.
+     */
+    @Modifying
+    @Query("update TriPlan t set t.deletedAt = :deletedAt where t.id in :ids and t.deletedAt is null")
+    int markDeletedByIds(Collection<Long> ids, Instant deletedAt);
 }
@@ -0,0 +1,84 @@
+package com.travelplanner.repository;
+
+import com.travelplanner.history.TripVersion;
+import com.travelplanner.model.TripRevision;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository interface for accessing the version history of trip plans.
+ */
+public interface TripRevisionRepository extends JpaRepository<TripRevision, Long> {
+
+    /**
+     * Reads the latest revision number of a trip plan.
+     *
+     * @param tripId the ID of the trip plan.
+     * @return the latest revision, or null if the trip plan has no history.
+     */
+    @Query("select max(r.revision) from TripRevision r where r.tripId = :tripId")
+    Integer findLatestRevision(Long tripId);
+
+    /**
+     * Reads the number of the last snapshot at or before a revision.
+     *
+     * @param tripId the ID of the trip plan.
+     * @param revision the revision to rebuild.
+     * @return the revision of the snapshot, or null if there is none.
+     */
+    @Query("select max(r.revision) from TripRevision r where r.tripId = :tripId and r.snapshot = true and r.revision <= :revision")
+    Integer findSnapshotRevision(Long tripId, int revision);
+
+    /**
+     * Finds the revisions of a trip plan within a range.
+     *
+     * @param tripId the ID of the trip plan.
+     * @param from the first revision, inclusive.
+     * @param to the last revision, inclusive.
+     * @return the revisions in order.
+     */
+    List<TripRevision> findByTripIdAndRevisionBetweenOrderByRevisionAsc(Long tripId, int from, int to);
+
+    /**
+     * Finds all revisions of a trip plan.
+     *
+     * @param tripId the ID of the trip plan.
+     * @return the revisions in order.
+     */
+    List<TripRevision> findByTripIdOrderByRevisionAsc(Long tripId);
+
+    /**
+     * Lists the versions of a trip plan without reading their payloads.
+     *
+     * @param tripId the ID of the trip plan.
+     * @return the versions, the latest first.
+     */
+    @Query("select new com.travelplanner.history.TripVersion(r.revision, r.createdAt, r.changeCount, r.snapshot, "
+            + "r.sourceTripId, r.sourceRevision) from TripRevision r where r.tripId = :tripId order by r.revision desc")
+    List<TripVersion> findVersions(Long tripId);
+
+    /**
+     * Finds which of some trip plans were copied from another trip plan.
+     *
+     * @param tripIds the IDs of the trip plans.
+     * @return the IDs of the copies among them.
+     */
+    @Query("select r.tripId from TripRevision r where r.tripId in :tripIds and r.revision = 1 and r.sourceTripId is not null")
+    List<Long> findCopiedTripIds(Collection<Long> tripIds);
+
+    /**
+     * Deletes the history of trip plans.
+     *
+     * @param tripIds the IDs of the trip plans.
+     * @return the number of revisions deleted.
+     */
+    @Modifying
+    @Transactional
+    @Query("delete from TripRevision r where r.tripId in :tripIds")
+    int deleteByTripIds(Collection<Long> tripIds);
+}
@@ -2,6 +2,10 @@ package com.travelplanner.repository;
 
 import com.travelplanner.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.Instant;
 
 /**
  * Repository interface for accessing User data.
@@ -15,4 +19,24 @@ public interface UserRepository extends JpaRepository<User, Long> {
      * @return the User entity with the given username, or null if no such user exists.
      */
     User findUserByUsername(String username);
+
+    /**
+     * Counts the users with a username, including deleted users that were not purged yet.
+     *
+     * @param username the username to search for.
+     * @return the number of user rows with the username.
+     */
+    @Query(value = "select count(*) from user where username = :username", nativeQuery = true)
+    long countByUsernameIncludingDeleted(String username);
+
+    /**
+     * Marks a user as deleted. The row is removed later by the purger, once their trips are gone.
+     *
+     * @param id the id of the user.
+     * @param deletedAt the time of the deletion.
+     * @return the number of users marked.
+     */
+    @Modifying
+    @Query("update User u set u.deletedAt = :deletedAt where u.user_id = :id and u.deletedAt is null")
+    int markDeleted(Long id, Instant deletedAt);
 }
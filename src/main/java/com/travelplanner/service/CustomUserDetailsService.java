@@ -3,6 +3,7 @@ package com.travelplanner.service;
 import com.travelplanner.model.CustomUserDetails;
 import com.travelplanner.model.User;
 import com.travelplanner.repository.UserRepository;
+import com.travelplanner.sharding.ShardRouter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -18,6 +19,9 @@ public class CustomUserDetailsService implements UserDetailsService {
     @Autowired
     private UserRepository userRepo;
 
+    @Autowired
+    private ShardRouter shardRouter;
+
     /**
      * Loads user-specific data by username.
      *
@@ -27,7 +31,7 @@ public class CustomUserDetailsService implements UserDetailsService {
      */
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userRepo.findUserByUsername(username);
+        User user = shardRouter.onShard(shardRouter.shardOfUser(username), () -> userRepo.findUserByUsername(username));
         if (user == null) {
             throw new UsernameNotFoundException("User not found");
         }
@@ -0,0 +1,87 @@
+package com.travelplanner.service;
+
+import com.travelplanner.model.FeedCursor;
+import com.travelplanner.model.TriPlan;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.BiFunction;
+
+/**
+ * Trip plans read one page at a time while they are iterated, so a view can render a long list
+ * without the whole list ever being in memory. Each page continues after the last trip of the
+ * previous one. A callback runs after every page has been consumed, which lets a view flush what
+ * it has rendered before the next page is read.
+ */
+public class PagedTriPlans implements Iterable<TriPlan> {
+
+    private final BiFunction<FeedCursor, Integer, List<TriPlan>> pageReader;
+    private final int pageSize;
+    private Runnable afterPage = () -> { };
+    private List<TriPlan> firstPage;
+
+    /**
+     * Creates the trip plans.
+     *
+     * @param pageReader reads the page after a cursor, or the first page for a null cursor, with at most the given size.
+     * @param pageSize   the number of trip plans read per page.
+     */
+    public PagedTriPlans(BiFunction<FeedCursor, Integer, List<TriPlan>> pageReader, int pageSize) {
+        this.pageReader = pageReader;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Sets the callback that runs after every page has been iterated and before the next one is read.
+     *
+     * @param afterPage the callback.
+     * @return these trip plans.
+     */
+    public PagedTriPlans onPage(Runnable afterPage) {
+        this.afterPage = afterPage;
+        return this;
+    }
+
+    /**
+     * Tells whether there are no trip plans. Only the first page is read, and kept for the iteration.
+     *
+     * @return true if there are no trip plans.
+     */
+    public boolean isEmpty() {
+        return firstPage().isEmpty();
+    }
+
+    private List<TriPlan> firstPage() {
+        if (firstPage == null) {
+            firstPage = pageReader.apply(null, pageSize);
+        }
+        return firstPage;
+    }
+
+    @Override
+    public Iterator<TriPlan> iterator() {
+        return new Iterator<>() {
+            private List<TriPlan> page = firstPage();
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                if (index == page.size() && page.size() == pageSize) {
+                    afterPage.run();
+                    page = pageReader.apply(FeedCursor.after(page.get(page.size() - 1)), pageSize);
+                    index = 0;
+                }
+                return index < page.size();
+            }
+
+            @Override
+            public TriPlan next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return page.get(index++);
+            }
+        };
+    }
+}
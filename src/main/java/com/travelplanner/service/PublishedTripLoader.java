@@ -0,0 +1,114 @@
+package com.travelplanner.service;
+
+import com.travelplanner.model.TriPlan;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Loads all published trips into an in-memory view of trips in a background thread, so startup
+ * does not wait for it, while the view keeps applying committed changes. Changes that arrive while
+ * loading take precedence over the loaded trips, even a deletion: the view records every change
+ * with {@link #recordChange(Long)} and skips the loaded trips {@link #isChangedSinceStart(Long)}.
+ * Both must be called while holding the lock of the view, the same lock it applies changes under.
+ * <p>
+ * A failed load is logged and retried, as loaded trips are only added when absent. Once the last
+ * attempt failed too, the view is left without the trips that were not loaded and an error says so.
+ */
+public class PublishedTripLoader {
+
+    private static final Logger log = LoggerFactory.getLogger(PublishedTripLoader.class);
+
+    private static final int PAGE_SIZE = 500;
+    private static final int ATTEMPTS = 3;
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(10);
+
+    private final String view;
+    private final Object lock;
+    private Set<Long> changedSinceStart;
+
+    /**
+     * Creates the loader of a view.
+     *
+     * @param view the name of the view, for the thread and the log.
+     * @param lock the lock the view applies changes under.
+     */
+    public PublishedTripLoader(String view, Object lock) {
+        this.view = view;
+        this.lock = lock;
+    }
+
+    /**
+     * Starts loading the published trips.
+     *
+     * @param triPlanService the service reading the published trips.
+     * @param loadTrip       adds a loaded trip to the view, unless it is already there or changed since the start.
+     * @param loaded         runs once all trips were loaded.
+     */
+    public void start(TriPlanService triPlanService, Consumer<TriPlan> loadTrip, Runnable loaded) {
+        synchronized (lock) {
+            changedSinceStart = new HashSet<>();
+        }
+        Thread loader = new Thread(() -> {
+            try {
+                if (load(triPlanService, loadTrip)) {
+                    loaded.run();
+                }
+            } finally {
+                synchronized (lock) {
+                    changedSinceStart = null;
+                }
+            }
+        }, view.replace(' ', '-') + "-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    /**
+     * Records that a trip changed. Must be called holding the lock of the view.
+     *
+     * @param tripId the ID of the changed trip.
+     */
+    public void recordChange(Long tripId) {
+        if (changedSinceStart != null) {
+            changedSinceStart.add(tripId);
+        }
+    }
+
+    /**
+     * Tells whether a trip changed since the load started. Must be called holding the lock of the view.
+     *
+     * @param tripId the ID of the trip.
+     * @return true if the loaded state of the trip is outdated.
+     */
+    public boolean isChangedSinceStart(Long tripId) {
+        return changedSinceStart != null && changedSinceStart.contains(tripId);
+    }
+
+    private boolean load(TriPlanService triPlanService, Consumer<TriPlan> loadTrip) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                triPlanService.forEachPublishedTriPlan(PAGE_SIZE, loadTrip);
+                return true;
+            } catch (RuntimeException e) {
+                if (attempt == ATTEMPTS) {
+                    log.error("Gave up loading the published trips into the {} after {} attempts;"
+                            + " it misses the trips not loaded so far", view, ATTEMPTS, e);
+                    return false;
+                }
+                log.warn("Loading the published trips into the {} failed, retrying in {} s",
+                        view, RETRY_DELAY.toSeconds(), e);
+            }
+            try {
+                Thread.sleep(RETRY_DELAY.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+}
@@ -1,72 +1,488 @@
 package com.travelplanner.service;
 
+import com.travelplanner.archive.TripArchive;
+import com.travelplanner.dictionary.DayValueDictionary;
+import com.travelplanner.geo.Gazetteer;
+import com.travelplanner.geo.Place;
+import com.travelplanner.history.TripChange;
+import com.travelplanner.history.TripHistory;
+import com.travelplanner.history.TripSource;
+import com.travelplanner.history.TripState;
+import com.travelplanner.history.TripVersion;
+import com.travelplanner.model.FeedCursor;
+import com.travelplanner.model.OutboxEvent;
 import com.travelplanner.model.TriPlan;
+import com.travelplanner.model.TripEventType;
 import com.travelplanner.model.User;
+import com.travelplanner.repository.OutboxEventRepository;
 import com.travelplanner.repository.TriPlanRepository;
+import com.travelplanner.sharding.ShardRouter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Service class for managing Trip Plans.
+ * Trips live on the shard of their owner; the published feed is gathered from all shards.
+ * Every write records an {@link OutboxEvent} in the same transaction, on the same shard,
+ * and publishes a {@link TripChangedEvent} for in-memory listeners. Changes to the content of a trip
+ * are recorded in its {@link TripHistory}, from which older versions can be compared and restored.
+ * Trips that ended long ago are moved to the {@link TripArchive}: they can still be read by id and
+ * are listed with their owner's trips, but the published feed only reads the active trips.
  */
 @Service
 public class TriPlanService {
 
+    /**
+     * Order of the published feed: by start date, then by id.
+     */
+    public static final Comparator<TriPlan> FEED_ORDER = Comparator
+            .comparing(TriPlan::getStartDate, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(TriPlan::getId);
+
     @Autowired
     private TriPlanRepository triPlanRepository;
 
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private Gazetteer gazetteer;
+
+    @Autowired
+    private DayValueDictionary dayValueDictionary;
+
+    @Autowired
+    private TripArchive tripArchive;
+
+    @Autowired
+    private TripHistory tripHistory;
+
     /**
      * Retrieves all published trip plans.
      *
-     * @return List of TriPlan objects that are published
+     * @return List of TriPlan objects that are published, in feed order
      */
     public List<TriPlan> getAllPublishedTriPlans() {
-        return triPlanRepository.findByPublishedTrue();
+        return ShardRouter.mergeSorted(shardRouter.onAllShards(
+                () -> triPlanRepository.findByPublishedTrueOrderByStartDateAscIdAsc(Pageable.unpaged())),
+                FEED_ORDER, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Retrieves one page of the published feed. Every shard returns its first trips after the
+     * cursor, and the pages are merged, so no shard is read past the requested page.
+     *
+     * @param after the position after which the page starts, or null for the first page
+     * @param limit the maximum number of trip plans to return
+     * @return List of published TriPlan objects, in feed order
+     */
+    public List<TriPlan> getPublishedTriPlans(FeedCursor after, int limit) {
+        Pageable page = Pageable.ofSize(limit);
+        return ShardRouter.mergeSorted(shardRouter.onAllShards(() -> after == null
+                        ? triPlanRepository.findByPublishedTrueOrderByStartDateAscIdAsc(page)
+                        : triPlanRepository.findPublishedAfter(after.startDate(), after.id(), page)),
+                FEED_ORDER, limit);
     }
 
     /**
-     * Saves or updates a trip plan.
+     * Walks through all published trip plans one page at a time, so they are never all in memory.
+     *
+     * @param pageSize the number of trip plans read per page
+     * @param action   the action to run for every published trip plan, in feed order
+     */
+    public void forEachPublishedTriPlan(int pageSize, Consumer<TriPlan> action) {
+        getPublishedTriPlans(pageSize).forEach(action);
+    }
+
+    /**
+     * Gives all published trip plans, read one page at a time while they are iterated.
+     *
+     * @param pageSize the number of trip plans read per page
+     * @return the published TriPlan objects, in feed order
+     */
+    public PagedTriPlans getPublishedTriPlans(int pageSize) {
+        return new PagedTriPlans(this::getPublishedTriPlans, pageSize);
+    }
+
+    /**
+     * Retrieves a version of the published trips, used to validate cached feed pages. Every change
+     * to a trip records an outbox event, but its id is assigned at insert, so a transaction can
+     * commit an event below the latest id another one already committed. The number of events of
+     * each shard goes with the latest id, as it changes whenever an event becomes visible. Changes
+     * to private trips and the cleanup of old events move it too, which only costs a needless refresh.
+     *
+     * @return a value that changes whenever the published feed changes
+     */
+    public String getPublishedFeedVersion() {
+        return shardRouter.onAllShards(outboxEventRepository::findVersion).stream()
+                .collect(Collectors.joining("/"));
+    }
+
+    /**
+     * Saves or updates a trip plan. The destination is resolved to coordinates with the gazetteer.
      *
      * @param triPlan The TriPlan object to save or update
      * @return The saved TriPlan object
      */
     public TriPlan save(TriPlan triPlan) {
-        return triPlanRepository.save(triPlan);
+        resolveCoordinates(triPlan);
+        TripEventType type = triPlan.getId() == null ? TripEventType.CREATED : TripEventType.UPDATED;
+        return save(triPlan, null, null, saved -> new OutboxEvent(type, saved.getId(), saved.isPublished()));
+    }
+
+    private void resolveCoordinates(TriPlan triPlan) {
+        Place place = gazetteer.resolve(triPlan.getName());
+        triPlan.setLatitude(place != null ? place.latitude() : null);
+        triPlan.setLongitude(place != null ? place.longitude() : null);
+    }
+
+    /**
+     * Publishes a trip plan to make it publicly available.
+     *
+     * @param id The ID of the trip plan to publish
+     * @return The published TriPlan object, or null if not found
+     */
+    public TriPlan publishTrip(Long id) {
+        TriPlan triPlan = getTriPlanById(id);
+        if (triPlan == null) {
+            return null;
+        }
+        TripState before = TripState.of(triPlan);
+        triPlan.setPublished(true);
+        return save(triPlan, before, null, saved -> new OutboxEvent(TripEventType.PUBLISHED, saved.getId(), true));
     }
 
     /**
-     * Retrieves a trip plan by its ID.
+     * Unpublishes a trip plan to make it private.
+     *
+     * @param id The ID of the trip plan to unpublish
+     * @return The unpublished TriPlan object, or null if not found
+     */
+    public TriPlan unpublishTrip(Long id) {
+        TriPlan triPlan = getTriPlanById(id);
+        if (triPlan == null) {
+            return null;
+        }
+        boolean wasPublished = triPlan.isPublished();
+        TripState before = TripState.of(triPlan);
+        triPlan.setPublished(false);
+        return save(triPlan, before, null, saved -> new OutboxEvent(TripEventType.UNPUBLISHED, saved.getId(), wasPublished));
+    }
+
+    /**
+     * Sets the hotel and activity of one day of a trip plan.
+     *
+     * @param id       The ID of the trip plan
+     * @param date     The day to update
+     * @param hotel    The hotel for the day
+     * @param activity The activity for the day
+     * @return The updated TriPlan object, or null if not found
+     */
+    public TriPlan saveDayDetails(Long id, LocalDate date, String hotel, String activity) {
+        TriPlan triPlan = getTriPlanById(id);
+        if (triPlan == null) {
+            return null;
+        }
+        TripState before = TripState.of(triPlan);
+        triPlan.setHotel(date, hotel);
+        triPlan.setActivity(date, activity);
+        return save(triPlan, before, null, saved -> new OutboxEvent(TripEventType.DAYS_EDITED, saved.getId(), saved.isPublished()));
+    }
+
+    /**
+     * Sets the hotels and activities of several days of a trip plan in one save, such as the edits
+     * gathered by a collaborative editing session. The other days are left as they are.
+     *
+     * @param id         The ID of the trip plan
+     * @param hotels     The new hotel of every edited day
+     * @param activities The new activity of every edited day
+     * @return The updated TriPlan object, or null if not found
+     */
+    public TriPlan saveDayEdits(Long id, Map<LocalDate, String> hotels, Map<LocalDate, String> activities) {
+        TriPlan triPlan = getTriPlanById(id);
+        if (triPlan == null) {
+            return null;
+        }
+        TripState before = TripState.of(triPlan);
+        hotels.forEach(triPlan::setHotel);
+        activities.forEach(triPlan::setActivity);
+        return save(triPlan, before, null, saved -> new OutboxEvent(TripEventType.DAYS_EDITED, saved.getId(), saved.isPublished()));
+    }
+
+    /**
+     * Lists the versions of a trip plan.
+     *
+     * @param id The ID of the trip plan
+     * @return The versions, the latest first
+     */
+    public List<TripVersion> getTripVersions(Long id) {
+        return shardRouter.onShard(shardRouter.shardOfId(id), () -> tripHistory.getVersions(id));
+    }
+
+    /**
+     * Compares two versions of a trip plan.
+     *
+     * @param id   The ID of the trip plan
+     * @param from The older revision
+     * @param to   The newer revision
+     * @return The changes from the older version to the newer one, or null if either does not exist
+     */
+    public List<TripChange> diffTripVersions(Long id, int from, int to) {
+        return shardRouter.onShard(shardRouter.shardOfId(id), () -> tripHistory.diff(id, from, to));
+    }
+
+    /**
+     * Restores the content of an older version of a trip plan. The restore is saved as a new version,
+     * so it can itself be undone; the publication status is left as it is.
+     *
+     * @param id       The ID of the trip plan
+     * @param revision The revision to restore
+     * @param username The user the trip plan must belong to
+     * @return The restored TriPlan object, or null if there is no such trip plan or revision
+     */
+    public TriPlan restoreTripVersion(Long id, int revision, String username) {
+        TriPlan triPlan = getTriPlanById(id);
+        if (triPlan == null || !username.equals(triPlan.getUsername())) {
+            return null;
+        }
+        TripState version = shardRouter.onShard(shardRouter.shardOfId(id), () -> tripHistory.getVersion(id, revision));
+        if (version == null) {
+            return null;
+        }
+        TripState before = TripState.of(triPlan);
+        version.applyTo(triPlan);
+        resolveCoordinates(triPlan);
+        return save(triPlan, before, null, saved -> new OutboxEvent(TripEventType.RESTORED, saved.getId(), saved.isPublished()));
+    }
+
+    /**
+     * Saves a trip plan, records the change in the outbox and a new version in the history, in one
+     * transaction on the trip's shard. The hotel and activity names are added to the shard's dictionary
+     * first. An archived trip plan is moved back to the active tables.
+     *
+     * @param triPlan The TriPlan object to save
+     * @param before  The content of the TriPlan before the change, or null if new or unknown
+     * @param source  The trip plan a new copy is made from, or null
+     * @param event   Creates the outbox event from the saved TriPlan
+     * @return The saved TriPlan object
+     */
+    private TriPlan save(TriPlan triPlan, TripState before, TripSource source, Function<TriPlan, OutboxEvent> event) {
+        int shard = triPlan.getId() != null
+                ? shardRouter.shardOfId(triPlan.getId())
+                : shardRouter.shardOfUser(triPlan.getUsername());
+        return shardRouter.onShard(shard, () -> {
+            dayValueDictionary.register(triPlan.getHotels().values());
+            dayValueDictionary.register(triPlan.getActivities().values());
+            return transactionTemplate.execute(status -> {
+                if (triPlan.isArchived()) {
+                    tripArchive.restore(triPlan.getId());
+                    triPlan.setArchived(false);
+                }
+                TriPlan saved = triPlanRepository.save(triPlan);
+                tripHistory.record(saved, before, source);
+                OutboxEvent outboxEvent = outboxEventRepository.save(event.apply(saved));
+                eventPublisher.publishEvent(new TripChangedEvent(outboxEvent.getType(), saved.getId(), saved));
+                return saved;
+            });
+        });
+    }
+
+    /**
+     * Retrieves a trip plan by its ID, from the active trips or else from the archive.
      *
      * @param id The ID of the trip plan to retrieve
      * @return The TriPlan object if found, null otherwise
      */
     public TriPlan getTriPlanById(Long id) {
-        return triPlanRepository.findById(id).orElse(null);
+        return shardRouter.onShard(shardRouter.shardOfId(id),
+                () -> triPlanRepository.findById(id).orElseGet(() -> tripArchive.find(id)));
     }
 
     /**
-     * Deletes a trip plan by its ID.
+     * Retrieves trip plans by their IDs, with one query per shard.
+     *
+     * @param ids The IDs of the trip plans to retrieve
+     * @return List of the TriPlan objects found, in the order of the IDs
+     */
+    public List<TriPlan> getTriPlansByIds(Collection<Long> ids) {
+        Map<Integer, List<Long>> idsByShard = new HashMap<>();
+        for (Long id : ids) {
+            idsByShard.computeIfAbsent(shardRouter.shardOfId(id), shard -> new ArrayList<>()).add(id);
+        }
+        Map<Long, TriPlan> found = new HashMap<>();
+        idsByShard.forEach((shard, shardIds) -> shardRouter.onShard(shard, () -> triPlanRepository.findAllById(shardIds))
+                .forEach(triPlan -> found.put(triPlan.getId(), triPlan)));
+        List<TriPlan> triPlans = new ArrayList<>(found.size());
+        for (Long id : ids) {
+            if (found.containsKey(id)) {
+                triPlans.add(found.get(id));
+            }
+        }
+        return triPlans;
+    }
+
+    /**
+     * Deletes a trip plan by its ID. The trip plan is only marked as deleted, with one statement
+     * whatever its number of days; the purger removes its rows later.
      *
      * @param id The ID of the trip plan to delete
      */
     public void deleteTriPlan(Long id) {
-        triPlanRepository.deleteById(id);
+        delete(id, null);
+    }
+
+    /**
+     * Deletes a trip plan if it belongs to a user, without loading it.
+     *
+     * @param id       The ID of the trip plan to delete
+     * @param username The username of the user
+     * @return true if the trip plan was found and deleted, false otherwise
+     */
+    public boolean deleteTripOfUser(Long id, String username) {
+        return delete(id, username);
     }
 
     /**
-     * Finds trip plans created by a specific user.
+     * Deletes a chunk of the active trip plans of a user, in ID order, marking them in one statement.
+     * The deletion joins the transaction of the caller, which can record its progress with it.
      *
      * @param username The username of the user
+     * @param afterId  The ID of the last trip plan of the previous chunk, or 0 for the first chunk
+     * @param limit    The maximum number of trip plans to delete
+     * @return The IDs of the deleted trip plans, in order
+     */
+    public List<Long> deleteTripsOfUser(String username, long afterId, int limit) {
+        return shardRouter.onShard(shardRouter.shardOfUser(username), () -> transactionTemplate.execute(status -> {
+            List<Long> ids = triPlanRepository.findIdsByUsernameAfter(username, afterId, Pageable.ofSize(limit));
+            if (!ids.isEmpty()) {
+                List<Long> publishedIds = triPlanRepository.findPublishedIds(ids);
+                triPlanRepository.markDeletedByIds(ids, Instant.now());
+                recordDeletions(ids, publishedIds);
+            }
+            return ids;
+        }));
+    }
+
+    /**
+     * Deletes a chunk of the archived trip plans of a user, in ID order, with their history.
+     * The deletion joins the transaction of the caller, which can record its progress with it.
+     *
+     * @param username The username of the user
+     * @param afterId  The ID of the last trip plan of the previous chunk, or 0 for the first chunk
+     * @param limit    The maximum number of trip plans to delete
+     * @return The IDs of the deleted trip plans, in order
+     */
+    public List<Long> deleteArchivedTripsOfUser(String username, long afterId, int limit) {
+        return shardRouter.onShard(shardRouter.shardOfUser(username), () -> transactionTemplate.execute(status -> {
+            List<Long> ids = tripArchive.findIdsByUser(username, afterId, limit);
+            if (!ids.isEmpty()) {
+                tripHistory.delete(ids);
+                tripArchive.delete(ids);
+                recordDeletions(ids, List.of());
+            }
+            return ids;
+        }));
+    }
+
+    private void recordDeletions(List<Long> ids, Collection<Long> feedVisibleIds) {
+        List<OutboxEvent> events = new ArrayList<>(ids.size());
+        ids.forEach(id -> events.add(new OutboxEvent(TripEventType.DELETED, id, feedVisibleIds.contains(id))));
+        outboxEventRepository.saveAll(events);
+        ids.forEach(id -> eventPublisher.publishEvent(new TripChangedEvent(TripEventType.DELETED, id, null)));
+    }
+
+    /**
+     * Marks a trip plan as deleted and records the change, or deletes it from the archive.
+     *
+     * @param id       The ID of the trip plan to delete
+     * @param username The user the trip plan must belong to, or null for any user
+     * @return true if the trip plan was found and deleted, false otherwise
+     */
+    private boolean delete(Long id, String username) {
+        return shardRouter.onShard(shardRouter.shardOfId(id), () -> transactionTemplate.execute(status -> {
+            Boolean published = username == null
+                    ? triPlanRepository.findPublishedById(id)
+                    : triPlanRepository.findPublishedByIdAndUsername(id, username);
+            if (published != null) {
+                triPlanRepository.markDeleted(id, Instant.now());
+            } else if (tripArchive.delete(id, username)) {
+                tripHistory.delete(List.of(id));
+            } else {
+                return false;
+            }
+            outboxEventRepository.save(new OutboxEvent(TripEventType.DELETED, id, Boolean.TRUE.equals(published)));
+            eventPublisher.publishEvent(new TripChangedEvent(TripEventType.DELETED, id, null));
+            return true;
+        }));
+    }
+
+    /**
+     * Finds a chunk of the active trip plans of a user, in ID order.
+     *
+     * @param username The username of the user
+     * @param afterId  The ID of the last trip plan of the previous chunk, or 0 for the first chunk
+     * @param limit    The maximum number of trip plans
      * @return List of TriPlan objects created by the user
      */
+    public List<TriPlan> findTripsOfUser(String username, long afterId, int limit) {
+        return shardRouter.onShard(shardRouter.shardOfUser(username),
+                () -> triPlanRepository.findByUsernameAndIdGreaterThanOrderByIdAsc(username, afterId, Pageable.ofSize(limit)));
+    }
+
+    /**
+     * Finds a chunk of the archived trip plans of a user, in ID order.
+     *
+     * @param username The username of the user
+     * @param afterId  The ID of the last trip plan of the previous chunk, or 0 for the first chunk
+     * @param limit    The maximum number of trip plans
+     * @return List of TriPlan objects created by the user, marked as archived
+     */
+    public List<TriPlan> findArchivedTripsOfUser(String username, long afterId, int limit) {
+        return shardRouter.onShard(shardRouter.shardOfUser(username), () -> tripArchive.findByUser(username, afterId, limit));
+    }
+
+    /**
+     * Finds trip plans created by a specific user, including the archived ones.
+     *
+     * @param username The username of the user
+     * @return List of TriPlan objects created by the user, the active ones first
+     */
     public List<TriPlan> findTripsByUser(String username) {
-        return triPlanRepository.findByUsername(username);
+        return shardRouter.onShard(shardRouter.shardOfUser(username), () -> {
+            List<TriPlan> triPlans = new ArrayList<>(triPlanRepository.findByUsername(username));
+            triPlans.addAll(tripArchive.findByUser(username));
+            return triPlans;
+        });
     }
 
     /**
      * Saves a trip plan based on an original plan and associates it with a user.
+     * The copy is stored on the shard of the new owner, and its history starts from the current
+     * version of the original.
      *
      * @param originalTrip The original TriPlan object to save
      * @param user         The User object associated with the new TriPlan
@@ -74,13 +490,21 @@ public class TriPlanService {
     public void saveTrip(TriPlan originalTrip, User user) {
         TriPlan newTrip = new TriPlan();
         newTrip.setName(originalTrip.getName());
-        newTrip.setHotels(originalTrip.getHotels());
+        newTrip.setHotels(new HashMap<>(originalTrip.getHotels()));
         newTrip.setEndDate(originalTrip.getEndDate());
         newTrip.setStartDate(originalTrip.getStartDate());
-        newTrip.setActivities(originalTrip.getActivities());
+        newTrip.setActivities(new HashMap<>(originalTrip.getActivities()));
+        newTrip.setLatitude(originalTrip.getLatitude());
+        newTrip.setLongitude(originalTrip.getLongitude());
         newTrip.setUsername(user.getUsername());
         newTrip.setUser(user);
-        triPlanRepository.save(newTrip);
+        Integer sourceRevision = shardRouter.onShard(shardRouter.shardOfId(originalTrip.getId()),
+                () -> tripHistory.getLatestRevision(originalTrip.getId()));
+        save(newTrip, null, new TripSource(originalTrip.getId(), sourceRevision), saved -> {
+            OutboxEvent event = new OutboxEvent(TripEventType.COPIED, saved.getId(), false);
+            event.setSourceTripId(originalTrip.getId());
+            return event;
+        });
     }
 
     /**
@@ -89,6 +513,6 @@ public class TriPlanService {
      * @param tripId The ID of the trip plan to delete
      */
     public void deleteTripById(Long tripId) {
-        triPlanRepository.deleteById(tripId);
+        deleteTriPlan(tripId);
     }
 }
@@ -0,0 +1,29 @@
+package com.travelplanner.service;
+
+import com.travelplanner.model.TriPlan;
+import com.travelplanner.model.TripEventType;
+
+/**
+ * Application event published by {@link TriPlanService} for every change to a trip plan.
+ * Listeners that keep in-memory views of trips use it with a transactional event listener,
+ * so they only see changes that were committed. Changes made by other instances of the
+ * application are published again locally by the invalidation bus, marked as remote.
+ *
+ * @param type    the kind of change.
+ * @param tripId  the ID of the changed trip plan.
+ * @param triPlan the trip plan after the change, or null if it was deleted.
+ * @param remote  whether the change was made by another instance.
+ */
+public record TripChangedEvent(TripEventType type, Long tripId, TriPlan triPlan, boolean remote) {
+
+    /**
+     * Creates the event of a change made by this instance.
+     *
+     * @param type    the kind of change.
+     * @param tripId  the ID of the changed trip plan.
+     * @param triPlan the trip plan after the change, or null if it was deleted.
+     */
+    public TripChangedEvent(TripEventType type, Long tripId, TriPlan triPlan) {
+        this(type, tripId, triPlan, false);
+    }
+}
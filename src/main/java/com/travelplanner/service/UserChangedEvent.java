@@ -0,0 +1,13 @@
+package com.travelplanner.service;
+
+/**
+ * Application event published when a user is deleted or moved to another shard, for the
+ * components that keep users in memory. Changes made by other instances of the application
+ * are published again locally by the invalidation bus, marked as remote and without the username.
+ *
+ * @param userId   the ID of the user before the change.
+ * @param username the username, or null if the change was made by another instance.
+ * @param remote   whether the change was made by another instance.
+ */
+public record UserChangedEvent(Long userId, String username, boolean remote) {
+}
@@ -1,13 +1,21 @@
 package com.travelplanner.service;
 
+import com.travelplanner.model.AccountJob;
 import com.travelplanner.model.User;
+import com.travelplanner.repository.AccountJobRepository;
 import com.travelplanner.repository.UserRepository;
+import com.travelplanner.sharding.ShardRouter;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
 
 /**
  * Service class for managing User operations.
+ * Each user is stored on the shard that holds their trips.
  */
 @Service
 public class UserService {
@@ -15,22 +23,39 @@ public class UserService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private AccountJobRepository accountJobRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
     /**
      * Saves a new user or updates an existing user.
      * Encrypts the user's password using BCrypt before saving.
      *
      * @param user The User object to save or update
-     * @throws Exception If the username already exists
+     * @throws Exception If the username already exists, or belongs to a deleted user not purged yet
      */
     public void save(User user) throws Exception {
         user.setUsername(user.getUsername().trim());
-        if (userRepository.findUserByUsername(user.getUsername()) != null) {
+        String username = user.getUsername();
+        if (shardRouter.onShard(shardRouter.shardOfUser(username),
+                () -> userRepository.countByUsernameIncludingDeleted(username)) > 0) {
             throw new Exception("Username already exists!");
         }
-        BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
         String encodedPassword = passwordEncoder.encode(user.getPassword());
         user.setPassword(encodedPassword);
-        userRepository.save(user);
+        int shard = user.getId() != null ? shardRouter.shardOfId(user.getId()) : shardRouter.assignShard(user.getUsername());
+        shardRouter.onShard(shard, () -> userRepository.save(user));
     }
 
     /**
@@ -40,16 +65,23 @@ public class UserService {
      * @return The User object if found, null otherwise
      */
     public User getUserById(Long id) {
-        return userRepository.findById(id).orElse(null);
+        return shardRouter.onShard(shardRouter.shardOfId(id), () -> userRepository.findById(id).orElse(null));
     }
 
     /**
-     * Deletes a user by their ID.
+     * Deletes a user by the user's ID. The user is marked as deleted at once, and the deletion of
+     * their trips is queued in the same transaction: the account jobs delete them a chunk at a time,
+     * however many there are, and the purger removes the rows later.
      *
      * @param id The ID of the user to delete
      */
     public void deleteUser(Long id) {
-        userRepository.deleteById(id);
+        shardRouter.runOnShard(shardRouter.shardOfId(id), () -> transactionTemplate.executeWithoutResult(status ->
+                userRepository.findById(id).ifPresent(user -> {
+                    userRepository.markDeleted(id, Instant.now());
+                    accountJobRepository.save(new AccountJob(AccountJob.Type.DELETE, user.getUsername(), null));
+                    eventPublisher.publishEvent(new UserChangedEvent(id, user.getUsername(), false));
+                })));
     }
 
     /**
@@ -59,6 +91,6 @@ public class UserService {
      * @return The User object if found, null otherwise
      */
     public User findByUsername(String username) {
-        return userRepository.findUserByUsername(username);
+        return shardRouter.onShard(shardRouter.shardOfUser(username), () -> userRepository.findUserByUsername(username));
     }
 }
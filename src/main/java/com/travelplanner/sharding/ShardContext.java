@@ -0,0 +1,46 @@
+package com.travelplanner.sharding;
+
+import java.util.function.Supplier;
+
+/**
+ * Holds the shard the current thread works on. The routing data source reads it whenever a
+ * connection is opened, so it must be set before a repository call starts its transaction.
+ */
+public final class ShardContext {
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    /**
+     * Gets the shard of the current thread.
+     *
+     * @return the shard, or null if none is set and the default shard should be used.
+     */
+    public static Integer current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Runs an action against a shard, restoring the previous shard afterwards.
+     *
+     * @param shard  the shard to use.
+     * @param action the action to run.
+     * @param <T>    the result type.
+     * @return the result of the action.
+     */
+    public static <T> T call(int shard, Supplier<T> action) {
+        Integer previous = CURRENT.get();
+        CURRENT.set(shard);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.travelplanner.sharding;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import com.travelplanner.service.UserChangedEvent;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Directory of the shard each user lives on, stored in the user_shard table of shard 0
+ * and cached in memory.
+ */
+@Component
+@ConditionalOnProperty(prefix = "travelplanner.sharding", name = "enabled", havingValue = "true")
+public class ShardDirectory {
+
+    private final ConcurrentMap<String, Integer> cache = new ConcurrentHashMap<>();
+    private final JdbcTemplate jdbcTemplate;
+    private final int shardCount;
+
+    /**
+     * Creates the directory.
+     *
+     * @param routingDataSource the sharded data source; the directory lives on shard 0.
+     */
+    @Autowired
+    public ShardDirectory(ShardRoutingDataSource routingDataSource) {
+        this.jdbcTemplate = new JdbcTemplate(routingDataSource.getShard(0));
+        this.shardCount = routingDataSource.getShardCount();
+    }
+
+    /**
+     * Finds the shard of a user. Users that are not in the directory yet are looked up on
+     * the shard they would be assigned to.
+     *
+     * @param username the username.
+     * @return the shard of the user.
+     */
+    public int shardOf(String username) {
+        Integer shard = cache.get(username);
+        if (shard == null) {
+            shard = lookup(username);
+            if (shard == null) {
+                return defaultShard(username);
+            }
+            cache.put(username, shard);
+        }
+        return shard;
+    }
+
+    /**
+     * Records the shard of a new user, or returns the one already recorded.
+     *
+     * @param username the username.
+     * @return the shard of the user.
+     */
+    public int assign(String username) {
+        Integer shard = lookup(username);
+        if (shard == null) {
+            shard = defaultShard(username);
+            try {
+                jdbcTemplate.update("insert into user_shard (username, shard) values (?, ?)", username, shard);
+            } catch (DuplicateKeyException e) {
+                shard = lookup(username);
+            }
+        }
+        cache.put(username, shard);
+        return shard;
+    }
+
+    /**
+     * Points a user to another shard.
+     *
+     * @param username the username.
+     * @param shard    the new shard of the user.
+     */
+    public void move(String username, int shard) {
+        jdbcTemplate.update("update user_shard set shard = ? where username = ?", shard, username);
+        cache.put(username, shard);
+    }
+
+    /**
+     * Forgets the cached shard of a user, so it is read again from the directory.
+     *
+     * @param username the username.
+     */
+    public void evict(String username) {
+        cache.remove(username);
+    }
+
+    /**
+     * Forgets the cached shards when another instance moved or deleted a user. Only the user's id
+     * is known then, so the whole cache is dropped; users rarely move, and it refills as they come.
+     *
+     * @param event the user change.
+     */
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        if (event.remote()) {
+            cache.clear();
+        }
+    }
+
+    private Integer lookup(String username) {
+        List<Integer> shards = jdbcTemplate.queryForList(
+                "select shard from user_shard where username = ?", Integer.class, username);
+        return shards.isEmpty() ? null : shards.get(0);
+    }
+
+    private int defaultShard(String username) {
+        return Math.floorMod(username.hashCode(), shardCount);
+    }
+}
@@ -0,0 +1,39 @@
+package com.travelplanner.sharding;
+
+/**
+ * Encodes the shard in the high bits of trip and user ids. Every shard starts its identity
+ * columns at its own base, so the shard of a row can be found from its id alone, and shard 0
+ * keeps the ids an unsharded database would have.
+ */
+public final class ShardIds {
+
+    /**
+     * Number of high bits reserved for the shard, allowing up to 256 shards.
+     */
+    public static final int SHARD_BITS = 8;
+
+    private static final int LOCAL_BITS = Long.SIZE - 1 - SHARD_BITS;
+
+    private ShardIds() {
+    }
+
+    /**
+     * Gets the first id generated on a shard.
+     *
+     * @param shard the shard.
+     * @return the first id of the shard.
+     */
+    public static long firstId(int shard) {
+        return ((long) shard << LOCAL_BITS) + 1;
+    }
+
+    /**
+     * Gets the shard a row lives on.
+     *
+     * @param id the id of the row.
+     * @return the shard encoded in the id.
+     */
+    public static int shardOf(long id) {
+        return (int) (id >>> LOCAL_BITS);
+    }
+}
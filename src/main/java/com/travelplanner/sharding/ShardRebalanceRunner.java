@@ -0,0 +1,48 @@
+package com.travelplanner.sharding;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Command line tool for moving a user to another shard. It runs when the application is started with
+ * "travelplanner.sharding.rebalance.user" and "travelplanner.sharding.rebalance.shard", and exits afterwards:
+ * java -jar travel-planner.jar --spring.main.web-application-type=none
+ *      --travelplanner.sharding.rebalance.user=alice --travelplanner.sharding.rebalance.shard=2
+ */
+@Component
+@ConditionalOnProperty(prefix = "travelplanner.sharding.rebalance", name = "user")
+public class ShardRebalanceRunner implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardRebalanceRunner.class);
+
+    @Autowired
+    private ShardRebalancer shardRebalancer;
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        String username = environment.getRequiredProperty("travelplanner.sharding.rebalance.user");
+        int shard = environment.getRequiredProperty("travelplanner.sharding.rebalance.shard", Integer.class);
+
+        Map<Long, Long> newIds = shardRebalancer.moveUser(username, shard);
+        log.info("Moved user {} to shard {} with {} trips", username, shard, newIds.size());
+        newIds.forEach((oldId, newId) -> log.info("Trip {} is now {}", oldId, newId));
+
+        System.exit(SpringApplication.exit(applicationContext, () -> 0));
+    }
+}
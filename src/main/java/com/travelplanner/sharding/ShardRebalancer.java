@@ -0,0 +1,163 @@
+package com.travelplanner.sharding;
+
+import com.travelplanner.archive.TripArchive;
+import com.travelplanner.dictionary.DayValueDictionary;
+import com.travelplanner.history.TripHistory;
+import com.travelplanner.model.OutboxEvent;
+import com.travelplanner.model.TriPlan;
+import com.travelplanner.model.TripEventType;
+import com.travelplanner.model.TripRevision;
+import com.travelplanner.model.User;
+import com.travelplanner.repository.OutboxEventRepository;
+import com.travelplanner.repository.TriPlanRepository;
+import com.travelplanner.repository.UserRepository;
+import com.travelplanner.service.TripChangedEvent;
+import com.travelplanner.service.UserChangedEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves a user and all their trips to another shard.
+ */
+@Component
+@ConditionalOnProperty(prefix = "travelplanner.sharding", name = "enabled", havingValue = "true")
+public class ShardRebalancer {
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private ShardDirectory shardDirectory;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TriPlanRepository triPlanRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private DayValueDictionary dayValueDictionary;
+
+    @Autowired
+    private TripArchive tripArchive;
+
+    @Autowired
+    private TripHistory tripHistory;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Copies the user and their trips to the target shard, points the directory to it and then
+     * deletes the originals. The rows get new ids in the target shard's range. A failure before the
+     * directory is updated leaves the user on the source shard, and retrying the move replaces the
+     * copies the failed attempt left on the target shard. Archived trips are copied as active trips, and archived again by the next
+     * archive run. The version history of every trip is copied with it. Each copy and each deleted
+     * original is recorded in the outbox of its shard, as the feed shows the trips under their new ids,
+     * and published as a {@link TripChangedEvent} for the in-memory views of trips. The user should not be editing trips while being moved.
+     *
+     * @param username    the user to move.
+     * @param targetShard the shard to move the user to.
+     * @return the new id of every moved trip, keyed by its old id.
+     */
+    public Map<Long, Long> moveUser(String username, int targetShard) {
+        if (targetShard < 0 || targetShard >= shardRouter.getShardCount()) {
+            throw new IllegalArgumentException("No such shard: " + targetShard);
+        }
+        int sourceShard = shardRouter.shardOfUser(username);
+        if (sourceShard == targetShard) {
+            return Map.of();
+        }
+        User user = shardRouter.onShard(sourceShard, () -> userRepository.findUserByUsername(username));
+        if (user == null) {
+            throw new IllegalArgumentException("User not found: " + username);
+        }
+        List<TriPlan> trips = shardRouter.onShard(sourceShard, () -> triPlanRepository.findByUsername(username));
+        List<TriPlan> archivedTrips = shardRouter.onShard(sourceShard, () -> tripArchive.findByUser(username));
+        List<TriPlan> allTrips = new ArrayList<>(trips);
+        allTrips.addAll(archivedTrips);
+
+        User userCopy = new User();
+        userCopy.setUsername(user.getUsername());
+        userCopy.setPassword(user.getPassword());
+        userCopy.setEmail(user.getEmail());
+        User movedUser = shardRouter.onShard(targetShard, () -> {
+            User leftover = userRepository.findUserByUsername(username);
+            if (leftover == null) {
+                return userRepository.save(userCopy);
+            }
+            deleteLeftoverTrips(username);
+            return leftover;
+        });
+
+        Map<Long, Long> newIds = new LinkedHashMap<>();
+        List<TriPlan> movedTrips = new ArrayList<>();
+        for (TriPlan trip : allTrips) {
+            TriPlan tripCopy = new TriPlan();
+            tripCopy.setName(trip.getName());
+            tripCopy.setStartDate(trip.getStartDate());
+            tripCopy.setEndDate(trip.getEndDate());
+            tripCopy.setPublished(trip.isPublished());
+            tripCopy.setHotels(new HashMap<>(trip.getHotels()));
+            tripCopy.setActivities(new HashMap<>(trip.getActivities()));
+            tripCopy.setLatitude(trip.getLatitude());
+            tripCopy.setLongitude(trip.getLongitude());
+            tripCopy.setUser(movedUser);
+            List<TripRevision> revisions = shardRouter.onShard(sourceShard, () -> tripHistory.getRevisions(trip.getId()));
+            TriPlan moved = shardRouter.onShard(targetShard, () -> {
+                dayValueDictionary.register(tripCopy.getHotels().values());
+                dayValueDictionary.register(tripCopy.getActivities().values());
+                TriPlan saved = triPlanRepository.save(tripCopy);
+                tripHistory.copy(saved.getId(), revisions);
+                outboxEventRepository.save(new OutboxEvent(TripEventType.CREATED, saved.getId(), saved.isPublished()));
+                return saved;
+            });
+            newIds.put(trip.getId(), moved.getId());
+            movedTrips.add(moved);
+        }
+
+        shardDirectory.move(username, targetShard);
+        movedTrips.forEach(moved -> eventPublisher.publishEvent(
+                new TripChangedEvent(TripEventType.CREATED, moved.getId(), moved)));
+
+        shardRouter.runOnShard(sourceShard, () -> {
+            tripHistory.delete(newIds.keySet());
+            triPlanRepository.deleteAll(trips);
+            archivedTrips.forEach(trip -> tripArchive.delete(trip.getId(), username));
+            userRepository.delete(user);
+            outboxEventRepository.saveAll(allTrips.stream()
+                    .map(trip -> new OutboxEvent(TripEventType.DELETED, trip.getId(), trip.isPublished() && !trip.isArchived()))
+                    .toList());
+        });
+        allTrips.forEach(trip -> eventPublisher.publishEvent(new TripChangedEvent(TripEventType.DELETED, trip.getId(), null)));
+        eventPublisher.publishEvent(new UserChangedEvent(user.getId(), username, false));
+        return newIds;
+    }
+
+    /**
+     * Deletes the trip copies an earlier attempt to move a user left on the current shard. They were
+     * recorded in its outbox, so their deletion is too.
+     */
+    private void deleteLeftoverTrips(String username) {
+        List<TriPlan> leftovers = new ArrayList<>(triPlanRepository.findByUsername(username));
+        List<TriPlan> archivedLeftovers = tripArchive.findByUser(username);
+        leftovers.addAll(archivedLeftovers);
+        tripHistory.delete(leftovers.stream().map(TriPlan::getId).toList());
+        triPlanRepository.deleteAll(leftovers.stream().filter(trip -> !trip.isArchived()).toList());
+        archivedLeftovers.forEach(trip -> tripArchive.delete(trip.getId(), username));
+        outboxEventRepository.saveAll(leftovers.stream()
+                .map(trip -> new OutboxEvent(TripEventType.DELETED, trip.getId(), trip.isPublished() && !trip.isArchived()))
+                .toList());
+    }
+}
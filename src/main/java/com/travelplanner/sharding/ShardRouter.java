@@ -0,0 +1,196 @@
+package com.travelplanner.sharding;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Decides which shard an operation runs on, and runs operations on one or all shards.
+ * Without sharding there is a single shard 0 and every operation runs on the caller thread.
+ */
+@Component
+public class ShardRouter {
+
+    @Autowired(required = false)
+    private ShardDirectory directory;
+
+    @Autowired(required = false)
+    private ShardRoutingDataSource routingDataSource;
+
+    private static final int DEFAULT_CONNECTIONS_PER_SHARD = 10;
+
+    private volatile ExecutorService scatterExecutor;
+
+    /**
+     * Gets the number of shards.
+     *
+     * @return the number of shards, 1 without sharding.
+     */
+    public int getShardCount() {
+        return routingDataSource == null ? 1 : routingDataSource.getShardCount();
+    }
+
+    /**
+     * Finds the shard holding a user and their trips.
+     *
+     * @param username the username.
+     * @return the shard of the user.
+     */
+    public int shardOfUser(String username) {
+        return directory == null || username == null ? 0 : directory.shardOf(username);
+    }
+
+    /**
+     * Records the shard of a newly registered user.
+     *
+     * @param username the username.
+     * @return the shard the user is placed on.
+     */
+    public int assignShard(String username) {
+        return directory == null ? 0 : directory.assign(username);
+    }
+
+    /**
+     * Finds the shard of a trip or user from its id.
+     *
+     * @param id the id.
+     * @return the shard encoded in the id.
+     */
+    public int shardOfId(Long id) {
+        return directory == null || id == null ? 0 : ShardIds.shardOf(id);
+    }
+
+    /**
+     * Runs an action on one shard.
+     *
+     * @param shard  the shard.
+     * @param action the action.
+     * @param <T>    the result type.
+     * @return the result of the action.
+     */
+    public <T> T onShard(int shard, Supplier<T> action) {
+        return ShardContext.call(shard, action);
+    }
+
+    /**
+     * Runs an action on one shard.
+     *
+     * @param shard  the shard.
+     * @param action the action.
+     */
+    public void runOnShard(int shard, Runnable action) {
+        ShardContext.call(shard, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Runs an action on every shard in parallel and gathers the results. The last shard runs on
+     * the calling thread, and so does any other shard when every scatter thread is busy, so a
+     * scatter never waits in a queue and a scatter issued from a scatter task cannot deadlock.
+     *
+     * @param action the action.
+     * @param <T>    the result type.
+     * @return the results, indexed by shard.
+     */
+    public <T> List<T> onAllShards(Supplier<T> action) {
+        int shardCount = getShardCount();
+        if (shardCount == 1) {
+            return List.of(onShard(0, action));
+        }
+        List<CompletableFuture<T>> futures = new ArrayList<>();
+        for (int shard = 0; shard < shardCount - 1; shard++) {
+            int target = shard;
+            futures.add(CompletableFuture.supplyAsync(() -> onShard(target, action), scatterExecutor()));
+        }
+        T last = onShard(shardCount - 1, action);
+        List<T> results = new ArrayList<>();
+        for (CompletableFuture<T> future : futures) {
+            results.add(future.join());
+        }
+        results.add(last);
+        return results;
+    }
+
+    /**
+     * Merges lists that are each sorted in the given order into a single sorted list.
+     *
+     * @param lists the sorted lists, typically one per shard.
+     * @param order the order of the lists.
+     * @param limit the maximum number of elements to return.
+     * @param <T>   the element type.
+     * @return the first elements of the merged lists.
+     */
+    public static <T> List<T> mergeSorted(List<List<T>> lists, Comparator<? super T> order, int limit) {
+        if (lists.size() == 1) {
+            List<T> only = lists.get(0);
+            return only.size() <= limit ? only : only.subList(0, limit);
+        }
+        PriorityQueue<Head<T>> heads = new PriorityQueue<>((a, b) -> order.compare(a.value, b.value));
+        for (List<T> list : lists) {
+            Iterator<T> iterator = list.iterator();
+            if (iterator.hasNext()) {
+                heads.add(new Head<>(iterator.next(), iterator));
+            }
+        }
+        List<T> merged = new ArrayList<>();
+        while (!heads.isEmpty() && merged.size() < limit) {
+            Head<T> head = heads.poll();
+            merged.add(head.value);
+            if (head.rest.hasNext()) {
+                heads.add(new Head<>(head.rest.next(), head.rest));
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Gets the threads running the other shards of scatters: as many per shard as the shard has
+     * connections, since more could only wait for one. Tasks are handed to an idle thread or run by
+     * the caller, never queued.
+     */
+    private ExecutorService scatterExecutor() {
+        if (scatterExecutor == null) {
+            synchronized (this) {
+                if (scatterExecutor == null) {
+                    int connections = routingDataSource.getShard(0) instanceof HikariDataSource pool
+                            ? pool.getMaximumPoolSize() : DEFAULT_CONNECTIONS_PER_SHARD;
+                    scatterExecutor = new ThreadPoolExecutor(0, (getShardCount() - 1) * connections,
+                            60, TimeUnit.SECONDS, new SynchronousQueue<>(), runnable -> {
+                                Thread thread = new Thread(runnable, "shard-scatter");
+                                thread.setDaemon(true);
+                                return thread;
+                            }, new ThreadPoolExecutor.CallerRunsPolicy());
+                }
+            }
+        }
+        return scatterExecutor;
+    }
+
+    /**
+     * Stops the threads used for scatter-gather queries.
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (scatterExecutor != null) {
+            scatterExecutor.shutdown();
+        }
+    }
+
+    private record Head<T>(T value, Iterator<T> rest) {
+    }
+}
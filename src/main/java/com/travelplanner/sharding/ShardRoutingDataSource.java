@@ -0,0 +1,56 @@
+package com.travelplanner.sharding;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Data source that opens connections on the shard selected by {@link ShardContext},
+ * or on shard 0 when none is selected.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+    private final List<DataSource> shards;
+
+    /**
+     * Creates a routing data source over the given shards.
+     *
+     * @param shards the data sources of the shards, indexed by shard number.
+     */
+    public ShardRoutingDataSource(List<DataSource> shards) {
+        this.shards = List.copyOf(shards);
+        Map<Object, Object> targets = new HashMap<>();
+        for (int i = 0; i < shards.size(); i++) {
+            targets.put(i, shards.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(shards.get(0));
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ShardContext.current();
+    }
+
+    /**
+     * Gets the data source of a single shard.
+     *
+     * @param shard the shard.
+     * @return the data source of the shard.
+     */
+    public DataSource getShard(int shard) {
+        return shards.get(shard);
+    }
+
+    /**
+     * Gets the number of shards.
+     *
+     * @return the number of shards.
+     */
+    public int getShardCount() {
+        return shards.size();
+    }
+}
@@ -0,0 +1,95 @@
+package com.travelplanner.sharding;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.migration.JavaMigration;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuration class for partitioning trips and users across several databases.
+ * Sharding is off by default, in which case the single Spring Boot data source is used as before.
+ */
+@Configuration
+@EnableConfigurationProperties(ShardingProperties.class)
+public class ShardingConfig {
+
+    /**
+     * Creates one connection pool per shard, with the "spring.datasource.hikari" settings,
+     * migrates every shard and moves its identity columns to the shard's id range. The pools are
+     * initialized like beans, so the bean post processors size and instrument them as they do the
+     * single data source.
+     *
+     * @param properties     the configured shards.
+     * @param environment    the environment holding the pool settings.
+     * @param beanFactory    the factory applying the bean post processors to the pools.
+     * @param javaMigrations the migrations written in Java, applied along with the SQL ones.
+     * @return the data source routing to the shard of the current thread.
+     * @throws SQLException if a shard cannot be prepared.
+     */
+    @Bean
+    @Primary
+    @ConditionalOnProperty(prefix = "travelplanner.sharding", name = "enabled", havingValue = "true")
+    ShardRoutingDataSource dataSource(ShardingProperties properties, Environment environment,
+                                      AutowireCapableBeanFactory beanFactory,
+                                      ObjectProvider<JavaMigration> javaMigrations) throws SQLException {
+        List<ShardingProperties.Shard> shards = properties.getShards();
+        if (shards.isEmpty() || shards.size() > 1 << ShardIds.SHARD_BITS) {
+            throw new IllegalStateException("Sharding needs between 1 and " + (1 << ShardIds.SHARD_BITS) + " shards");
+        }
+
+        List<DataSource> dataSources = new ArrayList<>();
+        for (int i = 0; i < shards.size(); i++) {
+            HikariDataSource dataSource = new HikariDataSource();
+            Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(dataSource));
+            dataSource.setPoolName("shard-" + i);
+            dataSource.setJdbcUrl(shards.get(i).getUrl());
+            dataSource.setUsername(shards.get(i).getUsername());
+            dataSource.setPassword(shards.get(i).getPassword());
+            beanFactory.initializeBean(dataSource, "shard" + i + "DataSource");
+
+            Flyway.configure().dataSource(dataSource).baselineOnMigrate(true)
+                    .javaMigrations(javaMigrations.orderedStream().toArray(JavaMigration[]::new))
+                    .load().migrate();
+            startIdentityAt(dataSource, "user", "user_id", ShardIds.firstId(i));
+            startIdentityAt(dataSource, "tri_plan", "id", ShardIds.firstId(i));
+            dataSources.add(dataSource);
+        }
+        return new ShardRoutingDataSource(dataSources);
+    }
+
+    /**
+     * Moves an identity column to the start of the shard's id range, unless it is already past it.
+     */
+    private void startIdentityAt(DataSource dataSource, String table, String column, long firstId) throws SQLException {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        Long maxId = jdbcTemplate.queryForObject("select coalesce(max(" + column + "), 0) from " + table, Long.class);
+        if (maxId != null && maxId >= firstId) {
+            return;
+        }
+        String product;
+        try (Connection connection = dataSource.getConnection()) {
+            product = connection.getMetaData().getDatabaseProductName();
+        }
+        if ("H2".equals(product)) {
+            jdbcTemplate.execute("alter table " + table + " alter column " + column + " restart with " + firstId);
+        } else {
+            jdbcTemplate.execute("alter table " + table + " auto_increment = " + firstId);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.travelplanner.similarity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Locality-sensitive hashing index over MinHash signatures. A signature is cut into bands and
+ * every band is hashed into a bucket, so similar signatures share at least one bucket with high
+ * probability, and a query only scores the members of its own buckets.
+ * Buckets are immutable arrays replaced on write, which keeps the many small buckets compact.
+ * Writes are serialized; queries run concurrently without locking.
+ */
+public class LshIndex {
+
+    private final int bands;
+    private final int rows;
+    private final int maxCandidates;
+    private final Map<Long, int[]> signatures = new ConcurrentHashMap<>();
+    private final List<Map<Long, long[]>> buckets = new ArrayList<>();
+
+    /**
+     * Creates an empty index.
+     *
+     * @param bands         the number of bands.
+     * @param rows          the number of signature positions per band.
+     * @param maxCandidates the maximum number of bucket members scored per query.
+     */
+    public LshIndex(int bands, int rows, int maxCandidates) {
+        this.bands = bands;
+        this.rows = rows;
+        this.maxCandidates = maxCandidates;
+        for (int band = 0; band < bands; band++) {
+            buckets.add(new ConcurrentHashMap<>());
+        }
+    }
+
+    /**
+     * Adds an item or replaces its signature.
+     *
+     * @param id        the item.
+     * @param signature the signature, of length bands * rows.
+     */
+    public synchronized void put(long id, int[] signature) {
+        remove(id);
+        signatures.put(id, signature);
+        for (int band = 0; band < bands; band++) {
+            buckets.get(band).merge(bandKey(signature, band), new long[]{id}, LshIndex::append);
+        }
+    }
+
+    /**
+     * Adds an item unless it is already indexed.
+     *
+     * @param id        the item.
+     * @param signature the signature, of length bands * rows.
+     */
+    public synchronized void putIfAbsent(long id, int[] signature) {
+        if (!signatures.containsKey(id)) {
+            put(id, signature);
+        }
+    }
+
+    /**
+     * Removes an item.
+     *
+     * @param id the item.
+     */
+    public synchronized void remove(long id) {
+        int[] signature = signatures.remove(id);
+        if (signature == null) {
+            return;
+        }
+        for (int band = 0; band < bands; band++) {
+            buckets.get(band).computeIfPresent(bandKey(signature, band), (key, bucket) -> without(bucket, id));
+        }
+    }
+
+    /**
+     * Finds the indexed items most similar to a signature.
+     *
+     * @param signature the signature to compare to.
+     * @param k         the maximum number of items to return.
+     * @param exclude   the items not to return.
+     * @return the ids of the most similar items, most similar first.
+     */
+    public List<Long> topK(int[] signature, int k, Set<Long> exclude) {
+        Set<Long> candidates = new HashSet<>();
+        for (int band = 0; band < bands && candidates.size() < maxCandidates; band++) {
+            long[] bucket = buckets.get(band).get(bandKey(signature, band));
+            if (bucket != null) {
+                for (long id : bucket) {
+                    candidates.add(id);
+                }
+            }
+        }
+        candidates.removeAll(exclude);
+
+        PriorityQueue<Scored> best = new PriorityQueue<>(Comparator.comparingDouble(Scored::score));
+        for (Long candidate : candidates) {
+            int[] other = signatures.get(candidate);
+            if (other == null) {
+                continue;
+            }
+            best.add(new Scored(candidate, MinHasher.similarity(signature, other)));
+            if (best.size() > k) {
+                best.poll();
+            }
+        }
+        List<Long> result = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            result.add(best.poll().id);
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    /**
+     * Gets the signature of an indexed item.
+     *
+     * @param id the item.
+     * @return the signature, or null if the item is not indexed.
+     */
+    public int[] getSignature(long id) {
+        return signatures.get(id);
+    }
+
+    /**
+     * Gets the number of indexed items.
+     *
+     * @return the number of items.
+     */
+    public int size() {
+        return signatures.size();
+    }
+
+    private long bandKey(int[] signature, int band) {
+        long hash = band;
+        for (int i = band * rows; i < (band + 1) * rows; i++) {
+            hash = hash * 0x9E3779B97F4A7C15L + signature[i];
+        }
+        return hash;
+    }
+
+    private static long[] append(long[] bucket, long[] ids) {
+        long[] appended = Arrays.copyOf(bucket, bucket.length + 1);
+        appended[bucket.length] = ids[0];
+        return appended;
+    }
+
+    /**
+     * Returns the bucket without the id, or null to drop the bucket when it becomes empty.
+     */
+    private static long[] without(long[] bucket, long id) {
+        for (int i = 0; i < bucket.length; i++) {
+            if (bucket[i] == id) {
+                if (bucket.length == 1) {
+                    return null;
+                }
+                long[] remaining = new long[bucket.length - 1];
+                System.arraycopy(bucket, 0, remaining, 0, i);
+                System.arraycopy(bucket, i + 1, remaining, i, remaining.length - i);
+                return remaining;
+            }
+        }
+        return bucket;
+    }
+
+    private record Scored(long id, double score) {
+    }
+}
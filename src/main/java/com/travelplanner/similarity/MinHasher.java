@@ -0,0 +1,85 @@
+package com.travelplanner.similarity;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.SplittableRandom;
+
+/**
+ * Computes MinHash signatures of token sets. The fraction of positions in which two signatures
+ * agree estimates the Jaccard similarity of the two sets.
+ */
+public class MinHasher {
+
+    private final long[] seeds;
+
+    /**
+     * Creates a hasher.
+     *
+     * @param numHashes the length of the signatures.
+     * @param seed      the seed of the hash functions; signatures are only comparable for the same seed.
+     */
+    public MinHasher(int numHashes, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        this.seeds = new long[numHashes];
+        for (int i = 0; i < numHashes; i++) {
+            seeds[i] = random.nextLong();
+        }
+    }
+
+    /**
+     * Computes the signature of a set of tokens.
+     *
+     * @param tokens the tokens.
+     * @return the signature, or null if there are no tokens.
+     */
+    public int[] signature(Collection<String> tokens) {
+        if (tokens.isEmpty()) {
+            return null;
+        }
+        int[] signature = new int[seeds.length];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        for (String token : tokens) {
+            long base = fnv1a(token);
+            for (int i = 0; i < seeds.length; i++) {
+                int value = (int) (mix(base ^ seeds[i]) >>> 33);
+                if (value < signature[i]) {
+                    signature[i] = value;
+                }
+            }
+        }
+        return signature;
+    }
+
+    /**
+     * Estimates the Jaccard similarity of the sets two signatures were computed from.
+     *
+     * @param a the first signature.
+     * @param b the second signature.
+     * @return the estimated similarity, between 0 and 1.
+     */
+    public static double similarity(int[] a, int[] b) {
+        int equal = 0;
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] == b[i]) {
+                equal++;
+            }
+        }
+        return (double) equal / a.length;
+    }
+
+    private static long fnv1a(String token) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : token.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,156 @@
+package com.travelplanner.similarity;
+
+import com.travelplanner.model.TriPlan;
+import com.travelplanner.service.PublishedTripLoader;
+import com.travelplanner.service.TriPlanService;
+import com.travelplanner.service.TripChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Suggests published trips similar to a given trip, by the hotels and activities they share.
+ * Published trips are kept in an in-memory MinHash/LSH index, which is loaded at startup and then
+ * updated on every committed trip change, so a query never touches the database except to load
+ * the suggested trips.
+ */
+@Service
+public class SimilarTripService {
+
+    private static final Logger log = LoggerFactory.getLogger(SimilarTripService.class);
+
+    // 40 bands of 3 rows: trips sharing about a third of their features meet in some bucket.
+    private static final int BANDS = 40;
+    private static final int ROWS = 3;
+
+    private final MinHasher minHasher = new MinHasher(BANDS * ROWS, 0x5EEDL);
+    private final LshIndex index;
+    private final PublishedTripLoader loader = new PublishedTripLoader("similarity index", this);
+
+    @Autowired
+    private TriPlanService triPlanService;
+
+    /**
+     * Creates the service.
+     *
+     * @param maxCandidates the maximum number of candidate trips scored per query.
+     */
+    public SimilarTripService(@Value("${travelplanner.similarity.max-candidates:2000}") int maxCandidates) {
+        this.index = new LshIndex(BANDS, ROWS, maxCandidates);
+    }
+
+    /**
+     * Loads all published trips into the index in the background.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadPublishedTrips() {
+        loader.start(triPlanService, triPlan -> {
+            int[] signature = minHasher.signature(features(triPlan));
+            if (signature != null) {
+                putLoaded(triPlan.getId(), signature);
+            }
+        }, () -> log.info("Loaded {} published trips into the similarity index", index.size()));
+    }
+
+    /**
+     * Updates the index after a trip change is committed.
+     *
+     * @param event the trip change.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTripChanged(TripChangedEvent event) {
+        TriPlan triPlan = event.triPlan();
+        int[] signature = triPlan != null && triPlan.isPublished() ? minHasher.signature(features(triPlan)) : null;
+        synchronized (this) {
+            loader.recordChange(event.tripId());
+            if (signature == null) {
+                index.remove(event.tripId());
+            } else {
+                index.put(event.tripId(), signature);
+            }
+        }
+    }
+
+    /**
+     * Adds a loaded trip, unless it was changed since the load started.
+     */
+    private synchronized void putLoaded(Long tripId, int[] signature) {
+        if (!loader.isChangedSinceStart(tripId)) {
+            index.putIfAbsent(tripId, signature);
+        }
+    }
+
+    /**
+     * Finds the published trips most similar to a trip, leaving out the trip itself and the trips of a user.
+     *
+     * @param triPlan the trip to compare to.
+     * @param excludedUsername the user whose trips should not be suggested.
+     * @param limit the maximum number of trips to return.
+     * @return the similar trips, most similar first.
+     */
+    public List<TriPlan> findSimilarTrips(TriPlan triPlan, String excludedUsername, int limit) {
+        int[] signature = index.getSignature(triPlan.getId());
+        if (signature == null) {
+            signature = minHasher.signature(features(triPlan));
+        }
+        if (signature == null) {
+            return List.of();
+        }
+        // Ask for a few more than needed, as some may belong to the excluded user.
+        List<TriPlan> similar = new ArrayList<>(limit);
+        for (Long id : index.topK(signature, limit * 2, Set.of(triPlan.getId()))) {
+            TriPlan candidate = triPlanService.getTriPlanById(id);
+            if (candidate != null && candidate.isPublished() && !candidate.getUsername().equals(excludedUsername)) {
+                similar.add(candidate);
+                if (similar.size() == limit) {
+                    break;
+                }
+            }
+        }
+        return similar;
+    }
+
+    /**
+     * Gets the features a trip is compared by: its destination, hotels, activities and the words of its activities.
+     *
+     * @param triPlan the trip.
+     * @return the feature tokens.
+     */
+    static Set<String> features(TriPlan triPlan) {
+        Set<String> features = new HashSet<>();
+        for (String hotel : triPlan.getHotels().values()) {
+            addFeature(features, "h:", hotel);
+        }
+        for (String activity : triPlan.getActivities().values()) {
+            addFeature(features, "a:", activity);
+            if (activity != null) {
+                for (String word : activity.split("[^\\p{L}\\p{N}]+")) {
+                    if (word.length() > 2) {
+                        addFeature(features, "w:", word);
+                    }
+                }
+            }
+        }
+        if (!features.isEmpty()) {
+            addFeature(features, "d:", triPlan.getName());
+        }
+        return features;
+    }
+
+    private static void addFeature(Set<String> features, String prefix, String value) {
+        if (value != null && !value.isBlank()) {
+            features.add(prefix + value.trim().toLowerCase(Locale.ROOT));
+        }
+    }
+}
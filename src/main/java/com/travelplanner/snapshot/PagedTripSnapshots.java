@@ -0,0 +1,45 @@
+package com.travelplanner.snapshot;
+
+import com.travelplanner.model.TriPlan;
+import com.travelplanner.service.PagedTriPlans;
+
+import java.util.Iterator;
+
+/**
+ * The snapshots of trip plans read one page at a time, made while they are iterated.
+ */
+public class PagedTripSnapshots implements Iterable<TripSnapshot> {
+
+    private final PagedTriPlans triPlans;
+    private final TripSnapshots snapshots;
+
+    PagedTripSnapshots(PagedTriPlans triPlans, TripSnapshots snapshots) {
+        this.triPlans = triPlans;
+        this.snapshots = snapshots;
+    }
+
+    /**
+     * Tells whether there are no trip plans.
+     *
+     * @return true if there are no trip plans.
+     */
+    public boolean isEmpty() {
+        return triPlans.isEmpty();
+    }
+
+    @Override
+    public Iterator<TripSnapshot> iterator() {
+        Iterator<TriPlan> iterator = triPlans.iterator();
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public TripSnapshot next() {
+                return snapshots.of(iterator.next());
+            }
+        };
+    }
+}
@@ -0,0 +1,208 @@
+package com.travelplanner.snapshot;
+
+import com.travelplanner.model.TriPlan;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * An immutable copy of one version of a trip plan, made for rendering it. The hotel and activity
+ * of every day are held in arrays indexed by the offset of the day from the start date, and the
+ * days that have either are marked in a bit set, so walking the days of a trip needs no date
+ * arithmetic beyond one addition and no map lookup. Being immutable, a snapshot can be shared by
+ * any number of threads and kept in caches.
+ */
+public final class TripSnapshot {
+
+    /**
+     * One day of a trip.
+     *
+     * @param date     the date of the day.
+     * @param hotel    the hotel of the day, or null.
+     * @param activity the activity of the day, or null.
+     */
+    public record Day(LocalDate date, String hotel, String activity) {
+    }
+
+    private final Long id;
+    private final Long version;
+    private final String name;
+    private final String username;
+    private final boolean published;
+    private final LocalDate startDate;
+    private final LocalDate endDate;
+    private final Long tripLength;
+    private final String[] hotels;
+    private final String[] activities;
+    private final BitSet detailed;
+
+    private TripSnapshot(TriPlan triPlan) {
+        this.id = triPlan.getId();
+        this.version = triPlan.getVersion();
+        this.name = triPlan.getName();
+        this.username = triPlan.getUsername();
+        this.published = triPlan.isPublished();
+        this.startDate = triPlan.getStartDate();
+        this.endDate = triPlan.getEndDate();
+        this.tripLength = triPlan.getTripLength();
+        int days = tripLength != null ? (int) Math.max(0, tripLength) : 0;
+        this.hotels = new String[days];
+        this.activities = new String[days];
+        this.detailed = new BitSet(days);
+        copyDays(triPlan.getHotels(), hotels);
+        copyDays(triPlan.getActivities(), activities);
+    }
+
+    /**
+     * Makes a snapshot of the current state of a trip plan.
+     *
+     * @param triPlan the trip plan.
+     * @return the snapshot.
+     */
+    public static TripSnapshot of(TriPlan triPlan) {
+        return new TripSnapshot(triPlan);
+    }
+
+    private void copyDays(Map<LocalDate, String> values, String[] days) {
+        for (Map.Entry<LocalDate, String> entry : values.entrySet()) {
+            int offset = offsetOf(entry.getKey());
+            if (offset >= 0 && entry.getValue() != null && !entry.getValue().isBlank()) {
+                days[offset] = entry.getValue();
+                detailed.set(offset);
+            }
+        }
+    }
+
+    /**
+     * Gets the offset of a date from the start date.
+     *
+     * @return the offset, or -1 if the date is not a day of the trip.
+     */
+    private int offsetOf(LocalDate date) {
+        if (date == null || startDate == null) {
+            return -1;
+        }
+        long offset = ChronoUnit.DAYS.between(startDate, date);
+        return offset >= 0 && offset < hotels.length ? (int) offset : -1;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public boolean isPublished() {
+        return published;
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    /**
+     * Gets the length of the trip in days.
+     *
+     * @return the length of the trip in days, or null if a date is missing.
+     */
+    public Long getTripLength() {
+        return tripLength;
+    }
+
+    /**
+     * Gets the hotel of a day.
+     *
+     * @param date the date of the day.
+     * @return the hotel, or null if the day has none or is not part of the trip.
+     */
+    public String getHotel(LocalDate date) {
+        int offset = offsetOf(date);
+        return offset >= 0 ? hotels[offset] : null;
+    }
+
+    /**
+     * Gets the activity of a day.
+     *
+     * @param date the date of the day.
+     * @return the activity, or null if the day has none or is not part of the trip.
+     */
+    public String getActivity(LocalDate date) {
+        int offset = offsetOf(date);
+        return offset >= 0 ? activities[offset] : null;
+    }
+
+    /**
+     * Tells whether any day of the trip has a hotel or an activity.
+     *
+     * @return true if a day has details.
+     */
+    public boolean hasDetails() {
+        return !detailed.isEmpty();
+    }
+
+    /**
+     * Gets every day of the trip, from the start date to the end date.
+     *
+     * @return the days, made while they are iterated.
+     */
+    public Iterable<Day> getDays() {
+        return () -> new DayIterator(false);
+    }
+
+    /**
+     * Gets the days of the trip that have a hotel or an activity, in date order.
+     *
+     * @return the days with details, made while they are iterated.
+     */
+    public Iterable<Day> getDetailedDays() {
+        return () -> new DayIterator(true);
+    }
+
+    /**
+     * Walks the days of the trip, or only those marked in the bit set. Each iterator has its own
+     * position, so the snapshot itself never changes.
+     */
+    private final class DayIterator implements Iterator<Day> {
+
+        private final boolean detailedOnly;
+        private int next;
+
+        private DayIterator(boolean detailedOnly) {
+            this.detailedOnly = detailedOnly;
+            this.next = detailedOnly ? detailed.nextSetBit(0) : 0;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next >= 0 && next < hotels.length;
+        }
+
+        @Override
+        public Day next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int offset = next;
+            next = detailedOnly ? detailed.nextSetBit(offset + 1) : offset + 1;
+            return new Day(startDate.plusDays(offset), hotels[offset], activities[offset]);
+        }
+    }
+}
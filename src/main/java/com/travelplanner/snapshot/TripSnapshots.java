@@ -0,0 +1,117 @@
+package com.travelplanner.snapshot;
+
+import com.travelplanner.model.TriPlan;
+import com.travelplanner.service.PagedTriPlans;
+import com.travelplanner.service.TripChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the snapshot of the current version of recently rendered trips, so a snapshot is made
+ * once per trip version rather than on every page view. A cached snapshot is only used for a trip
+ * read with the same version, so a trip changed by another instance simply gets a new snapshot the
+ * next time it is read. Snapshots of changed and deleted trips are dropped once the change is committed.
+ */
+@Service
+public class TripSnapshots {
+
+    private final Map<Long, TripSnapshot> snapshots = new ConcurrentHashMap<>();
+    private final int maxEntries;
+    private final Counter hits;
+    private final Counter misses;
+
+    /**
+     * Creates the cache.
+     *
+     * @param maxEntries    the number of trips kept; beyond it, an arbitrary part of the cache is dropped.
+     * @param meterRegistry the registry for the cache metrics.
+     */
+    public TripSnapshots(@Value("${travelplanner.snapshot.max-entries:10000}") int maxEntries,
+                         MeterRegistry meterRegistry) {
+        this.maxEntries = maxEntries;
+        this.hits = meterRegistry.counter("travelplanner.snapshot.requests", "result", "hit");
+        this.misses = meterRegistry.counter("travelplanner.snapshot.requests", "result", "miss");
+        meterRegistry.gauge("travelplanner.snapshot.size", snapshots, Map::size);
+    }
+
+    /**
+     * Gets the snapshot of a trip plan.
+     *
+     * @param triPlan the trip plan, as just read.
+     * @return the snapshot of its version.
+     */
+    public TripSnapshot of(TriPlan triPlan) {
+        Long id = triPlan.getId();
+        if (id == null || triPlan.getVersion() == null) {
+            return TripSnapshot.of(triPlan);
+        }
+        TripSnapshot snapshot = snapshots.get(id);
+        if (snapshot != null && Objects.equals(snapshot.getVersion(), triPlan.getVersion())) {
+            hits.increment();
+            return snapshot;
+        }
+        misses.increment();
+        snapshot = TripSnapshot.of(triPlan);
+        snapshots.put(id, snapshot);
+        if (snapshots.size() > maxEntries) {
+            evict();
+        }
+        return snapshot;
+    }
+
+    /**
+     * Gets the snapshots of trip plans.
+     *
+     * @param triPlans the trip plans, as just read.
+     * @return their snapshots, in the same order.
+     */
+    public List<TripSnapshot> of(List<TriPlan> triPlans) {
+        List<TripSnapshot> result = new ArrayList<>(triPlans.size());
+        for (TriPlan triPlan : triPlans) {
+            result.add(of(triPlan));
+        }
+        return result;
+    }
+
+    /**
+     * Gets the snapshots of trip plans read one page at a time.
+     *
+     * @param triPlans the trip plans.
+     * @return their snapshots, made while they are iterated.
+     */
+    public PagedTripSnapshots of(PagedTriPlans triPlans) {
+        return new PagedTripSnapshots(triPlans, this);
+    }
+
+    /**
+     * Drops the snapshot of a trip once a change to it is committed.
+     *
+     * @param event the trip change.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTripChanged(TripChangedEvent event) {
+        snapshots.remove(event.tripId());
+    }
+
+    /**
+     * Drops an eighth of the cache, in no particular order.
+     */
+    private void evict() {
+        int toRemove = Math.max(1, maxEntries / 8);
+        Iterator<Long> ids = snapshots.keySet().iterator();
+        while (toRemove-- > 0 && ids.hasNext()) {
+            ids.next();
+            ids.remove();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+create table destination_stats (
+    destination varchar(255) not null,
+    published_trips bigint not null,
+    total_days bigint not null,
+    saves bigint not null,
+    primary key (destination)
+);
+
+create table destination_value (
+    id bigint not null auto_increment,
+    destination varchar(255) not null,
+    kind varchar(16) not null,
+    name varchar(255) not null,
+    trips bigint not null,
+    primary key (id),
+    constraint ux_destination_value_destination_kind_name unique (destination, kind, name)
+);
+
+create table destination_trip (
+    trip_id bigint not null,
+    destination varchar(255) not null,
+    payload mediumblob not null,
+    primary key (trip_id)
+);
+
+create table analytics_cursor (
+    id integer not null,
+    last_event_id bigint not null,
+    primary key (id)
+);
@@ -0,0 +1,19 @@
+create table account_job (
+    id bigint not null auto_increment,
+    type varchar(16) not null,
+    status varchar(16) not null,
+    username varchar(255) not null,
+    phase varchar(16) not null,
+    last_trip_id bigint not null,
+    processed integer not null,
+    file_name varchar(255),
+    file_offset bigint not null,
+    attempt integer not null,
+    created_at datetime(6),
+    updated_at datetime(6),
+    error varchar(1000),
+    primary key (id)
+);
+
+create index ix_account_job_status on account_job (status);
+create index ix_account_job_username on account_job (username);
@@ -0,0 +1,6 @@
+-- Users registered before sharding live on shard 0 but were never recorded in the directory, so
+-- they would be looked up on the shard their name hashes to. Only the directory of shard 0 is read:
+-- the rows this adds on the other shards are never used.
+insert into user_shard (username, shard)
+select u.username, 0 from user u
+where not exists (select 1 from user_shard s where s.username = u.username);
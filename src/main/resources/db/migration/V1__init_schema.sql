@@ -0,0 +1,64 @@
+create table user (
+    user_id bigint not null auto_increment,
+    email varchar(255),
+    password varchar(255),
+    username varchar(255),
+    primary key (user_id)
+);
+
+create unique index ux_user_username on user (username);
+
+create table tri_plan (
+    id bigint not null auto_increment,
+    end_date date,
+    name varchar(255),
+    published bit not null,
+    start_date date,
+    username varchar(255),
+    version bigint,
+    user_user_id bigint,
+    primary key (id),
+    constraint fk_tri_plan_user foreign key (user_user_id) references user (user_id)
+);
+
+create index ix_tri_plan_username on tri_plan (username);
+create index ix_tri_plan_published on tri_plan (published);
+
+create table tri_plan_hotels (
+    tri_plan_id bigint not null,
+    hotels varchar(255),
+    hotels_key date not null,
+    primary key (tri_plan_id, hotels_key),
+    constraint fk_tri_plan_hotels_tri_plan foreign key (tri_plan_id) references tri_plan (id)
+);
+
+create table tri_plan_activities (
+    tri_plan_id bigint not null,
+    activities varchar(255),
+    activities_key date not null,
+    primary key (tri_plan_id, activities_key),
+    constraint fk_tri_plan_activities_tri_plan foreign key (tri_plan_id) references tri_plan (id)
+);
+
+create table SPRING_SESSION (
+    PRIMARY_ID char(36) not null,
+    SESSION_ID char(36) not null,
+    CREATION_TIME bigint not null,
+    LAST_ACCESS_TIME bigint not null,
+    MAX_INACTIVE_INTERVAL int not null,
+    EXPIRY_TIME bigint not null,
+    PRINCIPAL_NAME varchar(100),
+    constraint SPRING_SESSION_PK primary key (PRIMARY_ID)
+);
+
+create unique index SPRING_SESSION_IX1 on SPRING_SESSION (SESSION_ID);
+create index SPRING_SESSION_IX2 on SPRING_SESSION (EXPIRY_TIME);
+create index SPRING_SESSION_IX3 on SPRING_SESSION (PRINCIPAL_NAME);
+
+create table SPRING_SESSION_ATTRIBUTES (
+    SESSION_PRIMARY_ID char(36) not null,
+    ATTRIBUTE_NAME varchar(200) not null,
+    ATTRIBUTE_BYTES blob not null,
+    constraint SPRING_SESSION_ATTRIBUTES_PK primary key (SESSION_PRIMARY_ID, ATTRIBUTE_NAME),
+    constraint SPRING_SESSION_ATTRIBUTES_FK foreign key (SESSION_PRIMARY_ID) references SPRING_SESSION (PRIMARY_ID) on delete cascade
+);
@@ -0,0 +1,5 @@
+create table user_shard (
+    username varchar(255) not null,
+    shard int not null,
+    primary key (username)
+);
@@ -0,0 +1,11 @@
+create table outbox_event (
+    id bigint not null auto_increment,
+    type varchar(32),
+    trip_id bigint,
+    source_trip_id bigint,
+    feed_visible bit not null,
+    created_at datetime(6),
+    primary key (id)
+);
+
+create index ix_outbox_event_created_at on outbox_event (created_at);
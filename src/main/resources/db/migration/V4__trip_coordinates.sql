@@ -0,0 +1,2 @@
+alter table tri_plan add column latitude double;
+alter table tri_plan add column longitude double;
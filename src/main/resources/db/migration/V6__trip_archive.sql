@@ -0,0 +1,16 @@
+create index ix_tri_plan_end_date on tri_plan (end_date);
+
+create table archived_trip (
+    id bigint not null,
+    username varchar(255),
+    user_id bigint,
+    published bit not null,
+    start_date date,
+    end_date date,
+    version bigint,
+    archived_at datetime(6),
+    payload mediumblob not null,
+    primary key (id)
+) row_format = compressed;
+
+create index ix_archived_trip_username on archived_trip (username);
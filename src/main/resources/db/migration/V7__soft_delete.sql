@@ -0,0 +1,5 @@
+alter table tri_plan add column deleted_at datetime(6);
+alter table user add column deleted_at datetime(6);
+
+create index ix_tri_plan_deleted_at on tri_plan (deleted_at);
+create index ix_user_deleted_at on user (deleted_at);
@@ -0,0 +1,11 @@
+create table cluster_invalidation (
+    id bigint not null auto_increment,
+    entity_type varchar(16),
+    entity_id bigint not null,
+    entity_version bigint not null,
+    origin varchar(36),
+    created_at datetime(6),
+    primary key (id)
+);
+
+create index ix_cluster_invalidation_created_at on cluster_invalidation (created_at);
@@ -0,0 +1,13 @@
+create table trip_revision (
+    id bigint not null auto_increment,
+    trip_id bigint not null,
+    revision integer not null,
+    snapshot bit not null,
+    change_count integer not null,
+    source_trip_id bigint,
+    source_revision integer,
+    created_at datetime(6),
+    payload mediumblob not null,
+    primary key (id),
+    constraint ux_trip_revision_trip_id_revision unique (trip_id, revision)
+) row_format = compressed;
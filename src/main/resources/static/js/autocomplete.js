@@ -0,0 +1,57 @@
+// Suggests values for fields marked with data-autocomplete="DESTINATION|HOTEL|ACTIVITY" while typing.
+(function () {
+    function attach(input) {
+        const list = document.createElement("div");
+        list.className = "list-group position-absolute w-100 shadow-sm";
+        list.style.zIndex = "1000";
+        input.parentNode.style.position = "relative";
+        input.parentNode.appendChild(list);
+        input.setAttribute("autocomplete", "off");
+
+        let timer = null;
+        let latest = 0;
+
+        function clear() {
+            list.innerHTML = "";
+        }
+
+        function show(completions) {
+            clear();
+            completions.forEach(function (completion) {
+                const item = document.createElement("button");
+                item.type = "button";
+                item.className = "list-group-item list-group-item-action py-1";
+                item.textContent = completion;
+                item.addEventListener("mousedown", function (event) {
+                    event.preventDefault();
+                    input.value = completion;
+                    clear();
+                });
+                list.appendChild(item);
+            });
+        }
+
+        input.addEventListener("input", function () {
+            clearTimeout(timer);
+            const prefix = input.value;
+            if (!prefix.trim()) {
+                clear();
+                return;
+            }
+            timer = setTimeout(function () {
+                const request = ++latest;
+                fetch("/trip/autocomplete?field=" + input.dataset.autocomplete + "&prefix=" + encodeURIComponent(prefix))
+                    .then(function (response) { return response.ok ? response.json() : []; })
+                    .then(function (completions) {
+                        // Ignore answers that arrive after a newer request was sent.
+                        if (request === latest) {
+                            show(completions);
+                        }
+                    });
+            }, 100);
+        });
+        input.addEventListener("blur", clear);
+    }
+
+    document.querySelectorAll("[data-autocomplete]").forEach(attach);
+})();
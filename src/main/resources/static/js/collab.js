@@ -0,0 +1,93 @@
+// Edits the days of a trip together with other editors: every change is sent as an operation, and the
+// batches applied by the server are shown, except on fields with newer local changes it has not applied yet.
+(function () {
+    const editor = document.getElementById("tripEditor");
+    if (!editor || !window.WebSocket) {
+        return;
+    }
+    const status = document.getElementById("editorStatus");
+    const url = (location.protocol === "https:" ? "wss://" : "ws://") + location.host + "/user/collab/" + editor.dataset.tripId;
+    const fields = {};
+    const pending = {};
+    let socket;
+    let editorId = null;
+    let seq = 0;
+
+    function key(date, field) {
+        return date + "|" + field;
+    }
+
+    editor.querySelectorAll("[data-field]").forEach(function (input) {
+        fields[key(input.dataset.date, input.dataset.field)] = input;
+    });
+
+    function show(values, complete) {
+        const shown = {};
+        values.forEach(function (value) {
+            shown[key(value.date, value.field)] = value.value;
+        });
+        Object.keys(complete ? fields : shown).forEach(function (k) {
+            if (fields[k] && !(k in pending)) {
+                fields[k].value = shown[k] !== undefined ? shown[k] : "";
+            }
+        });
+    }
+
+    function receive(message) {
+        if (message.type === "state") {
+            if (message.editor) {
+                editorId = message.editor;
+                status.textContent = "Connected with " + (message.editors - 1) + " other editor(s)";
+            }
+            show(message.values, true);
+        } else if (message.type === "ops") {
+            const ack = message.acks[editorId];
+            if (ack !== undefined) {
+                Object.keys(pending).forEach(function (k) {
+                    if (pending[k] <= ack) {
+                        delete pending[k];
+                    }
+                });
+            }
+            show(message.values, false);
+        }
+    }
+
+    function setEnabled(enabled) {
+        Object.values(fields).forEach(function (input) {
+            input.disabled = !enabled;
+        });
+    }
+
+    function connect() {
+        socket = new WebSocket(url);
+        socket.onopen = function () {
+            setEnabled(true);
+        };
+        socket.onmessage = function (event) {
+            receive(JSON.parse(event.data));
+        };
+        socket.onclose = function () {
+            editorId = null;
+            Object.keys(pending).forEach(function (k) {
+                delete pending[k];
+            });
+            setEnabled(false);
+            status.textContent = "Disconnected, reconnecting...";
+            setTimeout(connect, 2000);
+        };
+    }
+
+    editor.addEventListener("input", function (event) {
+        const input = event.target;
+        if (!input.dataset.field || socket.readyState !== WebSocket.OPEN) {
+            return;
+        }
+        seq++;
+        pending[key(input.dataset.date, input.dataset.field)] = seq;
+        socket.send(JSON.stringify({date: input.dataset.date, field: input.dataset.field, value: input.value, seq: seq}));
+    });
+
+    setEnabled(false);
+    connect();
+})();
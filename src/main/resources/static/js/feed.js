@@ -0,0 +1,26 @@
+// Keeps the trips feed current: removed trips disappear and other changes show a refresh banner.
+(function () {
+    if (!window.EventSource) {
+        return;
+    }
+    const source = new EventSource("/trip/feed/stream");
+    const banner = document.getElementById("feedUpdates");
+
+    function showBanner() {
+        banner.classList.remove("d-none");
+    }
+
+    function removeTrip(event) {
+        const card = document.getElementById("trip" + JSON.parse(event.data).tripId);
+        if (card) {
+            card.remove();
+        }
+    }
+
+    source.addEventListener("UNPUBLISHED", removeTrip);
+    source.addEventListener("DELETED", removeTrip);
+    source.addEventListener("PUBLISHED", showBanner);
+    source.addEventListener("DAYS_EDITED", showBanner);
+    source.addEventListener("UPDATED", showBanner);
+    source.addEventListener("CREATED", showBanner);
+})();
@@ -0,0 +1,49 @@
+package com.travelplanner;
+
+import com.travelplanner.model.TriPlan;
+import com.travelplanner.model.User;
+import com.travelplanner.service.TriPlanService;
+import com.travelplanner.service.UserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestComponent;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+
+/**
+ * Creates the users and trips the tests start from.
+ */
+@TestComponent
+public class TestFixtures {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private TriPlanService triPlanService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public User createUser(String username) throws Exception {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("password");
+        user.setEmail(username + "@example.com");
+        userService.save(user);
+        return userService.findByUsername(username);
+    }
+
+    public TriPlan createTrip(User user, String name, LocalDate start, int days) {
+        TriPlan trip = new TriPlan();
+        trip.setName(name);
+        trip.setStartDate(start);
+        trip.setEndDate(start.plusDays(days - 1));
+        trip.setUser(user);
+        return triPlanService.save(trip);
+    }
+
+    public long count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Long.class);
+    }
+}
@@ -0,0 +1,35 @@
+package com.travelplanner;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Runs a test against the application on an in-memory database, with the test fixtures available.
+ * Every test using it shares one application context and one database, so tests create their
+ * own users and must not rely on being the only ones writing.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:travelplanner;MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.jpa.show-sql=false",
+        "travelplanner.history.snapshot-every=4",
+        "travelplanner.purge.batch-size=2",
+        "travelplanner.purge.batch-pause=0ms",
+        "travelplanner.account.chunk-size=2",
+        "travelplanner.account.duty-cycle=1",
+        "travelplanner.account.poll-interval-ms=3600000",
+        "travelplanner.account.export-dir=${java.io.tmpdir}/travelplanner-account-tests",
+        "travelplanner.analytics.poll-interval-ms=3600000",
+        "travelplanner.analytics.refresh-interval-ms=3600000"
+})
+@Import(TestFixtures.class)
+public @interface TravelPlannerTest {
+}
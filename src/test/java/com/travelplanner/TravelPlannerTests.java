@@ -1,9 +1,8 @@
 package com.travelplanner;
 
 import org.junit.jupiter.api.Test;
-import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@TravelPlannerTest
 class TravelPlannerTests {
 
     @Test
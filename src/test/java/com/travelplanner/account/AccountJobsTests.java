@@ -0,0 +1,124 @@
+package com.travelplanner.account;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.travelplanner.TestFixtures;
+import com.travelplanner.TravelPlannerTest;
+import com.travelplanner.archive.TripArchive;
+import com.travelplanner.model.AccountJob;
+import com.travelplanner.model.TriPlan;
+import com.travelplanner.model.User;
+import com.travelplanner.service.TriPlanService;
+import com.travelplanner.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@TravelPlannerTest
+class AccountJobsTests {
+
+    private static final LocalDate START = LocalDate.of(2030, 6, 1);
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private TriPlanService triPlanService;
+
+    @Autowired
+    private TripArchive tripArchive;
+
+    @Autowired
+    private AccountJobs accountJobs;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void deletesTripsInChunksAndResumesAfterACrash() throws Exception {
+        User user = fixtures.createUser("leaving");
+        List<TriPlan> trips = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            trips.add(fixtures.createTrip(user, "Trip " + i, START, 3));
+        }
+        TriPlan old = fixtures.createTrip(user, "Old trip", LocalDate.of(2001, 1, 1), 3);
+        tripArchive.archiveTripsEndedBefore(LocalDate.of(2002, 1, 1));
+        assertEquals(6, triPlanService.findTripsByUser("leaving").size());
+
+        userService.deleteUser(user.getId());
+        assertNull(userService.findByUsername("leaving"));
+
+        // A runner deleted the first chunk, then its instance went down
+        triPlanService.deleteTripsOfUser("leaving", 0, 2);
+        jdbcTemplate.update("update account_job set status = 'RUNNING', attempt = 1, last_trip_id = ?, processed = 2,"
+                + " updated_at = ? where username = 'leaving'", trips.get(1).getId(), Timestamp.from(Instant.now()));
+        assertEquals(0, accountJobs.runPendingJobs());
+
+        jdbcTemplate.update("update account_job set updated_at = ? where username = 'leaving'",
+                Timestamp.from(Instant.now().minusSeconds(3600)));
+        assertEquals(1, accountJobs.runPendingJobs());
+
+        assertEquals(0, fixtures.count("select count(*) from tri_plan where username = 'leaving' and deleted_at is null"));
+        assertEquals(0, fixtures.count("select count(*) from archived_trip where username = 'leaving'"));
+        assertNull(triPlanService.getTriPlanById(old.getId()));
+        assertEquals(List.of("DONE"), jdbcTemplate.queryForList(
+                "select status from account_job where username = 'leaving'", String.class));
+        assertEquals(6, fixtures.count("select processed from account_job where username = 'leaving'"));
+        assertEquals(2, fixtures.count("select attempt from account_job where username = 'leaving'"));
+    }
+
+    @Test
+    void exportsTripsAsJsonLinesAndOverwritesWhatTheCheckpointDidNotRecord() throws Exception {
+        User user = fixtures.createUser("exporter");
+        TriPlan first = fixtures.createTrip(user, "Lisbon", START, 3);
+        triPlanService.saveDayDetails(first.getId(), START, "Hotel Central", "Museum");
+        fixtures.createTrip(user, "Porto", START, 3);
+        fixtures.createTrip(user, "Faro", START, 3);
+
+        AccountJob job = accountJobs.requestExport("exporter");
+        assertEquals(job.getId(), accountJobs.requestExport("exporter").getId());
+        assertNull(accountJobs.getExportFile("exporter", job.getId()));
+        assertEquals(1, accountJobs.runPendingJobs());
+
+        Path file = accountJobs.getExportFile("exporter", job.getId());
+        assertNotNull(file);
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(4, lines.size());
+        assertEquals("exporter@example.com", objectMapper.readTree(lines.get(0)).get("email").asText());
+        JsonNode trip = objectMapper.readTree(lines.get(1));
+        assertEquals("Lisbon", trip.get("name").asText());
+        assertEquals("Hotel Central", trip.get("days").get(0).get("hotel").asText());
+        String exported = Files.readString(file);
+
+        // A runner wrote part of the second chunk after its last checkpoint, then its instance went down
+        long checkpoint = (lines.get(0) + "\n" + lines.get(1) + "\n").getBytes(StandardCharsets.UTF_8).length;
+        Files.writeString(file, "{\"id\":", StandardOpenOption.APPEND);
+        jdbcTemplate.update("update account_job set status = 'RUNNING', phase = 'ACTIVE_TRIPS', last_trip_id = ?,"
+                        + " processed = 1, file_offset = ?, updated_at = ? where id = ?",
+                first.getId(), checkpoint, Timestamp.from(Instant.now().minusSeconds(3600)), job.getId());
+        assertEquals(1, accountJobs.runPendingJobs());
+
+        assertEquals(exported, Files.readString(file));
+        assertEquals(3, fixtures.count("select processed from account_job where id = " + job.getId()));
+    }
+}
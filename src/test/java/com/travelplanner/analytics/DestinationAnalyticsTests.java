@@ -0,0 +1,90 @@
+package com.travelplanner.analytics;
+
+import com.travelplanner.TestFixtures;
+import com.travelplanner.TravelPlannerTest;
+import com.travelplanner.model.TriPlan;
+import com.travelplanner.model.User;
+import com.travelplanner.service.TriPlanService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@TravelPlannerTest
+class DestinationAnalyticsTests {
+
+    private static final LocalDate START = LocalDate.of(2030, 6, 1);
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private TriPlanService triPlanService;
+
+    @Autowired
+    private DestinationAnalytics destinationAnalytics;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void appliesTripChangesToTheStatisticsOfTheirDestination() throws Exception {
+        User author = fixtures.createUser("lisbon-author");
+        TriPlan shortTrip = fixtures.createTrip(author, "Lisbon", START, 3);
+        triPlanService.saveDayDetails(shortTrip.getId(), START, "Hotel Central", "Museum");
+        triPlanService.publishTrip(shortTrip.getId());
+        TriPlan longTrip = fixtures.createTrip(author, "lisboa", START, 5);
+        triPlanService.saveDayDetails(longTrip.getId(), START, "hotel central", "Surfing");
+        triPlanService.saveDayDetails(longTrip.getId(), START.plusDays(1), "Hotel Central", "Museum");
+        triPlanService.publishTrip(longTrip.getId());
+        fixtures.createTrip(author, "Lisbon", START, 2);
+        triPlanService.saveTrip(triPlanService.getTriPlanById(shortTrip.getId()), fixtures.createUser("lisbon-reader"));
+
+        destinationAnalytics.poll();
+
+        DestinationStats stats = destinationAnalytics.getStats("Lisbon");
+        assertEquals(2, stats.publishedTrips());
+        assertEquals(4.0, stats.getAverageTripLength());
+        assertEquals(1, stats.saves());
+        assertEquals(2, stats.topHotels().get(0).trips());
+        assertEquals(List.of(new ValueCount("Museum", 2), new ValueCount("Surfing", 1)), stats.topActivities());
+
+        triPlanService.unpublishTrip(longTrip.getId());
+        triPlanService.deleteTriPlan(shortTrip.getId());
+        destinationAnalytics.poll();
+
+        stats = destinationAnalytics.getStats("Lisbon");
+        assertEquals(0, stats.publishedTrips());
+        assertEquals(1, stats.saves());
+        assertTrue(stats.topHotels().isEmpty());
+        assertNull(destinationAnalytics.getStats("Nowhere"));
+    }
+
+    @Test
+    void verifiesAndCorrectsTheStatisticsAgainstTheTrips() throws Exception {
+        User author = fixtures.createUser("porto-author");
+        TriPlan trip = fixtures.createTrip(author, "Porto", START, 2);
+        triPlanService.saveDayDetails(trip.getId(), START, "Ribeira Inn", "Port tasting");
+        triPlanService.publishTrip(trip.getId());
+        destinationAnalytics.poll();
+        assertEquals(0, destinationAnalytics.verify());
+
+        jdbcTemplate.update("update destination_stats set published_trips = 7 where destination = 'Porto'");
+        jdbcTemplate.update("delete from destination_value where destination = 'Porto' and kind = 'ACTIVITY'");
+        jdbcTemplate.update("delete from destination_trip where trip_id = ?", trip.getId());
+
+        assertTrue(destinationAnalytics.verify() > 0);
+
+        DestinationStats stats = destinationAnalytics.getStats("Porto");
+        assertEquals(1, stats.publishedTrips());
+        assertEquals(2, stats.totalDays());
+        assertEquals(List.of(new ValueCount("Port tasting", 1)), stats.topActivities());
+        assertEquals(0, destinationAnalytics.verify());
+    }
+}
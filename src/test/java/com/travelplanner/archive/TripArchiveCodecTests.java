@@ -0,0 +1,48 @@
+package com.travelplanner.archive;
+
+import com.travelplanner.model.ArchivedTrip;
+import com.travelplanner.model.TriPlan;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TripArchiveCodecTests {
+
+    private final TripArchiveCodec codec = new TripArchiveCodec();
+
+    @Test
+    void restoresTheTripFromItsArchivedCopy() {
+        TriPlan triPlan = new TriPlan();
+        triPlan.setId(42L);
+        triPlan.setVersion(3L);
+        triPlan.setName("Zürich");
+        triPlan.setUsername("alice");
+        triPlan.setPublished(true);
+        triPlan.setStartDate(LocalDate.of(2022, 5, 1));
+        triPlan.setEndDate(LocalDate.of(2022, 5, 3));
+        triPlan.setLatitude(47.3769);
+        triPlan.setHotel(LocalDate.of(2022, 5, 1), "Hotel Adler");
+        triPlan.setHotel(LocalDate.of(2022, 5, 2), null);
+        triPlan.setActivity(LocalDate.of(2022, 5, 2), "Lake cruise");
+
+        ArchivedTrip archivedTrip = codec.encode(triPlan);
+        TriPlan restored = codec.decode(archivedTrip);
+
+        assertTrue(restored.isArchived());
+        assertEquals(42L, restored.getId());
+        assertEquals(3L, restored.getVersion());
+        assertEquals("Zürich", restored.getName());
+        assertEquals("alice", restored.getUsername());
+        assertTrue(restored.isPublished());
+        assertEquals(triPlan.getStartDate(), restored.getStartDate());
+        assertEquals(triPlan.getEndDate(), restored.getEndDate());
+        assertEquals(47.3769, restored.getLatitude());
+        assertNull(restored.getLongitude());
+        assertEquals(triPlan.getHotels(), restored.getHotels());
+        assertEquals(triPlan.getActivities(), restored.getActivities());
+    }
+}
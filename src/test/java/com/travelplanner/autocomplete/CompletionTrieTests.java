@@ -0,0 +1,32 @@
+package com.travelplanner.autocomplete;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CompletionTrieTests {
+
+    @Test
+    void completesByFrequencyIgnoringCaseAndAccents() {
+        CompletionTrie trie = new CompletionTrie(5);
+        trie.add("Hilton Paris", 3);
+        trie.add("Hilton Rome", 1);
+        trie.add("Hotel Lutetia", 2);
+        trie.add("hilton paris", 1);
+        trie.add("Hôtel du Louvre", 5);
+
+        assertEquals(List.of("Hôtel du Louvre", "Hilton Paris", "Hotel Lutetia", "Hilton Rome"), trie.complete("h", 5));
+        assertEquals(List.of("Hôtel du Louvre", "Hotel Lutetia"), trie.complete("HOTE", 5));
+        assertEquals(List.of("Hilton Paris"), trie.complete("hilton p", 5));
+        assertEquals(List.of(), trie.complete("hiltonx", 5));
+        assertEquals(4, trie.size());
+
+        trie.add("Hilton Paris", -4);
+        trie.add("Hotel du Louvre", -5);
+        trie.add("Unknown", -1);
+        assertEquals(List.of("Hotel Lutetia", "Hilton Rome"), trie.complete("h", 5));
+        assertEquals(2, trie.size());
+    }
+}
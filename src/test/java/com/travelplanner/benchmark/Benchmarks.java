@@ -0,0 +1,137 @@
+package com.travelplanner.benchmark;
+
+import com.travelplanner.TravelPlanner;
+import com.travelplanner.model.User;
+import com.travelplanner.service.UserService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Shared plumbing of the benchmarks: the application they start, the data they create and the
+ * logger their figures go to, so the figures show up in the build output with the test results.
+ */
+final class Benchmarks {
+
+    static final Logger log = LoggerFactory.getLogger(Benchmarks.class);
+
+    private Benchmarks() {
+    }
+
+    /**
+     * Starts the application on a random port against an in-memory H2 database in MySQL mode.
+     * The settings are passed as command line arguments, as default properties would lose to
+     * application.properties.
+     *
+     * @param database   the name of the database, distinct per benchmark.
+     * @param profile    the profile to run, or null for the default one.
+     * @param properties more properties, overriding the defaults.
+     * @return the running application.
+     */
+    static ConfigurableApplicationContext start(String database, String profile, String... properties) {
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(TravelPlanner.class);
+        if (profile != null) {
+            builder.profiles(profile);
+        }
+        Stream<String> settings = Stream.concat(Stream.of(
+                "server.port=0",
+                "spring.jpa.show-sql=false",
+                "spring.datasource.url=jdbc:h2:mem:" + database + ";MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1",
+                "spring.datasource.driver-class-name=org.h2.Driver",
+                "spring.datasource.username=sa"), Arrays.stream(properties));
+        return builder.run(arguments(settings));
+    }
+
+    /**
+     * Turns settings into command line arguments.
+     *
+     * @param settings the settings, as name=value.
+     * @return the arguments.
+     */
+    static String[] arguments(Stream<String> settings) {
+        return settings.map(setting -> "--" + setting).toArray(String[]::new);
+    }
+
+    /**
+     * Registers a user.
+     *
+     * @param userService the service registering users.
+     * @param username    the username.
+     * @return the saved user.
+     * @throws Exception if the user cannot be registered.
+     */
+    static User createUser(UserService userService, String username) throws Exception {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("benchmark");
+        user.setEmail(username + "@example.com");
+        userService.save(user);
+        return userService.findByUsername(username);
+    }
+
+    /**
+     * Times single calls of an operation, after calling it enough times for the JIT to compile it.
+     *
+     * @param warmups   the number of calls before timing.
+     * @param samples   the number of timed calls.
+     * @param operation the operation, given the number of the call.
+     * @return the duration of each timed call, in nanoseconds.
+     */
+    static long[] time(int warmups, int samples, IntConsumer operation) {
+        for (int i = 0; i < warmups; i++) {
+            operation.accept(i);
+        }
+        long[] latencies = new long[samples];
+        for (int i = 0; i < samples; i++) {
+            long start = System.nanoTime();
+            operation.accept(i);
+            latencies[i] = System.nanoTime() - start;
+        }
+        return latencies;
+    }
+
+    /**
+     * Measures the heap taken by what a task builds.
+     *
+     * @param task the task, keeping what it builds reachable from its result.
+     * @param <T>  the type of the result.
+     * @return the result of the task and the growth of the used heap, in bytes.
+     */
+    static <T> Measured<T> measureHeap(Supplier<T> task) {
+        System.gc();
+        long before = Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
+        T result = task.get();
+        System.gc();
+        long after = Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
+        return new Measured<>(result, after - before);
+    }
+
+    /**
+     * Something built by a task, with the heap it took.
+     *
+     * @param result    the result of the task.
+     * @param heapBytes the growth of the used heap, in bytes.
+     * @param <T>       the type of the result.
+     */
+    record Measured<T>(T result, long heapBytes) {
+    }
+
+    /**
+     * Gets a percentile of some samples.
+     *
+     * @param samples the samples, in any order.
+     * @param percent the percentile, from 1 to 100.
+     * @return the smallest sample that the given percentage of the samples does not exceed.
+     */
+    static long percentile(long[] samples, int percent) {
+        long[] sorted = samples.clone();
+        Arrays.sort(sorted);
+        return sorted[Math.max(0, (int) Math.ceil(sorted.length * percent / 100.0) - 1)];
+    }
+}
@@ -0,0 +1,157 @@
+package com.travelplanner.benchmark;
+
+import com.travelplanner.model.TriPlan;
+import com.travelplanner.model.User;
+import com.travelplanner.service.TriPlanService;
+import com.travelplanner.service.UserService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Measures the latency of the public feed over HTTP, first alone and then while many clients
+ * register and log in, which saturates the authentication bulkhead with BCrypt hashing. The
+ * container gets few threads, so without bulkheads the logins would take all of them.
+ */
+@Benchmark
+class BulkheadLoadTests {
+
+    private static final int TRIPS = 50;
+    private static final int FEED_CLIENTS = 4;
+    private static final int FEED_REQUESTS = 100;
+    private static final int AUTH_CLIENTS = 48;
+    private static final Pattern CSRF = Pattern.compile("name=\"_csrf\" value=\"([^\"]+)\"");
+
+    @Test
+    void feedLatencyStaysStableWhileAuthenticationIsSaturated() throws Exception {
+        try (ConfigurableApplicationContext context = Benchmarks.start("bulkhead", null,
+                "server.tomcat.threads.max=24",
+                "travelplanner.rate-limit.enabled=false",
+                "travelplanner.bulkhead.feed.threads=8",
+                "travelplanner.bulkhead.auth.threads=2",
+                "travelplanner.bulkhead.auth.queue-capacity=4")) {
+            String base = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            createTrips(context);
+
+            measureFeed(base);
+            long baseline = measureFeed(base);
+
+            AtomicBoolean flooding = new AtomicBoolean(true);
+            AtomicInteger rejected = new AtomicInteger();
+            ExecutorService flood = Executors.newFixedThreadPool(AUTH_CLIENTS);
+            List<Future<?>> flooders = new ArrayList<>();
+            for (int i = 0; i < AUTH_CLIENTS; i++) {
+                int client = i;
+                flooders.add(flood.submit(() -> authenticate(base, client, flooding, rejected)));
+            }
+            Thread.sleep(1000);
+            long loaded = measureFeed(base);
+            flooding.set(false);
+            for (Future<?> flooder : flooders) {
+                flooder.get();
+            }
+            flood.shutdown();
+
+            double authRejected = context.getBean(MeterRegistry.class)
+                    .counter("travelplanner.bulkhead.rejected", "group", "auth").count();
+            Benchmarks.log.info("feed p99: alone {} ms, auth saturated {} ms; {} auth requests rejected",
+                    baseline, loaded, rejected.get());
+            assertTrue(authRejected > 0, "the authentication bulkhead should have been saturated");
+            assertTrue(loaded <= Math.max(3 * baseline, baseline + 100),
+                    "feed p99 went from " + baseline + " ms to " + loaded + " ms");
+        }
+    }
+
+    private void createTrips(ConfigurableApplicationContext context) throws Exception {
+        TriPlanService triPlanService = context.getBean(TriPlanService.class);
+        User user = Benchmarks.createUser(context.getBean(UserService.class), "bulkhead");
+        LocalDate start = LocalDate.of(2030, 1, 1);
+        for (int i = 0; i < TRIPS; i++) {
+            TriPlan trip = new TriPlan();
+            trip.setName("Destination " + i);
+            trip.setStartDate(start);
+            trip.setEndDate(start.plusDays(4));
+            trip.setPublished(true);
+            trip.setUser(user);
+            triPlanService.save(trip);
+        }
+    }
+
+    /**
+     * Reads the feed from several clients and gives the 99th percentile of the latencies.
+     */
+    private long measureFeed(String base) throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        ExecutorService readers = Executors.newFixedThreadPool(FEED_CLIENTS);
+        List<Future<?>> results = new ArrayList<>();
+        for (int i = 0; i < FEED_CLIENTS; i++) {
+            results.add(readers.submit(() -> {
+                for (int n = 0; n < FEED_REQUESTS; n++) {
+                    long begin = System.nanoTime();
+                    HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(base + "/trip/list"))
+                            .timeout(Duration.ofSeconds(30)).build(), HttpResponse.BodyHandlers.ofString());
+                    latencies.add((System.nanoTime() - begin) / 1_000_000);
+                    assertEquals(200, response.statusCode());
+                }
+                return null;
+            }));
+        }
+        for (Future<?> result : results) {
+            result.get();
+        }
+        readers.shutdown();
+        return Benchmarks.percentile(latencies.stream().mapToLong(Long::longValue).toArray(), 99);
+    }
+
+    /**
+     * Registers new users and logs in with a wrong password in turn, until the flood is stopped.
+     */
+    private void authenticate(String base, int client, AtomicBoolean flooding, AtomicInteger rejected) {
+        HttpClient http = HttpClient.newBuilder().cookieHandler(new CookieManager()).build();
+        try {
+            String page = http.send(HttpRequest.newBuilder(URI.create(base + "/register")).build(),
+                    HttpResponse.BodyHandlers.ofString()).body();
+            Matcher matcher = CSRF.matcher(page);
+            assertTrue(matcher.find(), "the registration form should carry a CSRF token");
+            String token = URLEncoder.encode(matcher.group(1), StandardCharsets.UTF_8);
+            for (int n = 0; flooding.get(); n++) {
+                String username = "c" + client + "n" + n;
+                String form = n % 2 == 0
+                        ? "username=" + username + "&password=password&email=" + username + "@x.io&_csrf=" + token
+                        : "username=bulkhead&password=wrong-password&_csrf=" + token;
+                HttpResponse<Void> response = http.send(HttpRequest.newBuilder(URI.create(base + (n % 2 == 0 ? "/register" : "/login")))
+                        .header("Content-Type", "application/x-www-form-urlencoded")
+                        .POST(HttpRequest.BodyPublishers.ofString(form)).build(), HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() == 503) {
+                    rejected.incrementAndGet();
+                }
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.travelplanner.benchmark;
+
+import com.travelplanner.autocomplete.CompletionTrie;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.Collection;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Measures the heap taken by the autocomplete trie of a large synthetic vocabulary of hotel names,
+ * and checks with {@link CompletionTrieBenchmark} that completing a prefix stays under a millisecond.
+ */
+@Benchmark
+class CompletionLatencyTests {
+
+    @Test
+    void takesLittleHeap() {
+        Benchmarks.Measured<CompletionTrie> built = Benchmarks.measureHeap(
+                () -> CompletionTrieBenchmark.buildTrie(200_000, new Random(42)));
+        Benchmarks.log.info("{} terms take about {} MB of heap", built.result().size(), built.heapBytes() >> 20);
+    }
+
+    @Test
+    void completesWithinAMillisecond() throws Exception {
+        // The benchmark runs in this JVM, as surefire's class path does not reach a forked one.
+        Options options = new OptionsBuilder()
+                .include(CompletionTrieBenchmark.class.getName())
+                .forks(0)
+                .warmupIterations(3)
+                .warmupTime(TimeValue.seconds(1))
+                .measurementIterations(5)
+                .measurementTime(TimeValue.seconds(1))
+                .build();
+        Collection<RunResult> results = new Runner(options).run();
+
+        assertEquals(1, results.size());
+        double p99 = results.iterator().next().getPrimaryResult().getStatistics().getPercentile(99);
+        Benchmarks.log.info(String.format("complete p99: %.1f us", p99));
+        assertTrue(p99 < 1000, "p99 completion latency should stay under a millisecond, was " + p99 + " us");
+    }
+}
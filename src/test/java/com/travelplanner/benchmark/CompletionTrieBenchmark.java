@@ -0,0 +1,76 @@
+package com.travelplanner.benchmark;
+
+import com.travelplanner.autocomplete.CompletionTrie;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of prefix completion over a synthetic vocabulary of hotel names.
+ * Run through {@link CompletionLatencyTests}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CompletionTrieBenchmark {
+
+    private static final String[] BRANDS = {"Hilton", "Marriott", "Hotel", "Hostel", "Ibis", "Novotel", "Radisson",
+            "Holiday Inn", "Best Western", "Grand", "Park", "Royal", "Residence", "Villa", "Casa", "Palace"};
+    private static final String[] PLACES = {"Paris", "Rome", "London", "Berlin", "Madrid", "Lisbon", "Vienna", "Prague",
+            "Tokyo", "Kyoto", "New York", "Sydney", "Bangkok", "Istanbul", "Dubai", "Cairo"};
+    private static final String LETTERS = "abcdefghijklmnopqrstuvwxyz";
+
+    @Param({"200000"})
+    public int terms;
+
+    private CompletionTrie trie;
+    private String[] prefixes;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void build() {
+        trie = buildTrie(terms, new Random(42));
+        Random random = new Random(7);
+        prefixes = new String[4096];
+        for (int i = 0; i < prefixes.length; i++) {
+            String word = random.nextBoolean() ? BRANDS[random.nextInt(BRANDS.length)] : PLACES[random.nextInt(PLACES.length)];
+            prefixes[i] = word.substring(0, 1 + random.nextInt(word.length()));
+        }
+    }
+
+    @org.openjdk.jmh.annotations.Benchmark
+    public List<String> complete() {
+        next = (next + 1) & (prefixes.length - 1);
+        return trie.complete(prefixes[next], 8);
+    }
+
+    /**
+     * Builds a trie of synthetic hotel names, with a skewed frequency per name.
+     *
+     * @param terms the number of distinct names.
+     * @param random the source of the names.
+     * @return the trie.
+     */
+    static CompletionTrie buildTrie(int terms, Random random) {
+        CompletionTrie trie = new CompletionTrie(8);
+        while (trie.size() < terms) {
+            StringBuilder name = new StringBuilder()
+                    .append(BRANDS[random.nextInt(BRANDS.length)]).append(' ')
+                    .append(PLACES[random.nextInt(PLACES.length)]).append(' ');
+            for (int i = 0; i < 6; i++) {
+                name.append(LETTERS.charAt(random.nextInt(LETTERS.length())));
+            }
+            trie.add(name.toString(), 1 + (int) Math.abs(random.nextGaussian() * 20));
+        }
+        return trie;
+    }
+}
@@ -0,0 +1,122 @@
+package com.travelplanner.benchmark;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Smoke tests for the native image. They start the native binary given by the "native.binary"
+ * system property against a local database, check that the main pages render, and compare its
+ * startup time and resident memory with the JVM jar given by "jvm.jar", if any.
+ * The database defaults to a local MySQL schema and can be changed with "smoke.datasource.url".
+ * They run on their own, given the binary, rather than with the other benchmarks.
+ */
+@EnabledIfSystemProperty(named = "native.binary", matches = ".+")
+class NativeSmokeTests {
+
+    private static final HttpClient CLIENT = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(2))
+            .build();
+
+    @Test
+    void nativeImageServesPages() throws Exception {
+        Measurement nativeRun = measure(List.of(System.getProperty("native.binary")), true);
+        Benchmarks.log.info("native: started in {} ms, RSS {} MB", nativeRun.startupMs, nativeRun.rssKb / 1024);
+
+        String jar = System.getProperty("jvm.jar");
+        if (jar != null && !jar.isBlank()) {
+            Measurement jvmRun = measure(List.of(Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                    "-jar", jar), false);
+            Benchmarks.log.info("jvm:    started in {} ms, RSS {} MB", jvmRun.startupMs, jvmRun.rssKb / 1024);
+            assertTrue(nativeRun.startupMs < jvmRun.startupMs, "Native image should start faster than the JVM build");
+        }
+    }
+
+    /**
+     * Starts the application, waits for the home page, checks the other public pages,
+     * reads the resident memory and stops it again.
+     */
+    private Measurement measure(List<String> launcher, boolean checkPages) throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        List<String> command = new ArrayList<>(launcher);
+        command.add("--server.port=" + port);
+        command.add("--spring.profiles.active=prod");
+        command.add("--spring.datasource.url=" + System.getProperty("smoke.datasource.url",
+                "jdbc:mysql://localhost:3306/ex5_smoke?createDatabaseIfNotExist=true"));
+        command.add("--spring.datasource.username=" + System.getProperty("smoke.datasource.username", "root"));
+        command.add("--spring.datasource.password=" + System.getProperty("smoke.datasource.password", ""));
+
+        long begin = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+        try {
+            String base = "http://localhost:" + port;
+            waitUntilUp(base + "/", process);
+            long startupMs = (System.nanoTime() - begin) / 1_000_000;
+
+            if (checkPages) {
+                for (String page : List.of("/", "/login", "/register", "/trip/list")) {
+                    assertEquals(200, get(base + page), page);
+                }
+            }
+            return new Measurement(startupMs, residentMemoryKb(process.pid()));
+        } finally {
+            process.destroy();
+            process.waitFor();
+        }
+    }
+
+    private void waitUntilUp(String url, Process process) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(60).toNanos();
+        while (System.nanoTime() < deadline) {
+            assertTrue(process.isAlive(), "Application exited during startup");
+            try {
+                if (get(url) == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // Not listening yet
+            }
+            Thread.sleep(20);
+        }
+        throw new AssertionError("Application did not start within 60 seconds");
+    }
+
+    private int get(String url) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(5)).build();
+        return CLIENT.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private long residentMemoryKb(long pid) throws IOException {
+        Path status = Path.of("/proc", String.valueOf(pid), "status");
+        if (!Files.exists(status)) {
+            return -1;
+        }
+        for (String line : Files.readAllLines(status)) {
+            if (line.startsWith("VmRSS:")) {
+                return Long.parseLong(line.replaceAll("\\D", ""));
+            }
+        }
+        return -1;
+    }
+
+    private record Measurement(long startupMs, long rssKb) {
+    }
+}
@@ -0,0 +1,88 @@
+package com.travelplanner.benchmark;
+
+import com.travelplanner.model.TriPlan;
+import com.travelplanner.model.User;
+import com.travelplanner.service.TriPlanService;
+import com.travelplanner.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares the throughput of the feed and day-edit paths between the default settings and the
+ * tuned prod profile, using an in-memory H2 database in MySQL mode as a stand-in for MySQL.
+ * Connector/J statement caching does not apply to H2, so the difference shown is the one of
+ * the Hibernate batching settings, which should not make either path slower.
+ */
+@Benchmark
+class PersistenceThroughputTests {
+
+    private static final int TRIPS = 200;
+    private static final int DAYS = 7;
+    private static final int FEED_READS = 50;
+    private static final int DAY_EDITS = 500;
+
+    @Test
+    void compareDefaultAndTunedSettings() throws Exception {
+        Result baseline = run("default");
+        Result tuned = run("prod");
+        Benchmarks.log.info(String.format("feed reads/s: default %.1f, tuned %.1f", baseline.feedPerSecond, tuned.feedPerSecond));
+        Benchmarks.log.info(String.format("day edits/s:  default %.1f, tuned %.1f", baseline.editsPerSecond, tuned.editsPerSecond));
+        // Some slack, as a single run on a shared machine is noisy
+        assertTrue(tuned.feedPerSecond >= 0.8 * baseline.feedPerSecond, "the tuned settings slowed the feed down");
+        assertTrue(tuned.editsPerSecond >= 0.8 * baseline.editsPerSecond, "the tuned settings slowed day edits down");
+    }
+
+    private Result run(String profile) throws Exception {
+        try (ConfigurableApplicationContext context = Benchmarks.start("throughput-" + profile, profile)) {
+            TriPlanService triPlanService = context.getBean(TriPlanService.class);
+            User user = Benchmarks.createUser(context.getBean(UserService.class), "bench");
+
+            LocalDate start = LocalDate.of(2030, 1, 1);
+            for (int i = 0; i < TRIPS; i++) {
+                TriPlan trip = new TriPlan();
+                trip.setName("Destination " + i);
+                trip.setStartDate(start);
+                trip.setEndDate(start.plusDays(DAYS - 1));
+                trip.setPublished(true);
+                trip.setUser(user);
+                for (int day = 0; day < DAYS; day++) {
+                    trip.setHotel(start.plusDays(day), "Hotel " + day);
+                    trip.setActivity(start.plusDays(day), "Activity " + day);
+                }
+                triPlanService.save(trip);
+            }
+
+            long begin = System.nanoTime();
+            for (int i = 0; i < FEED_READS; i++) {
+                assertEquals(TRIPS, triPlanService.getAllPublishedTriPlans().size());
+            }
+            double feedPerSecond = FEED_READS / seconds(begin);
+
+            List<TriPlan> trips = triPlanService.findTripsByUser("bench");
+            begin = System.nanoTime();
+            for (int i = 0; i < DAY_EDITS; i++) {
+                TriPlan trip = triPlanService.getTriPlanById(trips.get(i % trips.size()).getId());
+                LocalDate date = start.plusDays(i % DAYS);
+                trip.setHotel(date, "Hotel edit " + i);
+                trip.setActivity(date, "Activity edit " + i);
+                triPlanService.save(trip);
+            }
+            double editsPerSecond = DAY_EDITS / seconds(begin);
+
+            return new Result(feedPerSecond, editsPerSecond);
+        }
+    }
+
+    private double seconds(long beginNanos) {
+        return (System.nanoTime() - beginNanos) / 1e9;
+    }
+
+    private record Result(double feedPerSecond, double editsPerSecond) {
+    }
+}
@@ -0,0 +1,51 @@
+package com.travelplanner.benchmark;
+
+import com.travelplanner.similarity.LshIndex;
+import com.travelplanner.similarity.MinHasher;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Indexes a large synthetic set of trips in the similarity index and checks that finding the
+ * most similar ones stays under a millisecond.
+ */
+@Benchmark
+class SimilarityLatencyTests {
+
+    @Test
+    void queriesWithinAMillisecond() {
+        int trips = 100_000;
+        Random random = new Random(7);
+        MinHasher minHasher = new MinHasher(120, 1);
+        LshIndex index = new LshIndex(40, 3, 2000);
+        List<int[]> signatures = new ArrayList<>();
+        long buildStart = System.nanoTime();
+        for (int i = 0; i < trips; i++) {
+            Set<String> features = new HashSet<>();
+            for (int j = 0; j < 12; j++) {
+                // Skewed vocabulary: some places are far more popular than others.
+                features.add("a:" + (int) Math.abs(random.nextGaussian() * 3000));
+            }
+            int[] signature = minHasher.signature(features);
+            index.put(i, signature);
+            if (i % 500 == 0) {
+                signatures.add(signature);
+            }
+        }
+        long buildMillis = (System.nanoTime() - buildStart) / 1_000_000;
+
+        long[] latencies = Benchmarks.time(100 * signatures.size(), 5 * signatures.size(),
+                i -> index.topK(signatures.get(i % signatures.size()), 5, Set.of()));
+        long p50 = Benchmarks.percentile(latencies, 50) / 1000;
+        long p99 = Benchmarks.percentile(latencies, 99) / 1000;
+        Benchmarks.log.info("{} trips indexed in {} ms, top-5 query p50 {} us, p99 {} us", trips, buildMillis, p50, p99);
+        assertTrue(p99 < 1000, "p99 query latency should stay under a millisecond, was " + p99 + " us");
+    }
+}
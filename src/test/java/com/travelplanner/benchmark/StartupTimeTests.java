@@ -0,0 +1,36 @@
+package com.travelplanner.benchmark;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Boots the application with the prod profile against an in-memory database several times
+ * and checks the median startup time against the "startup.budget.ms" system property.
+ */
+@Benchmark
+class StartupTimeTests {
+
+    private static final int RUNS = 5;
+
+    @Test
+    void startsWithinBudget() {
+        long budgetMs = Long.getLong("startup.budget.ms", 8000);
+        long[] samples = new long[RUNS];
+
+        // The first run applies the migrations and warms up the JVM, so it is not measured
+        Benchmarks.start("startup", "prod").close();
+        for (int i = 0; i < RUNS; i++) {
+            long begin = System.nanoTime();
+            ConfigurableApplicationContext context = Benchmarks.start("startup", "prod");
+            samples[i] = (System.nanoTime() - begin) / 1_000_000;
+            context.close();
+        }
+
+        long median = Benchmarks.percentile(samples, 50);
+        Benchmarks.log.info("Startup time: median {} ms, min {} ms, max {} ms", median,
+                Benchmarks.percentile(samples, 1), Benchmarks.percentile(samples, 100));
+        assertTrue(median <= budgetMs, "Median startup time " + median + " ms exceeds budget of " + budgetMs + " ms");
+    }
+}
@@ -0,0 +1,119 @@
+package com.travelplanner.cluster;
+
+import com.travelplanner.TravelPlanner;
+import com.travelplanner.autocomplete.AutocompleteField;
+import com.travelplanner.autocomplete.AutocompleteService;
+import com.travelplanner.model.TriPlan;
+import com.travelplanner.model.User;
+import com.travelplanner.service.TriPlanService;
+import com.travelplanner.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs several instances of the application on localhost, sharing one in-memory database,
+ * and checks that a change made on one instance reaches the in-memory state of the others.
+ */
+class InvalidationBusTests {
+
+    private static final long CONVERGENCE_TIMEOUT_MS = 10_000;
+
+    @Test
+    void instancesConvergeThroughTheChangeTable() throws Exception {
+        checkConvergence("jdbc", 3);
+    }
+
+    @Test
+    void instancesConvergeThroughTheLoopbackTransport() throws Exception {
+        checkConvergence("loopback", 2);
+    }
+
+    private void checkConvergence(String transport, int instanceCount) throws Exception {
+        List<ConfigurableApplicationContext> instances = new ArrayList<>();
+        try {
+            for (int i = 0; i < instanceCount; i++) {
+                instances.add(startInstance(transport, i == 0));
+            }
+            TriPlanService writer = instances.get(0).getBean(TriPlanService.class);
+            UserService userService = instances.get(0).getBean(UserService.class);
+
+            User user = new User();
+            user.setUsername(transport + "-owner");
+            user.setPassword("password");
+            user.setEmail(transport + "@example.com");
+            userService.save(user);
+            user = userService.findByUsername(user.getUsername());
+
+            String hotel = "Convergence Inn " + transport;
+            LocalDate start = LocalDate.of(2030, 3, 1);
+            TriPlan trip = new TriPlan();
+            trip.setName("Lisbon");
+            trip.setStartDate(start);
+            trip.setEndDate(start.plusDays(1));
+            trip.setHotel(start, hotel);
+            trip.setUser(user);
+            trip.setPublished(true);
+            trip = writer.save(trip);
+
+            for (ConfigurableApplicationContext instance : instances) {
+                awaitTrue(() -> completesHotel(instance, hotel), "published trip reached every instance");
+            }
+
+            writer.unpublishTrip(trip.getId());
+            for (ConfigurableApplicationContext instance : instances) {
+                awaitTrue(() -> !completesHotel(instance, hotel), "unpublished trip left every instance");
+            }
+
+            // Changes converge whichever instance makes them.
+            instances.get(instanceCount - 1).getBean(TriPlanService.class).publishTrip(trip.getId());
+            for (ConfigurableApplicationContext instance : instances) {
+                awaitTrue(() -> completesHotel(instance, hotel), "republished trip reached every instance");
+            }
+
+            instances.get(instanceCount - 1).getBean(TriPlanService.class).deleteTripById(trip.getId());
+            for (ConfigurableApplicationContext instance : instances) {
+                awaitTrue(() -> !completesHotel(instance, hotel), "deleted trip left every instance");
+            }
+        } finally {
+            instances.forEach(ConfigurableApplicationContext::close);
+        }
+    }
+
+    /**
+     * Starts an instance. The first one creates the schema, the others use it as it is.
+     * The settings are command line arguments, as default properties would lose to application.properties.
+     */
+    private static ConfigurableApplicationContext startInstance(String transport, boolean first) {
+        return new SpringApplicationBuilder(TravelPlanner.class).run(
+                "--server.port=0",
+                "--spring.jpa.show-sql=false",
+                "--spring.datasource.url=jdbc:h2:mem:cluster-" + transport + ";MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.jpa.hibernate.ddl-auto=" + (first ? "create" : "none"),
+                "--spring.session.jdbc.initialize-schema=" + (first ? "always" : "never"),
+                "--travelplanner.cluster.transport=" + transport,
+                "--travelplanner.cluster.poll-interval-ms=100",
+                "--travelplanner.cluster.loopback.group=" + transport);
+    }
+
+    private static boolean completesHotel(ConfigurableApplicationContext instance, String hotel) {
+        return instance.getBean(AutocompleteService.class).complete(AutocompleteField.HOTEL, hotel, 5).contains(hotel);
+    }
+
+    private static void awaitTrue(BooleanSupplier condition, String message) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + CONVERGENCE_TIMEOUT_MS;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, message);
+            Thread.sleep(50);
+        }
+    }
+}
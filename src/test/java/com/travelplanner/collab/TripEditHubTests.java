@@ -0,0 +1,77 @@
+package com.travelplanner.collab;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.travelplanner.TestFixtures;
+import com.travelplanner.TravelPlannerTest;
+import com.travelplanner.collab.TripEditSession.Editor;
+import com.travelplanner.history.TripField;
+import com.travelplanner.model.TriPlan;
+import com.travelplanner.service.TriPlanService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@TravelPlannerTest
+class TripEditHubTests {
+
+    private static final LocalDate START = LocalDate.of(2030, 6, 1);
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private TriPlanService triPlanService;
+
+    @Autowired
+    private TripEditHub tripEditHub;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void anEditorJoiningBeforeTheFinalCommitSeesTheLastEdits() throws Exception {
+        TriPlan trip = fixtures.createTrip(fixtures.createUser("collaborator"), "Lisbon", START, 2);
+        Editor first = tripEditHub.join(trip.getId(), session("first", new CopyOnWriteArrayList<>()), "collaborator");
+        tripEditHub.receive(trip.getId(), first, new DayOperation(START, TripField.HOTEL, "Hotel Central", 1));
+        tripEditHub.leave(trip.getId(), first);
+
+        List<String> received = new CopyOnWriteArrayList<>();
+        Editor second = tripEditHub.join(trip.getId(), session("second", received), "collaborator");
+
+        JsonNode state = objectMapper.readTree(received.get(0));
+        assertEquals("state", state.get("type").asText());
+        assertEquals("Hotel Central", state.get("values").get(0).get("value").asText());
+
+        tripEditHub.leave(trip.getId(), second);
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!"Hotel Central".equals(triPlanService.getTriPlanById(trip.getId()).getHotel(START))) {
+            assertTrue(System.currentTimeMillis() < deadline, "the final commit should save the edit");
+            Thread.sleep(50);
+        }
+    }
+
+    private static WebSocketSession session(String id, List<String> received) throws Exception {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(id);
+        when(session.isOpen()).thenReturn(true);
+        doAnswer(invocation -> {
+            received.add(((TextMessage) invocation.getArgument(0)).getPayload());
+            return null;
+        }).when(session).sendMessage(any(WebSocketMessage.class));
+        return session;
+    }
+}
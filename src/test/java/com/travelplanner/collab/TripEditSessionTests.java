@@ -0,0 +1,84 @@
+package com.travelplanner.collab;
+
+import com.travelplanner.collab.TripEditSession.Batch;
+import com.travelplanner.collab.TripEditSession.DayField;
+import com.travelplanner.collab.TripEditSession.Editor;
+import com.travelplanner.history.TripField;
+import com.travelplanner.model.TriPlan;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TripEditSessionTests {
+
+    private static final LocalDate START = LocalDate.of(2030, 6, 1);
+
+    private final Editor alice = new Editor("a", null, "alice");
+    private final Editor bob = new Editor("b", null, "bob");
+
+    @Test
+    void appliesQueuedOperationsAsOneCoalescedBatch() {
+        TripEditSession session = new TripEditSession(trip());
+        session.enqueue(alice, new DayOperation(START, TripField.HOTEL, "Hotel A", 1));
+        session.enqueue(bob, new DayOperation(START, TripField.ACTIVITY, "Museum", 1));
+        session.enqueue(alice, new DayOperation(START, TripField.HOTEL, "Hotel Ad", 2));
+        session.enqueue(bob, new DayOperation(START.plusDays(9), TripField.HOTEL, "Outside the trip", 2));
+
+        Batch batch = session.applyQueued();
+
+        assertEquals(4, batch.operations());
+        assertEquals(List.of(new DayField(START, TripField.ACTIVITY), new DayField(START, TripField.HOTEL)),
+                List.copyOf(batch.values().keySet()));
+        assertEquals("Hotel Ad", batch.values().get(new DayField(START, TripField.HOTEL)));
+        assertEquals(Map.of("a", 2L, "b", 2L), batch.acks());
+        assertNull(session.applyQueued());
+    }
+
+    @Test
+    void keepsUnsavedValuesUntilTheyAreCommitted() {
+        TripEditSession session = new TripEditSession(trip());
+        session.enqueue(alice, new DayOperation(START, TripField.HOTEL, "Hotel A", 1));
+        session.applyQueued();
+
+        Map<DayField, String> first = session.takeUnsaved();
+        session.enqueue(alice, new DayOperation(START.plusDays(1), TripField.HOTEL, "Hotel B", 2));
+        session.applyQueued();
+        session.notSaved();
+
+        assertEquals(2, session.takeUnsaved().size());
+        session.saved();
+        assertTrue(session.takeUnsaved().isEmpty());
+        assertEquals(1, first.size());
+    }
+
+    @Test
+    void reloadsSavedChangesUnderTheUnsavedValues() {
+        TripEditSession session = new TripEditSession(trip());
+        session.enqueue(alice, new DayOperation(START, TripField.HOTEL, "Hotel A", 1));
+        session.applyQueued();
+
+        TriPlan changedElsewhere = trip();
+        changedElsewhere.setHotel(START, "Hotel from the form");
+        changedElsewhere.setActivity(START.plusDays(1), "Cooking class");
+        session.reload(changedElsewhere);
+
+        Map<DayField, String> state = session.snapshot();
+        assertEquals("Hotel A", state.get(new DayField(START, TripField.HOTEL)));
+        assertEquals("Cooking class", state.get(new DayField(START.plusDays(1), TripField.ACTIVITY)));
+    }
+
+    private static TriPlan trip() {
+        TriPlan trip = new TriPlan();
+        trip.setId(7L);
+        trip.setName("Lisbon");
+        trip.setStartDate(START);
+        trip.setEndDate(START.plusDays(2));
+        return trip;
+    }
+}
@@ -0,0 +1,50 @@
+package com.travelplanner.dictionary;
+
+import com.travelplanner.TestFixtures;
+import com.travelplanner.TravelPlannerTest;
+import com.travelplanner.model.TriPlan;
+import com.travelplanner.model.User;
+import com.travelplanner.service.TriPlanService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+@TravelPlannerTest
+class DayValueDictionaryTests {
+
+    private static final LocalDate START = LocalDate.of(2030, 6, 1);
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private TriPlanService triPlanService;
+
+    @Test
+    void storesHotelsAndActivitiesAsIdsAndLoadsThemBack() throws Exception {
+        User user = fixtures.createUser("encoder");
+        TriPlan trip = new TriPlan();
+        trip.setName("Vienna");
+        trip.setStartDate(START);
+        trip.setEndDate(START.plusDays(1));
+        trip.setUser(user);
+        trip.setHotel(START, "Hotel Sacher Vienna");
+        trip.setHotel(START.plusDays(1), "Hotel Sacher Vienna");
+        trip.setActivity(START, "Opera evening in Vienna");
+        Long id = triPlanService.save(trip).getId();
+
+        TriPlan loaded = triPlanService.getTriPlanById(id);
+        assertEquals("Hotel Sacher Vienna", loaded.getHotel(START));
+        assertEquals("Opera evening in Vienna", loaded.getActivity(START));
+        assertNull(loaded.getActivity(START.plusDays(1)));
+        assertSame(loaded.getHotel(START), loaded.getHotel(START.plusDays(1)));
+        assertEquals(1, fixtures.count("select count(*) from day_value where name = 'Hotel Sacher Vienna'"));
+        assertEquals(2, fixtures.count("select count(*) from tri_plan_hotels h join day_value v on v.id = h.hotel_id"
+                + " where h.tri_plan_id = " + id + " and v.name = 'Hotel Sacher Vienna'"));
+    }
+}
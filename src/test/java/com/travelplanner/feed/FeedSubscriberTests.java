@@ -0,0 +1,45 @@
+package com.travelplanner.feed;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.travelplanner.model.OutboxEvent;
+import com.travelplanner.model.TripEventType;
+import com.travelplanner.sharding.ShardIds;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FeedSubscriberTests {
+
+    @Test
+    void sendsTheTripIdsOfOtherShardsAsStrings() throws Exception {
+        List<Object> sent = new ArrayList<>();
+        SseEmitter emitter = new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) {
+                builder.build().stream()
+                        .filter(data -> MediaType.APPLICATION_JSON.equals(data.getMediaType()))
+                        .map(DataWithMediaType::getData)
+                        .forEach(sent::add);
+            }
+        };
+        FeedSubscriber subscriber = new FeedSubscriber(emitter, 4, Runnable::run);
+        long tripId = ShardIds.firstId(1);
+
+        assertTrue(subscriber.offer(new OutboxEvent(TripEventType.DELETED, tripId, true)));
+
+        assertEquals(1, sent.size());
+        ObjectMapper objectMapper = new ObjectMapper();
+        JsonNode data = objectMapper.readTree(objectMapper.writeValueAsString(sent.get(0)));
+        assertTrue(data.get("tripId").isTextual());
+        assertEquals("36028797018963969", data.get("tripId").asText());
+        assertEquals("DELETED", data.get("type").asText());
+    }
+}
@@ -0,0 +1,48 @@
+package com.travelplanner.geo;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class GeoGridIndexTests {
+
+    @Test
+    void findsPointsByRadiusNearestFirst() {
+        GeoGridIndex index = new GeoGridIndex(1);
+        index.put(1, 48.8566, 2.3522);   // Paris
+        index.put(2, 50.8503, 4.3517);   // Brussels
+        index.put(3, 51.5074, -0.1278);  // London
+        index.put(4, 41.9028, 12.4964);  // Rome
+
+        assertEquals(List.of(1L, 2L), index.withinRadius(48.8566, 2.3522, 300, 10));
+        assertEquals(List.of(1L, 2L, 3L), index.withinRadius(48.8566, 2.3522, 400, 10));
+
+        index.remove(2);
+        assertEquals(List.of(1L, 3L), index.withinRadius(48.8566, 2.3522, 400, 10));
+    }
+
+    @Test
+    void findsPointsByBoxAcrossTheAntimeridian() {
+        GeoGridIndex index = new GeoGridIndex(1);
+        index.put(1, -18.1248, 178.4501);
+        index.put(2, -17.7, -179.9);
+        index.put(3, 48.8566, 2.3522);
+
+        assertEquals(Set.of(1L, 2L), Set.copyOf(index.withinBox(-20, 170, -15, -170, 10)));
+        assertEquals(Set.of(1L, 2L, 3L), Set.copyOf(index.withinBox(-90, -180, 90, 180, 10)));
+        assertEquals(List.of(2L), index.withinRadius(-18, 179.9, 100, 10));
+    }
+
+    @Test
+    void resolvesDestinationsFromTheGazetteer() {
+        Gazetteer gazetteer = new Gazetteer(new ClassPathResource("gazetteer/places.tsv"));
+        assertEquals("FR", gazetteer.resolve("Paris").country());
+        assertEquals("Munich", gazetteer.resolve(" münchen, Germany").name());
+        assertNull(gazetteer.resolve("Atlantis"));
+    }
+}
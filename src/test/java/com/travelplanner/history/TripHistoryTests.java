@@ -0,0 +1,88 @@
+package com.travelplanner.history;
+
+import com.travelplanner.TestFixtures;
+import com.travelplanner.TravelPlannerTest;
+import com.travelplanner.model.TriPlan;
+import com.travelplanner.model.User;
+import com.travelplanner.service.TriPlanService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@TravelPlannerTest
+class TripHistoryTests {
+
+    private static final LocalDate START = LocalDate.of(2030, 6, 1);
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private TriPlanService triPlanService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void storesOnlyTheChangedDaysAndRebuildsEveryVersion() throws Exception {
+        TriPlan trip = fixtures.createTrip(fixtures.createUser("historian"), "Seville", START, 3);
+        Long id = trip.getId();
+        for (int i = 1; i <= 9; i++) {
+            triPlanService.saveDayDetails(id, START.plusDays(i % 3), "Hotel " + i, "Activity " + i);
+        }
+        triPlanService.publishTrip(id);
+
+        List<TripVersion> versions = triPlanService.getTripVersions(id);
+        assertEquals(10, versions.size());
+        assertEquals(10, versions.get(0).revision());
+        assertEquals(List.of(1, 5, 9), jdbcTemplate.queryForList(
+                "select revision from trip_revision where trip_id = ? and snapshot = true order by revision", Integer.class, id));
+        assertEquals(2, versions.get(0).changeCount());
+
+        List<TripChange> changes = triPlanService.diffTripVersions(id, 6, 7);
+        assertEquals(List.of(
+                new TripChange(TripField.HOTEL, START.plusDays(0), "Hotel 3", "Hotel 6"),
+                new TripChange(TripField.ACTIVITY, START.plusDays(0), "Activity 3", "Activity 6")), changes);
+        assertEquals(6, triPlanService.diffTripVersions(id, 1, 10).size());
+        assertNull(triPlanService.diffTripVersions(id, 1, 11));
+    }
+
+    @Test
+    void restoresAnOlderVersionAsANewOne() throws Exception {
+        TriPlan trip = fixtures.createTrip(fixtures.createUser("restorer"), "Seville", START, 3);
+        Long id = trip.getId();
+        triPlanService.saveDayDetails(id, START, "Hotel Central", "Museum");
+        triPlanService.saveDayDetails(id, START, "Hotel Harbour", "Boat tour");
+
+        assertNull(triPlanService.restoreTripVersion(id, 2, "someone else"));
+        TriPlan restored = triPlanService.restoreTripVersion(id, 2, "restorer");
+
+        assertNotNull(restored);
+        assertEquals("Hotel Central", triPlanService.getTriPlanById(id).getHotel(START));
+        assertEquals(4, triPlanService.getTripVersions(id).get(0).revision());
+        assertTrue(triPlanService.diffTripVersions(id, 2, 4).isEmpty());
+    }
+
+    @Test
+    void linksACopyToTheVersionOfItsOriginal() throws Exception {
+        TriPlan original = fixtures.createTrip(fixtures.createUser("author"), "Seville", START, 3);
+        triPlanService.saveDayDetails(original.getId(), START, "Hotel Central", "Museum");
+        User reader = fixtures.createUser("reader");
+
+        triPlanService.saveTrip(triPlanService.getTriPlanById(original.getId()), reader);
+
+        TriPlan copy = triPlanService.findTripsByUser("reader").get(0);
+        TripVersion first = triPlanService.getTripVersions(copy.getId()).get(0);
+        assertEquals(original.getId(), first.sourceTripId());
+        assertEquals(2, first.sourceRevision());
+        assertTrue(first.snapshot());
+    }
+}
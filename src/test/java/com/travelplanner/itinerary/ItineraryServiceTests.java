@@ -0,0 +1,65 @@
+package com.travelplanner.itinerary;
+
+import com.travelplanner.model.TriPlan;
+import com.travelplanner.model.TripEventType;
+import com.travelplanner.service.TripChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ItineraryServiceTests {
+
+    @TempDir
+    Path cacheDirectory;
+
+    private ItineraryService itineraryService;
+
+    @AfterEach
+    void shutdown() {
+        if (itineraryService != null) {
+            itineraryService.shutdown();
+        }
+    }
+
+    @Test
+    void cachesItinerariesPerTripVersion() throws Exception {
+        itineraryService = new ItineraryService(cacheDirectory, Duration.ofDays(7), 1, 4, new SimpleMeterRegistry());
+        TriPlan tripPlan = trip(1L, 0L);
+
+        Path first = itineraryService.getItinerary(tripPlan).get();
+        assertEquals("%PDF", new String(Files.readAllBytes(first), 0, 4, StandardCharsets.US_ASCII));
+        assertEquals(first, itineraryService.getItinerary(tripPlan).get());
+
+        tripPlan.setActivity(LocalDate.of(2024, 7, 2), "Louvre");
+        tripPlan.setVersion(1L);
+        Path second = itineraryService.getItinerary(tripPlan).get();
+        assertNotEquals(first, second);
+
+        itineraryService.onTripChanged(new TripChangedEvent(TripEventType.DAYS_EDITED, 1L, tripPlan));
+        assertFalse(Files.exists(first));
+        assertTrue(Files.exists(second));
+    }
+
+    private static TriPlan trip(Long id, Long version) {
+        TriPlan tripPlan = new TriPlan();
+        tripPlan.setId(id);
+        tripPlan.setVersion(version);
+        tripPlan.setName("Paris");
+        tripPlan.setStartDate(LocalDate.of(2024, 7, 1));
+        tripPlan.setEndDate(LocalDate.of(2024, 7, 3));
+        tripPlan.setHotel(LocalDate.of(2024, 7, 1), "Hotel du Louvre");
+        return tripPlan;
+    }
+}
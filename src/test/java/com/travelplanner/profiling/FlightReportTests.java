@@ -0,0 +1,75 @@
+package com.travelplanner.profiling;
+
+import jdk.jfr.Recording;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FlightReportTests {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void summarizesTheSlowestRequestsWithTheirPhases() throws Exception {
+        Path file = directory.resolve("recording.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(RequestEvent.class);
+            recording.enable(HandlerEvent.class);
+            recording.enable(QueryEvent.class);
+            recording.start();
+            request("fast", "/", 0, 1);
+            request("slow", "/trip/{id}", 3, 30);
+            recording.stop();
+            recording.dump(file);
+        } finally {
+            RequestIds.clear();
+        }
+
+        List<FlightReport.RequestProfile> profiles = FlightReport.slowestRequests(file, 10);
+
+        // The fast request can be descheduled for longer than the slow one sleeps on a busy machine,
+        // so the profiles are looked up by request id rather than by rank.
+        for (int i = 1; i < profiles.size(); i++) {
+            assertTrue(profiles.get(i - 1).duration().compareTo(profiles.get(i).duration()) >= 0);
+        }
+        assertTrue(profiles.stream().anyMatch(profile -> profile.requestId().equals("fast")));
+        FlightReport.RequestProfile slow = profiles.stream()
+                .filter(profile -> profile.requestId().equals("slow")).findFirst().orElseThrow();
+        assertEquals("/trip/{id}", slow.route());
+        assertEquals(200, slow.status());
+        assertEquals(3, slow.queries());
+        assertEquals(3, slow.rows());
+        assertTrue(slow.phases().get(FlightReport.Phase.HANDLER).toMillis() >= 30);
+        assertTrue(slow.duration().compareTo(slow.phases().get(FlightReport.Phase.HANDLER)) >= 0);
+    }
+
+    private void request(String requestId, String route, int queries, long handlerMillis) throws InterruptedException {
+        RequestIds.set(requestId);
+        RequestEvent request = new RequestEvent();
+        request.method = "GET";
+        request.path = route;
+        request.route = route;
+        request.begin();
+        HandlerEvent handler = new HandlerEvent();
+        handler.handler = "TriPlanController#trip";
+        handler.begin();
+        for (int i = 0; i < queries; i++) {
+            QueryEvent query = new QueryEvent();
+            query.repository = "TriPlanRepository";
+            query.method = "findById";
+            query.begin();
+            query.rows = 1;
+            query.commit();
+        }
+        Thread.sleep(handlerMillis);
+        handler.commit();
+        request.status = 200;
+        request.commit();
+    }
+}
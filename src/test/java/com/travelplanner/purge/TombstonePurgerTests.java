@@ -0,0 +1,76 @@
+package com.travelplanner.purge;
+
+import com.travelplanner.TestFixtures;
+import com.travelplanner.TravelPlannerTest;
+import com.travelplanner.account.AccountJobs;
+import com.travelplanner.model.TriPlan;
+import com.travelplanner.model.User;
+import com.travelplanner.service.TriPlanService;
+import com.travelplanner.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@TravelPlannerTest
+class TombstonePurgerTests {
+
+    private static final LocalDate START = LocalDate.of(2030, 6, 1);
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private TriPlanService triPlanService;
+
+    @Autowired
+    private TombstonePurger tombstonePurger;
+
+    @Autowired
+    private AccountJobs accountJobs;
+
+    @Test
+    void hidesDeletedTripsAndUsersUntilTheyArePurged() throws Exception {
+        User user = fixtures.createUser("tombstone");
+        TriPlan kept = createTrip(user);
+        TriPlan deleted = createTrip(user);
+
+        assertTrue(triPlanService.deleteTripOfUser(deleted.getId(), "tombstone"));
+        assertNull(triPlanService.getTriPlanById(deleted.getId()));
+        assertEquals(1, triPlanService.findTripsByUser("tombstone").size());
+        assertEquals(3, fixtures.count("select count(*) from tri_plan_hotels where tri_plan_id = " + deleted.getId()));
+
+        userService.deleteUser(user.getId());
+        assertNull(userService.findByUsername("tombstone"));
+        assertEquals(1, accountJobs.runPendingJobs());
+        assertNull(triPlanService.getTriPlanById(kept.getId()));
+        assertThrows(Exception.class, () -> fixtures.createUser("tombstone"));
+
+        // Other tests share the database, so their deleted trips are purged as well
+        long deletedTrips = fixtures.count("select count(*) from tri_plan where deleted_at is not null");
+        assertEquals(deletedTrips, tombstonePurger.purge(Instant.now().plusSeconds(1), Instant.now().plusSeconds(60)));
+        assertEquals(0, fixtures.count("select count(*) from tri_plan where username = 'tombstone'"));
+        assertEquals(0, fixtures.count("select count(*) from tri_plan_hotels where tri_plan_id in ("
+                + kept.getId() + ", " + deleted.getId() + ")"));
+        assertEquals(0, fixtures.count("select count(*) from user where username = 'tombstone'"));
+
+        fixtures.createUser("tombstone");
+    }
+
+    private TriPlan createTrip(User user) {
+        TriPlan trip = fixtures.createTrip(user, "Lisbon", START, 3);
+        for (int day = 0; day < 3; day++) {
+            triPlanService.saveDayDetails(trip.getId(), START.plusDays(day), "Hotel " + day, "Activity " + day);
+        }
+        return trip;
+    }
+}
@@ -0,0 +1,32 @@
+package com.travelplanner.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketTests {
+
+    private static final long MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+    @Test
+    void allowsBurstUpToCapacity() {
+        TokenBucket bucket = new TokenBucket(3, MINUTE, 0);
+        assertEquals(0, bucket.tryAcquire(0));
+        assertEquals(0, bucket.tryAcquire(0));
+        assertEquals(0, bucket.tryAcquire(0));
+        assertEquals(MINUTE / 3, bucket.tryAcquire(0));
+    }
+
+    @Test
+    void refillsOverTime() {
+        TokenBucket bucket = new TokenBucket(2, MINUTE, 0);
+        bucket.tryAcquire(0);
+        bucket.tryAcquire(0);
+        assertTrue(bucket.tryAcquire(MINUTE / 4) > 0);
+        assertEquals(0, bucket.tryAcquire(MINUTE / 2));
+        assertTrue(bucket.isIdle(2 * MINUTE));
+    }
+}
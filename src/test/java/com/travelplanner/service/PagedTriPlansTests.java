@@ -0,0 +1,61 @@
+package com.travelplanner.service;
+
+import com.travelplanner.model.FeedCursor;
+import com.travelplanner.model.TriPlan;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PagedTriPlansTests {
+
+    private final List<TriPlan> feed = new ArrayList<>();
+    private final List<FeedCursor> readAfter = new ArrayList<>();
+
+    @Test
+    void readsThePagesOneAfterTheOtherWhileIterating() {
+        for (long id = 1; id <= 7; id++) {
+            feed.add(trip(id));
+        }
+        List<String> events = new ArrayList<>();
+        PagedTriPlans tripPlans = new PagedTriPlans(this::readPage, 3).onPage(() -> events.add("flush"));
+
+        assertFalse(tripPlans.isEmpty());
+        for (TriPlan triPlan : tripPlans) {
+            events.add(String.valueOf(triPlan.getId()));
+        }
+
+        assertEquals(List.of("1", "2", "3", "flush", "4", "5", "6", "flush", "7"), events);
+        assertEquals(3, readAfter.size());
+        assertEquals(null, readAfter.get(0));
+        assertEquals(FeedCursor.after(feed.get(2)), readAfter.get(1));
+        assertEquals(FeedCursor.after(feed.get(5)), readAfter.get(2));
+    }
+
+    @Test
+    void readsOnlyTheFirstPageOfAnEmptyFeed() {
+        PagedTriPlans tripPlans = new PagedTriPlans(this::readPage, 3);
+
+        assertTrue(tripPlans.isEmpty());
+        assertFalse(tripPlans.iterator().hasNext());
+        assertEquals(1, readAfter.size());
+    }
+
+    private List<TriPlan> readPage(FeedCursor after, int limit) {
+        readAfter.add(after);
+        int from = after == null ? 0 : feed.indexOf(feed.stream().filter(t -> t.getId().equals(after.id())).findFirst().orElseThrow()) + 1;
+        return feed.subList(from, Math.min(from + limit, feed.size()));
+    }
+
+    private static TriPlan trip(long id) {
+        TriPlan triPlan = new TriPlan();
+        triPlan.setId(id);
+        triPlan.setStartDate(LocalDate.of(2030, 1, 1).plusDays(id));
+        return triPlan;
+    }
+}
@@ -0,0 +1,159 @@
+package com.travelplanner.sharding;
+
+import com.travelplanner.model.FeedCursor;
+import com.travelplanner.model.TriPlan;
+import com.travelplanner.model.TripEventType;
+import com.travelplanner.model.User;
+import com.travelplanner.repository.TriPlanRepository;
+import com.travelplanner.repository.UserRepository;
+import com.travelplanner.service.TriPlanService;
+import com.travelplanner.service.TripChangedEvent;
+import com.travelplanner.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:shard0;MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1",
+        "travelplanner.sharding.enabled=true",
+        "travelplanner.sharding.shards[0].url=jdbc:h2:mem:shard0;MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1",
+        "travelplanner.sharding.shards[1].url=jdbc:h2:mem:shard1;MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1",
+        "travelplanner.sharding.shards[2].url=jdbc:h2:mem:shard2;MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1"
+})
+@ActiveProfiles("prod")
+@RecordApplicationEvents
+class ShardingTests {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private TriPlanService triPlanService;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private ShardRebalancer shardRebalancer;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TriPlanRepository triPlanRepository;
+
+    @Autowired
+    private ApplicationEvents applicationEvents;
+
+    @Test
+    void partitionsTripsByOwnerAndMergesFeed() throws Exception {
+        Set<Integer> usedShards = new HashSet<>();
+        for (int i = 0; i < 12; i++) {
+            String username = "owner" + i;
+            TriPlan trip = createTrip(username, LocalDate.of(2030, 1 + i % 12, 1));
+            int shard = shardRouter.shardOfUser(username);
+            assertEquals(shard, ShardIds.shardOf(trip.getId()));
+            assertEquals(shard, ShardIds.shardOf(userService.findByUsername(username).getId()));
+            assertEquals(1, triPlanService.findTripsByUser(username).size());
+            assertNotNull(triPlanService.getTriPlanById(trip.getId()));
+            usedShards.add(shard);
+        }
+        assertTrue(usedShards.size() > 1);
+
+        List<TriPlan> feed = triPlanService.getAllPublishedTriPlans();
+        List<TriPlan> sorted = new ArrayList<>(feed);
+        sorted.sort(TriPlanService.FEED_ORDER);
+        assertEquals(ids(sorted), ids(feed));
+
+        List<TriPlan> paged = new ArrayList<>(triPlanService.getPublishedTriPlans(null, 5));
+        while (true) {
+            List<TriPlan> page = triPlanService.getPublishedTriPlans(FeedCursor.after(paged.get(paged.size() - 1)), 5);
+            if (page.isEmpty()) {
+                break;
+            }
+            paged.addAll(page);
+        }
+        assertEquals(ids(feed), ids(paged));
+    }
+
+    @Test
+    void movesUserToAnotherShard() throws Exception {
+        TriPlan trip = createTrip("traveller", LocalDate.of(2031, 5, 1));
+        int source = shardRouter.shardOfUser("traveller");
+        int target = (source + 1) % shardRouter.getShardCount();
+
+        Map<Long, Long> newIds = shardRebalancer.moveUser("traveller", target);
+
+        Long newId = newIds.get(trip.getId());
+        assertEquals(target, ShardIds.shardOf(newId));
+        assertEquals(target, shardRouter.shardOfUser("traveller"));
+        assertNull(triPlanService.getTriPlanById(trip.getId()));
+        assertEquals("Hotel", triPlanService.getTriPlanById(newId).getHotel(LocalDate.of(2031, 5, 1)));
+        assertEquals(1, triPlanService.findTripsByUser("traveller").size());
+        assertNotNull(userService.findByUsername("traveller"));
+        assertTrue(applicationEvents.stream(TripChangedEvent.class).anyMatch(event ->
+                event.type() == TripEventType.CREATED && event.tripId().equals(newId)));
+        assertTrue(applicationEvents.stream(TripChangedEvent.class).anyMatch(event ->
+                event.type() == TripEventType.DELETED && event.tripId().equals(trip.getId())));
+    }
+
+    @Test
+    void retriesAMoveThatLeftCopiesBehind() throws Exception {
+        TriPlan trip = createTrip("retrier", LocalDate.of(2031, 6, 1));
+        int target = (shardRouter.shardOfUser("retrier") + 1) % shardRouter.getShardCount();
+        // An earlier attempt copied the user and the trip, then failed before updating the directory
+        shardRouter.runOnShard(target, () -> {
+            User copy = new User();
+            copy.setUsername("retrier");
+            copy.setPassword("password");
+            copy.setEmail("retrier@example.com");
+            TriPlan tripCopy = new TriPlan();
+            tripCopy.setName(trip.getName());
+            tripCopy.setStartDate(trip.getStartDate());
+            tripCopy.setEndDate(trip.getEndDate());
+            tripCopy.setUser(userRepository.save(copy));
+            triPlanRepository.save(tripCopy);
+        });
+
+        Long newId = shardRebalancer.moveUser("retrier", target).get(trip.getId());
+
+        assertEquals(target, shardRouter.shardOfUser("retrier"));
+        assertEquals(List.of(newId), ids(triPlanService.findTripsByUser("retrier")));
+    }
+
+    private TriPlan createTrip(String username, LocalDate start) throws Exception {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("password");
+        user.setEmail(username + "@example.com");
+        userService.save(user);
+
+        TriPlan trip = new TriPlan();
+        trip.setName("Trip of " + username);
+        trip.setStartDate(start);
+        trip.setEndDate(start.plusDays(2));
+        trip.setPublished(true);
+        trip.setHotel(start, "Hotel");
+        trip.setUser(userService.findByUsername(username));
+        return triPlanService.save(trip);
+    }
+
+    private List<Long> ids(List<TriPlan> trips) {
+        return trips.stream().map(TriPlan::getId).toList();
+    }
+}
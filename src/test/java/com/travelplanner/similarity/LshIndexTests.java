@@ -0,0 +1,37 @@
+package com.travelplanner.similarity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class LshIndexTests {
+
+    private final MinHasher minHasher = new MinHasher(120, 1);
+
+    @Test
+    void findsMostSimilarFirstAndForgetsRemovedItems() {
+        LshIndex index = new LshIndex(40, 3, 1000);
+        Set<String> query = tokens("louvre", "orsay", "eiffel", "seine", "hotel-lutetia", "montmartre");
+        index.put(1, minHasher.signature(tokens("louvre", "orsay", "eiffel", "seine", "hotel-lutetia", "pantheon")));
+        index.put(2, minHasher.signature(tokens("louvre", "orsay", "versailles", "hotel-ritz", "seine", "marais")));
+        index.put(3, minHasher.signature(tokens("colosseum", "forum", "vatican", "hotel-roma", "trastevere", "pantheon")));
+
+        int[] signature = minHasher.signature(query);
+        assertEquals(List.of(1L, 2L), index.topK(signature, 2, Set.of()));
+        assertEquals(List.of(2L), index.topK(signature, 2, Set.of(1L)));
+
+        index.remove(1);
+        assertFalse(index.topK(signature, 2, Set.of()).contains(1L));
+        assertEquals(2, index.size());
+    }
+
+    private static Set<String> tokens(String... values) {
+        return new HashSet<>(Arrays.asList(values));
+    }
+}
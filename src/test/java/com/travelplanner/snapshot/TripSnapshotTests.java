@@ -0,0 +1,94 @@
+package com.travelplanner.snapshot;
+
+import com.travelplanner.model.TriPlan;
+import com.travelplanner.model.TripEventType;
+import com.travelplanner.service.TripChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TripSnapshotTests {
+
+    private static final LocalDate START = LocalDate.of(2030, 5, 1);
+
+    @Test
+    void indexesTheDaysOfTheTripByOffset() {
+        TriPlan triPlan = trip(1L, 0L);
+        triPlan.setHotel(START, "Hotel Roma");
+        triPlan.setActivity(START.plusDays(2), "Colosseum");
+        triPlan.setActivity(START.plusDays(3), " ");
+        triPlan.setHotel(START.plusDays(9), "Outside the trip");
+
+        TripSnapshot snapshot = TripSnapshot.of(triPlan);
+        triPlan.setHotel(START.plusDays(1), "Changed later");
+
+        assertEquals(4L, snapshot.getTripLength());
+        assertEquals("Hotel Roma", snapshot.getHotel(START));
+        assertEquals("Colosseum", snapshot.getActivity(START.plusDays(2)));
+        assertNull(snapshot.getHotel(START.plusDays(1)));
+        assertNull(snapshot.getActivity(START.plusDays(3)));
+        assertNull(snapshot.getHotel(START.plusDays(9)));
+        assertNull(snapshot.getHotel(START.minusDays(1)));
+        assertEquals(List.of(
+                new TripSnapshot.Day(START, "Hotel Roma", null),
+                new TripSnapshot.Day(START.plusDays(2), null, "Colosseum")), list(snapshot.getDetailedDays()));
+        assertEquals(4, list(snapshot.getDays()).size());
+        assertTrue(snapshot.hasDetails());
+    }
+
+    @Test
+    void handlesTripsWithoutDates() {
+        TriPlan triPlan = trip(2L, 0L);
+        triPlan.setEndDate(null);
+
+        TripSnapshot snapshot = TripSnapshot.of(triPlan);
+
+        assertNull(snapshot.getTripLength());
+        assertFalse(snapshot.getDays().iterator().hasNext());
+        assertFalse(snapshot.hasDetails());
+    }
+
+    @Test
+    void reusesTheSnapshotOfTheSameVersion() {
+        TripSnapshots snapshots = new TripSnapshots(100, new SimpleMeterRegistry());
+        TriPlan triPlan = trip(3L, 0L);
+
+        TripSnapshot first = snapshots.of(triPlan);
+        assertSame(first, snapshots.of(trip(3L, 0L)));
+
+        TriPlan edited = trip(3L, 1L);
+        edited.setHotel(START, "Hotel Milano");
+        TripSnapshot second = snapshots.of(edited);
+        assertNotSame(first, second);
+        assertEquals("Hotel Milano", second.getHotel(START));
+
+        snapshots.onTripChanged(new TripChangedEvent(TripEventType.DELETED, 3L, null));
+        assertNotSame(second, snapshots.of(edited));
+    }
+
+    private static TriPlan trip(Long id, Long version) {
+        TriPlan triPlan = new TriPlan();
+        triPlan.setId(id);
+        triPlan.setVersion(version);
+        triPlan.setName("Rome");
+        triPlan.setStartDate(START);
+        triPlan.setEndDate(START.plusDays(3));
+        return triPlan;
+    }
+
+    private static List<TripSnapshot.Day> list(Iterable<TripSnapshot.Day> days) {
+        List<TripSnapshot.Day> result = new ArrayList<>();
+        days.forEach(result::add);
+        return result;
+    }
+}